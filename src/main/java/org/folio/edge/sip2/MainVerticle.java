@@ -1,10 +1,12 @@
 package org.folio.edge.sip2;
 
 import static java.lang.Boolean.FALSE;
+import static org.folio.edge.sip2.parser.Command.ACS_STATUS;
 import static org.folio.edge.sip2.parser.Command.CHECKIN;
 import static org.folio.edge.sip2.parser.Command.CHECKOUT;
 import static org.folio.edge.sip2.parser.Command.END_PATRON_SESSION;
 import static org.folio.edge.sip2.parser.Command.FEE_PAID;
+import static org.folio.edge.sip2.parser.Command.HOLD;
 import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION;
 import static org.folio.edge.sip2.parser.Command.LOGIN;
 import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION;
@@ -31,7 +33,6 @@ import io.vertx.core.net.NetServer;
 import io.vertx.core.net.NetServerOptions;
 import io.vertx.core.net.NetSocket;
 import io.vertx.core.parsetools.RecordParser;
-import io.vertx.ext.web.client.WebClient;
 import java.nio.charset.Charset;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -46,19 +47,32 @@ import org.folio.edge.sip2.handlers.CheckoutHandler;
 import org.folio.edge.sip2.handlers.EndPatronSessionHandler;
 import org.folio.edge.sip2.handlers.FeePaidHandler;
 import org.folio.edge.sip2.handlers.HandlersFactory;
+import org.folio.edge.sip2.handlers.HoldHandler;
 import org.folio.edge.sip2.handlers.ISip2RequestHandler;
 import org.folio.edge.sip2.handlers.ItemInformationHandler;
+import org.folio.edge.sip2.handlers.LoadSheddingHandler;
 import org.folio.edge.sip2.handlers.LoginHandler;
+import org.folio.edge.sip2.handlers.OfflineHandler;
 import org.folio.edge.sip2.handlers.PatronInformationHandler;
 import org.folio.edge.sip2.handlers.PatronStatusHandler;
 import org.folio.edge.sip2.handlers.RenewAllHandler;
 import org.folio.edge.sip2.handlers.RenewHandler;
+import org.folio.edge.sip2.handlers.SCStatusHandler;
+import org.folio.edge.sip2.handlers.UnsupportedMessageHandler;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
 import org.folio.edge.sip2.metrics.Metrics;
 import org.folio.edge.sip2.modules.ApplicationModule;
 import org.folio.edge.sip2.modules.FolioResourceProviderModule;
 import org.folio.edge.sip2.parser.Command;
 import org.folio.edge.sip2.parser.Message;
 import org.folio.edge.sip2.parser.Parser;
+import org.folio.edge.sip2.repositories.ConfigurationRepository;
+import org.folio.edge.sip2.repositories.FolioWebClients;
+import org.folio.edge.sip2.repositories.OfflineCirculation;
+import org.folio.edge.sip2.resilience.DeadlinePolicy;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.resilience.RequestRejectedThrowable;
+import org.folio.edge.sip2.session.ResponseProfile;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.TenantUtils;
 
@@ -67,6 +81,12 @@ public class MainVerticle extends AbstractVerticle {
   private static final int HEALTH_CHECK_PORT = 8081;
   private static final String  HEALTH_CHECK_PATH = "/admin/health";
   private Map<Command, ISip2RequestHandler> handlers;
+  private LoadShedder loadShedder = LoadShedder.disabled();
+  private DeadlinePolicy deadlinePolicy = DeadlinePolicy.disabled();
+  private ISip2RequestHandler loadSheddingHandler;
+  private UnsupportedMessageHandler unsupportedMessageHandler;
+  private OfflineCirculation offlineCirculation;
+  private ISip2RequestHandler offlineHandler;
   private NetServer server;
   private final Logger log = LogManager.getLogger();
   private final Map<Integer, Metrics> metricsMap = new HashMap<>();
@@ -132,6 +152,8 @@ public class MainVerticle extends AbstractVerticle {
           tenantConfig.getString("fieldDelimiter", "|").charAt(0),
           tenantConfig.getBoolean("errorDetectionEnabled", FALSE),
           tenantConfig.getString("charset", "IBM850"));
+      sessionData.setResponseProfile(
+          ResponseProfile.of(tenantConfig.getJsonObject(ResponseProfile.CONFIG_KEY)));
       final String messageDelimiter = tenantConfig.getString("messageDelimiter", "\r");
 
       socket.handler(RecordParser.newDelimited(messageDelimiter, buffer -> {
@@ -176,6 +198,32 @@ public class MainVerticle extends AbstractVerticle {
             return;
           }
 
+          // the deadline is captured once and goes with the transaction only
+          final SessionData transaction =
+              sessionData.forTransaction(deadlinePolicy.forTransaction(sessionData));
+
+          if (unsupportedMessageHandler != null
+              && unsupportedMessageHandler.isUnsupported(command, transaction,
+                  handlers.containsKey(command))) {
+            log.warn("Command {} is not supported, answering with a failure", command.name());
+            metrics.unsupported(command);
+            executeHandler(message,
+                transaction, messageDelimiter,
+                unsupportedMessageHandler, sample,
+                socket, metrics);
+            return;
+          }
+
+          if (loadShedder.shouldShed(command)) {
+            log.warn("FOLIO is unavailable or overloaded, shedding command {}", command.name());
+            metrics.loadShed(command);
+            executeHandler(message,
+                transaction, messageDelimiter,
+                isOffline(command) ? offlineHandler : loadSheddingHandler, sample,
+                socket, metrics);
+            return;
+          }
+
           ISip2RequestHandler handler = handlers.get(command);
 
           if (handler == null) {
@@ -184,8 +232,13 @@ public class MainVerticle extends AbstractVerticle {
             return;
           }
 
+          if (isOffline(command)) {
+            // transactions accepted offline are replayed with the kiosk's login
+            offlineCirculation.remember(transaction);
+          }
+
           executeHandler(message,
-              sessionData, messageDelimiter,
+              transaction, messageDelimiter,
               handler, sample,
               socket, metrics);
         } catch (Exception ex) {
@@ -276,6 +329,19 @@ public class MainVerticle extends AbstractVerticle {
           sample.stop(metrics.commandTimer(message.getCommand()));
           socket.write(responseMsg, sessionData.getCharset());
         }).onFailure(e -> {
+          if (e instanceof RequestRejectedThrowable && loadSheddingHandler != null
+              && handler != loadSheddingHandler && handler != offlineHandler
+              && loadShedder.hasDegradedResponse(message.getCommand())) {
+            // FOLIO was not asked, so the kiosk gets the same answer as when shedding;
+            // a passed deadline is not a rejection, earlier requests may have been sent
+            log.warn("FOLIO request rejected, degrading command {}: {}",
+                message.getCommand().name(), e.getMessage());
+            metrics.loadShed(message.getCommand());
+            executeHandler(message, sessionData, messageDelimiter,
+                isOffline(message.getCommand()) ? offlineHandler : loadSheddingHandler, sample,
+                socket, metrics);
+            return;
+          }
           String errorMsg = "Failed to respond to request";
           log.error(errorMsg, e);
           String responseMessage = (String) sessionData.getErrorResponseMessage();
@@ -316,16 +382,29 @@ public class MainVerticle extends AbstractVerticle {
    */
   private void setupHanlders() {
     if (handlers == null) {
-      String okapiUrl = config().getString("okapiUrl");
-      final WebClient webClient = WebClient.create(vertx);
+      // okapiUrl may list several endpoints, every request is balanced across
+      // them by the resource provider, see OkapiEndpoints
+      final FolioWebClients webClients =
+          FolioWebClients.create(vertx, config(), Metrics.getDefaultRegistry());
       final Injector injector = Guice.createInjector(
-          new FolioResourceProviderModule(okapiUrl, webClient),
+          new FolioResourceProviderModule(webClients, config()),
           new ApplicationModule());
+      loadShedder = injector.getInstance(LoadShedder.class);
+      deadlinePolicy = injector.getInstance(DeadlinePolicy.class);
+      loadSheddingHandler = injector.getInstance(LoadSheddingHandler.class);
+      unsupportedMessageHandler = injector.getInstance(UnsupportedMessageHandler.class);
+      offlineCirculation = injector.getInstance(OfflineCirculation.class);
+      offlineHandler = injector.getInstance(OfflineHandler.class);
+      if (offlineCirculation.isEnabled()) {
+        vertx.setPeriodic(offlineCirculation.getReplayIntervalMs(),
+            id -> offlineCirculation.replay());
+      }
       handlers = new EnumMap<>(Command.class);
       handlers.put(CHECKOUT, injector.getInstance(CheckoutHandler.class));
       handlers.put(CHECKIN, injector.getInstance(CheckinHandler.class));
-      handlers.put(SC_STATUS, HandlersFactory.getScStatusHandlerInstance(null, null,
-          null, null, okapiUrl, webClient));
+      handlers.put(SC_STATUS, new SCStatusHandler(
+          injector.getInstance(ConfigurationRepository.class),
+          FreemarkerRepository.getInstance().getFreemarkerTemplate(ACS_STATUS)));
       handlers.put(REQUEST_ACS_RESEND, HandlersFactory.getACSResendHandler());
       handlers.put(LOGIN, injector.getInstance(LoginHandler.class));
       handlers.put(PATRON_INFORMATION, injector.getInstance(PatronInformationHandler.class));
@@ -336,6 +415,7 @@ public class MainVerticle extends AbstractVerticle {
       handlers.put(ITEM_INFORMATION, injector.getInstance(ItemInformationHandler.class));
       handlers.put(RENEW,  injector.getInstance(RenewHandler.class));
       handlers.put(RENEW_ALL,  injector.getInstance(RenewAllHandler.class));
+      handlers.put(HOLD, injector.getInstance(HoldHandler.class));
     }
   }
 
@@ -441,6 +521,10 @@ public class MainVerticle extends AbstractVerticle {
     return result;
   }
 
+  private boolean isOffline(Command command) {
+    return offlineHandler != null && offlineCirculation.accepts(command);
+  }
+
   /**
    * Method that evaluates whether or not the previous message needs to be resent.
    * Resending happens when the current message's checksum and sequence number
@@ -0,0 +1,325 @@
+package org.folio.edge.sip2.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Snapshots of inventory items by tenant and barcode. The bibliographic part
+ * of an item (its id, holdings, title, location, material type and call
+ * number) barely changes and is kept for {@code ttlMs}. The status changes
+ * with every circulation command, so it is only kept for
+ * {@code volatileTtlMs}, which defaults to not at all, and circulation
+ * commands drop the snapshot of the item they changed. Loans are never kept.
+ * Snapshots read ahead by the prefetcher are marked, so that their hits show
+ * whether prefetching pays off.
+ */
+public class ItemSnapshotCache {
+  public static final String CONFIG_KEY = "itemCacheOptions";
+  public static final long DEFAULT_TTL_MS = 300_000L;
+  public static final long DEFAULT_VOLATILE_TTL_MS = 0L;
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  // the fields of an item kept for ttlMs
+  public static final List<String> STATIC_FIELDS = Collections.unmodifiableList(Arrays.asList(
+      "id", "barcode", "holdingsRecordId", "title", "effectiveLocation", "materialType",
+      "callNumber", "effectiveCallNumberComponents"));
+  // the fields of an item kept for volatileTtlMs
+  public static final List<String> VOLATILE_FIELDS = Collections.singletonList("status");
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.cache.item.";
+  private static final String READ_TAG = "read";
+  private static final String ITEM_READ = "item";
+  private static final String TITLE_READ = "title";
+
+  private final boolean enabled;
+  private final long ttlMs;
+  private final long volatileTtlMs;
+  private final int maxEntries;
+  private final Clock clock;
+  private final Map<String, Snapshot> entries;
+  private final Counter itemHits;
+  private final Counter itemMisses;
+  private final Counter titleHits;
+  private final Counter titleMisses;
+  private final Counter prefetchedItemHits;
+  private final Counter prefetchedTitleHits;
+  private final Counter evictions;
+  private final Counter invalidations;
+
+  /**
+   * Construct the cache from the {@code itemCacheOptions} configuration.
+   * @param options the options, may be {@code null} in which case nothing is cached
+   * @param clock the clock to expire snapshots with
+   * @param registry the registry to publish metrics to
+   */
+  public ItemSnapshotCache(JsonObject options, Clock clock, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.ttlMs = config.getLong("ttlMs", DEFAULT_TTL_MS);
+    // the status is never older than the bibliographic part it is kept with
+    this.volatileTtlMs = Math.min(ttlMs,
+        config.getLong("volatileTtlMs", DEFAULT_VOLATILE_TTL_MS));
+    this.maxEntries = Math.max(1, config.getInteger("maxEntries", DEFAULT_MAX_ENTRIES));
+    // access order, so the least recently used snapshot is evicted
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+        final boolean evict = size() > maxEntries;
+        if (evict) {
+          evictions.increment();
+        }
+        return evict;
+      }
+    };
+
+    if (enabled) {
+      itemHits = counter("hits", ITEM_READ, registry);
+      itemMisses = counter("misses", ITEM_READ, registry);
+      titleHits = counter("hits", TITLE_READ, registry);
+      titleMisses = counter("misses", TITLE_READ, registry);
+      prefetchedItemHits = counter("prefetch.hits", ITEM_READ, registry);
+      prefetchedTitleHits = counter("prefetch.hits", TITLE_READ, registry);
+      evictions = Counter.builder(METRICS_PREFIX + "evictions").register(registry);
+      invalidations = Counter.builder(METRICS_PREFIX + "invalidations").register(registry);
+      Gauge.builder(METRICS_PREFIX + "size", this, ItemSnapshotCache::size)
+          .register(registry);
+    } else {
+      itemHits = null;
+      itemMisses = null;
+      titleHits = null;
+      titleMisses = null;
+      prefetchedItemHits = null;
+      prefetchedTitleHits = null;
+      evictions = null;
+      invalidations = null;
+    }
+  }
+
+  /**
+   * Returns a cache that keeps nothing.
+   * @param registry the registry to publish metrics to
+   * @return a disabled cache
+   */
+  public static ItemSnapshotCache disabled(MeterRegistry registry) {
+    return new ItemSnapshotCache(null, Clock.systemUTC(), registry);
+  }
+
+  /**
+   * Returns a complete item, including its status, if its snapshot is recent
+   * enough for the status to be trusted.
+   * @param tenant the tenant
+   * @param barcode the barcode of the item
+   * @return a copy of the item or {@code null} if FOLIO must be asked
+   */
+  public JsonObject getItem(String tenant, String barcode) {
+    if (!enabled || barcode == null) {
+      return null;
+    }
+
+    final long now = clock.millis();
+    final JsonObject item;
+    final boolean prefetched;
+    synchronized (entries) {
+      final Snapshot snapshot = lookup(key(tenant, barcode), now);
+      item = snapshot != null && snapshot.volatileExpiresAt > now
+          && snapshot.item.containsKey("id") ? snapshot.item.copy() : null;
+      prefetched = item != null && snapshot.prefetched;
+    }
+    (item != null ? itemHits : itemMisses).increment();
+    if (prefetched) {
+      prefetchedItemHits.increment();
+    }
+    return item;
+  }
+
+  /**
+   * Returns the title of an item from its snapshot.
+   * @param tenant the tenant
+   * @param barcode the barcode of the item
+   * @return the title or {@code null} if it is not known
+   */
+  public String getTitle(String tenant, String barcode) {
+    if (!enabled || barcode == null) {
+      return null;
+    }
+
+    final String title;
+    final boolean prefetched;
+    synchronized (entries) {
+      final Snapshot snapshot = lookup(key(tenant, barcode), clock.millis());
+      title = snapshot != null ? snapshot.item.getString("title") : null;
+      prefetched = title != null && snapshot.prefetched;
+    }
+    (title != null ? titleHits : titleMisses).increment();
+    if (prefetched) {
+      prefetchedTitleHits.increment();
+    }
+    return title;
+  }
+
+  /**
+   * Keep a snapshot of an item as read from inventory.
+   * @param tenant the tenant
+   * @param barcode the barcode the item was looked up by
+   * @param item the item
+   */
+  public void putItem(String tenant, String barcode, JsonObject item) {
+    putItem(tenant, barcode, item, false);
+  }
+
+  /**
+   * Keep a snapshot of an item as read from inventory.
+   * @param tenant the tenant
+   * @param barcode the barcode the item was looked up by
+   * @param item the item
+   * @param prefetched true if the item was read ahead of any request for it
+   */
+  public void putItem(String tenant, String barcode, JsonObject item, boolean prefetched) {
+    if (!enabled || barcode == null || item == null || ttlMs <= 0) {
+      return;
+    }
+
+    final JsonObject fields = new JsonObject();
+    copyFields(item, fields, STATIC_FIELDS);
+    final long now = clock.millis();
+    long volatileExpiresAt = 0L;
+    if (volatileTtlMs > 0) {
+      copyFields(item, fields, VOLATILE_FIELDS);
+      volatileExpiresAt = now + volatileTtlMs;
+    }
+    synchronized (entries) {
+      entries.put(key(tenant, barcode), new Snapshot(fields, now + ttlMs, volatileExpiresAt,
+          prefetched));
+    }
+  }
+
+  /**
+   * Keep the title of an item when nothing else about it is known.
+   * @param tenant the tenant
+   * @param barcode the barcode of the item
+   * @param title the title
+   */
+  public void putTitle(String tenant, String barcode, String title) {
+    putTitle(tenant, barcode, title, false);
+  }
+
+  /**
+   * Keep the title of an item when nothing else about it is known.
+   * @param tenant the tenant
+   * @param barcode the barcode of the item
+   * @param title the title
+   * @param prefetched true if the title was read ahead of any request for it
+   */
+  public void putTitle(String tenant, String barcode, String title, boolean prefetched) {
+    if (!enabled || barcode == null || title == null || ttlMs <= 0) {
+      return;
+    }
+
+    final String key = key(tenant, barcode);
+    final long now = clock.millis();
+    synchronized (entries) {
+      final Snapshot snapshot = lookup(key, now);
+      if (snapshot != null) {
+        snapshot.item.put("title", title);
+      } else {
+        entries.put(key, new Snapshot(new JsonObject().put("barcode", barcode)
+            .put("title", title), now + ttlMs, 0L, prefetched));
+      }
+    }
+  }
+
+  /**
+   * Drop the snapshot of an item that was changed.
+   * @param tenant the tenant
+   * @param barcode the barcode of the item
+   */
+  public void invalidate(String tenant, String barcode) {
+    if (!enabled || barcode == null) {
+      return;
+    }
+    final Snapshot removed;
+    synchronized (entries) {
+      removed = entries.remove(key(tenant, barcode));
+    }
+    if (removed != null) {
+      invalidations.increment();
+    }
+  }
+
+  /**
+   * Drop all snapshots.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private Snapshot lookup(String key, long now) {
+    final Snapshot snapshot = entries.get(key);
+    if (snapshot != null && snapshot.expiresAt <= now) {
+      entries.remove(key);
+      return null;
+    }
+    return snapshot;
+  }
+
+  private static void copyFields(JsonObject from, JsonObject to, List<String> fields) {
+    for (String field : fields) {
+      final Object value = from.getValue(field);
+      if (value != null) {
+        to.put(field, value instanceof JsonObject ? ((JsonObject) value).copy() : value);
+      }
+    }
+  }
+
+  private static String key(String tenant, String barcode) {
+    // FOLIO matches barcodes regardless of case
+    return String.valueOf(tenant).toLowerCase(Locale.ROOT) + '\u0000'
+        + barcode.toLowerCase(Locale.ROOT);
+  }
+
+  private static Counter counter(String name, String read, MeterRegistry registry) {
+    return Counter.builder(METRICS_PREFIX + name)
+        .tag(READ_TAG, read)
+        .register(registry);
+  }
+
+  private static class Snapshot {
+    private final JsonObject item;
+    private final long expiresAt;
+    private final long volatileExpiresAt;
+    private final boolean prefetched;
+
+    private Snapshot(JsonObject item, long expiresAt, long volatileExpiresAt,
+        boolean prefetched) {
+      this.item = item;
+      this.expiresAt = expiresAt;
+      this.volatileExpiresAt = volatileExpiresAt;
+      this.prefetched = prefetched;
+    }
+  }
+}
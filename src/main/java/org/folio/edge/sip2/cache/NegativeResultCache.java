@@ -0,0 +1,233 @@
+package org.folio.edge.sip2.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Remembers for a short while which barcodes FOLIO did not find, so that a
+ * kiosk retrying a mistyped or unlabelled barcode does not send the same
+ * lookup to FOLIO again. Only successful lookups that found nothing are
+ * remembered, never failed ones. Entries expire after the TTL of their
+ * tenant, the cache holds at most {@code maxEntries} of them and an entry is
+ * dropped as soon as the barcode is seen to exist, e.g. by a successful
+ * checkin.
+ */
+public class NegativeResultCache {
+  public static final String CONFIG_KEY = "negativeCacheOptions";
+  public static final long DEFAULT_TTL_MS = 30_000L;
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.cache.negative.";
+  private static final String KIND_TAG = "kind";
+
+  private static final Logger log = LogManager.getLogger();
+
+  /**
+   * The kinds of lookups whose empty results are remembered.
+   */
+  public enum Kind {
+    ITEM("item"),
+    USER("user"),
+    TITLE("title");
+
+    private final String name;
+
+    Kind(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private final boolean enabled;
+  private final long ttlMs;
+  private final int maxEntries;
+  private final JsonObject tenantTtlMs;
+  private final Clock clock;
+  private final Map<String, Long> entries;
+  private final Map<Kind, Counter> hits = new EnumMap<>(Kind.class);
+  private final Map<Kind, Counter> misses = new EnumMap<>(Kind.class);
+  private final Map<Kind, Counter> stores = new EnumMap<>(Kind.class);
+
+  /**
+   * Construct the cache from the {@code negativeCacheOptions} configuration.
+   * @param options the options, may be {@code null} in which case nothing is cached
+   * @param clock the clock to expire entries with
+   * @param registry the registry to publish metrics to
+   */
+  public NegativeResultCache(JsonObject options, Clock clock, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.ttlMs = config.getLong("ttlMs", DEFAULT_TTL_MS);
+    this.maxEntries = Math.max(1, config.getInteger("maxEntries", DEFAULT_MAX_ENTRIES));
+    this.tenantTtlMs = config.getJsonObject("tenantTtlMs", new JsonObject());
+    // insertion order, entries of a tenant share a TTL so the eldest expires first
+    this.entries = new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > maxEntries;
+      }
+    };
+
+    if (enabled) {
+      for (Kind kind : Kind.values()) {
+        hits.put(kind, counter("hits", kind, registry));
+        misses.put(kind, counter("misses", kind, registry));
+        stores.put(kind, counter("stores", kind, registry));
+      }
+      Gauge.builder(METRICS_PREFIX + "size", this, NegativeResultCache::size)
+          .register(registry);
+    }
+  }
+
+  /**
+   * Returns a cache that remembers nothing.
+   * @param registry the registry to publish metrics to
+   * @return a disabled cache
+   */
+  public static NegativeResultCache disabled(MeterRegistry registry) {
+    return new NegativeResultCache(null, Clock.systemUTC(), registry);
+  }
+
+  /**
+   * Determines whether FOLIO recently found nothing for an identifier.
+   * @param tenant the tenant
+   * @param kind the kind of lookup
+   * @param identifier the barcode or other identifier looked up
+   * @return true if the lookup can be skipped as it would find nothing
+   */
+  public boolean isKnownMissing(String tenant, Kind kind, String identifier) {
+    if (!enabled || identifier == null) {
+      return false;
+    }
+
+    final String key = key(tenant, kind, identifier);
+    final boolean missing;
+    synchronized (entries) {
+      final Long expiresAt = entries.get(key);
+      missing = expiresAt != null && expiresAt > clock.millis();
+      if (expiresAt != null && !missing) {
+        entries.remove(key);
+      }
+    }
+    if (missing) {
+      log.debug("Skipping {} lookup of {} for tenant {}, recently not found",
+          kind.getName(), identifier, tenant);
+      hits.get(kind).increment();
+    } else {
+      misses.get(kind).increment();
+    }
+    return missing;
+  }
+
+  /**
+   * Remember that FOLIO found nothing for an identifier.
+   * @param tenant the tenant
+   * @param kind the kind of lookup
+   * @param identifier the barcode or other identifier looked up
+   */
+  public void recordMissing(String tenant, Kind kind, String identifier) {
+    final long ttl = getTtlMillis(tenant);
+    if (!enabled || identifier == null || ttl <= 0) {
+      return;
+    }
+
+    final String key = key(tenant, kind, identifier);
+    synchronized (entries) {
+      // re-inserted so the entry moves to the end of the eviction order
+      entries.remove(key);
+      entries.put(key, clock.millis() + ttl);
+    }
+    stores.get(kind).increment();
+  }
+
+  /**
+   * Forget that FOLIO found nothing for an identifier, as it now exists.
+   * @param tenant the tenant
+   * @param kind the kind of lookup
+   * @param identifier the barcode or other identifier
+   */
+  public void invalidate(String tenant, Kind kind, String identifier) {
+    if (!enabled || identifier == null) {
+      return;
+    }
+    synchronized (entries) {
+      entries.remove(key(tenant, kind, identifier));
+    }
+  }
+
+  /**
+   * Forget everything remembered for a tenant.
+   * @param tenant the tenant
+   */
+  public void invalidateTenant(String tenant) {
+    final String prefix = String.valueOf(tenant).toLowerCase(Locale.ROOT) + '\u0000';
+    synchronized (entries) {
+      entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+  }
+
+  /**
+   * Forget everything.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns how long empty results of a tenant are remembered.
+   * @param tenant the tenant
+   * @return the TTL in milliseconds, zero or less if they are not remembered
+   */
+  public long getTtlMillis(String tenant) {
+    final Object tenantTtl = tenant == null ? null : tenantTtlMs.getValue(tenant);
+    return tenantTtl instanceof Number ? ((Number) tenantTtl).longValue() : ttlMs;
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  double hitCount(Kind kind) {
+    return hits.get(kind).count();
+  }
+
+  double storeCount(Kind kind) {
+    return stores.get(kind).count();
+  }
+
+  private static String key(String tenant, Kind kind, String identifier) {
+    // FOLIO matches barcodes regardless of case
+    return String.valueOf(tenant).toLowerCase(Locale.ROOT) + '\u0000' + kind.getName()
+        + '\u0000' + identifier.toLowerCase(Locale.ROOT);
+  }
+
+  private static Counter counter(String name, Kind kind, MeterRegistry registry) {
+    return Counter.builder(METRICS_PREFIX + name)
+        .tag(KIND_TAG, kind.getName())
+        .register(registry);
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.edge.sip2.cache;
+
+import io.vertx.core.json.JsonObject;
+import java.util.List;
+
+/**
+ * The FOLIO data a Patron Information response is built from. The hold and
+ * overdue lists are either complete, up to the most items kept, or only the
+ * page that was asked for.
+ */
+public class PatronDetails {
+  private final JsonObject manualBlocks;
+  private final JsonObject accounts;
+  private final JsonObject loans;
+  private final JsonObject holds;
+  private final JsonObject overdues;
+  private final List<JsonObject> recalls;
+  private final boolean complete;
+
+  /**
+   * Construct the details of a patron.
+   * @param manualBlocks the manual blocks of the patron
+   * @param accounts the fee/fine accounts of the patron
+   * @param loans the open loans of the patron
+   * @param holds the hold requests of the patron
+   * @param overdues the overdue loans of the patron
+   * @param recalls the recall requests of the items on loan to the patron
+   * @param complete true if the hold and overdue lists start at the first item
+   */
+  public PatronDetails(JsonObject manualBlocks, JsonObject accounts, JsonObject loans,
+      JsonObject holds, JsonObject overdues, List<JsonObject> recalls, boolean complete) {
+    this.manualBlocks = manualBlocks;
+    this.accounts = accounts;
+    this.loans = loans;
+    this.holds = holds;
+    this.overdues = overdues;
+    this.recalls = recalls;
+    this.complete = complete;
+  }
+
+  public JsonObject getManualBlocks() {
+    return manualBlocks;
+  }
+
+  public JsonObject getAccounts() {
+    return accounts;
+  }
+
+  public JsonObject getLoans() {
+    return loans;
+  }
+
+  public JsonObject getHolds() {
+    return holds;
+  }
+
+  public JsonObject getOverdues() {
+    return overdues;
+  }
+
+  public List<JsonObject> getRecalls() {
+    return recalls;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+}
@@ -0,0 +1,184 @@
+package org.folio.edge.sip2.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Keeps the Patron Information details of the patron last looked up on a
+ * session for a short while, so that a kiosk paging through the hold,
+ * overdue or recall list with {@code startItem} and {@code endItem} is
+ * answered from one set of FOLIO lookups. Every session keeps at most one
+ * patron, and any circulation command of that patron on the session drops
+ * it. Entries go with their session.
+ */
+public class PatronDetailsCache {
+  public static final String CONFIG_KEY = "patronDetailsCacheOptions";
+  public static final long DEFAULT_TTL_MS = 30_000L;
+  public static final int DEFAULT_MAX_ITEMS = 200;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.cache.patron.";
+
+  private final boolean enabled;
+  private final long ttlMs;
+  private final int maxItems;
+  private final Clock clock;
+  // weak, so that the entry of a closed session is dropped with it; keyed by
+  // the session rather than the transaction, to be kept across transactions
+  private final Map<SessionData, Entry> entries =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter invalidations;
+
+  /**
+   * Construct the cache from the {@code patronDetailsCacheOptions} configuration.
+   * @param options the options, may be {@code null} in which case nothing is cached
+   * @param clock the clock to expire entries with
+   * @param registry the registry to publish metrics to
+   */
+  public PatronDetailsCache(JsonObject options, Clock clock, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.ttlMs = config.getLong("ttlMs", DEFAULT_TTL_MS);
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE) && ttlMs > 0;
+    this.maxItems = Math.max(1, config.getInteger("maxItems", DEFAULT_MAX_ITEMS));
+
+    if (enabled) {
+      hits = Counter.builder(METRICS_PREFIX + "hits").register(registry);
+      misses = Counter.builder(METRICS_PREFIX + "misses").register(registry);
+      invalidations = Counter.builder(METRICS_PREFIX + "invalidations").register(registry);
+    } else {
+      hits = null;
+      misses = null;
+      invalidations = null;
+    }
+  }
+
+  /**
+   * Returns a cache that keeps nothing.
+   * @param registry the registry to publish metrics to
+   * @return a disabled cache
+   */
+  public static PatronDetailsCache disabled(MeterRegistry registry) {
+    return new PatronDetailsCache(null, Clock.systemUTC(), registry);
+  }
+
+  /**
+   * Returns the details of a patron kept on a session.
+   * @param sessionData the session
+   * @param patronIdentifier the identifier the patron was looked up by
+   * @param userId the id of the patron
+   * @return the details or {@code null} if none are kept or they expired
+   */
+  public PatronDetails get(SessionData sessionData, String patronIdentifier, String userId) {
+    if (!enabled) {
+      return null;
+    }
+
+    final Entry entry = entries.get(sessionData.getSession());
+    final boolean hit = entry != null && entry.expiresAt > clock.millis()
+        && entry.matches(patronIdentifier) && Objects.equals(entry.userId, userId);
+    if (!hit && entry != null) {
+      entries.remove(sessionData.getSession());
+    }
+    (hit ? hits : misses).increment();
+    return hit ? entry.details : null;
+  }
+
+  /**
+   * Keep the details of a patron on a session, replacing any other patron.
+   * @param sessionData the session
+   * @param patronIdentifier the identifier the patron was looked up by
+   * @param userId the id of the patron
+   * @param details the details, only kept if their lists are complete and
+   *     nothing failed to be read
+   */
+  public void put(SessionData sessionData, String patronIdentifier, String userId,
+      PatronDetails details) {
+    if (!enabled || details == null || !details.isComplete() || isPartial(details)) {
+      return;
+    }
+    entries.put(sessionData.getSession(), new Entry(patronIdentifier, userId, details,
+        clock.millis() + ttlMs));
+  }
+
+  /**
+   * Drop the details kept on a session when a circulation command may have
+   * changed them.
+   * @param sessionData the session
+   * @param patronIdentifier the patron of the command, {@code null} for
+   *     commands such as checkin that may concern any patron
+   */
+  public void invalidate(SessionData sessionData, String patronIdentifier) {
+    if (!enabled) {
+      return;
+    }
+    final boolean removed;
+    synchronized (entries) {
+      final Entry entry = entries.get(sessionData.getSession());
+      removed = entry != null && (patronIdentifier == null || entry.matches(patronIdentifier));
+      if (removed) {
+        entries.remove(sessionData.getSession());
+      }
+    }
+    if (removed) {
+      invalidations.increment();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the most hold or overdue items fetched for a patron whose details
+   * are kept, as the lists are fetched in full rather than page by page.
+   * @return the most items fetched per list
+   */
+  public int getMaxItems() {
+    return maxItems;
+  }
+
+  double hitCount() {
+    return hits.count();
+  }
+
+  double invalidationCount() {
+    return invalidations.count();
+  }
+
+  private static boolean isPartial(PatronDetails details) {
+    // repositories answer null for what they failed to read, which is not kept
+    return details.getManualBlocks() == null || details.getAccounts() == null
+        || details.getLoans() == null || details.getHolds() == null
+        || details.getOverdues() == null || details.getRecalls() == null;
+  }
+
+  private static class Entry {
+    private final String patronIdentifier;
+    private final String userId;
+    private final PatronDetails details;
+    private final long expiresAt;
+
+    private Entry(String patronIdentifier, String userId, PatronDetails details,
+        long expiresAt) {
+      this.patronIdentifier = patronIdentifier;
+      this.userId = userId;
+      this.details = details;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean matches(String identifier) {
+      return patronIdentifier != null && patronIdentifier.equalsIgnoreCase(identifier);
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package org.folio.edge.sip2.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of slowly changing FOLIO reference data, such as the holdings and
+ * instance of an item or the names of fee/fine types, which would otherwise
+ * be read again for every SIP transaction. Every tenant has its own bounded
+ * store per type of data, so that one busy tenant cannot evict the data of
+ * another, and each type has its own TTL and size. Stores evict W-TinyLFU
+ * style, keeping the entries that are used most often.
+ */
+public class ReferenceDataCache {
+  public static final String CONFIG_KEY = "referenceDataCacheOptions";
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.cache.reference.";
+  private static final String TYPE_TAG = "type";
+
+  /**
+   * The types of reference data cached.
+   */
+  public enum Type {
+    HOLDINGS("holdings", 600_000L, 5_000),
+    INSTANCE("instances", 600_000L, 5_000),
+    FEE_FINE_TYPE("feeFineTypes", 3_600_000L, 500),
+    CANCELLATION_REASON("cancellationReasons", 3_600_000L, 50);
+
+    private final String name;
+    private final long defaultTtlMs;
+    private final int defaultMaxEntries;
+
+    Type(String name, long defaultTtlMs, int defaultMaxEntries) {
+      this.name = name;
+      this.defaultTtlMs = defaultTtlMs;
+      this.defaultMaxEntries = defaultMaxEntries;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private final boolean enabled;
+  private final Clock clock;
+  private final Map<Type, Long> ttls = new EnumMap<>(Type.class);
+  private final Map<Type, Integer> maxEntries = new EnumMap<>(Type.class);
+  private final Map<String, Map<Type, TinyLfuStore<JsonObject>>> tenants =
+      new ConcurrentHashMap<>();
+  private final Map<Type, Counter> hits = new EnumMap<>(Type.class);
+  private final Map<Type, Counter> misses = new EnumMap<>(Type.class);
+  private final Map<Type, Counter> evictions = new EnumMap<>(Type.class);
+
+  /**
+   * Construct the cache from the {@code referenceDataCacheOptions} configuration.
+   * @param options the options, may be {@code null} in which case nothing is cached
+   * @param clock the clock to expire entries with
+   * @param registry the registry to publish metrics to
+   */
+  public ReferenceDataCache(JsonObject options, Clock clock, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    final JsonObject types = config.getJsonObject("types", new JsonObject());
+    for (Type type : Type.values()) {
+      final JsonObject typeConfig = types.getJsonObject(type.getName(), new JsonObject());
+      ttls.put(type, typeConfig.getLong("ttlMs", type.defaultTtlMs));
+      maxEntries.put(type, typeConfig.getInteger("maxEntries", type.defaultMaxEntries));
+      if (enabled) {
+        hits.put(type, counter("hits", type, registry));
+        misses.put(type, counter("misses", type, registry));
+        evictions.put(type, counter("evictions", type, registry));
+      }
+    }
+  }
+
+  /**
+   * Returns a cache that keeps nothing.
+   * @param registry the registry to publish metrics to
+   * @return a disabled cache
+   */
+  public static ReferenceDataCache disabled(MeterRegistry registry) {
+    return new ReferenceDataCache(null, Clock.systemUTC(), registry);
+  }
+
+  /**
+   * Returns cached reference data, loading and caching it if it is not cached.
+   * Failed or empty loads are not cached.
+   * @param tenant the tenant
+   * @param type the type of data
+   * @param id the id of the record
+   * @param loader loads the record from FOLIO
+   * @return a copy of the record
+   */
+  public Future<JsonObject> get(String tenant, Type type, String id,
+      Supplier<Future<JsonObject>> loader) {
+    if (!isEnabled(type) || id == null) {
+      return loader.get();
+    }
+
+    final JsonObject cached = getIfPresent(tenant, type, id);
+    if (cached != null) {
+      return Future.succeededFuture(cached);
+    }
+    return loader.get().onSuccess(record -> put(tenant, type, id, record));
+  }
+
+  /**
+   * Returns cached reference data.
+   * @param tenant the tenant
+   * @param type the type of data
+   * @param id the id of the record
+   * @return a copy of the record or {@code null} if it is not cached
+   */
+  public JsonObject getIfPresent(String tenant, Type type, String id) {
+    if (!isEnabled(type) || id == null) {
+      return null;
+    }
+
+    final TinyLfuStore<JsonObject> store = getStore(tenant, type);
+    final JsonObject cached;
+    synchronized (store) {
+      cached = store.get(id, clock.millis());
+    }
+    (cached != null ? hits : misses).get(type).increment();
+    return cached == null ? null : cached.copy();
+  }
+
+  /**
+   * Cache reference data.
+   * @param tenant the tenant
+   * @param type the type of data
+   * @param id the id of the record
+   * @param record the record
+   */
+  public void put(String tenant, Type type, String id, JsonObject record) {
+    if (!isEnabled(type) || id == null || record == null) {
+      return;
+    }
+
+    final TinyLfuStore<JsonObject> store = getStore(tenant, type);
+    synchronized (store) {
+      store.put(id, record.copy(), clock.millis() + ttls.get(type));
+    }
+  }
+
+  /**
+   * Drop cached reference data.
+   * @param tenant the tenant
+   * @param type the type of data
+   * @param id the id of the record
+   */
+  public void invalidate(String tenant, Type type, String id) {
+    final Map<Type, TinyLfuStore<JsonObject>> stores = tenants.get(String.valueOf(tenant));
+    if (stores != null && id != null) {
+      final TinyLfuStore<JsonObject> store = stores.get(type);
+      synchronized (store) {
+        store.remove(id);
+      }
+    }
+  }
+
+  /**
+   * Drop all reference data cached for a tenant.
+   * @param tenant the tenant
+   */
+  public void invalidateTenant(String tenant) {
+    tenants.remove(String.valueOf(tenant));
+  }
+
+  /**
+   * Drop all cached reference data.
+   */
+  public void clear() {
+    tenants.clear();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Determines whether a type of data is cached.
+   * @param type the type of data
+   * @return true if the type is cached
+   */
+  public boolean isEnabled(Type type) {
+    return enabled && ttls.get(type) > 0 && maxEntries.get(type) > 0;
+  }
+
+  int size(String tenant, Type type) {
+    final TinyLfuStore<JsonObject> store = getStore(tenant, type);
+    synchronized (store) {
+      return store.size();
+    }
+  }
+
+  private TinyLfuStore<JsonObject> getStore(String tenant, Type type) {
+    return tenants.computeIfAbsent(String.valueOf(tenant), t -> {
+      final Map<Type, TinyLfuStore<JsonObject>> stores = new EnumMap<>(Type.class);
+      for (Type storeType : Type.values()) {
+        final Counter evicted = evictions.get(storeType);
+        stores.put(storeType, new TinyLfuStore<>(maxEntries.get(storeType),
+            evicted == null ? () -> { } : evicted::increment));
+      }
+      return stores;
+    }).get(type);
+  }
+
+  private static Counter counter(String name, Type type, MeterRegistry registry) {
+    return Counter.builder(METRICS_PREFIX + name)
+        .tag(TYPE_TAG, type.getName())
+        .register(registry);
+  }
+}
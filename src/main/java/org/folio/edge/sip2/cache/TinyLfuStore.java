@@ -0,0 +1,187 @@
+package org.folio.edge.sip2.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded store with expiring entries and W-TinyLFU eviction. New entries
+ * enter a small LRU window; an entry leaving the window is only admitted to
+ * the main LRU area if it was used more often than the entry it would evict
+ * there, so a burst of one-off keys cannot flush the entries that are used
+ * all the time. Use frequencies are estimated with a count-min sketch of
+ * 4 bit counters that are halved periodically, so that the past fades.
+ * Not thread safe.
+ *
+ * @param <V> the value type
+ */
+class TinyLfuStore<V> {
+  // share of the capacity for the window, as in W-TinyLFU
+  private static final double WINDOW_RATIO = 0.01;
+
+  private final int windowCapacity;
+  private final int mainCapacity;
+  private final Map<String, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+  private final FrequencySketch sketch;
+  private final Runnable onEviction;
+
+  /**
+   * Construct a store.
+   * @param capacity the most entries kept
+   * @param onEviction called for every entry evicted because the store is full
+   */
+  TinyLfuStore(int capacity, Runnable onEviction) {
+    final int total = Math.max(2, capacity);
+    this.windowCapacity = Math.max(1, (int) (total * WINDOW_RATIO));
+    this.mainCapacity = total - windowCapacity;
+    this.sketch = new FrequencySketch(total);
+    this.onEviction = onEviction;
+  }
+
+  /**
+   * Returns a value that has not expired.
+   * @param key the key
+   * @param now the current time in milliseconds
+   * @return the value or {@code null}
+   */
+  V get(String key, long now) {
+    sketch.increment(key);
+    Entry<V> entry = window.get(key);
+    Map<String, Entry<V>> area = window;
+    if (entry == null) {
+      entry = main.get(key);
+      area = main;
+    }
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt <= now) {
+      area.remove(key);
+      return null;
+    }
+    return entry.value;
+  }
+
+  /**
+   * Keep a value.
+   * @param key the key
+   * @param value the value
+   * @param expiresAt when the value expires, in milliseconds
+   */
+  void put(String key, V value, long expiresAt) {
+    final Entry<V> entry = new Entry<>(value, expiresAt);
+    if (main.containsKey(key)) {
+      main.put(key, entry);
+      return;
+    }
+    window.put(key, entry);
+    if (window.size() > windowCapacity) {
+      final Iterator<Map.Entry<String, Entry<V>>> eldest = window.entrySet().iterator();
+      final Map.Entry<String, Entry<V>> candidate = eldest.next();
+      eldest.remove();
+      admit(candidate.getKey(), candidate.getValue());
+    }
+  }
+
+  void remove(String key) {
+    if (window.remove(key) == null) {
+      main.remove(key);
+    }
+  }
+
+  void clear() {
+    window.clear();
+    main.clear();
+  }
+
+  int size() {
+    return window.size() + main.size();
+  }
+
+  private void admit(String key, Entry<V> candidate) {
+    if (main.size() < mainCapacity) {
+      main.put(key, candidate);
+      return;
+    }
+    final Iterator<Map.Entry<String, Entry<V>>> eldest = main.entrySet().iterator();
+    final Map.Entry<String, Entry<V>> victim = eldest.next();
+    if (sketch.frequency(key) > sketch.frequency(victim.getKey())) {
+      eldest.remove();
+      main.put(key, candidate);
+    }
+    onEviction.run();
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long expiresAt;
+
+    private Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Count-min sketch of 4 bit counters, 4 rows deep.
+   */
+  private static class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    private FrequencySketch(int capacity) {
+      // a few counters per entry keep collisions with one-off keys rare
+      final int width = Integer.highestOneBit(Math.max(16, 4 * capacity - 1) << 1);
+      this.counters = new byte[DEPTH][width];
+      this.mask = width - 1;
+      this.sampleSize = 10 * Math.max(16, capacity);
+    }
+
+    private void increment(String key) {
+      final int hash = key.hashCode();
+      boolean added = false;
+      for (int row = 0; row < DEPTH; row++) {
+        final int index = index(hash, row);
+        if (counters[row][index] < MAX_COUNT) {
+          counters[row][index]++;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    private int frequency(String key) {
+      final int hash = key.hashCode();
+      int frequency = MAX_COUNT;
+      for (int row = 0; row < DEPTH; row++) {
+        frequency = Math.min(frequency, counters[row][index(hash, row)]);
+      }
+      return frequency;
+    }
+
+    private int index(int hash, int row) {
+      int h = hash * SEEDS[row];
+      h ^= h >>> 16;
+      return h & mask;
+    }
+
+    private void reset() {
+      // halving ages the counts, so that old popularity fades
+      for (byte[] row : counters) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = (byte) (row[i] >> 1);
+        }
+      }
+      additions /= 2;
+    }
+  }
+}
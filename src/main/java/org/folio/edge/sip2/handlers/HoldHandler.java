@@ -0,0 +1,78 @@
+package org.folio.edge.sip2.handlers;
+
+import freemarker.template.Template;
+import io.vertx.core.Future;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.domain.messages.requests.Hold;
+import org.folio.edge.sip2.domain.messages.responses.HoldResponse;
+import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
+import org.folio.edge.sip2.repositories.CirculationRepository;
+import org.folio.edge.sip2.session.SessionData;
+import org.folio.okapi.common.refreshtoken.client.ClientException;
+
+public class HoldHandler implements ISip2RequestHandler {
+  private static final Logger log = LogManager.getLogger();
+
+  private final CirculationRepository circulationRepository;
+  private final Template commandTemplate;
+
+  @Inject
+  HoldHandler(
+      CirculationRepository circulationRepository,
+      @Named("holdResponse") Template commandTemplate) {
+    this.circulationRepository = Objects.requireNonNull(circulationRepository,
+        "CirculationRepository cannot be null");
+    this.commandTemplate = Objects.requireNonNull(commandTemplate, "Template cannot be null");
+  }
+
+  @Override
+  public Future<String> execute(Object message, SessionData sessionData) {
+    final Hold hold = (Hold) message;
+
+    log.debug("Hold: {}", () -> hold);
+
+    final Future<HoldResponse> holdFuture =
+        circulationRepository.performHoldCommand(hold, sessionData);
+
+    holdFuture.onFailure(throwable -> {
+      if (throwable instanceof ClientException) {
+        sessionData.setErrorResponseMessage(
+            constructHoldResponse(
+            sessionData,
+            (HoldResponse) sessionData.getErrorResponseMessage()));
+      }
+    });
+
+    return holdFuture.map(holdResponse -> constructHoldResponse(sessionData, holdResponse));
+  }
+
+  /**
+   * Construct Hold Response Message.
+   * @param sessionData sessionData
+   * @param holdResponse holdResponse
+   * @return the SIP hold response
+   */
+  private String constructHoldResponse(SessionData sessionData, HoldResponse holdResponse) {
+    log.info("HoldResponse: {}", () -> holdResponse);
+
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("holdResponse", holdResponse);
+    root.put("timezone", sessionData.getTimeZone());
+    root.put("maxLength", sessionData.getMaxPrintWidth());
+
+    final String response = FreemarkerUtils
+        .executeFreemarkerTemplate(root, commandTemplate);
+
+    log.debug("SIP hold response: {}", response);
+    return response;
+  }
+}
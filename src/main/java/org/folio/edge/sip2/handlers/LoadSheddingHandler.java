@@ -0,0 +1,249 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static org.folio.edge.sip2.domain.messages.enumerations.Language.UNKNOWN;
+import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.FEE_PAID_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.HOLD_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.RENEW_ALL_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.RENEW_RESPONSE;
+
+import freemarker.template.Template;
+import io.vertx.core.Future;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.inject.Inject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus;
+import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
+import org.folio.edge.sip2.domain.messages.requests.Checkin;
+import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.requests.EndPatronSession;
+import org.folio.edge.sip2.domain.messages.requests.FeePaid;
+import org.folio.edge.sip2.domain.messages.requests.Hold;
+import org.folio.edge.sip2.domain.messages.requests.ItemInformation;
+import org.folio.edge.sip2.domain.messages.requests.PatronInformation;
+import org.folio.edge.sip2.domain.messages.requests.PatronStatusRequest;
+import org.folio.edge.sip2.domain.messages.requests.Renew;
+import org.folio.edge.sip2.domain.messages.requests.RenewAll;
+import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
+import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+import org.folio.edge.sip2.domain.messages.responses.EndSessionResponse;
+import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
+import org.folio.edge.sip2.domain.messages.responses.HoldResponse;
+import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
+import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
+import org.folio.edge.sip2.domain.messages.responses.RenewResponse;
+import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Answers SIP requests with well formed failure responses without calling
+ * FOLIO. Used while the {@link LoadShedder} reports that FOLIO is overloaded
+ * or unavailable so that kiosks get a fast answer instead of a timeout.
+ */
+public class LoadSheddingHandler implements ISip2RequestHandler {
+  private static final Logger log = LogManager.getLogger();
+
+  private final LoadShedder loadShedder;
+  private final Clock clock;
+
+  @Inject
+  LoadSheddingHandler(LoadShedder loadShedder, Clock clock) {
+    this.loadShedder = Objects.requireNonNull(loadShedder, "LoadShedder cannot be null");
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+  }
+
+  @Override
+  public Future<String> execute(Object message, SessionData sessionData) {
+    log.debug("LoadSheddingHandler :: execute message:{} sessionData:{}", message, sessionData);
+    return degradedResponse(message, sessionData, loadShedder.getScreenMessage());
+  }
+
+  /**
+   * Render the failure response to a request without calling FOLIO.
+   * @param message the request
+   * @param sessionData the session the request was made on
+   * @param screenMessageText the text shown to the patron
+   * @return the SIP response, failed if the request has no degraded response
+   */
+  Future<String> degradedResponse(Object message, SessionData sessionData,
+      String screenMessageText) {
+    final List<String> screenMessage = Collections.singletonList(screenMessageText);
+    final OffsetDateTime now = OffsetDateTime.now(clock);
+
+    if (message instanceof Checkout) {
+      final Checkout checkout = (Checkout) message;
+      return render(CHECKOUT_RESPONSE, "checkoutResponse", CheckoutResponse.builder()
+          .ok(FALSE)
+          .renewalOk(FALSE)
+          .magneticMedia(null)
+          .desensitize(FALSE)
+          .transactionDate(now)
+          .institutionId(checkout.getInstitutionId())
+          .patronIdentifier(checkout.getPatronIdentifier())
+          .itemIdentifier(checkout.getItemIdentifier())
+          .titleIdentifier(checkout.getItemIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof Checkin) {
+      final Checkin checkin = (Checkin) message;
+      return render(CHECKIN_RESPONSE, "checkinResponse", CheckinResponse.builder()
+          .ok(FALSE)
+          .resensitize(FALSE)
+          .magneticMedia(null)
+          .alert(FALSE)
+          .transactionDate(now)
+          .institutionId(checkin.getInstitutionId())
+          .itemIdentifier(checkin.getItemIdentifier())
+          .permanentLocation("")
+          .titleIdentifier(checkin.getItemIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof Renew) {
+      final Renew renew = (Renew) message;
+      return render(RENEW_RESPONSE, "renewResponse", RenewResponse.builder()
+          .ok(FALSE)
+          .renewalOk(FALSE)
+          .transactionDate(now)
+          .institutionId(renew.getInstitutionId())
+          .patronIdentifier(renew.getPatronIdentifier())
+          .itemIdentifier(renew.getItemIdentifier())
+          .titleIdentifier(renew.getTitleIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof RenewAll) {
+      final RenewAll renewAll = (RenewAll) message;
+      return render(RENEW_ALL_RESPONSE, "renewAllResponse", RenewAllResponse.builder()
+          .ok(FALSE)
+          .renewedCount(0)
+          .unrenewedCount(0)
+          .transactionDate(now)
+          .institutionId(renewAll.getInstitutionId())
+          .renewedItems(Collections.emptyList())
+          .unrenewedItems(Collections.emptyList())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof PatronInformation) {
+      final PatronInformation patronInformation = (PatronInformation) message;
+      return render(PATRON_INFORMATION_RESPONSE, "patronInformationResponse",
+          PatronInformationResponse.builder()
+          .patronStatus(EnumSet.allOf(PatronStatus.class))
+          .language(UNKNOWN)
+          .transactionDate(now)
+          .holdItemsCount(0)
+          .overdueItemsCount(0)
+          .chargedItemsCount(0)
+          .fineItemsCount(0)
+          .recallItemsCount(0)
+          .unavailableHoldsCount(0)
+          .institutionId(patronInformation.getInstitutionId())
+          .patronIdentifier(patronInformation.getPatronIdentifier())
+          .personalName(patronInformation.getPatronIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof PatronStatusRequest) {
+      final PatronStatusRequest patronStatus = (PatronStatusRequest) message;
+      return render(PATRON_STATUS_RESPONSE, "patronStatusResponse",
+          PatronStatusResponse.builder()
+          .patronStatus(EnumSet.allOf(PatronStatus.class))
+          .language(UNKNOWN)
+          .transactionDate(now)
+          .institutionId(patronStatus.getInstitutionId())
+          .patronIdentifier(patronStatus.getPatronIdentifier())
+          .personalName(patronStatus.getPatronIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof EndPatronSession) {
+      final EndPatronSession endPatronSession = (EndPatronSession) message;
+      return render(END_SESSION_RESPONSE, "endSessionResponse", EndSessionResponse.builder()
+          .endSession(FALSE)
+          .transactionDate(now)
+          .institutionId(endPatronSession.getInstitutionId())
+          .patronIdentifier(endPatronSession.getPatronIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof FeePaid) {
+      final FeePaid feePaid = (FeePaid) message;
+      return render(FEE_PAID_RESPONSE, "feePaidResponse", FeePaidResponse.builder()
+          .paymentAccepted(FALSE)
+          .transactionDate(now)
+          .institutionId(feePaid.getInstitutionId())
+          .patronIdentifier(feePaid.getPatronIdentifier())
+          .transactionId(feePaid.getTransactionId())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof Hold) {
+      final Hold hold = (Hold) message;
+      return render(HOLD_RESPONSE, "holdResponse", HoldResponse.builder()
+          .ok(FALSE)
+          .available(FALSE)
+          .transactionDate(now)
+          .institutionId(hold.getInstitutionId())
+          .patronIdentifier(hold.getPatronIdentifier())
+          .itemIdentifier(hold.getItemIdentifier())
+          .titleIdentifier(hold.getTitleIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof ItemInformation) {
+      final ItemInformation itemInformation = (ItemInformation) message;
+      return render(ITEM_INFORMATION_RESPONSE, "itemInformationResponse",
+          ItemInformationResponse.builder()
+          .circulationStatus(CirculationStatus.OTHER)
+          .transactionDate(now)
+          .itemIdentifier(itemInformation.getItemIdentifier())
+          .titleIdentifier(itemInformation.getItemIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    }
+
+    log.warn("LoadSheddingHandler :: no degraded response for message: {}", message);
+    return Future.failedFuture(screenMessageText);
+  }
+
+  /**
+   * Render a response made without asking FOLIO, for the handlers that
+   * answer on their own while FOLIO is unavailable.
+   * @param responseCommand the command of the response
+   * @param name the name of the response in the template
+   * @param response the response
+   * @param sessionData the session the response is sent on
+   * @return the SIP response
+   */
+  Future<String> render(Command responseCommand, String name, Object response,
+      SessionData sessionData) {
+    final Template template =
+        FreemarkerRepository.getInstance().getFreemarkerTemplate(responseCommand);
+
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("timezone", sessionData.getTimeZone());
+    root.put("maxLength", sessionData.getMaxPrintWidth());
+    root.put(name, response);
+
+    final String sipResponse = FreemarkerUtils.executeFreemarkerTemplate(root, template);
+
+    log.info("LoadSheddingHandler :: render local SIP response: {}", sipResponse);
+
+    return Future.succeededFuture(sipResponse);
+  }
+}
@@ -0,0 +1,97 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
+
+import io.vertx.core.Future;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import javax.inject.Inject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.domain.messages.requests.Checkin;
+import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
+import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+import org.folio.edge.sip2.repositories.OfflineCirculation;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Accepts checkins and checkouts while FOLIO is unavailable. The transaction
+ * is journaled by {@link OfflineCirculation} to be replayed later and the
+ * kiosk is answered with "ok" once it is written. A transaction that cannot
+ * be journaled gets the same failure response as when shedding load.
+ */
+public class OfflineHandler implements ISip2RequestHandler {
+  private static final Logger log = LogManager.getLogger();
+
+  private final OfflineCirculation offlineCirculation;
+  private final LoadSheddingHandler loadSheddingHandler;
+  private final LoadShedder loadShedder;
+  private final Clock clock;
+
+  @Inject
+  OfflineHandler(OfflineCirculation offlineCirculation, LoadSheddingHandler loadSheddingHandler,
+      LoadShedder loadShedder, Clock clock) {
+    this.offlineCirculation = Objects.requireNonNull(offlineCirculation,
+        "OfflineCirculation cannot be null");
+    this.loadSheddingHandler = Objects.requireNonNull(loadSheddingHandler,
+        "LoadSheddingHandler cannot be null");
+    this.loadShedder = Objects.requireNonNull(loadShedder, "LoadShedder cannot be null");
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+  }
+
+  @Override
+  public Future<String> execute(Object message, SessionData sessionData) {
+    log.debug("OfflineHandler :: execute message:{} sessionData:{}", message, sessionData);
+    return offlineCirculation.record(message, sessionData)
+        .compose(journaled -> TRUE.equals(journaled)
+            ? accepted(message, sessionData)
+            : loadSheddingHandler.degradedResponse(message, sessionData,
+                loadShedder.getScreenMessage()));
+  }
+
+  private Future<String> accepted(Object message, SessionData sessionData) {
+    final List<String> screenMessage =
+        Collections.singletonList(offlineCirculation.getScreenMessage());
+    final OffsetDateTime now = OffsetDateTime.now(clock);
+
+    if (message instanceof Checkout) {
+      final Checkout checkout = (Checkout) message;
+      return loadSheddingHandler.render(CHECKOUT_RESPONSE, "checkoutResponse",
+          CheckoutResponse.builder()
+          .ok(TRUE)
+          .renewalOk(FALSE)
+          .magneticMedia(null)
+          .desensitize(TRUE)
+          .transactionDate(now)
+          .institutionId(checkout.getInstitutionId())
+          .patronIdentifier(checkout.getPatronIdentifier())
+          .itemIdentifier(checkout.getItemIdentifier())
+          .titleIdentifier(checkout.getItemIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    }
+
+    final Checkin checkin = (Checkin) message;
+    return loadSheddingHandler.render(CHECKIN_RESPONSE, "checkinResponse",
+        CheckinResponse.builder()
+        .ok(TRUE)
+        .resensitize(TRUE)
+        .magneticMedia(null)
+        .alert(FALSE)
+        .transactionDate(now)
+        .institutionId(checkin.getInstitutionId())
+        .itemIdentifier(checkin.getItemIdentifier())
+        .permanentLocation("")
+        .titleIdentifier(checkin.getItemIdentifier())
+        .screenMessage(screenMessage)
+        .build(), sessionData);
+  }
+}
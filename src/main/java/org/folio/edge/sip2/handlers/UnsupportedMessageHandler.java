@@ -0,0 +1,141 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static org.folio.edge.sip2.domain.messages.enumerations.Language.UNKNOWN;
+import static org.folio.edge.sip2.parser.Command.ITEM_STATUS_UPDATE_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_ENABLE_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
+
+import io.vertx.core.Future;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.inject.Inject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
+import org.folio.edge.sip2.domain.messages.requests.BlockPatron;
+import org.folio.edge.sip2.domain.messages.requests.ItemStatusUpdate;
+import org.folio.edge.sip2.domain.messages.requests.PatronEnable;
+import org.folio.edge.sip2.domain.messages.responses.ItemStatusUpdateResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronEnableResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Answers SIP requests that edge-sip2 parses but does not implement, or that
+ * the tenant does not list as supported, with well formed failure responses.
+ * Kiosks get a fast negative answer with a screen message instead of waiting
+ * for a response that never comes.
+ */
+public class UnsupportedMessageHandler implements ISip2RequestHandler {
+  public static final String SCREEN_MESSAGE =
+      "This function is not available, please see a staff member";
+
+  private static final Logger log = LogManager.getLogger();
+  // the patron and item transactions; the session and resend messages are always answered
+  private static final Map<Command, Messages> MESSAGES = new EnumMap<>(Command.class);
+
+  static {
+    MESSAGES.put(Command.PATRON_STATUS_REQUEST, Messages.PATRON_STATUS_REQUEST);
+    MESSAGES.put(Command.CHECKOUT, Messages.CHECKOUT);
+    MESSAGES.put(Command.CHECKIN, Messages.CHECKIN);
+    MESSAGES.put(Command.BLOCK_PATRON, Messages.BLOCK_PATRON);
+    MESSAGES.put(Command.PATRON_INFORMATION, Messages.PATRON_INFORMATION);
+    MESSAGES.put(Command.END_PATRON_SESSION, Messages.END_PATRON_SESSION);
+    MESSAGES.put(Command.FEE_PAID, Messages.FEE_PAID);
+    MESSAGES.put(Command.ITEM_INFORMATION, Messages.ITEM_INFORMATION);
+    MESSAGES.put(Command.ITEM_STATUS_UPDATE, Messages.ITEM_STATUS_UPDATE);
+    MESSAGES.put(Command.PATRON_ENABLE, Messages.PATRON_ENABLE);
+    MESSAGES.put(Command.HOLD, Messages.HOLD);
+    MESSAGES.put(Command.RENEW, Messages.RENEW);
+    MESSAGES.put(Command.RENEW_ALL, Messages.RENEW_ALL);
+  }
+
+  private final LoadSheddingHandler loadSheddingHandler;
+  private final Clock clock;
+
+  @Inject
+  UnsupportedMessageHandler(LoadSheddingHandler loadSheddingHandler, Clock clock) {
+    this.loadSheddingHandler = Objects.requireNonNull(loadSheddingHandler,
+        "LoadSheddingHandler cannot be null");
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+  }
+
+  /**
+   * Returns whether a request is to be answered by this handler.
+   * @param command the command of the request
+   * @param sessionData the session the request was made on
+   * @param implemented whether edge-sip2 has a handler for the command
+   * @return {@code true} if the command is not implemented or the tenant does
+   *     not support it
+   */
+  public boolean isUnsupported(Command command, SessionData sessionData,
+      boolean implemented) {
+    final Messages supportedMessage = MESSAGES.get(command);
+    if (supportedMessage == null) {
+      return false;
+    }
+    if (!implemented) {
+      return true;
+    }
+    // the supported messages are only known once the SC Status was answered
+    final Set<Messages> supportedMessages = sessionData.getSupportedMessages();
+    return supportedMessages != null && !supportedMessages.contains(supportedMessage);
+  }
+
+  @Override
+  public Future<String> execute(Object message, SessionData sessionData) {
+    log.debug("UnsupportedMessageHandler :: execute message:{} sessionData:{}",
+        message, sessionData);
+    final List<String> screenMessage = Collections.singletonList(SCREEN_MESSAGE);
+    final OffsetDateTime now = OffsetDateTime.now(clock);
+
+    if (message instanceof BlockPatron) {
+      // the ACS answers Block Patron with a Patron Status Response
+      final BlockPatron blockPatron = (BlockPatron) message;
+      return loadSheddingHandler.render(PATRON_STATUS_RESPONSE, "patronStatusResponse",
+          PatronStatusResponse.builder()
+          .patronStatus(EnumSet.allOf(PatronStatus.class))
+          .language(UNKNOWN)
+          .transactionDate(now)
+          .institutionId(blockPatron.getInstitutionId())
+          .patronIdentifier(blockPatron.getPatronIdentifier())
+          .personalName(blockPatron.getPatronIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof ItemStatusUpdate) {
+      final ItemStatusUpdate itemStatusUpdate = (ItemStatusUpdate) message;
+      return loadSheddingHandler.render(ITEM_STATUS_UPDATE_RESPONSE,
+          "itemStatusUpdateResponse", ItemStatusUpdateResponse.builder()
+          .itemPropertiesOk(FALSE)
+          .transactionDate(now)
+          .itemIdentifier(itemStatusUpdate.getItemIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    } else if (message instanceof PatronEnable) {
+      final PatronEnable patronEnable = (PatronEnable) message;
+      return loadSheddingHandler.render(PATRON_ENABLE_RESPONSE, "patronEnableResponse",
+          PatronEnableResponse.builder()
+          .patronStatus(EnumSet.allOf(PatronStatus.class))
+          .language(UNKNOWN)
+          .transactionDate(now)
+          .institutionId(patronEnable.getInstitutionId())
+          .patronIdentifier(patronEnable.getPatronIdentifier())
+          .personalName(patronEnable.getPatronIdentifier())
+          .screenMessage(screenMessage)
+          .build(), sessionData);
+    }
+
+    // the implemented transactions fail the same way as when FOLIO is unavailable
+    return loadSheddingHandler.degradedResponse(message, sessionData, SCREEN_MESSAGE);
+  }
+}
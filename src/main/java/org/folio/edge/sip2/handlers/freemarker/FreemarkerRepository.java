@@ -5,8 +5,11 @@ import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.FEE_PAID_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.HOLD_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.ITEM_STATUS_UPDATE_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.LOGIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_ENABLE_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.RENEW_ALL_RESPONSE;
@@ -76,6 +79,9 @@ public class FreemarkerRepository {
     addTemplate(RENEW_RESPONSE, "RenewResponse.ftl", configuration);
     addTemplate(RENEW_ALL_RESPONSE, "RenewAllResponse.ftl", configuration);
     addTemplate(FEE_PAID_RESPONSE, "FeePaidResponse.ftl", configuration);
+    addTemplate(HOLD_RESPONSE, "HoldResponse.ftl", configuration);
+    addTemplate(ITEM_STATUS_UPDATE_RESPONSE, "ItemStatusUpdateResponse.ftl", configuration);
+    addTemplate(PATRON_ENABLE_RESPONSE, "PatronEnableResponse.ftl", configuration);
 
   }
 
@@ -27,9 +27,11 @@ public final class Metrics {
 
   private static final String SIP2_COMMAND_TAG = "command";
   private static final String SIP2_COMMAND_TIMER_NAME = METRICS_PREFIX + "command.timer";
+  private static final String COUNTER_LOAD_SHED = METRICS_PREFIX + "loadShed";
+  private static final String COUNTER_UNSUPPORTED = METRICS_PREFIX + "unsupported";
 
-  private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
-      .orElse(new SimpleMeterRegistry());
+  private final String port;
+  private final MeterRegistry registry = getDefaultRegistry();
   private final Counter socketErrorCounter;
   private final Counter requestErrorCounter;
   private final Counter responseErrorCounter;
@@ -38,6 +40,7 @@ public final class Metrics {
   private final JvmGcMetrics jvmGcMetrics;
 
   Metrics(int port) {
+    this.port = Integer.toString(port);
     socketErrorCounter = Counter.builder(COUNTER_SOCKET_ERRORS)
         .tag("port", Integer.toString(port))
         .register(registry);
@@ -67,6 +70,16 @@ public final class Metrics {
     return new Metrics(port);
   }
 
+  /**
+   * Returns the registry of the configured metrics backend, or a simple
+   * in-memory registry when metrics are disabled.
+   * @return the meter registry
+   */
+  public static MeterRegistry getDefaultRegistry() {
+    return Optional.ofNullable(BackendRegistries.getDefaultNow())
+        .orElseGet(SimpleMeterRegistry::new);
+  }
+
   public void socketError() {
     socketErrorCounter.increment();
   }
@@ -115,6 +128,42 @@ public final class Metrics {
     return registry.timer(SIP2_COMMAND_TIMER_NAME, SIP2_COMMAND_TAG, command.toString());
   }
 
+  /**
+   * Count a SIP request that was answered with a degraded response because
+   * FOLIO was overloaded or unavailable.
+   * @param command the shed command
+   */
+  public void loadShed(Command command) {
+    loadShedCounter(command).increment();
+  }
+
+  double loadShedCount(Command command) {
+    return loadShedCounter(command).count();
+  }
+
+  private Counter loadShedCounter(Command command) {
+    return registry.counter(COUNTER_LOAD_SHED, "port", port, SIP2_COMMAND_TAG,
+        command.toString());
+  }
+
+  /**
+   * Count a SIP request that was answered with a failure response because
+   * edge-sip2 or the tenant does not support it.
+   * @param command the unsupported command
+   */
+  public void unsupported(Command command) {
+    unsupportedCounter(command).increment();
+  }
+
+  double unsupportedCount(Command command) {
+    return unsupportedCounter(command).count();
+  }
+
+  private Counter unsupportedCounter(Command command) {
+    return registry.counter(COUNTER_UNSUPPORTED, "port", port, SIP2_COMMAND_TAG,
+        command.toString());
+  }
+
   /**
    * Closes any metrics that need to be closed.
    */
@@ -4,6 +4,7 @@ import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.FEE_PAID_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.HOLD_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.LOGIN_RESPONSE;
 import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION_RESPONSE;
@@ -19,6 +20,7 @@ import java.time.Clock;
 import javax.inject.Named;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
 import org.folio.edge.sip2.repositories.CirculationRepository;
+import org.folio.edge.sip2.repositories.ConfigurationRepository;
 import org.folio.edge.sip2.repositories.FeeFinesRepository;
 import org.folio.edge.sip2.repositories.FolioResourceProvider;
 import org.folio.edge.sip2.repositories.IRequestData;
@@ -41,6 +43,7 @@ public class ApplicationModule extends AbstractModule {
         .to(FolioResourceProvider.class).asEagerSingleton();
     bind(Clock.class).toInstance(Clock.systemUTC());
     bind(CirculationRepository.class);
+    bind(ConfigurationRepository.class);
     bind(FeeFinesRepository.class);
     bind(LoginRepository.class);
     bind(UsersRepository.class);
@@ -108,6 +111,12 @@ public class ApplicationModule extends AbstractModule {
     return FreemarkerRepository.getInstance().getFreemarkerTemplate(FEE_PAID_RESPONSE);
   }
 
+  @Provides
+  @Named("holdResponse")
+  Template holdResponseTemplate() {
+    return FreemarkerRepository.getInstance().getFreemarkerTemplate(HOLD_RESPONSE);
+  }
+
 
 
 }
@@ -1,8 +1,37 @@
 package org.folio.edge.sip2.modules;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.inject.name.Names;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
+import java.time.Clock;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.cache.NegativeResultCache;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
+import org.folio.edge.sip2.metrics.Metrics;
+import org.folio.edge.sip2.repositories.AccountPager;
+import org.folio.edge.sip2.repositories.CirculationRepository;
+import org.folio.edge.sip2.repositories.FolioWebClients;
+import org.folio.edge.sip2.repositories.IRequestData;
+import org.folio.edge.sip2.repositories.IResourceProvider;
+import org.folio.edge.sip2.repositories.ItemRepository;
+import org.folio.edge.sip2.repositories.LoanPrefetcher;
+import org.folio.edge.sip2.repositories.LookupBatcher;
+import org.folio.edge.sip2.repositories.ModuleRoutes;
+import org.folio.edge.sip2.repositories.OfflineCirculation;
+import org.folio.edge.sip2.repositories.OkapiEndpoints;
+import org.folio.edge.sip2.repositories.PatronFetchStrategy;
+import org.folio.edge.sip2.resilience.ConcurrencyLimiter;
+import org.folio.edge.sip2.resilience.DeadlinePolicy;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.resilience.ModuleIsolation;
+import org.folio.edge.sip2.resilience.RequestCoalescer;
+import org.folio.edge.sip2.resilience.RequestHedger;
+import org.folio.edge.sip2.resilience.RequestRetrier;
 
 /**
  * Module for creating a {@code FolioResourceProvider} via Dependency injection.
@@ -12,7 +41,8 @@ import io.vertx.ext.web.client.WebClient;
  */
 public class FolioResourceProviderModule extends AbstractModule {
   private final String okapiUrl;
-  private final WebClient webClient;
+  private final FolioWebClients webClients;
+  private final JsonObject config;
 
   /**
    * Build a module for dependency injection.
@@ -20,13 +50,165 @@ public class FolioResourceProviderModule extends AbstractModule {
    * @param webClient the instance of WebClient
    */
   public FolioResourceProviderModule(String okapiUrl, WebClient webClient) {
+    this(okapiUrl, webClient, new JsonObject());
+  }
+
+  /**
+   * Build a module for dependency injection.
+   * @param okapiUrl the okapi url
+   * @param webClient the instance of WebClient
+   * @param config the main configuration
+   */
+  public FolioResourceProviderModule(String okapiUrl, WebClient webClient, JsonObject config) {
     this.okapiUrl = okapiUrl;
-    this.webClient = webClient;
+    this.webClients = FolioWebClients.of(webClient);
+    this.config = config == null ? new JsonObject() : config;
+  }
+
+  /**
+   * Build a module for dependency injection. FOLIO is called through the
+   * Okapi endpoints listed in the {@code okapiUrl} of the configuration.
+   * @param webClients the web clients to call FOLIO with
+   * @param config the main configuration
+   */
+  public FolioResourceProviderModule(FolioWebClients webClients, JsonObject config) {
+    this.config = config == null ? new JsonObject() : config;
+    this.okapiUrl = String.join(",", OkapiEndpoints.parseUrls(this.config.getValue("okapiUrl")));
+    this.webClients = webClients;
   }
 
   @Override
   protected void configure() {
     bind(String.class).annotatedWith(Names.named("okapiUrl")).toInstance(okapiUrl);
-    bind(WebClient.class).annotatedWith(Names.named("webClient")).toInstance(webClient);
+    bind(WebClient.class).annotatedWith(Names.named("webClient"))
+        .toInstance(webClients.getWebClient());
+    bind(FolioWebClients.class).toInstance(webClients);
+  }
+
+  @Provides
+  @Singleton
+  MeterRegistry provideMeterRegistry() {
+    return Metrics.getDefaultRegistry();
+  }
+
+  @Provides
+  @Singleton
+  OkapiEndpoints provideOkapiEndpoints(Clock clock, MeterRegistry registry) {
+    // the main configuration may list several endpoints
+    return new OkapiEndpoints(OkapiEndpoints.parseUrls(config.getValue("okapiUrl", okapiUrl)),
+        config.getJsonObject(OkapiEndpoints.CONFIG_KEY), clock, registry);
+  }
+
+  @Provides
+  @Singleton
+  ModuleRoutes provideModuleRoutes(MeterRegistry registry) {
+    return new ModuleRoutes(config.getJsonObject(ModuleRoutes.CONFIG_KEY), registry);
+  }
+
+  @Provides
+  @Singleton
+  LoadShedder provideLoadShedder(Clock clock) {
+    return new LoadShedder(config.getJsonObject(LoadShedder.CONFIG_KEY), clock);
+  }
+
+  @Provides
+  @Singleton
+  DeadlinePolicy provideDeadlinePolicy(Clock clock) {
+    return new DeadlinePolicy(config.getJsonObject(DeadlinePolicy.CONFIG_KEY), clock);
+  }
+
+  @Provides
+  @Singleton
+  ModuleIsolation provideModuleIsolation(Clock clock, MeterRegistry registry) {
+    return new ModuleIsolation(config.getJsonObject(ModuleIsolation.CONFIG_KEY), clock, registry);
+  }
+
+  @Provides
+  @Singleton
+  LookupBatcher provideLookupBatcher(IResourceProvider<IRequestData> resourceProvider,
+      MeterRegistry registry) {
+    return new LookupBatcher(config.getJsonObject(LookupBatcher.CONFIG_KEY), resourceProvider,
+        registry);
+  }
+
+  @Provides
+  @Singleton
+  RequestCoalescer provideRequestCoalescer(MeterRegistry registry) {
+    return new RequestCoalescer(config.getJsonObject(RequestCoalescer.CONFIG_KEY), registry);
+  }
+
+  @Provides
+  @Singleton
+  RequestHedger provideRequestHedger(MeterRegistry registry) {
+    return new RequestHedger(config.getJsonObject(RequestHedger.CONFIG_KEY), registry);
+  }
+
+  @Provides
+  @Singleton
+  ConcurrencyLimiter provideConcurrencyLimiter(MeterRegistry registry) {
+    return new ConcurrencyLimiter(config.getJsonObject(ConcurrencyLimiter.CONFIG_KEY), registry);
+  }
+
+  @Provides
+  @Singleton
+  RequestRetrier provideRequestRetrier(MeterRegistry registry) {
+    return new RequestRetrier(config.getJsonObject(RequestRetrier.CONFIG_KEY), registry);
+  }
+
+  @Provides
+  @Singleton
+  NegativeResultCache provideNegativeResultCache(Clock clock, MeterRegistry registry) {
+    return new NegativeResultCache(config.getJsonObject(NegativeResultCache.CONFIG_KEY), clock,
+        registry);
+  }
+
+  @Provides
+  @Singleton
+  ItemSnapshotCache provideItemSnapshotCache(Clock clock, MeterRegistry registry) {
+    return new ItemSnapshotCache(config.getJsonObject(ItemSnapshotCache.CONFIG_KEY), clock,
+        registry);
+  }
+
+  @Provides
+  @Singleton
+  ReferenceDataCache provideReferenceDataCache(Clock clock, MeterRegistry registry) {
+    return new ReferenceDataCache(config.getJsonObject(ReferenceDataCache.CONFIG_KEY), clock,
+        registry);
+  }
+
+  @Provides
+  @Singleton
+  AccountPager provideAccountPager(MeterRegistry registry) {
+    return new AccountPager(config.getJsonObject(AccountPager.CONFIG_KEY), registry);
+  }
+
+  @Provides
+  @Singleton
+  PatronDetailsCache providePatronDetailsCache(Clock clock, MeterRegistry registry) {
+    return new PatronDetailsCache(config.getJsonObject(PatronDetailsCache.CONFIG_KEY), clock,
+        registry);
+  }
+
+  @Provides
+  @Singleton
+  PatronFetchStrategy providePatronFetchStrategy(MeterRegistry registry) {
+    return new PatronFetchStrategy(config.getJsonObject(PatronFetchStrategy.CONFIG_KEY),
+        registry);
+  }
+
+  @Provides
+  @Singleton
+  LoanPrefetcher provideLoanPrefetcher(ItemRepository itemRepository,
+      ItemSnapshotCache itemSnapshotCache, MeterRegistry registry) {
+    return new LoanPrefetcher(config.getJsonObject(LoanPrefetcher.CONFIG_KEY), itemRepository,
+        itemSnapshotCache, registry);
+  }
+
+  @Provides
+  @Singleton
+  OfflineCirculation provideOfflineCirculation(CirculationRepository circulationRepository,
+      LoadShedder loadShedder, MeterRegistry registry) {
+    return new OfflineCirculation(config.getJsonObject(OfflineCirculation.CONFIG_KEY),
+        circulationRepository, loadShedder, webClients.getVertx(), registry);
   }
 }
@@ -0,0 +1,139 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Pages through the fee/fine accounts of a patron and folds them into a
+ * result one page at a time, so that a patron with more accounts than fit in
+ * one response is totalled correctly without all accounts being held in
+ * memory at once. Pages are requested one after the other until a short page
+ * or {@code totalRecords} shows that there are no more, or until
+ * {@code maxPages} were read.
+ */
+public class AccountPager {
+  public static final String CONFIG_KEY = "accountPagingOptions";
+  public static final int DEFAULT_PAGE_SIZE = 200;
+  public static final int DEFAULT_MAX_PAGES = 100;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.accounts.";
+  private static final String ACCOUNTS_KEY = "accounts";
+  private static final String TOTAL_RECORDS = "totalRecords";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final int pageSize;
+  private final int maxPages;
+  private final DistributionSummary pages;
+  private final Counter truncated;
+
+  /**
+   * Loads a page of accounts.
+   */
+  @FunctionalInterface
+  public interface PageLoader {
+    /**
+     * Load a page of accounts.
+     * @param offset the index of the first account of the page
+     * @param limit the most accounts in the page
+     * @return the page in raw JSON, {@code null} if there are no more accounts
+     */
+    Future<JsonObject> load(int offset, int limit);
+  }
+
+  /**
+   * Construct the pager from the {@code accountPagingOptions} configuration.
+   * @param options the options, may be {@code null} in which case the defaults are used
+   * @param registry the registry to publish metrics to
+   */
+  public AccountPager(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.pageSize = Math.max(1, config.getInteger("pageSize", DEFAULT_PAGE_SIZE));
+    this.maxPages = Math.max(1, config.getInteger("maxPages", DEFAULT_MAX_PAGES));
+    this.pages = DistributionSummary.builder(METRICS_PREFIX + "pages").register(registry);
+    this.truncated = Counter.builder(METRICS_PREFIX + "truncated").register(registry);
+  }
+
+  /**
+   * Returns a pager with the default page size.
+   * @param registry the registry to publish metrics to
+   * @return a pager with the defaults
+   */
+  public static AccountPager withDefaults(MeterRegistry registry) {
+    return new AccountPager(null, registry);
+  }
+
+  /**
+   * Fold all accounts into a result, page by page. Fails if any page fails.
+   * @param loader loads a page of accounts
+   * @param initial the result before any account is folded in
+   * @param folder folds an account into the result
+   * @param <T> the result type
+   * @return the result after all accounts were folded in
+   */
+  public <T> Future<T> fold(PageLoader loader, T initial, BiFunction<T, JsonObject, T> folder) {
+    return foldFrom(loader, 0, 1, initial, folder);
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Returns an amount of money from an account field as a {@code BigDecimal},
+   * so that totals of many accounts do not drift. The streaming readers read
+   * decimal numbers as {@code BigDecimal} already; a {@code double} of a fully
+   * decoded response is taken at its shortest decimal representation.
+   * @param value the number or string read from the account
+   * @return the amount, zero if there is none
+   */
+  public static BigDecimal toAmount(Object value) {
+    if (value == null) {
+      return BigDecimal.ZERO;
+    }
+    // toString of a double is the shortest decimal that reads back as it
+    return new BigDecimal(value.toString());
+  }
+
+  private <T> Future<T> foldFrom(PageLoader loader, int offset, int page, T result,
+      BiFunction<T, JsonObject, T> folder) {
+    return loader.load(offset, pageSize).compose(json -> {
+      final JsonArray accounts = json == null ? null : json.getJsonArray(ACCOUNTS_KEY);
+      if (accounts == null || accounts.isEmpty()) {
+        pages.record(page);
+        return Future.succeededFuture(result);
+      }
+
+      T folded = result;
+      for (int i = 0; i < accounts.size(); i++) {
+        folded = folder.apply(folded, accounts.getJsonObject(i));
+      }
+
+      final int next = offset + accounts.size();
+      final Integer totalRecords = json.getInteger(TOTAL_RECORDS);
+      if (accounts.size() < pageSize || (totalRecords != null && next >= totalRecords)) {
+        pages.record(page);
+        return Future.succeededFuture(folded);
+      }
+      if (page >= maxPages) {
+        log.warn("Stopped reading accounts after {} pages of {}, {} of {} accounts read",
+            page, pageSize, next, totalRecords);
+        pages.record(page);
+        truncated.increment();
+        return Future.succeededFuture(folded);
+      }
+      return foldFrom(loader, next, page + 1, folded, folder);
+    });
+  }
+}
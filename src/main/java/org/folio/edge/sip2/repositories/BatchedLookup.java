@@ -0,0 +1,37 @@
+package org.folio.edge.sip2.repositories;
+
+import io.vertx.core.json.JsonObject;
+import java.util.Collection;
+
+/**
+ * Describes a FOLIO lookup by identifier that can be merged with concurrent
+ * lookups of the same kind into a single query.
+ */
+public interface BatchedLookup {
+  /**
+   * Returns the name of the lookup, used for metrics.
+   * @return the lookup name
+   */
+  String getName();
+
+  /**
+   * Returns the path of a query that finds the records for all of the identifiers.
+   * @param identifiers the identifiers to look up
+   * @return the path of the merged query
+   */
+  String getPath(Collection<String> identifiers);
+
+  /**
+   * Returns the name of the array holding the records in the query result.
+   * @return the records array name
+   */
+  String getRecordsName();
+
+  /**
+   * Indicates whether a record returned by the merged query belongs to an identifier.
+   * @param record the record
+   * @param identifier the identifier
+   * @return true if the record was found for the identifier
+   */
+  boolean matches(JsonObject record, String identifier);
+}
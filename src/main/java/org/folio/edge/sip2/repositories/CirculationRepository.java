@@ -23,17 +23,28 @@ import java.util.Optional;
 import javax.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.cache.NegativeResultCache;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
+import org.folio.edge.sip2.domain.messages.enumerations.HoldMode;
 import org.folio.edge.sip2.domain.messages.enumerations.MediaType;
 import org.folio.edge.sip2.domain.messages.requests.Checkin;
 import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.requests.Hold;
 import org.folio.edge.sip2.domain.messages.requests.Renew;
 import org.folio.edge.sip2.domain.messages.requests.RenewAll;
 import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
 import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+import org.folio.edge.sip2.domain.messages.responses.HoldResponse;
 import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
 import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse.RenewAllResponseBuilder;
 import org.folio.edge.sip2.domain.messages.responses.RenewResponse;
+import org.folio.edge.sip2.repositories.domain.PatronPasswordVerificationRecords;
 import org.folio.edge.sip2.repositories.domain.User;
+import org.folio.edge.sip2.repositories.plan.FetchNode;
+import org.folio.edge.sip2.repositories.plan.FetchPlan;
+import org.folio.edge.sip2.resilience.RequestRejectedThrowable;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
 import org.folio.okapi.common.refreshtoken.client.ClientException;
@@ -53,19 +64,51 @@ public class CirculationRepository {
   public static final String TITLE = "title";
   public static final String ITEM_BARCODE = "itemBarcode";
   public static final String SERVICE_POINT_ID = "servicePointId";
+  // only the fields of loans and requests that SIP responses are built from
+  private static final ResponseReader<JsonObject> LOANS = ResponseReader.projection("loans",
+      "id", "userId", "itemId", "dueDate", "item.title", "item.barcode");
+  private static final ResponseReader<JsonObject> REQUESTS = ResponseReader.projection(
+      "requests", "id", "requesterId", "itemId", "requestType", "status", "item.title",
+      "instance.title");
+  // the reason FOLIO ships for requests the patron cancelled
+  private static final String PATRON_CANCELLED = "Patron Cancelled";
+  private static final String AWAITING_PICKUP = "Open - Awaiting pickup";
+  // the most requests read by a lookup of the requests of several items
+  static final int ITEM_REQUESTS_LIMIT = 1000;
   private final IResourceProvider<IRequestData> resourceProvider;
   private final PasswordVerifier passwordVerifier;
   private final Clock clock;
+  private final NegativeResultCache negativeResultCache;
+  private final ItemSnapshotCache itemSnapshotCache;
+  private final PatronDetailsCache patronDetailsCache;
+  private final ItemRepository itemRepository;
+  private final ReferenceDataCache referenceDataCache;
+  private final UsersRepository usersRepository;
 
 
   @Inject
   CirculationRepository(IResourceProvider<IRequestData> resourceProvider,
-      PasswordVerifier passwordVerifier, Clock clock) {
+      PasswordVerifier passwordVerifier, Clock clock,
+      NegativeResultCache negativeResultCache, ItemSnapshotCache itemSnapshotCache,
+      PatronDetailsCache patronDetailsCache, ItemRepository itemRepository,
+      ReferenceDataCache referenceDataCache, UsersRepository usersRepository) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
     this.passwordVerifier = Objects.requireNonNull(passwordVerifier,
         "Password verifier cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    this.negativeResultCache = Objects.requireNonNull(negativeResultCache,
+        "NegativeResultCache cannot be null");
+    this.itemSnapshotCache = Objects.requireNonNull(itemSnapshotCache,
+        "ItemSnapshotCache cannot be null");
+    this.patronDetailsCache = Objects.requireNonNull(patronDetailsCache,
+        "PatronDetailsCache cannot be null");
+    this.itemRepository = Objects.requireNonNull(itemRepository,
+        "ItemRepository cannot be null");
+    this.referenceDataCache = Objects.requireNonNull(referenceDataCache,
+        "ReferenceDataCache cannot be null");
+    this.usersRepository = Objects.requireNonNull(usersRepository,
+        "UsersRepository cannot be null");
   }
 
   /**
@@ -94,63 +137,76 @@ public class CirculationRepository {
 
     final CheckinRequestData checkinRequestData =
         new CheckinRequestData(body, headers, sessionData);
-    final Future<IResource> checkinResult = resourceProvider
-        .createResource(checkinRequestData);
-
-    return checkinResult
-        .otherwise(() -> null)
-        .compose(resource -> {
+    // The open requests for the item are only of interest once it is checked in
+    final FetchPlan plan = FetchPlan.create("checkin", sessionData);
+    final FetchNode<IResource> checkinNode = plan.node("checkin",
+        () -> resourceProvider.createResource(checkinRequestData).recover(
+            CirculationRepository::unlessRejected));
+    // the item is checked in by then, so the response does without the requests
+    // rather than failing when they cannot be read in time
+    final FetchNode<JsonObject> requestsNode = plan.optionalNode("requests", checkinNode,
+        resource -> resource.getResource() != null
+            ? getRequestsByItemId(itemIdentifier, null, null, null, sessionData)
+            : Future.succeededFuture(null));
+
+    return plan.execute()
+        .map(v -> {
+          final IResource resource = checkinNode.result();
           log.info("performCheckinCommand resource:{}", resource);
-          JsonObject resourceJson = resource.getResource();
-
-          final Future<JsonObject> getRequestsResult = resourceJson != null
-              ? getRequestsByItemId(itemIdentifier, null, null,
-                  null, sessionData) : Future.succeededFuture(null);
-          return getRequestsResult
-            .compose(requestsJson -> {
-              JsonObject valuesJson = extractCheckinValues(resourceJson);
-              MediaType mediaType = getMediaType(valuesJson.getJsonObject("itemMaterialTypeJson"));
-              JsonArray requestArray =
-                  requestsJson != null ? requestsJson.getJsonArray("requests") : null;
-              JsonObject request = requestArray != null && !requestArray.isEmpty()
-                  ? requestArray.getJsonObject(0) : null;
-              final String requestState =
-                  request != null ? request.getString("requestType") : null;
-              final boolean inTransit = valuesJson.getString("itemStatus") != null
-                  && valuesJson.getString("itemStatus").equals("In transit");
-              final boolean holdItem = requestState != null && requestState.equals("Hold");
-              final boolean recallItem = requestState != null && requestState.equals("Recall");
-              final boolean alert = inTransit || holdItem || recallItem;
-              final String alertType = getAlertType(inTransit, holdItem, recallItem);
-              return Future.succeededFuture(
-                CheckinResponse.builder()
-                  .ok(resourceJson == null ? FALSE : TRUE)
-                  .resensitize(resourceJson == null ? FALSE : TRUE)
-                  .magneticMedia(null)
-                  .alert(alert)
-                  .alertType(alertType)
-                  .transactionDate(OffsetDateTime.now(clock))
-                  .institutionId(institutionId)
-                  .itemIdentifier(itemIdentifier)
-                  .callNumber(valuesJson.getString("callNumber"))
-                  .mediaType(mediaType)
-                  .pickupServicePoint(valuesJson.getString("servicePoint"))
-                  // if the title is not available, use the item identifier passed in to the
-                  // checkin.
-                  // this allows the kiosk to show something related to the item that could be used
-                  // by the patron to identify which item this checkin response applies to.
-                  .titleIdentifier(resource.getResource() == null ? itemIdentifier
-                    : getChildString(resource.getResource(), "item", TITLE, itemIdentifier))
-                  // this is probably not the permanent location
-                  // this might require a call to inventory
-                  .permanentLocation(
-                    resource.getResource() == null ? UNKNOWN
-                      : getSubChildString(resource.getResource(),
-                      Arrays.asList("item", "location"), "name", UNKNOWN))
-                    .build());
-            });
-        }
-      );
+          final JsonObject resourceJson = resource.getResource();
+          final JsonObject requestsJson = requestsNode.result();
+          if (resourceJson != null) {
+            itemChanged(sessionData, itemIdentifier);
+          }
+          JsonObject valuesJson = extractCheckinValues(resourceJson);
+          MediaType mediaType = getMediaType(valuesJson.getJsonObject("itemMaterialTypeJson"));
+          JsonArray requestArray =
+              requestsJson != null ? requestsJson.getJsonArray("requests") : null;
+          JsonObject request = requestArray != null && !requestArray.isEmpty()
+              ? requestArray.getJsonObject(0) : null;
+          final String requestState =
+              request != null ? request.getString("requestType") : null;
+          final boolean inTransit = valuesJson.getString("itemStatus") != null
+              && valuesJson.getString("itemStatus").equals("In transit");
+          final boolean holdItem = requestState != null && requestState.equals("Hold");
+          final boolean recallItem = requestState != null && requestState.equals("Recall");
+          final boolean alert = inTransit || holdItem || recallItem;
+          final String alertType = getAlertType(inTransit, holdItem, recallItem);
+          return CheckinResponse.builder()
+              .ok(resourceJson == null ? FALSE : TRUE)
+              .resensitize(resourceJson == null ? FALSE : TRUE)
+              .magneticMedia(null)
+              .alert(alert)
+              .alertType(alertType)
+              .transactionDate(OffsetDateTime.now(clock))
+              .institutionId(institutionId)
+              .itemIdentifier(itemIdentifier)
+              .callNumber(valuesJson.getString("callNumber"))
+              .mediaType(mediaType)
+              .pickupServicePoint(valuesJson.getString("servicePoint"))
+              .titleIdentifier(getCheckinTitle(resourceJson, itemIdentifier, sessionData))
+              // this is probably not the permanent location
+              // this might require a call to inventory
+              .permanentLocation(
+                resourceJson == null ? UNKNOWN
+                  : getSubChildString(resourceJson,
+                  Arrays.asList("item", "location"), "name", UNKNOWN))
+              .build();
+        })
+        // a checkin does not name the patron, any patron kept on the session may be concerned
+        .onComplete(ar -> patronDetailsCache.invalidate(sessionData, null));
+  }
+
+  private String getCheckinTitle(JsonObject resourceJson, String itemIdentifier,
+      SessionData sessionData) {
+    if (!sessionData.getResponseProfile().isCheckinTitle()) {
+      return null;
+    }
+    // if the title is not available, use the item identifier passed in to the checkin.
+    // this allows the kiosk to show something related to the item that could be used
+    // by the patron to identify which item this checkin response applies to.
+    return resourceJson == null ? itemIdentifier
+        : getChildString(resourceJson, "item", TITLE, itemIdentifier);
   }
 
   /**
@@ -198,11 +254,14 @@ public class CirculationRepository {
         final Future<IResource> result = resourceProvider.createResource(checkoutRequestData);
 
         return result
-          .otherwise(Utils::handleErrors)
+          .recover(CirculationRepository::unlessRejected)
           .compose(res -> addTitleIfNotFound(sessionData, itemIdentifier, res))
           .map(resource -> {
             log.debug("performCheckoutCommand resource:{}",resource.getResource());
             final Optional<JsonObject> response = Optional.ofNullable(resource.getResource());
+            if (response.isPresent()) {
+              itemChanged(sessionData, itemIdentifier);
+            }
 
             final OffsetDateTime dueDate = response
                 .map(v -> v.getString("dueDate"))
@@ -227,7 +286,8 @@ public class CirculationRepository {
                 .orElse(null))
               .build();
           });
-      });
+      })
+      .onComplete(ar -> patronDetailsCache.invalidate(sessionData, patronIdentifier));
   }
 
   private CheckoutResponse buildFailedCheckoutResponse(String institutionId,
@@ -255,6 +315,94 @@ public class CirculationRepository {
   }
 
 
+  /**
+   * Check in an item that was accepted while FOLIO was unavailable. Only the
+   * check in is made, nothing is read for a response.
+   * @param checkin the checkin as it was accepted
+   * @param sessionData the session to check in on
+   * @return {@code TRUE} if the item was checked in, {@code FALSE} if FOLIO
+   *     refused the check in; failed if FOLIO could not be reached
+   */
+  public Future<Boolean> replayCheckin(Checkin checkin, SessionData sessionData) {
+    log.debug("replayCheckin checkin:{}", checkin);
+    final String itemIdentifier = checkin.getItemIdentifier();
+
+    final JsonObject body = new JsonObject()
+        .put(ITEM_BARCODE, itemIdentifier)
+        .put(SERVICE_POINT_ID, sessionData.getScLocation())
+        .put("checkInDate", formatDateTime(checkin.getReturnDate()));
+
+    return resourceProvider.createResource(
+        new CheckinRequestData(body, getBaseHeaders(), sessionData))
+        .map(resource -> {
+          itemChanged(sessionData, itemIdentifier);
+          return TRUE;
+        })
+        .recover(CirculationRepository::refused)
+        .onComplete(ar -> patronDetailsCache.invalidate(sessionData, null));
+  }
+
+  /**
+   * Check out an item that was accepted while FOLIO was unavailable. The
+   * patron is looked up by identifier like for a live checkout and the loan
+   * dates are taken from the time the checkout was accepted.
+   * @param checkout the checkout as it was accepted
+   * @param sessionData the session to check out on
+   * @return {@code TRUE} if the item was checked out, {@code FALSE} if FOLIO
+   *     refused the check out; failed if FOLIO could not be reached
+   */
+  public Future<Boolean> replayCheckout(Checkout checkout, SessionData sessionData) {
+    log.debug("replayCheckout checkout:{}", checkout);
+    final String patronIdentifier = checkout.getPatronIdentifier();
+    final String itemIdentifier = checkout.getItemIdentifier();
+
+    // the patron may be identified by external system id or username as well
+    return usersRepository.getUserById(patronIdentifier, sessionData)
+        .compose(extendedUser -> {
+          final User user = extendedUser != null ? extendedUser.getUser() : null;
+          final JsonObject body = new JsonObject()
+              .put(ITEM_BARCODE, itemIdentifier)
+              .put("userBarcode", user != null ? user.getBarcode() : patronIdentifier)
+              .put(SERVICE_POINT_ID, sessionData.getScLocation())
+              .put("loanDate", formatDateTime(checkout.getTransactionDate()));
+
+          return resourceProvider.createResource(
+              new CheckoutRequestData(body, getBaseHeaders(), sessionData));
+        })
+        .map(resource -> {
+          itemChanged(sessionData, itemIdentifier);
+          return TRUE;
+        })
+        .recover(CirculationRepository::refused)
+        .onComplete(ar -> patronDetailsCache.invalidate(sessionData, patronIdentifier));
+  }
+
+  /**
+   * Turns the failure of a write into a response without a resource, unless
+   * the write was rejected locally. FOLIO was not asked then, so the
+   * transaction may be degraded or accepted offline instead.
+   */
+  private static Future<IResource> unlessRejected(Throwable throwable) {
+    if (throwable instanceof RequestRejectedThrowable) {
+      return Future.failedFuture(throwable);
+    }
+    return Future.succeededFuture(Utils.handleErrors(throwable));
+  }
+
+  private static Future<Boolean> refused(Throwable throwable) {
+    if (throwable instanceof FolioRequestThrowable) {
+      final int statusCode = ((FolioRequestThrowable) throwable).getStatusCode();
+      // a client error will not pass on a retry, unless it is a timeout, throttling
+      // or the kiosk's login, whose credentials may be renewed in the meantime
+      if (statusCode >= 400 && statusCode < 500 && statusCode != 401 && statusCode != 403
+          && statusCode != 408 && statusCode != 429) {
+        return Future.succeededFuture(FALSE);
+      }
+    }
+    return Future.failedFuture(throwable);
+  }
+
+
   private Future<IResource> addTitleIfNotFound(SessionData sessionData,
                                                String itemIdentifier, IResource circRes) {
     if (circRes.getErrorMessages().isEmpty()) {
@@ -290,6 +438,20 @@ public class CirculationRepository {
   private Future<IResource> getTitle(String itemIdentifier, SessionData sessionData,
                                      List<String> circErrorMessages) {
 
+    final String tenant = sessionData.getTenant();
+    if (negativeResultCache.isKnownMissing(tenant, NegativeResultCache.Kind.TITLE,
+        itemIdentifier)) {
+      return Future.succeededFuture(getiResourceFromTitle(TITLE_NOT_FOUND, circErrorMessages));
+    }
+    final String cachedTitle = itemSnapshotCache.getTitle(tenant, itemIdentifier);
+    if (cachedTitle != null) {
+      return Future.succeededFuture(getiResourceFromTitle(cachedTitle, circErrorMessages));
+    }
+    if (!sessionData.getResponseProfile().isCheckoutTitleFallback()) {
+      // the tenant does not show the title of an item that failed to check out
+      return Future.succeededFuture(getiResourceFromTitle(UNKNOWN, circErrorMessages));
+    }
+
     final Map<String, String> headers = getBaseHeaders();
     final ItemRequestData itemRequestData =
         new ItemRequestData(null, headers, sessionData, itemIdentifier);
@@ -298,10 +460,12 @@ public class CirculationRepository {
 
     return result
       .otherwise(Utils.handleSearchErrors(result.cause(), circErrorMessages))
-      .map(searchResult -> getTitleFromJson(searchResult, circErrorMessages));
+      .map(searchResult -> getTitleFromJson(searchResult, circErrorMessages, tenant,
+          itemIdentifier));
   }
 
-  private IResource getTitleFromJson(IResource resource, List<String> circErrorMessages) {
+  private IResource getTitleFromJson(IResource resource, List<String> circErrorMessages,
+      String tenant, String itemIdentifier) {
     if (!resource.getErrorMessages().isEmpty()) {
       return resource;
     }
@@ -316,11 +480,24 @@ public class CirculationRepository {
     JsonArray instanceArray = response.get().getJsonArray(instances);
     if (instanceArray.size() > 0) {
       title = instanceArray.getJsonObject(0).getString(TITLE);
+      itemSnapshotCache.putTitle(tenant, itemIdentifier, title);
       return getiResourceFromTitle(title, circErrorMessages);
     }
+    // the search answered, no instance holds an item with this barcode
+    negativeResultCache.recordMissing(tenant, NegativeResultCache.Kind.TITLE, itemIdentifier);
     return getiResourceFromTitle(title, circErrorMessages);
   }
 
+  private void itemChanged(SessionData sessionData, String itemIdentifier) {
+    // the status of the item changed and circulation found it, so earlier
+    // lookups that did not are stale as well
+    itemSnapshotCache.invalidate(sessionData.getTenant(), itemIdentifier);
+    negativeResultCache.invalidate(sessionData.getTenant(), NegativeResultCache.Kind.ITEM,
+        itemIdentifier);
+    negativeResultCache.invalidate(sessionData.getTenant(), NegativeResultCache.Kind.TITLE,
+        itemIdentifier);
+  }
+
   /**
    * Get requests for the specified patron.
    *
@@ -339,7 +516,7 @@ public class CirculationRepository {
         requestType, startItem, endItem, headers, sessionData);
     final Future<IResource> result = resourceProvider.retrieveResource(requestsRequestData);
 
-    return result.otherwise(() -> null).map(IResource::getResource);
+    return result.otherwise(() -> null).map(resource -> resource.getResource(REQUESTS));
   }
 
   /**
@@ -361,7 +538,27 @@ public class CirculationRepository {
         requestType, startItem, endItem, headers, sessionData);
     final Future<IResource> result = resourceProvider.retrieveResource(requestsRequestData);
 
-    return result.otherwise(() -> null).map(IResource::getResource);
+    return result.otherwise(() -> null).map(resource -> resource.getResource(REQUESTS));
+  }
+
+  /**
+   * Gets the open requests for several items in one query.
+   *
+   * @param itemIds the UUIDs of the items
+   * @param requestType the request type (can be null)
+   * @param sessionData the session data
+   * @return the open requests for all of the items, up to {@code ITEM_REQUESTS_LIMIT}
+   */
+  public Future<JsonObject> getRequestsByItemIds(List<String> itemIds, String requestType,
+      SessionData sessionData) {
+    final Map<String, String> headers = getBaseHeaders();
+
+    final RequestsRequestData requestsRequestData = new RequestsRequestData("itemId",
+        "(" + String.join(" or ", itemIds) + ")", requestType, 1, ITEM_REQUESTS_LIMIT, headers,
+        sessionData);
+    final Future<IResource> result = resourceProvider.retrieveResource(requestsRequestData);
+
+    return result.otherwise(() -> null).map(resource -> resource.getResource(REQUESTS));
   }
 
   /**
@@ -383,7 +580,7 @@ public class CirculationRepository {
 
     return result
         .otherwise(() -> null)
-        .map(IResource::getResource);
+        .map(resource -> resource.getResource(LOANS));
   }
 
   /**
@@ -406,7 +603,7 @@ public class CirculationRepository {
 
     return result
         .otherwise(() -> null)
-        .map(IResource::getResource);
+        .map(resource -> resource.getResource(LOANS));
   }
 
   private Map<String, String> getBaseHeaders() {
@@ -547,7 +744,8 @@ public class CirculationRepository {
     @Override
     public String getPath() {
       String query = Utils.encode("(userId==" + userId + " and status.name=Open)");
-      return "/circulation/loans?query=" + query;
+      return appendLimits(new StringBuilder("/circulation/loans?query=").append(query))
+          .toString();
     }
   }
 
@@ -645,6 +843,9 @@ public class CirculationRepository {
           .otherwise(Utils::handleErrors)
           .map(resource -> {
             final Optional<JsonObject> response = Optional.ofNullable(resource.getResource());
+            if (response.isPresent()) {
+              itemChanged(sessionData, barcode);
+            }
 
             final Boolean renewalOk = response
                 .map(v -> !v.getJsonObject("item").isEmpty())
@@ -671,7 +872,8 @@ public class CirculationRepository {
                 .orElse(null))
               .build();
           });
-      });
+      })
+      .onComplete(ar -> patronDetailsCache.invalidate(sessionData, patronIdentifier));
   }
 
   /**
@@ -774,7 +976,8 @@ public class CirculationRepository {
                         .orElse(null))
                     .build();
               });
-        });
+        })
+        .onComplete(ar -> patronDetailsCache.invalidate(sessionData, patronIdentifier));
   }
 
   private RenewAllResponse buildFailedRenewAllResponse(
@@ -793,6 +996,273 @@ public class CirculationRepository {
       .build();
   }
 
+  /**
+   * Perform a hold. The patron and the item are resolved at the same time,
+   * then a hold request is placed on the item, or the patron's open request
+   * for it is changed or cancelled.
+   *
+   * @param hold the hold domain object
+   * @param sessionData session data
+   * @return the hold response domain object
+   */
+  public Future<HoldResponse> performHoldCommand(Hold hold, SessionData sessionData) {
+    log.debug("performHoldCommand hold:{}", hold);
+    final String patronIdentifier = hold.getPatronIdentifier();
+    final String itemIdentifier = hold.getItemIdentifier();
+    if (itemIdentifier == null) {
+      return Future.succeededFuture(buildFailedHoldResponse(hold,
+          Collections.singletonList("The 'item identifier' field must be present to place,"
+              + " change or cancel a hold.")));
+    }
+
+    final boolean add = hold.getHoldMode() == HoldMode.ADD;
+    final FetchPlan plan = FetchPlan.create("hold", sessionData);
+    final FetchNode<PatronPasswordVerificationRecords> patronNode = plan.node("patron",
+        () -> passwordVerifier.verifyPatronPassword(patronIdentifier, hold.getPatronPassword(),
+            sessionData));
+    final FetchNode<JsonObject> itemNode = plan.node("item",
+        () -> itemRepository.getRequestableItem(itemIdentifier, sessionData));
+    // a request to change or cancel has to be found first, the reason for
+    // cancelling it is read meanwhile
+    final FetchNode<JsonObject> requestNode = add ? null : plan.node("request", patronNode,
+        itemNode, (verification, item) -> getHoldRequest(verification, item, sessionData));
+    final FetchNode<JsonObject> reasonNode = hold.getHoldMode() != HoldMode.DELETE ? null
+        : plan.node("cancellationReason", () -> getCancellationReason(sessionData));
+
+    return plan.execute()
+      .onFailure(throwable -> {
+        if (throwable instanceof ClientException) {
+          sessionData.setErrorResponseMessage(buildFailedHoldResponse(hold,
+              Collections.singletonList(sessionData.getLoginErrorMessage())));
+        }
+      })
+      .compose(v -> {
+        final PatronPasswordVerificationRecords verification = patronNode.result();
+        if (FALSE.equals(verification.getPasswordVerified())) {
+          return Future.succeededFuture(
+              buildFailedHoldResponse(hold, verification.getErrorMessages()));
+        }
+        final User user = verification.getUser();
+        if (user == null) {
+          return Future.succeededFuture(buildFailedHoldResponse(hold,
+              Collections.singletonList("Patron not found")));
+        }
+        final JsonObject item = itemNode.result();
+        if (item == null) {
+          return Future.succeededFuture(buildFailedHoldResponse(hold,
+              Collections.singletonList("Item not found")));
+        }
+
+        if (add) {
+          return placeHold(hold, user, item, sessionData);
+        }
+        final JsonObject request = requestNode.result();
+        if (request == null) {
+          return Future.succeededFuture(buildFailedHoldResponse(hold,
+              Collections.singletonList("No open request of the patron for the item")));
+        }
+        if (hold.getHoldMode() == HoldMode.DELETE) {
+          return cancelHold(hold, user, request, reasonNode.result(), sessionData);
+        }
+        return changeHold(hold, request, sessionData);
+      })
+      .onComplete(ar -> patronDetailsCache.invalidate(sessionData, patronIdentifier));
+  }
+
+  private Future<HoldResponse> placeHold(Hold hold, User user, JsonObject item,
+      SessionData sessionData) {
+    final JsonObject body = new JsonObject()
+        .put("requestType", "Hold")
+        .put("requestLevel", "Item")
+        .put("requestDate", formatDateTime(OffsetDateTime.now(clock)))
+        .put("requesterId", user.getId())
+        .put("itemId", item.getString("id"))
+        .put("holdingsRecordId", item.getString("holdingsRecordId"))
+        .put("instanceId", item.getString("instanceId"))
+        .put("fulfillmentPreference", "Hold Shelf")
+        .put("pickupServicePointId", getPickupServicePointId(hold, sessionData));
+    if (hold.getExpirationDate() != null) {
+      body.put("requestExpirationDate", formatDateTime(hold.getExpirationDate()));
+    }
+
+    return resourceProvider.createResource(
+        new HoldRequestData(body, getBaseHeaders(), sessionData))
+      .otherwise(Utils::handleErrors)
+      .map(resource -> buildHoldResponse(hold, resource.getResource(),
+          resource.getErrorMessages()));
+  }
+
+  private Future<HoldResponse> changeHold(Hold hold, JsonObject request,
+      SessionData sessionData) {
+    final JsonObject body = request.copy();
+    if (hold.getPickupLocation() != null) {
+      body.put("pickupServicePointId", hold.getPickupLocation());
+    }
+    if (hold.getExpirationDate() != null) {
+      body.put("requestExpirationDate", formatDateTime(hold.getExpirationDate()));
+    }
+    return updateHold(hold, body, sessionData);
+  }
+
+  private Future<HoldResponse> cancelHold(Hold hold, User user, JsonObject request,
+      JsonObject cancellationReason, SessionData sessionData) {
+    final JsonObject body = request.copy()
+        .put("status", "Closed - Cancelled")
+        .put("cancelledByUserId", user.getId())
+        .put("cancelledDate", formatDateTime(OffsetDateTime.now(clock)));
+    if (cancellationReason != null) {
+      body.put("cancellationReasonId", cancellationReason.getString("id"));
+    }
+    return updateHold(hold, body, sessionData);
+  }
+
+  private Future<HoldResponse> updateHold(Hold hold, JsonObject request,
+      SessionData sessionData) {
+    return resourceProvider.editResource(
+        new RequestUpdateData(request, getBaseHeaders(), sessionData))
+      .map(resource -> buildHoldResponse(hold, request, Collections.emptyList()))
+      .otherwise(throwable -> buildHoldResponse(hold, null,
+          Utils.handleErrors(throwable).getErrorMessages()));
+  }
+
+  private Future<JsonObject> getHoldRequest(PatronPasswordVerificationRecords verification,
+      JsonObject item, SessionData sessionData) {
+    final User user = verification.getUser();
+    if (FALSE.equals(verification.getPasswordVerified()) || user == null || item == null) {
+      return Future.succeededFuture(null);
+    }
+
+    return resourceProvider.retrieveResource(new PatronItemRequestsRequestData(user.getId(),
+        item.getString("id"), getBaseHeaders(), sessionData))
+      .map(resource -> {
+        final JsonArray requests = resource.getResource()
+            .getJsonArray("requests", new JsonArray());
+        return requests.isEmpty() ? null : requests.getJsonObject(0);
+      });
+  }
+
+  private Future<JsonObject> getCancellationReason(SessionData sessionData) {
+    return referenceDataCache.get(sessionData.getTenant(),
+        ReferenceDataCache.Type.CANCELLATION_REASON, PATRON_CANCELLED,
+        () -> resourceProvider
+          .retrieveResource(new CancellationReasonRequestData(PATRON_CANCELLED,
+              getBaseHeaders(), sessionData))
+          .compose(resource -> {
+            final JsonArray reasons = resource.getResource()
+                .getJsonArray("cancellationReasons", new JsonArray());
+            // circulation rejects the cancellation if it needs a reason
+            return reasons.isEmpty() ? Future.succeededFuture(null)
+                : Future.succeededFuture(reasons.getJsonObject(0));
+          }))
+      .otherwiseEmpty();
+  }
+
+  private String getPickupServicePointId(Hold hold, SessionData sessionData) {
+    // kiosks that do not know the service points leave the pickup location
+    // out, the hold is then picked up where it was placed
+    return hold.getPickupLocation() != null ? hold.getPickupLocation()
+        : sessionData.getScLocation();
+  }
+
+  private HoldResponse buildHoldResponse(Hold hold, JsonObject request,
+      List<String> errorMessages) {
+    final Optional<JsonObject> response = Optional.ofNullable(request);
+    return HoldResponse.builder()
+      .ok(Boolean.valueOf(response.isPresent()))
+      .available(response
+          .map(v -> AWAITING_PICKUP.equals(v.getString("status")))
+          .orElse(FALSE))
+      .transactionDate(OffsetDateTime.now(clock))
+      .expirationDate(response
+          .map(v -> v.getString("requestExpirationDate"))
+          .map(v -> OffsetDateTime.from(Utils.getFolioDateTimeFormatter().parse(v)))
+          .orElse(null))
+      .queuePosition(response.map(v -> v.getInteger("position")).orElse(null))
+      .pickupLocation(response
+          .map(v -> getChildString(v, "pickupServicePoint", "name",
+              v.getString("pickupServicePointId")))
+          .orElse(null))
+      .institutionId(hold.getInstitutionId())
+      .patronIdentifier(hold.getPatronIdentifier())
+      .itemIdentifier(hold.getItemIdentifier())
+      .titleIdentifier(response
+          .map(v -> getChildString(v, "instance", TITLE,
+              getChildString(v, "item", TITLE)))
+          .orElse(null))
+      .screenMessage(Optional.ofNullable(errorMessages)
+          .filter(v -> !v.isEmpty())
+          .orElse(null))
+      .build();
+  }
+
+  private HoldResponse buildFailedHoldResponse(Hold hold, List<String> errorMessages) {
+    return buildHoldResponse(hold, null, errorMessages);
+  }
+
+  private static String formatDateTime(OffsetDateTime dateTime) {
+    return dateTime
+        .withOffsetSameInstant(ZoneOffset.UTC)
+        .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+  }
+
+  private class HoldRequestData extends CirculationRequestData {
+    private HoldRequestData(JsonObject body, Map<String, String> headers,
+        SessionData sessionData) {
+      super(body, null, null, headers, sessionData);
+    }
+
+    @Override
+    public String getPath() {
+      return "/circulation/requests";
+    }
+  }
+
+  private class RequestUpdateData extends CirculationRequestData {
+    private RequestUpdateData(JsonObject body, Map<String, String> headers,
+        SessionData sessionData) {
+      super(body, null, null, headers, sessionData);
+    }
+
+    @Override
+    public String getPath() {
+      return "/circulation/requests/" + getBody().getString("id");
+    }
+  }
+
+  private class PatronItemRequestsRequestData extends CirculationRequestData {
+    private final String userId;
+    private final String itemId;
+
+    private PatronItemRequestsRequestData(String userId, String itemId,
+        Map<String, String> headers, SessionData sessionData) {
+      super(null, null, null, headers, sessionData);
+      this.userId = userId;
+      this.itemId = itemId;
+    }
+
+    @Override
+    public String getPath() {
+      final String query = "(requesterId==" + userId + " and itemId==" + itemId
+          + " and status=Open)";
+      return "/circulation/requests?limit=1&query=" + Utils.encode(query);
+    }
+  }
+
+  private class CancellationReasonRequestData extends CirculationRequestData {
+    private final String name;
+
+    private CancellationReasonRequestData(String name, Map<String, String> headers,
+        SessionData sessionData) {
+      super(null, null, null, headers, sessionData);
+      this.name = name;
+    }
+
+    @Override
+    public String getPath() {
+      return "/cancellation-reason-storage/cancellation-reasons?limit=1&query="
+          + Utils.encode("name==\"" + name + "\"");
+    }
+  }
 
   private class RenewalRequestData extends CirculationRequestData {
     private RenewalRequestData(JsonObject body, Map<String, String> headers,
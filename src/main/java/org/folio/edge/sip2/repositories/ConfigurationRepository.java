@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.repositories;
 
+import static java.lang.Boolean.FALSE;
+
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -7,19 +9,23 @@ import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import javax.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.enumerations.CurrencyType;
 import org.folio.edge.sip2.domain.messages.enumerations.Messages;
 import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
 import org.folio.edge.sip2.domain.messages.responses.ACSStatus.ACSStatusBuilder;
+import org.folio.edge.sip2.resilience.LoadShedder;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
 
@@ -28,6 +34,8 @@ public class ConfigurationRepository {
   private IResourceProvider<IRequestData> resourceProvider;
   private final Logger log;
   private Clock clock;
+  private final LoadShedder loadShedder;
+  private final Map<String, ACSStatus> lastKnownStatus = new ConcurrentHashMap<>();
 
   static final String TENANT_CONFIG_NAME = "acsTenantConfig";
   static final String SC_STATION_CONFIG_NAME = "selfCheckoutConfig";
@@ -37,6 +45,7 @@ public class ConfigurationRepository {
   private static final String KEY_CONFIG_NAME = "configName";
   private static final String KEY_CONFIG_MODULE = "module";
   private static final String KEY_CONFIG_CODE = "code";
+  private static final String PROTOCOL_VERSION = "2.00";
 
   /**
    * Constructor that takes an IResourceProvider.
@@ -45,9 +54,24 @@ public class ConfigurationRepository {
    */
 
   public ConfigurationRepository(IResourceProvider<IRequestData> resourceProvider, Clock clock) {
+    this(resourceProvider, clock, LoadShedder.disabled());
+  }
+
+  /**
+   * Constructor that also takes the load shedder, which decides when the ACS
+   * status is reported as off-line.
+   *
+   * @param resourceProvider This can be DefaultResourceProvider or any provider in the future.
+   * @param clock the clock
+   * @param loadShedder the load shedder tracking FOLIO health
+   */
+  @Inject
+  public ConfigurationRepository(IResourceProvider<IRequestData> resourceProvider, Clock clock,
+      LoadShedder loadShedder) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "ConfigGateway cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    this.loadShedder = Objects.requireNonNull(loadShedder, "LoadShedder cannot be null");
     log = LogManager.getLogger();
   }
 
@@ -58,6 +82,11 @@ public class ConfigurationRepository {
    */
   public Future<ACSStatus> getACSStatus(SessionData sessionData) {
     log.debug("getACSStatus sessionData:{}",sessionData);
+    if (loadShedder.isShedding()) {
+      log.warn("FOLIO is unavailable or overloaded, reporting the ACS as off-line");
+      return Future.succeededFuture(offLineACSStatus(sessionData));
+    }
+
     LinkedHashMap<String, String> tenantLevelQueryParams = new LinkedHashMap<>();
     tenantLevelQueryParams.put(KEY_CONFIG_MODULE, CONFIG_MODULE);
     tenantLevelQueryParams.put(KEY_CONFIG_NAME, TENANT_CONFIG_NAME);
@@ -93,10 +122,60 @@ public class ConfigurationRepository {
 
     return acsStatusBuilderFuture.map(result -> {
       log.info("getACSStatus ACSStatusBuilder:{}",result);
-      return builder.build();
+      final ACSStatus acsStatus = builder.build();
+      lastKnownStatus.put(getStatusKey(sessionData), acsStatus);
+      return acsStatus;
     });
   }
 
+  /**
+   * Builds an off-line ACS status without calling FOLIO. The last status
+   * retrieved for the tenant and kiosk is reused when available so that the
+   * kiosk keeps its settings, otherwise a timeout period of 0 is reported,
+   * which tells the kiosk that the ACS is not on-line.
+   */
+  private ACSStatus offLineACSStatus(SessionData sessionData) {
+    final ACSStatus known = lastKnownStatus.get(getStatusKey(sessionData));
+    final ACSStatusBuilder builder = ACSStatus.builder()
+        .onLineStatus(FALSE)
+        .dateTimeSync(OffsetDateTime.now(clock))
+        .protocolVersion(PROTOCOL_VERSION)
+        .institutionId(sessionData.getTenant())
+        .screenMessage(Collections.singletonList(loadShedder.getScreenMessage()));
+
+    if (known != null) {
+      final Set<Messages> supportedMessages = EnumSet.noneOf(Messages.class);
+      supportedMessages.addAll(known.getSupportedMessages());
+      builder.checkinOk(known.getCheckinOk())
+          .checkoutOk(known.getCheckoutOk())
+          .acsRenewalPolicy(known.getAcsRenewalPolicy())
+          .statusUpdateOk(known.getStatusUpdateOk())
+          .offLineOk(known.getOffLineOk())
+          .timeoutPeriod(known.getTimeoutPeriod())
+          .retriesAllowed(known.getRetriesAllowed())
+          .libraryName(known.getLibraryName())
+          .supportedMessages(supportedMessages)
+          .terminalLocation(known.getTerminalLocation());
+    } else {
+      builder.checkinOk(FALSE)
+          .checkoutOk(FALSE)
+          .acsRenewalPolicy(FALSE)
+          .statusUpdateOk(FALSE)
+          .offLineOk(FALSE)
+          .timeoutPeriod(0)
+          .retriesAllowed(999)
+          .libraryName("")
+          .supportedMessages(EnumSet.noneOf(Messages.class))
+          .terminalLocation(Objects.toString(sessionData.getScLocation(), ""));
+    }
+
+    return builder.build();
+  }
+
+  private static String getStatusKey(SessionData sessionData) {
+    return sessionData.getTenant() + "." + sessionData.getScLocation();
+  }
+
   /**
    * Method that retrieves the configuration from a resource provider.
    *
@@ -159,7 +238,7 @@ public class ConfigurationRepository {
                                         SessionData sessionData) {
 
     addTenantConfig(sets.get(configKeyTenant), sessionData, builder);
-    addSCStationConfig(sets.get(configKeySC), builder);
+    addSCStationConfig(sets.get(configKeySC), sessionData, builder);
     addLocaleConfig(sets.get(configKeyLocale), sessionData);
     builder.institutionId(sessionData.getTenant());
 
@@ -189,18 +268,22 @@ public class ConfigurationRepository {
       builder.onLineStatus(true);
       builder.statusUpdateOk(config.getBoolean("statusUpdateOk"));
       builder.offLineOk(config.getBoolean("offlineOk"));
-      builder.protocolVersion("2.00");
-      builder.supportedMessages(getSupportedMessagesFromJson(
-          config.getJsonArray("supportedMessages")));
+      builder.protocolVersion(PROTOCOL_VERSION);
+      final Set<Messages> supportedMessages = getSupportedMessagesFromJson(
+          config.getJsonArray("supportedMessages"));
+      builder.supportedMessages(supportedMessages);
+      sessionData.setSupportedMessages(supportedMessages);
       sessionData.setPatronPasswordVerificationRequired(
           config.getBoolean("patronPasswordVerificationRequired", Boolean.FALSE));
     }
   }
 
-  private void addSCStationConfig(JsonObject config, ACSStatusBuilder builder) {
+  private void addSCStationConfig(JsonObject config, SessionData sessionData,
+      ACSStatusBuilder builder) {
     if (config != null) {
       builder.retriesAllowed(config.getInteger("retriesAllowed"));
       builder.timeoutPeriod(config.getInteger("timeoutPeriod"));
+      sessionData.setTimeoutPeriod(config.getInteger("timeoutPeriod"));
       builder.checkinOk(config.getBoolean("checkinOk"));
       builder.acsRenewalPolicy(config.getBoolean("acsRenewalPolicy"));
       builder.checkoutOk(config.getBoolean("checkoutOk"));
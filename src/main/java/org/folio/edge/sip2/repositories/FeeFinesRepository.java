@@ -3,6 +3,7 @@ package org.folio.edge.sip2.repositories;
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -13,15 +14,20 @@ import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
 import org.folio.edge.sip2.domain.messages.requests.FeePaid;
 import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
 import org.folio.edge.sip2.repositories.domain.User;
@@ -39,20 +45,44 @@ public class FeeFinesRepository {
   private static final String HEADER_ACCEPT = "accept";
   private static final String MIMETYPE_JSON = "application/json";
   private static final String ACCOUNTS_KEY = "accounts";
+  // only the fields of accounts and fee/fines that SIP responses are built from
+  private static final ResponseReader<JsonObject> ACCOUNTS = ResponseReader.projection(
+      ACCOUNTS_KEY, "id", "userId", "amount", "remaining", "barcode", "title", "feeFineId",
+      "feeFineType", "dateCreated", "metadata.createdDate");
+  // only what totals and payments need, a page of open accounts is kept this small
+  private static final ResponseReader<JsonObject> OPEN_ACCOUNTS = ResponseReader.projection(
+      ACCOUNTS_KEY, "id", "remaining");
+  private static final String FEE_FINES_KEY = "feefines";
+  private static final String FEE_FINE_TYPE = "feeFineType";
+  // keeps the CQL query of a fee/fine lookup well within URL length limits
+  static final int FEE_FINE_IDS_PER_QUERY = 50;
+  private static final ResponseReader<JsonObject> FEE_FINES =
+      ResponseReader.projection(FEE_FINES_KEY, "id", "feeFineType");
   private final IResourceProvider<IRequestData> resourceProvider;
   private final UsersRepository usersRepository;
+  private final ReferenceDataCache referenceDataCache;
+  private final AccountPager accountPager;
+  private final PatronDetailsCache patronDetailsCache;
   private Clock clock;
 
 
   @Inject
   FeeFinesRepository(IResourceProvider<IRequestData> resourceProvider,
       UsersRepository usersRepository,
-      Clock clock) {
+      Clock clock,
+      ReferenceDataCache referenceDataCache,
+      AccountPager accountPager,
+      PatronDetailsCache patronDetailsCache) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
     this.usersRepository = Objects.requireNonNull(usersRepository,
         "UsersRepository cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    this.referenceDataCache = Objects.requireNonNull(referenceDataCache,
+        "ReferenceDataCache cannot be null");
+    this.accountPager = Objects.requireNonNull(accountPager, "AccountPager cannot be null");
+    this.patronDetailsCache = Objects.requireNonNull(patronDetailsCache,
+        "PatronDetailsCache cannot be null");
   }
 
   private Map<String, String> getBaseHeaders() {
@@ -91,29 +121,31 @@ public class FeeFinesRepository {
 
 
   /**
-   * Get a patron's total fee amount.
+   * Get a patron's total fee amount, the sum of what remains to be paid of
+   * all open accounts.
    *
    * @param userId the user's ID
    * @param sessionData session data
-   * @return the accounts list in raw JSON or {@code null} if there was an error
+   * @return the total amount or {@code null} if there was an error
    */
-  public Future<JsonObject> getFeeAmountByUserId(
+  public Future<BigDecimal> getFeeAmountByUserId(
       String userId,
       SessionData sessionData) {
     Objects.requireNonNull(userId, "userId cannot be null");
     Objects.requireNonNull(sessionData, "sessionData cannot be null");
 
-    final Map<String, String> headers = new HashMap<>();
-    headers.put(HEADER_ACCEPT, MIMETYPE_JSON);
-
-    final FeePaymentAccountsRequestData getFeePaymentAccountsRequestData =
-        new FeePaymentAccountsRequestData(userId, headers, sessionData);
-    final Future<IResource> result =
-        resourceProvider.retrieveResource(getFeePaymentAccountsRequestData);
+    return foldOpenAccounts(userId, sessionData, BigDecimal.ZERO,
+        (total, account) -> total.add(AccountPager.toAmount(account.getValue("remaining"))))
+        .otherwise((BigDecimal) null);
+  }
 
-    return result
-        .otherwise(() -> null)
-        .map(IResource::getResource);
+  private <T> Future<T> foldOpenAccounts(String userId, SessionData sessionData, T initial,
+      BiFunction<T, JsonObject, T> folder) {
+    final Map<String, String> headers = getBaseHeaders();
+    return accountPager.fold((offset, limit) -> resourceProvider
+        .retrieveResource(new FeePaymentAccountsRequestData(userId, offset, limit, headers,
+            sessionData))
+        .map(resource -> resource.getResource(OPEN_ACCOUNTS)), initial, folder);
   }
 
 
@@ -140,8 +172,12 @@ public class FeeFinesRepository {
 
     return result
       .otherwise(() -> null)
-      .map(IResource::getResource)
+      .map(resource -> resource.getResource(ACCOUNTS))
       .compose(accountJson -> {
+        if (!sessionData.getResponseProfile().isExtendedFees()) {
+          // the fee/fine types are only listed with the extended fee details
+          return Future.succeededFuture(accountJson);
+        }
         List<String> idList = getFeeFineIdList(accountJson);
         return getFeeFinesByIds(idList, sessionData)
             .compose(feeFinesJson ->
@@ -161,6 +197,75 @@ public class FeeFinesRepository {
     Objects.requireNonNull(ids, "ids cannot be null");
     Objects.requireNonNull(sessionData, "sessionData cannot be null");
 
+    if (ids.isEmpty()) {
+      return Future.succeededFuture(new JsonObject().put(FEE_FINES_KEY, new JsonArray()));
+    }
+    if (!referenceDataCache.isEnabled(ReferenceDataCache.Type.FEE_FINE_TYPE)) {
+      return retrieveFeeFines(ids, sessionData);
+    }
+
+    // fee/fine types are reference data, only those not cached are read
+    final String tenant = sessionData.getTenant();
+    final JsonArray feeFines = new JsonArray();
+    final List<String> missing = new ArrayList<>();
+    for (String id : ids) {
+      final JsonObject feeFine = referenceDataCache.getIfPresent(tenant,
+          ReferenceDataCache.Type.FEE_FINE_TYPE, id);
+      if (feeFine != null) {
+        feeFines.add(feeFine);
+      } else {
+        missing.add(id);
+      }
+    }
+    if (missing.isEmpty()) {
+      return Future.succeededFuture(new JsonObject().put(FEE_FINES_KEY, feeFines));
+    }
+
+    return retrieveFeeFines(missing, sessionData)
+      .map(feeFinesJson -> {
+        if (feeFinesJson == null) {
+          return feeFines.isEmpty() ? null : new JsonObject().put(FEE_FINES_KEY, feeFines);
+        }
+        final JsonArray retrieved = feeFinesJson.getJsonArray(FEE_FINES_KEY, new JsonArray());
+        for (Object ob : retrieved) {
+          final JsonObject feeFine = (JsonObject) ob;
+          referenceDataCache.put(tenant, ReferenceDataCache.Type.FEE_FINE_TYPE,
+              feeFine.getString("id"), feeFine);
+        }
+        return feeFinesJson.put(FEE_FINES_KEY, feeFines.addAll(retrieved));
+      });
+  }
+
+  @SuppressWarnings("rawtypes")
+  private Future<JsonObject> retrieveFeeFines(List<String> ids, SessionData sessionData) {
+    if (ids.size() <= FEE_FINE_IDS_PER_QUERY) {
+      return retrieveFeeFineChunk(ids, sessionData);
+    }
+
+    // patrons with long fine histories are looked up in chunks, concurrently
+    final List<Future> chunks = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += FEE_FINE_IDS_PER_QUERY) {
+      chunks.add(retrieveFeeFineChunk(
+          ids.subList(from, Math.min(ids.size(), from + FEE_FINE_IDS_PER_QUERY)), sessionData));
+    }
+    return CompositeFuture.all(chunks).map(composite -> {
+      JsonObject merged = null;
+      for (JsonObject chunk : composite.<JsonObject>list()) {
+        if (chunk == null) {
+          continue;
+        }
+        if (merged == null) {
+          merged = chunk.put(FEE_FINES_KEY, chunk.getJsonArray(FEE_FINES_KEY, new JsonArray()));
+        } else {
+          merged.getJsonArray(FEE_FINES_KEY)
+              .addAll(chunk.getJsonArray(FEE_FINES_KEY, new JsonArray()));
+        }
+      }
+      return merged;
+    });
+  }
+
+  private Future<JsonObject> retrieveFeeFineChunk(List<String> ids, SessionData sessionData) {
     final Map<String, String> headers = new HashMap<>();
     headers.put(HEADER_ACCEPT, MIMETYPE_JSON);
 
@@ -171,7 +276,7 @@ public class FeeFinesRepository {
 
     return result
       .otherwise(() -> null)
-      .map(IResource::getResource);
+      .map(resource -> resource.getResource(FEE_FINES));
   }
 
   private class GetManualBlocksByUserIdRequestData implements IRequestData {
@@ -207,22 +312,29 @@ public class FeeFinesRepository {
   private class FeePaymentAccountsRequestData implements IRequestData {
 
     private String userId;
+    private final int offset;
+    private final int limit;
     private final Map<String, String> headers;
     private final SessionData sessionData;
 
     private FeePaymentAccountsRequestData(
         String userId,
+        int offset,
+        int limit,
         Map<String, String> headers,
         SessionData sessionData) {
       this.userId = userId;
+      this.offset = offset;
+      this.limit = limit;
       this.headers = Collections.unmodifiableMap(new HashMap<>(headers));
       this.sessionData = sessionData;
     }
 
     @Override
     public String getPath() {
-      return "/accounts?query="
-          + Utils.encode("(userId==" + this.userId + "  and status.name==Open)");
+      // sorted, so that pages do not overlap or skip accounts
+      return "/accounts?offset=" + offset + "&limit=" + limit + "&query="
+          + Utils.encode("(userId==" + this.userId + "  and status.name==Open) sortBy id");
     }
 
     @Override
@@ -367,7 +479,8 @@ public class FeeFinesRepository {
       final StringBuilder sb = new StringBuilder()
           .append("/feefines?query=(")
           .append(String.join("+OR+", queryList))
-          .append(")");
+          .append(")")
+          .append("&limit=").append(this.idList.size());
       return sb.toString();
     }
   }
@@ -407,22 +520,12 @@ public class FeeFinesRepository {
     return usersRepository.getUserById(patronIdentifier, sessionData)
       .compose(extendedUser -> {
         User user = extendedUser.getUser();
-        final Map<String, String> acctheaders = getBaseHeaders();
-
-        FeePaymentAccountsRequestData feePaymentAccountsRequestData =
-            new FeePaymentAccountsRequestData(user.getId(), acctheaders, sessionData);
 
-        Future<IResource> result;
-        result = resourceProvider
-            .retrieveResource(feePaymentAccountsRequestData);
-
-        return result
-            .otherwiseEmpty()
-            .compose(resource -> {
+        return foldOpenAccounts(user.getId(), sessionData, new OpenAccounts(),
+            OpenAccounts::add)
+            .compose(accounts -> {
               final BigDecimal amountPaid = new BigDecimal(feePaid.getFeeAmount(), moneyFormat);
-              JsonObject accts = resource.getResource();
-              final JsonArray acctList = accts.getJsonArray(ACCOUNTS_KEY);
-              final BigDecimal amountTotal = totalAmount(acctList).round(moneyFormat);
+              final BigDecimal amountTotal = accounts.total.round(moneyFormat);
               log.debug("bdAmountPaid = {}", amountPaid);
               log.debug("bdAmountTotal = {}", amountTotal);
               log.debug("Amount difference = {}", amountPaid.compareTo(amountTotal));
@@ -444,7 +547,7 @@ public class FeeFinesRepository {
 
               final Map<String, String> headers = getBaseHeaders();
 
-              List<String> acctIdList = getAcctIdList(acctList);
+              List<String> acctIdList = accounts.ids;
 
               FeePaymentRequestData feePaymentRequestData =
                   new FeePaymentRequestData(
@@ -475,57 +578,63 @@ public class FeeFinesRepository {
                     .transactionId(transactionId)
                     .institutionId(institutionId)
                     .patronIdentifier(patronIdentifier)
-                    .screenMessage(Optional.of(resource.getErrorMessages())
+                    .screenMessage(Optional.of(payresource.getErrorMessages())
                         .filter(v -> !v.isEmpty())
                         .orElse(null))
                     .build());
                 });
             });
-      });
-  }
-
-  private static BigDecimal totalAmount(JsonArray arr) {
-    BigDecimal total = BigDecimal.ZERO;
-    for (int i = 0;i < arr.size();i++) {
-      total = total.add(BigDecimal.valueOf(arr.getJsonObject(i).getDouble("remaining")));
-    }
-    return total;
+      })
+      // the fines of the patron kept on the session may have changed
+      .onComplete(ar -> patronDetailsCache.invalidate(sessionData, patronIdentifier));
   }
 
-  private List<String> getAcctIdList(JsonArray arr) {
-    List<String> list = new ArrayList<>();
-    for (int i = 0;i < arr.size();i++) {
-      list.add(arr.getJsonObject(i).getString("id"));
+  /**
+   * What a payment needs to know of the open accounts of a patron: the total
+   * that remains to be paid and the ids of the accounts, not the accounts.
+   */
+  private static class OpenAccounts {
+    private BigDecimal total = BigDecimal.ZERO;
+    private final List<String> ids = new ArrayList<>();
+
+    private OpenAccounts add(JsonObject account) {
+      total = total.add(AccountPager.toAmount(account.getValue("remaining")));
+      ids.add(account.getString("id"));
+      return this;
     }
-    return list;
   }
 
   private List<String> getFeeFineIdList(JsonObject accountJson) {
-    List<String> idList = new ArrayList<>();
-    JsonArray accountArray = accountJson.getJsonArray(ACCOUNTS_KEY);
+    // many accounts share a fee/fine type, each type is looked up once
+    Set<String> idSet = new LinkedHashSet<>();
+    JsonArray accountArray = accountJson == null ? null : accountJson.getJsonArray(ACCOUNTS_KEY);
     if (accountArray != null) {
       for (Object ob : accountArray) {
-        String id = ((JsonObject)ob).getString("id");
-        idList.add(id);
+        String id = ((JsonObject)ob).getString("feeFineId");
+        if (id != null) {
+          idSet.add(id);
+        }
       }
     }
-    return idList;
+    return new ArrayList<>(idSet);
   }
 
   private JsonObject populateFeeFinesDetails(JsonObject accountJson, JsonObject feeFinesJson) {
     if (accountJson != null && feeFinesJson != null) {
       JsonArray accountArray = accountJson.getJsonArray(ACCOUNTS_KEY);
-      JsonArray feeFinesArray = feeFinesJson.getJsonArray("feefines");
+      JsonArray feeFinesArray = feeFinesJson.getJsonArray(FEE_FINES_KEY);
       if (feeFinesArray != null && accountArray != null) {
+        // index the fee/fine types once instead of searching them for every account
+        Map<String, String> feeFineTypes = new HashMap<>();
+        for (Object ob : feeFinesArray) {
+          JsonObject feeFine = (JsonObject)ob;
+          feeFineTypes.putIfAbsent(feeFine.getString("id"), feeFine.getString(FEE_FINE_TYPE));
+        }
         for (Object ob : accountArray) {
           JsonObject account = (JsonObject)ob;
-          String feeFineId = account.getString("feeFineId","");
-          for (Object ob2 : feeFinesArray) {
-            JsonObject feeFine = (JsonObject)ob2;
-            if (feeFineId.equals(feeFine.getString("id"))) {
-              account.put("feeFineType", feeFine.getString("feeFineType"));
-              break;
-            }
+          String feeFineId = account.getString("feeFineId", "");
+          if (feeFineTypes.containsKey(feeFineId)) {
+            account.put(FEE_FINE_TYPE, feeFineTypes.get(feeFineId));
           }
         }
       }
@@ -15,8 +15,24 @@ import java.util.stream.Collectors;
 public class FolioRequestThrowable extends RequestThrowable {
   private static final long serialVersionUID = -3631812923140695707L;
 
+  private final int statusCode;
+
   public FolioRequestThrowable(String message) {
+    this(message, -1);
+  }
+
+  /**
+   * Construct a throwable for a FOLIO response with the given HTTP status code.
+   * @param message the response body
+   * @param statusCode the HTTP status code or -1 if unknown
+   */
+  public FolioRequestThrowable(String message, int statusCode) {
     super(message);
+    this.statusCode = statusCode;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
   }
 
   @Override
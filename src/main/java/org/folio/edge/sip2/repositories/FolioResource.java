@@ -1,28 +1,57 @@
 package org.folio.edge.sip2.repositories;
 
 import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 
 /**
  * Represents the response from the {@code FolioResourceProvider}. Contains the response JSON,
  * if any, as well as the headers stored as metadata. The data is not immutable.
+ * When constructed from the response body, the JSON is only decoded when it is first
+ * requested; a {@link ResponseReader} reads the body directly instead.
  * @author mreno-EBSCO
  *
  */
 public class FolioResource implements IResource {
-  private final JsonObject resource;
+  private final Buffer body;
   private final MultiMap metadata;
+  private JsonObject resource;
 
+  /**
+   * Construct a resource from decoded JSON.
+   * @param resource the response JSON
+   * @param metadata the response headers
+   */
   public FolioResource(JsonObject resource, MultiMap metadata) {
+    this.body = null;
     this.resource = resource;
     this.metadata = metadata;
   }
 
+  /**
+   * Construct a resource from the response body, which is decoded on demand.
+   * @param body the response body
+   * @param metadata the response headers
+   */
+  public FolioResource(Buffer body, MultiMap metadata) {
+    this.body = body;
+    this.metadata = metadata;
+  }
+
   @Override
   public JsonObject getResource() {
+    if (resource == null && body != null && body.length() > 0) {
+      resource = body.toJsonObject();
+    }
     return resource;
   }
 
+  @Override
+  public <T> T getResource(ResponseReader<T> reader) {
+    // once decoded, the JSON may have been changed and is the source of truth
+    return resource != null || body == null ? reader.read(resource) : reader.read(body);
+  }
+
   @Override
   public MultiMap getMetadata() {
     return metadata;
@@ -32,4 +61,15 @@ public class FolioResource implements IResource {
   public String getAuthenticationToken() {
     return metadata.get("x-okapi-token");
   }
+
+  /**
+   * Returns a copy of this resource. The response body is shared as it is never
+   * changed, decoded JSON is copied.
+   * @return the copy
+   */
+  FolioResource copy() {
+    return body != null && resource == null
+        ? new FolioResource(body, metadata)
+        : new FolioResource(resource == null ? null : resource.copy(), metadata);
+  }
 }
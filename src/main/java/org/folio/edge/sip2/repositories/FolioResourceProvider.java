@@ -8,19 +8,31 @@ import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.predicate.ErrorConverter;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
-import io.vertx.ext.web.codec.BodyCodec;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.inject.Inject;
-import javax.inject.Named;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.cache.TokenCacheFactory;
+import org.folio.edge.sip2.metrics.Metrics;
+import org.folio.edge.sip2.resilience.ConcurrencyLimiter;
+import org.folio.edge.sip2.resilience.Deadline;
+import org.folio.edge.sip2.resilience.DeadlineExceededThrowable;
+import org.folio.edge.sip2.resilience.FolioModule;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.resilience.ModuleIsolation;
+import org.folio.edge.sip2.resilience.RequestCoalescer;
+import org.folio.edge.sip2.resilience.RequestHedger;
+import org.folio.edge.sip2.resilience.RequestRetrier;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.utils.Utils;
 import org.folio.okapi.common.refreshtoken.client.Client;
 import org.folio.okapi.common.refreshtoken.client.ClientOptions;
 
@@ -33,10 +45,20 @@ import org.folio.okapi.common.refreshtoken.client.ClientOptions;
 public class FolioResourceProvider implements IResourceProvider<IRequestData> {
   private static final String HEADER_X_OKAPI_TOKEN = "x-okapi-token";
   private static final String HEADER_X_OKAPI_TENANT = "x-okapi-tenant";
+  private static final String HEADER_X_OKAPI_URL = "x-okapi-url";
+  private static final String HEADER_X_OKAPI_USER_ID = "x-okapi-user-id";
   private static final Logger log = LogManager.getLogger();
 
-  private final String okapiUrl;
+  private final OkapiEndpoints okapiEndpoints;
+  private final ModuleRoutes moduleRoutes;
+  private final FolioWebClients webClients;
   private final WebClient client;
+  private final LoadShedder loadShedder;
+  private final ModuleIsolation moduleIsolation;
+  private final RequestCoalescer requestCoalescer;
+  private final RequestHedger requestHedger;
+  private final RequestRetrier requestRetrier;
+  private final ConcurrencyLimiter concurrencyLimiter;
 
   Client tokenClient;
   /**
@@ -45,25 +67,74 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
    * @param webClient the WebClient instance
    */
 
+  public FolioResourceProvider(String okapiUrl, WebClient webClient) {
+    this(OkapiEndpoints.single(okapiUrl), ModuleRoutes.disabled(Metrics.getDefaultRegistry()),
+        FolioWebClients.of(webClient), LoadShedder.disabled(),
+        ModuleIsolation.disabled(Metrics.getDefaultRegistry()),
+        RequestCoalescer.disabled(Metrics.getDefaultRegistry()),
+        RequestHedger.disabled(Metrics.getDefaultRegistry()),
+        RequestRetrier.disabled(Metrics.getDefaultRegistry()),
+        ConcurrencyLimiter.disabled(Metrics.getDefaultRegistry()));
+  }
+
+  /**
+   * Construct a FOLIO resource provider that balances its requests across the
+   * Okapi endpoints, or sends them directly to their module, and protects
+   * FOLIO and itself with the given resilience policies.
+   * @param okapiEndpoints the Okapi endpoints to send requests to
+   * @param moduleRoutes the routes of paths sent directly to their module
+   * @param webClients the web clients to call FOLIO with
+   * @param loadShedder the load shedder tracking FOLIO health
+   * @param moduleIsolation the per module bulkheads and circuit breakers
+   * @param requestCoalescer the coalescer sharing identical in-flight reads
+   * @param requestHedger the hedger sending a second read when the first is slow
+   * @param requestRetrier the retrier sending a read again after a transient failure
+   * @param concurrencyLimiter the per tenant limits on requests sent to FOLIO
+   */
   @Inject
   public FolioResourceProvider(
-      @Named("okapiUrl") String okapiUrl,
-      @Named("webClient") WebClient webClient) {
-    this.okapiUrl = okapiUrl;
-    this.client = webClient;
+      OkapiEndpoints okapiEndpoints,
+      ModuleRoutes moduleRoutes,
+      FolioWebClients webClients,
+      LoadShedder loadShedder,
+      ModuleIsolation moduleIsolation,
+      RequestCoalescer requestCoalescer,
+      RequestHedger requestHedger,
+      RequestRetrier requestRetrier,
+      ConcurrencyLimiter concurrencyLimiter) {
+    this.okapiEndpoints = Objects.requireNonNull(okapiEndpoints,
+        "OkapiEndpoints cannot be null");
+    this.moduleRoutes = Objects.requireNonNull(moduleRoutes, "ModuleRoutes cannot be null");
+    this.webClients = Objects.requireNonNull(webClients, "FolioWebClients cannot be null");
+    this.client = webClients.getWebClient();
+    this.loadShedder = Objects.requireNonNull(loadShedder, "LoadShedder cannot be null");
+    this.moduleIsolation = Objects.requireNonNull(moduleIsolation,
+        "ModuleIsolation cannot be null");
+    this.requestCoalescer = Objects.requireNonNull(requestCoalescer,
+        "RequestCoalescer cannot be null");
+    this.requestHedger = Objects.requireNonNull(requestHedger, "RequestHedger cannot be null");
+    this.requestRetrier = Objects.requireNonNull(requestRetrier,
+        "RequestRetrier cannot be null");
+    this.concurrencyLimiter = Objects.requireNonNull(concurrencyLimiter,
+        "ConcurrencyLimiter cannot be null");
   }
 
   @Override
   public Future<IResource> retrieveResource(IRequestData requestData) {
     log.debug("retrieve resource {}", requestData::getPath);
 
-    final HttpRequest<Buffer> request =
-        client.getAbs(okapiUrl + requestData.getPath());
-
-    setHeaders(requestData.getHeaders(), request,
-        Objects.requireNonNull(requestData.getSessionData(), "SessionData cannot be null"));
+    final SessionData sessionData =
+        Objects.requireNonNull(requestData.getSessionData(), "SessionData cannot be null");
+    final WebClient webClient = webClients.forTenant(sessionData.getTenant());
+    final Function<String, HttpRequest<Buffer>> requestFactory = baseUrl -> {
+      final HttpRequest<Buffer> request = webClient.getAbs(baseUrl + requestData.getPath());
+      setHeaders(requestData.getHeaders(), request, sessionData);
+      return request;
+    };
 
-    return request
+    final FolioModule module = FolioModule.fromPath(requestData.getPath());
+    final Supplier<Future<IResource>> send = () -> execute(requestData, requestFactory,
+        req -> req
         .expect(ResponsePredicate.create(ResponsePredicate.SC_OK, getErrorConverter()))
         // Some APIs return application/json, some return with the charset
         // parameter (e.g. circulation). So we can't use the built-in JSON
@@ -71,10 +142,14 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
         .expect(ResponsePredicate.contentType(Arrays.asList(
           "application/json",
           "application/json; charset=utf-8")))
-        .as(BodyCodec.jsonObject())
-        .send()
-        .map(FolioResourceProvider::toIResource)
-        .onFailure(e -> log.error("Request failed", e));
+        .send());
+
+    // a GET is idempotent, so a slow one may be hedged and a failed one retried
+    final Supplier<Future<IResource>> retried = () -> requestRetrier.execute(module,
+        requestData.getDeadline(), send);
+    return requestCoalescer.execute(module, getCoalescingKey(requestData),
+        requestData.getDeadline(), () -> requestHedger.execute(module, retried),
+        FolioResourceProvider::copyOf);
   }
 
   /**
@@ -90,19 +165,26 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
       SessionData sessionData) {
     log.info("loginWithSupplier username={} cache={}",
         username, TokenCacheFactory.get());
-    ClientOptions clientOptions = new ClientOptions()
-        .okapiUrl(okapiUrl)
-        .webClient(client);
-
-    tokenClient = Client.createLoginClient(clientOptions, TokenCacheFactory.get(),
-        sessionData.getTenant(), username, getPasswordSupplier);
-    tokenClient.getToken()
-        .onFailure(e -> {
-          log.error("Unable to get the access token ",e);
-          sessionData.setAuthenticationToken(null);
-          sessionData.setLoginErrorMessage(e.getMessage());
-        });
-    return tokenClient.getToken();
+    // a cached token is returned without asking for the password, only a login
+    // that is sent counts towards the load and health of the endpoint
+    final AtomicBoolean sent = new AtomicBoolean();
+    final Future<String> token = okapiEndpoints.execute(baseUrl -> {
+      final ClientOptions clientOptions = new ClientOptions()
+          .okapiUrl(baseUrl)
+          .webClient(client);
+      tokenClient = Client.createLoginClient(clientOptions, TokenCacheFactory.get(),
+          sessionData.getTenant(), username, () -> {
+            sent.set(true);
+            return getPasswordSupplier.get();
+          });
+      return tokenClient.getToken();
+    }, sent::get);
+    token.onFailure(e -> {
+      log.error("Unable to get the access token ",e);
+      sessionData.setAuthenticationToken(null);
+      sessionData.setLoginErrorMessage(e.getMessage());
+    });
+    return token;
   }
 
   @Override
@@ -111,12 +193,14 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
         requestData::getPath,
         () -> requestData.getBody().encodePrettily());
 
-    final HttpRequest<Buffer> request =
-        client.postAbs(okapiUrl + requestData.getPath());
+    final WebClient webClient = webClients.forTenant(requestData.getSessionData().getTenant());
+    final Function<String, HttpRequest<Buffer>> requestFactory = baseUrl -> {
+      final HttpRequest<Buffer> request = webClient.postAbs(baseUrl + requestData.getPath());
+      setHeaders(requestData.getHeaders(), request, requestData.getSessionData());
+      return request;
+    };
 
-    setHeaders(requestData.getHeaders(), request, requestData.getSessionData());
-
-    return request
+    return execute(requestData, requestFactory, req -> req
         .expect(ResponsePredicate.create(ResponsePredicate.SC_SUCCESS, getErrorConverter()))
         // Some APIs return application/json, some return with the charset
         // parameter (e.g. circulation). So we can't use the built-in JSON
@@ -124,15 +208,26 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
         .expect(ResponsePredicate.contentType(Arrays.asList(
             "application/json",
             "application/json; charset=utf-8")))
-        .as(BodyCodec.jsonObject())
-        .sendJsonObject(requestData.getBody())
-        .map(FolioResourceProvider::toIResource)
-        .onFailure(e -> log.error("Request failed", e));
+        .sendJsonObject(requestData.getBody()));
   }
 
   @Override
-  public Future<IResource> editResource(IRequestData fromData) {
-    return null;
+  public Future<IResource> editResource(IRequestData requestData) {
+    log.debug("Edit resource {}, body: {}",
+        requestData::getPath,
+        () -> requestData.getBody().encodePrettily());
+
+    final WebClient webClient = webClients.forTenant(requestData.getSessionData().getTenant());
+    final Function<String, HttpRequest<Buffer>> requestFactory = baseUrl -> {
+      final HttpRequest<Buffer> request = webClient.putAbs(baseUrl + requestData.getPath());
+      setHeaders(requestData.getHeaders(), request, requestData.getSessionData());
+      return request;
+    };
+
+    // FOLIO answers updates with 204 and no body
+    return execute(requestData, requestFactory, req -> req
+        .expect(ResponsePredicate.create(ResponsePredicate.SC_SUCCESS, getErrorConverter()))
+        .sendJsonObject(requestData.getBody()));
   }
 
   @Override
@@ -140,6 +235,71 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
     return null;
   }
 
+  private Future<IResource> execute(IRequestData requestData,
+      Function<String, HttpRequest<Buffer>> requestFactory,
+      Function<HttpRequest<Buffer>, Future<HttpResponse<Buffer>>> sender) {
+    final Deadline deadline = requestData.getDeadline();
+    if (deadline.isExpired()) {
+      return deadlineExceeded(requestData);
+    }
+
+    loadShedder.requestStarted();
+    // the concurrency limit is taken last, so that its latency samples are
+    // those of FOLIO and not of the waits of the bulkhead, retries or hedges
+    return moduleIsolation.execute(FolioModule.fromPath(requestData.getPath()), deadline,
+        () -> concurrencyLimiter.execute(requestData.getSessionData().getTenant(),
+            () -> send(requestData, requestFactory, deadline, sender)))
+        .onComplete(ar -> loadShedder.requestCompleted(ar.cause()))
+        .map(FolioResourceProvider::toIResource)
+        .onFailure(e -> log.error("Request failed", e));
+  }
+
+  private Future<HttpResponse<Buffer>> send(IRequestData requestData,
+      Function<String, HttpRequest<Buffer>> requestFactory, Deadline deadline,
+      Function<HttpRequest<Buffer>, Future<HttpResponse<Buffer>>> sender) {
+    // the request may have waited in a bulkhead queue, so check the deadline again
+    if (deadline.isExpired()) {
+      return deadlineExceeded(requestData);
+    }
+    // the endpoint is chosen last so that it reflects the current load
+    return moduleRoutes.execute(requestData.getPath(),
+        () -> okapiEndpoints.execute(baseUrl ->
+            newRequest(requestData, requestFactory, baseUrl, deadline).compose(sender)),
+        moduleUrl -> newRequest(requestData, requestFactory, moduleUrl, deadline)
+            .compose(request -> {
+              // the module calls other modules through Okapi
+              request.putHeader(HEADER_X_OKAPI_URL, okapiEndpoints.getUrl());
+              // Okapi is not there to validate the token and add the user id, the
+              // id is taken from the token as is (see "Direct module routes")
+              final String userId = Utils.getUserIdFromToken(
+                  request.headers().get(HEADER_X_OKAPI_TOKEN));
+              if (userId != null) {
+                request.putHeader(HEADER_X_OKAPI_USER_ID, userId);
+              }
+              return sender.apply(request);
+            }));
+  }
+
+  private static Future<HttpRequest<Buffer>> newRequest(IRequestData requestData,
+      Function<String, HttpRequest<Buffer>> requestFactory, String baseUrl, Deadline deadline) {
+    if (!deadline.isBounded()) {
+      return Future.succeededFuture(requestFactory.apply(baseUrl));
+    }
+    // the deadline may have passed since it was checked, and a timeout of 0
+    // would send the request without any time limit
+    final long remainingMs = deadline.remainingMillis();
+    if (remainingMs <= 0) {
+      return deadlineExceeded(requestData);
+    }
+    return Future.succeededFuture(requestFactory.apply(baseUrl).timeout(remainingMs));
+  }
+
+  private static <T> Future<T> deadlineExceeded(IRequestData requestData) {
+    log.warn("Transaction deadline exceeded, not requesting {}", requestData.getPath());
+    return Future.failedFuture(new DeadlineExceededThrowable(
+        "Transaction deadline exceeded before requesting " + requestData.getPath()));
+  }
+
   private void setHeaders(
       Map<String, String> headers,
       HttpRequest<Buffer> request,
@@ -169,15 +329,34 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
     request.putHeader(HEADER_X_OKAPI_TENANT, sessionData.getTenant());
   }
 
-  private static IResource toIResource(HttpResponse<JsonObject> httpResponse) {
-    log.debug("FOLIO response body: {}", () -> httpResponse.body().encodePrettily());
+  private static String getCoalescingKey(IRequestData requestData) {
+    // identical reads for the same tenant and kiosk login with the same
+    // request headers return the same data
+    final SessionData sessionData = requestData.getSessionData();
+    return sessionData.getTenant() + ':' + sessionData.getUsername() + ':'
+        + requestData.getPath() + ':' + new TreeMap<>(Optional.ofNullable(requestData.getHeaders())
+            .orElse(Collections.emptyMap()));
+  }
+
+  private static IResource copyOf(IResource resource) {
+    if (resource instanceof FolioResource) {
+      return ((FolioResource) resource).copy();
+    }
+    final JsonObject body = resource.getResource();
+    return new FolioResource(body == null ? null : body.copy(), resource.getMetadata());
+  }
+
+  private static IResource toIResource(HttpResponse<Buffer> httpResponse) {
+    // the body is decoded by the repository, which knows which parts of it it needs
+    log.debug("FOLIO response body: {}", httpResponse::bodyAsString);
     return new FolioResource(httpResponse.body(), httpResponse.headers());
   }
 
   private ErrorConverter getErrorConverter() {
     return ErrorConverter.createFullBody(result -> {
       log.error("Error communicating with FOLIO: {}", result.response().bodyAsString());
-      return new FolioRequestThrowable(result.response().bodyAsString());
+      return new FolioRequestThrowable(result.response().bodyAsString(),
+          result.response().statusCode());
     });
   }
 }
@@ -0,0 +1,139 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The web clients, and with them the connection pools, used to call FOLIO.
+ * The clients are built from the {@code webClientOptions} configuration, which
+ * accepts any Vert.x {@link WebClientOptions} (pool size, wait queue, keep
+ * alive, HTTP/2, compression, timeouts). With {@code perTenantWebClients}
+ * enabled every tenant gets its own client so that a busy tenant cannot
+ * exhaust the connections of the others.
+ */
+public class FolioWebClients {
+  public static final String CONFIG_KEY = "webClientOptions";
+  public static final String PER_TENANT_CONFIG_KEY = "perTenantWebClients";
+  public static final String SHARED_POOL = "shared";
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.client.";
+  private static final String POOL_TAG = "pool";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final Vertx vertx;
+  private final WebClientOptions options;
+  private final boolean perTenant;
+  private final MeterRegistry registry;
+  private final WebClient webClient;
+  private final Map<String, WebClient> tenantWebClients = new ConcurrentHashMap<>();
+
+  private FolioWebClients(Vertx vertx, WebClientOptions options, boolean perTenant,
+      MeterRegistry registry, WebClient webClient) {
+    this.vertx = vertx;
+    this.options = options;
+    this.perTenant = perTenant;
+    this.registry = registry;
+    this.webClient = webClient != null ? webClient : createWebClient(SHARED_POOL);
+  }
+
+  /**
+   * Create the web clients from the main configuration.
+   * @param vertx the Vert.x instance
+   * @param config the main configuration, may be {@code null}
+   * @param registry the registry to publish metrics to
+   * @return the web clients
+   */
+  public static FolioWebClients create(Vertx vertx, JsonObject config, MeterRegistry registry) {
+    final JsonObject mainConfig = config == null ? new JsonObject() : config;
+    return new FolioWebClients(Objects.requireNonNull(vertx, "Vertx cannot be null"),
+        new WebClientOptions(mainConfig.getJsonObject(CONFIG_KEY, new JsonObject())),
+        mainConfig.getBoolean(PER_TENANT_CONFIG_KEY, Boolean.FALSE),
+        Objects.requireNonNull(registry, "MeterRegistry cannot be null"), null);
+  }
+
+  /**
+   * Use a single existing web client for all tenants.
+   * @param webClient the web client
+   * @return the web clients
+   */
+  public static FolioWebClients of(WebClient webClient) {
+    return new FolioWebClients(null, null, false, null,
+        Objects.requireNonNull(webClient, "WebClient cannot be null"));
+  }
+
+  /**
+   * Returns the web client shared by all tenants without their own client.
+   * @return the shared web client
+   */
+  public WebClient getWebClient() {
+    return webClient;
+  }
+
+  /**
+   * Returns the web client to call FOLIO with on behalf of a tenant.
+   * @param tenant the tenant
+   * @return the tenant's web client, or the shared one
+   */
+  public WebClient forTenant(String tenant) {
+    if (!perTenant || tenant == null) {
+      return webClient;
+    }
+    return tenantWebClients.computeIfAbsent(tenant, this::createWebClient);
+  }
+
+  /**
+   * Returns the Vert.x instance the web clients were created with.
+   * @return the Vert.x instance, {@code null} when using an existing web client
+   */
+  public Vertx getVertx() {
+    return vertx;
+  }
+
+  public boolean isPerTenant() {
+    return perTenant;
+  }
+
+  WebClientOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Close all web clients and their connections.
+   */
+  public void close() {
+    tenantWebClients.values().forEach(WebClient::close);
+    tenantWebClients.clear();
+    webClient.close();
+  }
+
+  private WebClient createWebClient(String pool) {
+    log.info("Creating FOLIO web client for pool {} with max pool size {}", pool,
+        options.getMaxPoolSize());
+    // the time requests wait for a connection of the pool is published by the
+    // Vert.x metrics of the HTTP client, in vertx_http_client_queue_time
+    final HttpClient httpClient = vertx.createHttpClient(options);
+
+    final AtomicInteger connections = new AtomicInteger();
+    httpClient.connectionHandler(connection -> {
+      connections.incrementAndGet();
+      connection.closeHandler(v -> connections.decrementAndGet());
+    });
+    Gauge.builder(METRICS_PREFIX + "connections", connections, AtomicInteger::get)
+        .tag(POOL_TAG, pool)
+        .register(registry);
+
+    return WebClient.wrap(httpClient, options);
+  }
+}
@@ -3,6 +3,7 @@ package org.folio.edge.sip2.repositories;
 import io.vertx.core.json.JsonObject;
 import java.util.Collections;
 import java.util.Map;
+import org.folio.edge.sip2.resilience.Deadline;
 import org.folio.edge.sip2.session.SessionData;
 
 /**
@@ -25,4 +26,13 @@ public interface IRequestData {
   default SessionData getSessionData() {
     return null;
   }
+
+  /**
+   * Returns the deadline of the transaction the request is made for.
+   * @return the deadline of the transaction of the session data
+   */
+  default Deadline getDeadline() {
+    final SessionData sessionData = getSessionData();
+    return sessionData == null ? Deadline.none() : sessionData.getDeadline();
+  }
 }
@@ -18,6 +18,16 @@ public interface IResource {
    */
   JsonObject getResource();
 
+  /**
+   * Returns the resource data decoded by the given reader.
+   * @param <T> the type the resource is decoded to
+   * @param reader the reader selecting the data of interest
+   * @return the decoded resource data or {@code null} if there is none
+   */
+  default <T> T getResource(ResponseReader<T> reader) {
+    return reader.read(getResource());
+  }
+
   /**
    * Returns resource metadata in whatever format the provider specifies.
    * @return the resource metadata
@@ -1,21 +1,29 @@
 package org.folio.edge.sip2.repositories;
 
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import java.time.Clock;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.cache.NegativeResultCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
 import org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus;
 import org.folio.edge.sip2.domain.messages.enumerations.ItemStatus;
 import org.folio.edge.sip2.domain.messages.requests.ItemInformation;
 import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
 import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse.ItemInformationResponseBuilder;
+import org.folio.edge.sip2.repositories.plan.FetchNode;
+import org.folio.edge.sip2.repositories.plan.FetchPlan;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
 
@@ -30,13 +38,27 @@ public class ItemRepository {
   private static final Logger log = LogManager.getLogger();
   private final IResourceProvider<IRequestData> resourceProvider;
   private final Clock clock;
+  private final LookupBatcher lookupBatcher;
+  private final NegativeResultCache negativeResultCache;
+  private final ItemSnapshotCache itemSnapshotCache;
+  private final ReferenceDataCache referenceDataCache;
 
   @Inject
   ItemRepository(IResourceProvider<IRequestData> resourceProvider,
-                 Clock clock) {
+                 Clock clock, LookupBatcher lookupBatcher,
+                 NegativeResultCache negativeResultCache,
+                 ItemSnapshotCache itemSnapshotCache,
+                 ReferenceDataCache referenceDataCache) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    this.lookupBatcher = Objects.requireNonNull(lookupBatcher, "LookupBatcher cannot be null");
+    this.negativeResultCache = Objects.requireNonNull(negativeResultCache,
+        "NegativeResultCache cannot be null");
+    this.itemSnapshotCache = Objects.requireNonNull(itemSnapshotCache,
+        "ItemSnapshotCache cannot be null");
+    this.referenceDataCache = Objects.requireNonNull(referenceDataCache,
+        "ReferenceDataCache cannot be null");
   }
 
   private Map<String, String> getBaseHeaders() {
@@ -75,6 +97,33 @@ public class ItemRepository {
     }
   }
 
+  static class ItemsByBarcodeLookup implements BatchedLookup {
+    static final ItemsByBarcodeLookup INSTANCE = new ItemsByBarcodeLookup();
+
+    @Override
+    public String getName() {
+      return "items";
+    }
+
+    @Override
+    public String getPath(Collection<String> barcodes) {
+      return "/inventory/items?limit=" + barcodes.size() + "&query="
+          + Utils.encode("barcode==(" + barcodes.stream()
+              .map(Utils::cqlQuote)
+              .collect(Collectors.joining(" or ")) + ")");
+    }
+
+    @Override
+    public String getRecordsName() {
+      return "items";
+    }
+
+    @Override
+    public boolean matches(JsonObject item, String barcode) {
+      return barcode.equalsIgnoreCase(item.getString("barcode"));
+    }
+  }
+
   private class HoldingsRequestData implements IRequestData {
 
     private final String holdingsId;
@@ -259,89 +308,139 @@ public class ItemRepository {
   }
 
   private Future<JsonObject> getItemView(ItemInformationRequestData itemInformationRequestData) {
-
-    JsonObject itemJson = new JsonObject();
-    JsonObject holdingJson = new JsonObject();
-    JsonObject instanceJson = new JsonObject();
-    JsonObject loanJson = new JsonObject();
-
-    return getItem(itemInformationRequestData)
-      .otherwiseEmpty()
-        .compose(itemResult -> {
-          if (itemResult != null) {
-            itemJson.mergeIn(itemResult);
-            String itemId = itemResult.getString("id");
-            String holdingsId = itemResult.getString("holdingsRecordId");
-            HoldingsRequestData holdingsRequestData =
-                new HoldingsRequestData(holdingsId, getBaseHeaders(),
-                  itemInformationRequestData.sessionData);
-            LoanRequestData loanRequestData =
-                new LoanRequestData(itemId, getBaseHeaders(),
-                  itemInformationRequestData.sessionData);
-
-            return getHoldings(holdingsRequestData)
-                .compose(holdingsResult -> {
-                  holdingJson.mergeIn(holdingsResult);
-                  String instanceId = holdingsResult.getString("instanceId");
-                  InstanceRequestData instanceRequestData =
-                      new InstanceRequestData(instanceId, getBaseHeaders(),
-                        holdingsRequestData.sessionData);
-
-                  return getInstance(instanceRequestData)
-                      .compose(instanceResult -> {
-                        instanceJson.mergeIn(instanceResult);
-                        return getLoan(loanRequestData)
-                          .compose(loanResult -> {
-                            log.debug("LoanResult: {}", () -> loanResult);
-                            loanJson.mergeIn(loanResult);
-                            return Future.succeededFuture(loanResult);
-                          });
-                      });
-
-                });
-          }
-          return Future.failedFuture("Item does not exists.");
-        })
-          .compose(ar -> {
-            JsonObject viewJson = new JsonObject();
-            viewJson
-                .put("item", itemJson)
-                .put("holding", holdingJson)
-                .put("instance", instanceJson)
-                .put("loan", loanJson);
-            return Future.succeededFuture(viewJson);
-          });
+    final SessionData sessionData = itemInformationRequestData.sessionData;
+
+    // The holdings and instance depend on the item and the loan only on the item,
+    // so the loan is fetched while the holdings and instance are being resolved
+    final FetchPlan plan = FetchPlan.create("itemInformation", sessionData);
+    final FetchNode<JsonObject> item = plan.node("item", () -> getItem(itemInformationRequestData)
+        .otherwiseEmpty()
+        .compose(itemResult -> itemResult != null ? Future.succeededFuture(itemResult)
+            : Future.failedFuture("Item does not exists.")));
+    final FetchNode<JsonObject> holding = plan.node("holdings", item,
+        itemResult -> getHoldings(new HoldingsRequestData(
+            itemResult.getString("holdingsRecordId"), getBaseHeaders(), sessionData)));
+    final FetchNode<JsonObject> instance = plan.node("instance", holding,
+        holdingsResult -> getInstance(new InstanceRequestData(
+            holdingsResult.getString("instanceId"), getBaseHeaders(), sessionData)));
+    final FetchNode<JsonObject> loan = plan.node("loan", item,
+        itemResult -> getLoan(new LoanRequestData(
+            itemResult.getString("id"), getBaseHeaders(), sessionData)));
+
+    return plan.execute()
+        .map(result -> {
+          log.debug("LoanResult: {}", loan::result);
+          return new JsonObject()
+              .put("item", item.result().copy())
+              .put("holding", holding.result().copy())
+              .put("instance", instance.result().copy())
+              .put("loan", loan.result().copy());
+        });
   }
 
   private Future<JsonObject> getItem(ItemInformationRequestData itemInformationRequestData) {
-    return resourceProvider
-      .retrieveResource(itemInformationRequestData)
+    final String tenant = itemInformationRequestData.sessionData.getTenant();
+    final String barcode = itemInformationRequestData.itemIdentifier;
+    if (negativeResultCache.isKnownMissing(tenant, NegativeResultCache.Kind.ITEM, barcode)) {
+      return Future.succeededFuture(null);
+    }
+    final JsonObject cachedItem = itemSnapshotCache.getItem(tenant, barcode);
+    if (cachedItem != null) {
+      return Future.succeededFuture(cachedItem);
+    }
+
+    return lookupBatcher
+      .retrieveResource(ItemsByBarcodeLookup.INSTANCE, barcode, itemInformationRequestData)
       .compose(itemResource -> {
-        JsonObject item = itemResource.getResource();
-        return Future.succeededFuture(item
-          .getJsonArray("items").getJsonObject(0));
+        JsonArray items = itemResource.getResource().getJsonArray("items");
+        if (items.isEmpty()) {
+          negativeResultCache.recordMissing(tenant, NegativeResultCache.Kind.ITEM, barcode);
+          return Future.succeededFuture(null);
+        }
+        final JsonObject item = items.getJsonObject(0);
+        itemSnapshotCache.putItem(tenant, barcode, item);
+        return Future.succeededFuture(item);
       });
 
   }
 
-  private Future<JsonObject> getHoldings(HoldingsRequestData holdingsRequestData) {
-    return resourceProvider
-      .retrieveResource(holdingsRequestData)
-      .compose(holdingsResource -> {
-        JsonObject holdings = holdingsResource.getResource();
-        return Future.succeededFuture(holdings);
+  /**
+   * Get an item with the instance it belongs to, as needed to place a request
+   * for it. The item and its holdings are read through the caches.
+   * @param barcode the barcode of the item
+   * @param sessionData session data
+   * @return the item in raw JSON with the {@code instanceId} of its holdings
+   *     added, or {@code null} if there is no such item
+   */
+  public Future<JsonObject> getRequestableItem(String barcode, SessionData sessionData) {
+    Objects.requireNonNull(barcode, "barcode cannot be null");
+    Objects.requireNonNull(sessionData, "sessionData cannot be null");
+
+    return getItem(new ItemInformationRequestData(barcode, getBaseHeaders(), sessionData))
+      .compose(item -> {
+        if (item == null) {
+          return Future.succeededFuture(null);
+        }
+        return getHoldings(new HoldingsRequestData(item.getString("holdingsRecordId"),
+            getBaseHeaders(), sessionData))
+          .map(holdings -> item.copy().put("instanceId", holdings.getString("instanceId")));
       });
   }
 
-  private Future<JsonObject> getInstance(InstanceRequestData instanceRequestData) {
-    return resourceProvider
-      .retrieveResource(instanceRequestData)
-      .compose(instanceResource -> {
-        JsonObject instance = instanceResource.getResource();
-        return Future.succeededFuture(instance);
+  /**
+   * Read an item, its holdings and its instance into the caches ahead of any
+   * request for the item. The loan of the item is never cached and not read.
+   * @param barcode the barcode of the item
+   * @param sessionData session data
+   * @return completes when the item was read, fails if it could not be read
+   */
+  Future<Void> prefetchItem(String barcode, SessionData sessionData) {
+    final String tenant = sessionData.getTenant();
+    if (negativeResultCache.isKnownMissing(tenant, NegativeResultCache.Kind.ITEM, barcode)) {
+      return Future.succeededFuture();
+    }
+
+    final ItemInformationRequestData itemInformationRequestData =
+        new ItemInformationRequestData(barcode, getBaseHeaders(), sessionData);
+    return lookupBatcher
+      .retrieveResource(ItemsByBarcodeLookup.INSTANCE, barcode, itemInformationRequestData)
+      .compose(itemResource -> {
+        final JsonArray items = itemResource.getResource().getJsonArray("items");
+        if (items.isEmpty()) {
+          return Future.succeededFuture();
+        }
+        final JsonObject item = items.getJsonObject(0);
+        itemSnapshotCache.putItem(tenant, barcode, item, true);
+        return getHoldings(new HoldingsRequestData(item.getString("holdingsRecordId"),
+            getBaseHeaders(), sessionData))
+          .compose(holdings -> getInstance(new InstanceRequestData(
+              holdings.getString("instanceId"), getBaseHeaders(), sessionData)))
+          .mapEmpty();
       });
   }
 
+  private Future<JsonObject> getHoldings(HoldingsRequestData holdingsRequestData) {
+    return referenceDataCache.get(holdingsRequestData.sessionData.getTenant(),
+        ReferenceDataCache.Type.HOLDINGS, holdingsRequestData.holdingsId,
+        () -> resourceProvider
+          .retrieveResource(holdingsRequestData)
+          .compose(holdingsResource -> {
+            JsonObject holdings = holdingsResource.getResource();
+            return Future.succeededFuture(holdings);
+          }));
+  }
+
+  private Future<JsonObject> getInstance(InstanceRequestData instanceRequestData) {
+    return referenceDataCache.get(instanceRequestData.sessionData.getTenant(),
+        ReferenceDataCache.Type.INSTANCE, instanceRequestData.instanceId,
+        () -> resourceProvider
+          .retrieveResource(instanceRequestData)
+          .compose(instanceResource -> {
+            JsonObject instance = instanceResource.getResource();
+            return Future.succeededFuture(instance);
+          }));
+  }
+
   private Future<JsonObject> getLoan(LoanRequestData loanRequestData) {
     return resourceProvider
       .retrieveResource(loanRequestData)
@@ -0,0 +1,201 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Reads the items on loan to a patron into the caches once a Patron
+ * Information response is built, as the Renew and Item Information requests
+ * that usually follow concern these items. The titles come with the loans and
+ * are kept at once. The items, their holdings and their instances are read in
+ * the background at low priority: at most {@code maxConcurrency} at a time
+ * across all sessions, in the order the loans were read, and beyond
+ * {@code maxQueued} waiting items further ones are dropped. Prefetching never
+ * delays a response and its failures are only counted.
+ */
+public class LoanPrefetcher {
+  public static final String CONFIG_KEY = "prefetchOptions";
+  public static final int DEFAULT_MAX_CONCURRENCY = 2;
+  public static final int DEFAULT_MAX_QUEUED = 100;
+  public static final int DEFAULT_MAX_ITEMS_PER_PATRON = 20;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.prefetch.";
+  private static final String OUTCOME_TAG = "outcome";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final int maxConcurrency;
+  private final int maxQueued;
+  private final int maxItemsPerPatron;
+  private final ItemRepository itemRepository;
+  private final ItemSnapshotCache itemSnapshotCache;
+  private final Deque<Prefetch> queue = new ArrayDeque<>();
+  // the items queued or being read, so that no item is read twice at once
+  private final Set<String> pending = new HashSet<>();
+  private int inFlight;
+  private final Counter fetched;
+  private final Counter failed;
+  private final Counter dropped;
+
+  /**
+   * Construct the prefetcher from the {@code prefetchOptions} configuration.
+   * @param options the options, may be {@code null} in which case nothing is prefetched
+   * @param itemRepository the repository to read the items with
+   * @param itemSnapshotCache the cache to keep the titles of the loans in
+   * @param registry the registry to publish metrics to
+   */
+  public LoanPrefetcher(JsonObject options, ItemRepository itemRepository,
+      ItemSnapshotCache itemSnapshotCache, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.maxConcurrency = Math.max(1,
+        config.getInteger("maxConcurrency", DEFAULT_MAX_CONCURRENCY));
+    this.maxQueued = Math.max(0, config.getInteger("maxQueued", DEFAULT_MAX_QUEUED));
+    this.maxItemsPerPatron = Math.max(0,
+        config.getInteger("maxItemsPerPatron", DEFAULT_MAX_ITEMS_PER_PATRON));
+
+    if (enabled) {
+      this.itemRepository = Objects.requireNonNull(itemRepository,
+          "ItemRepository cannot be null");
+      this.itemSnapshotCache = Objects.requireNonNull(itemSnapshotCache,
+          "ItemSnapshotCache cannot be null");
+      fetched = counter("fetched", registry);
+      failed = counter("failed", registry);
+      dropped = counter("dropped", registry);
+      Gauge.builder(METRICS_PREFIX + "queued", this, LoanPrefetcher::queued)
+          .register(registry);
+    } else {
+      this.itemRepository = null;
+      this.itemSnapshotCache = null;
+      fetched = null;
+      failed = null;
+      dropped = null;
+    }
+  }
+
+  /**
+   * Returns a prefetcher that reads nothing ahead.
+   * @param registry the registry to publish metrics to
+   * @return a disabled prefetcher
+   */
+  public static LoanPrefetcher disabled(MeterRegistry registry) {
+    return new LoanPrefetcher(null, null, null, registry);
+  }
+
+  /**
+   * Read the items of a patron's loans into the caches in the background.
+   * Returns at once.
+   * @param loans the open loans of the patron in raw JSON, may be {@code null}
+   * @param sessionData the session the loans were read on
+   */
+  public void prefetch(JsonObject loans, SessionData sessionData) {
+    if (!enabled || loans == null) {
+      return;
+    }
+
+    final JsonArray loanArray = loans.getJsonArray("loans", new JsonArray());
+    final String tenant = sessionData.getTenant();
+    // requests made once the response is sent are not bound by its deadline
+    final SessionData background = sessionData.getSession();
+    final int count = Math.min(loanArray.size(), maxItemsPerPatron);
+    for (int i = 0; i < count; i++) {
+      final JsonObject item = loanArray.getJsonObject(i).getJsonObject("item");
+      final String barcode = item == null ? null : item.getString("barcode");
+      if (barcode == null) {
+        continue;
+      }
+      itemSnapshotCache.putTitle(tenant, barcode, item.getString("title"), true);
+      enqueue(new Prefetch(tenant, barcode, background));
+      // free reading slots are taken before the queue fills up
+      drain();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  synchronized int queued() {
+    return queue.size();
+  }
+
+  private synchronized void enqueue(Prefetch prefetch) {
+    if (pending.contains(prefetch.key)) {
+      return;
+    }
+    if (queue.size() >= maxQueued) {
+      dropped.increment();
+      return;
+    }
+    pending.add(prefetch.key);
+    queue.add(prefetch);
+  }
+
+  private void drain() {
+    Prefetch next;
+    while ((next = poll()) != null) {
+      final Prefetch prefetch = next;
+      itemRepository.prefetchItem(prefetch.barcode, prefetch.sessionData)
+          .onComplete(ar -> {
+            if (ar.succeeded()) {
+              fetched.increment();
+            } else {
+              log.debug("Unable to prefetch item {}: {}", prefetch.barcode,
+                  ar.cause().getMessage());
+              failed.increment();
+            }
+            done(prefetch);
+            drain();
+          });
+    }
+  }
+
+  private synchronized Prefetch poll() {
+    if (inFlight >= maxConcurrency || queue.isEmpty()) {
+      return null;
+    }
+    inFlight++;
+    return queue.poll();
+  }
+
+  private synchronized void done(Prefetch prefetch) {
+    inFlight--;
+    pending.remove(prefetch.key);
+  }
+
+  private static Counter counter(String outcome, MeterRegistry registry) {
+    return Counter.builder(METRICS_PREFIX + "items")
+        .tag(OUTCOME_TAG, outcome)
+        .register(registry);
+  }
+
+  private static class Prefetch {
+    private final String key;
+    private final String barcode;
+    private final SessionData sessionData;
+
+    private Prefetch(String tenant, String barcode, SessionData sessionData) {
+      // FOLIO matches barcodes regardless of case
+      this.key = String.valueOf(tenant).toLowerCase(Locale.ROOT) + '\u0000'
+          + barcode.toLowerCase(Locale.ROOT);
+      this.barcode = barcode;
+      this.sessionData = sessionData;
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.resilience.Deadline;
+import org.folio.edge.sip2.resilience.DeadlineExceededThrowable;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Micro batching of FOLIO lookups by identifier. Lookups of the same kind for
+ * the same tenant and kiosk login, with the same request headers, that arrive
+ * within a short window are merged into a single query and the records are
+ * handed back to each waiting lookup as if it had been sent on its own. The
+ * merged query is bound by the earliest deadline of the lookups it merges.
+ * When it runs out of that time, each lookup is sent on its own, so that a
+ * lookup with time left is not failed by the deadline of another. Any other
+ * failure fails all of its lookups.
+ */
+public class LookupBatcher {
+  public static final String CONFIG_KEY = "batchingOptions";
+  public static final long DEFAULT_WINDOW_MS = 5L;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 20;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.batch.";
+  private static final String LOOKUP_TAG = "lookup";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final IResourceProvider<IRequestData> resourceProvider;
+  private final MeterRegistry registry;
+  private final boolean enabled;
+  private final long windowMs;
+  private final int maxBatchSize;
+  private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Construct the batcher from the {@code batchingOptions} configuration.
+   * @param options the options, may be {@code null} in which case batching is disabled
+   * @param resourceProvider the provider used to send the lookups
+   * @param registry the registry to publish metrics to
+   */
+  public LookupBatcher(JsonObject options, IResourceProvider<IRequestData> resourceProvider,
+      MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.resourceProvider = Objects.requireNonNull(resourceProvider,
+        "Resource provider cannot be null");
+    this.registry = Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.windowMs = config.getLong("windowMs", DEFAULT_WINDOW_MS);
+    this.maxBatchSize = config.getInteger("maxBatchSize", DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Returns a batcher that sends every lookup on its own.
+   * @param resourceProvider the provider used to send the lookups
+   * @param registry the registry to publish metrics to
+   * @return a disabled batcher
+   */
+  public static LookupBatcher disabled(IResourceProvider<IRequestData> resourceProvider,
+      MeterRegistry registry) {
+    return new LookupBatcher(null, resourceProvider, registry);
+  }
+
+  /**
+   * Look up the records for an identifier, possibly together with concurrent
+   * lookups of the same kind.
+   * @param lookup the kind of lookup
+   * @param identifier the identifier to look up
+   * @param requestData the request for this identifier alone
+   * @return the query result holding only the records for the identifier
+   */
+  public Future<IResource> retrieveResource(BatchedLookup lookup, String identifier,
+      IRequestData requestData) {
+    final Context context = Vertx.currentContext();
+    // batches are flushed by a timer, so batching needs a Vert.x context
+    if (!enabled || context == null) {
+      return resourceProvider.retrieveResource(requestData);
+    }
+
+    final SessionData sessionData = requestData.getSessionData();
+    // the merged query is sent with the login of its lookups, so only lookups
+    // made with the same login and headers are merged
+    final String key = lookup.getName() + ':' + sessionData.getTenant() + ':'
+        + sessionData.getUsername() + ':' + new TreeMap<>(requestData.getHeaders());
+    final Waiter waiter = new Waiter(identifier, requestData);
+
+    final Batch batch = pending.computeIfAbsent(key, k -> {
+      final Batch newBatch = new Batch(lookup);
+      newBatch.timerId = context.owner().setTimer(windowMs, id -> flush(key, newBatch));
+      return newBatch;
+    });
+    batch.waiters.add(waiter);
+    if (batch.waiters.size() >= maxBatchSize) {
+      context.owner().cancelTimer(batch.timerId);
+      flush(key, batch);
+    }
+
+    return waiter.promise.future();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  private void flush(String key, Batch batch) {
+    if (!pending.remove(key, batch)) {
+      return;
+    }
+
+    final BatchedLookup lookup = batch.lookup;
+    final List<Waiter> waiters = batch.waiters;
+    final long now = System.nanoTime();
+    final Timer waitTimer = Timer.builder(METRICS_PREFIX + "wait")
+        .tag(LOOKUP_TAG, lookup.getName())
+        .register(registry);
+    for (Waiter waiter : waiters) {
+      waitTimer.record(now - waiter.queuedAt, TimeUnit.NANOSECONDS);
+    }
+    DistributionSummary.builder(METRICS_PREFIX + "size")
+        .tag(LOOKUP_TAG, lookup.getName())
+        .register(registry)
+        .record(waiters.size());
+
+    if (waiters.size() == 1) {
+      final Waiter waiter = waiters.get(0);
+      resourceProvider.retrieveResource(waiter.requestData).onComplete(waiter.promise);
+      return;
+    }
+
+    final Set<String> identifiers = waiters.stream()
+        .map(waiter -> waiter.identifier)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    log.debug("Batching {} {} lookups: {}", waiters.size(), lookup.getName(), identifiers);
+
+    resourceProvider.retrieveResource(new BatchRequestData(lookup.getPath(identifiers),
+        waiters))
+        .onSuccess(resource -> {
+          final JsonArray records = resource.getResource() == null ? new JsonArray()
+              : resource.getResource().getJsonArray(lookup.getRecordsName(), new JsonArray());
+          for (Waiter waiter : waiters) {
+            waiter.promise.complete(demultiplex(lookup, records, waiter.identifier, resource));
+          }
+        })
+        .onFailure(t -> {
+          if (!(t instanceof DeadlineExceededThrowable)) {
+            for (Waiter waiter : waiters) {
+              waiter.promise.fail(t);
+            }
+            return;
+          }
+          // the batch was bound by the earliest deadline, the other lookups
+          // may have time left
+          log.debug("Batch of {} {} lookups ran out of time, sending them on their own: {}",
+              waiters.size(), lookup.getName(), t.getMessage());
+          for (Waiter waiter : waiters) {
+            resourceProvider.retrieveResource(waiter.requestData).onComplete(waiter.promise);
+          }
+        });
+  }
+
+  private static IResource demultiplex(BatchedLookup lookup, JsonArray records,
+      String identifier, IResource resource) {
+    final JsonArray matches = new JsonArray();
+    for (int i = 0; i < records.size(); i++) {
+      final JsonObject record = records.getJsonObject(i);
+      if (lookup.matches(record, identifier)) {
+        matches.add(record.copy());
+      }
+    }
+    return new FolioResource(new JsonObject()
+        .put(lookup.getRecordsName(), matches)
+        .put("totalRecords", matches.size()), resource.getMetadata());
+  }
+
+  private static class Batch {
+    private final BatchedLookup lookup;
+    private final List<Waiter> waiters = new ArrayList<>();
+    private long timerId;
+
+    private Batch(BatchedLookup lookup) {
+      this.lookup = lookup;
+    }
+  }
+
+  private static class Waiter {
+    private final String identifier;
+    private final IRequestData requestData;
+    private final Promise<IResource> promise = Promise.promise();
+    private final long queuedAt = System.nanoTime();
+
+    private Waiter(String identifier, IRequestData requestData) {
+      this.identifier = identifier;
+      this.requestData = requestData;
+    }
+  }
+
+  private static class BatchRequestData implements IRequestData {
+    private final String path;
+    // the lookups share the login and headers, so any of them can be used
+    private final IRequestData first;
+    private final Deadline deadline;
+
+    private BatchRequestData(String path, List<Waiter> waiters) {
+      this.path = path;
+      this.first = waiters.get(0).requestData;
+      this.deadline = waiters.stream()
+          .map(waiter -> waiter.requestData.getDeadline())
+          .min(Comparator.comparingLong(Deadline::remainingMillis))
+          .orElseGet(Deadline::none);
+    }
+
+    @Override
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+      return first.getHeaders();
+    }
+
+    @Override
+    public SessionData getSessionData() {
+      return first.getSessionData();
+    }
+
+    @Override
+    public Deadline getDeadline() {
+      return deadline;
+    }
+  }
+}
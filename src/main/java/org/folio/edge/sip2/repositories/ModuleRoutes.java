@@ -0,0 +1,200 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Routes FOLIO requests for configured path prefixes directly to the module
+ * serving them instead of through the Okapi gateway, saving the gateway hop
+ * on hot paths such as {@code /users} or {@code /holdings-storage}. Modules
+ * that depend on the permissions Okapi grants must not be routed. Paths
+ * without a route, and all requests when routing is disabled, go to Okapi.
+ * The longest matching prefix wins and a prefix only matches whole path
+ * segments, so {@code /users} does not route {@code /users-bl}.
+ */
+public class ModuleRoutes {
+  public static final String CONFIG_KEY = "moduleRoutes";
+  public static final String GATEWAY_ROUTE = "gateway";
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.route.";
+  private static final String ROUTE_TAG = "route";
+  private static final String OUTCOME_TAG = "outcome";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final List<Route> routes;
+  private final Timer gatewaySuccess;
+  private final Timer gatewayFailure;
+
+  /**
+   * Construct the routes from the {@code moduleRoutes} configuration.
+   * @param options the options, may be {@code null} in which case routing is disabled
+   * @param registry the registry to publish metrics to
+   */
+  public ModuleRoutes(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+
+    final List<Route> list = new ArrayList<>();
+    if (enabled) {
+      for (Map.Entry<String, Object> entry : config.getJsonObject("routes", new JsonObject())) {
+        final String prefix = normalizePrefix(entry.getKey());
+        final String baseUrl = normalizeBaseUrl(String.valueOf(entry.getValue()));
+        log.info("Routing FOLIO requests for {} directly to {}", prefix, baseUrl);
+        list.add(new Route(prefix, baseUrl, registry));
+      }
+      // longest prefix first, so the most specific route wins
+      list.sort(Comparator.comparingInt((Route route) -> route.prefix.length()).reversed());
+      gatewaySuccess = timer(GATEWAY_ROUTE, "success", registry);
+      gatewayFailure = timer(GATEWAY_ROUTE, "failure", registry);
+    } else {
+      gatewaySuccess = null;
+      gatewayFailure = null;
+    }
+    this.routes = Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Returns routes that send every request to Okapi.
+   * @param registry the registry to publish metrics to
+   * @return disabled routes
+   */
+  public static ModuleRoutes disabled(MeterRegistry registry) {
+    return new ModuleRoutes(null, registry);
+  }
+
+  /**
+   * Send a request either directly to the module routed for its path or, if
+   * there is no route, through the gateway.
+   * @param <T> the result type
+   * @param path the path of the request
+   * @param gateway sends the request through the gateway
+   * @param direct sends the request given the base URL of the module
+   * @return the result of the request
+   */
+  public <T> Future<T> execute(String path, Supplier<Future<T>> gateway,
+      Function<String, Future<T>> direct) {
+    if (!enabled) {
+      return gateway.get();
+    }
+
+    final Route route = getRoute(path);
+    final long start = System.nanoTime();
+    final Future<T> result = route == null ? gateway.get() : direct.apply(route.baseUrl);
+    return result.onComplete(ar -> {
+      final Timer timer;
+      if (route == null) {
+        timer = ar.succeeded() ? gatewaySuccess : gatewayFailure;
+      } else {
+        timer = ar.succeeded() ? route.success : route.failure;
+      }
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    });
+  }
+
+  /**
+   * Returns the route for a path.
+   * @param path the path of the request, including any query
+   * @return the route or {@code null} if the request goes through the gateway
+   */
+  public Route getRoute(String path) {
+    if (!enabled || path == null) {
+      return null;
+    }
+    for (Route route : routes) {
+      if (route.matches(path)) {
+        return route;
+      }
+    }
+    return null;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public List<Route> getRoutes() {
+    return routes;
+  }
+
+  private static Timer timer(String route, String outcome, MeterRegistry registry) {
+    return Timer.builder(METRICS_PREFIX + "requests")
+        .tag(ROUTE_TAG, route)
+        .tag(OUTCOME_TAG, outcome)
+        .register(registry);
+  }
+
+  private static String normalizePrefix(String prefix) {
+    String result = prefix.trim();
+    if (!result.startsWith("/")) {
+      result = "/" + result;
+    }
+    while (result.length() > 1 && result.endsWith("/")) {
+      result = result.substring(0, result.length() - 1);
+    }
+    return result;
+  }
+
+  private static String normalizeBaseUrl(String baseUrl) {
+    String result = baseUrl.trim();
+    while (result.endsWith("/")) {
+      result = result.substring(0, result.length() - 1);
+    }
+    if (result.isEmpty()) {
+      throw new IllegalArgumentException("A module route requires a base URL");
+    }
+    return result;
+  }
+
+  /**
+   * A path prefix routed directly to a module.
+   */
+  public static class Route {
+    private final String prefix;
+    private final String baseUrl;
+    private final Timer success;
+    private final Timer failure;
+
+    private Route(String prefix, String baseUrl, MeterRegistry registry) {
+      this.prefix = prefix;
+      this.baseUrl = baseUrl;
+      this.success = timer(prefix, "success", registry);
+      this.failure = timer(prefix, "failure", registry);
+    }
+
+    public String getPrefix() {
+      return prefix;
+    }
+
+    public String getBaseUrl() {
+      return baseUrl;
+    }
+
+    private boolean matches(String path) {
+      if (!path.startsWith(prefix)) {
+        return false;
+      }
+      if (path.length() == prefix.length() || "/".equals(prefix)) {
+        return true;
+      }
+      final char next = path.charAt(prefix.length());
+      return next == '/' || next == '?';
+    }
+  }
+}
@@ -0,0 +1,471 @@
+package org.folio.edge.sip2.repositories;
+
+import static java.lang.Boolean.TRUE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.domain.messages.requests.Checkin;
+import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.resilience.OfflineJournal;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Accepts checkins, and optionally checkouts, while FOLIO is unavailable and
+ * replays them once it is back. Accepted transactions are written to an
+ * {@link OfflineJournal} before the kiosk is answered, on a worker thread as
+ * the journal is synced to disk. Whenever the
+ * {@link LoadShedder} no longer sheds, {@link #replay()} sends the pending
+ * transactions to circulation in the order they were accepted, at most
+ * {@code maxConcurrency} at a time and one at a time for each item, so that a
+ * checkout of an item does not overtake its checkin. A transaction FOLIO
+ * refuses, e.g. because
+ * the item is not checked out anymore, is a conflict: it is logged, counted
+ * and not tried again. Each transaction is journaled under an idempotency key
+ * derived from its content, so that a kiosk resending it does not add it
+ * twice and a replayed transaction is not replayed again after a restart.
+ *
+ * <p>The journal holds no passwords. A transaction is replayed with the
+ * credentials of the kiosk login it was accepted on, once that login is known
+ * to this instance again.
+ */
+public class OfflineCirculation {
+  public static final String CONFIG_KEY = "offlineOptions";
+  public static final String DEFAULT_DIRECTORY = "offline-journal";
+  public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+  public static final int DEFAULT_MAX_CONCURRENCY = 2;
+  public static final long DEFAULT_REPLAY_INTERVAL_MS = 10000L;
+  public static final String DEFAULT_SCREEN_MESSAGE = "Accepted while offline";
+
+  private static final Set<Command> OFFLINE_COMMANDS = EnumSet.of(Command.CHECKIN,
+      Command.CHECKOUT);
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.offline.";
+  private static final String OUTCOME_TAG = "outcome";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final Set<Command> commands;
+  private final int maxConcurrency;
+  private final long replayIntervalMs;
+  private final String screenMessage;
+  private final CirculationRepository circulationRepository;
+  private final LoadShedder loadShedder;
+  private final Vertx vertx;
+  private final OfflineJournal journal;
+  // the latest session of each kiosk login, to replay its transactions with
+  private final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+  // the pending transactions not yet tried in this replay
+  private final Deque<Map.Entry<String, JsonObject>> round = new ArrayDeque<>();
+  private final Set<String> inFlight = new HashSet<>();
+  // the items whose transactions in this replay wait for an earlier one
+  private final Set<String> heldItems = new HashSet<>();
+  // completed once the replay in progress is done
+  private Promise<Void> roundDone;
+  private final Counter accepted;
+  private final Counter failed;
+  private final Counter replayed;
+  private final Counter conflicts;
+  private final Counter retried;
+
+  /**
+   * Construct the offline circulation from the {@code offlineOptions}
+   * configuration, opening the journal when enabled.
+   * @param options the options, may be {@code null} in which case nothing is accepted offline
+   * @param circulationRepository the repository to replay the transactions with
+   * @param loadShedder the load shedder telling whether FOLIO is available
+   * @param vertx the Vert.x instance to write the journal on worker threads with
+   * @param registry the registry to publish metrics to
+   */
+  public OfflineCirculation(JsonObject options, CirculationRepository circulationRepository,
+      LoadShedder loadShedder, Vertx vertx, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.commands = EnumSet.noneOf(Command.class);
+    for (Object name : config.getJsonArray("commands", new JsonArray().add("CHECKIN"))) {
+      final Command command = Command.valueOf(String.valueOf(name));
+      if (OFFLINE_COMMANDS.contains(command)) {
+        commands.add(command);
+      } else {
+        log.warn("Command {} cannot be accepted offline", command);
+      }
+    }
+    this.maxConcurrency = Math.max(1,
+        config.getInteger("maxConcurrency", DEFAULT_MAX_CONCURRENCY));
+    this.replayIntervalMs = Math.max(1L,
+        config.getLong("replayIntervalMs", DEFAULT_REPLAY_INTERVAL_MS));
+    this.screenMessage = config.getString("screenMessage", DEFAULT_SCREEN_MESSAGE);
+
+    if (enabled) {
+      this.circulationRepository = Objects.requireNonNull(circulationRepository,
+          "CirculationRepository cannot be null");
+      this.loadShedder = Objects.requireNonNull(loadShedder, "LoadShedder cannot be null");
+      this.vertx = Objects.requireNonNull(vertx, "Vertx cannot be null");
+      final Path directory = Path.of(config.getString("directory", DEFAULT_DIRECTORY));
+      try {
+        this.journal = new OfflineJournal(directory,
+            config.getInteger("segmentSize", DEFAULT_SEGMENT_SIZE));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to open the offline journal in " + directory, e);
+      }
+      log.info("Offline journal in {} has {} pending transactions", directory, journal.size());
+      accepted = counter("accepted", registry);
+      failed = counter("failed", registry);
+      replayed = counter("replayed", registry);
+      conflicts = counter("conflict", registry);
+      retried = counter("retried", registry);
+      Gauge.builder(METRICS_PREFIX + "backlog", journal, OfflineJournal::size)
+          .register(registry);
+    } else {
+      this.circulationRepository = null;
+      this.loadShedder = null;
+      this.vertx = null;
+      this.journal = null;
+      accepted = null;
+      failed = null;
+      replayed = null;
+      conflicts = null;
+      retried = null;
+    }
+  }
+
+  /**
+   * Returns an offline circulation that accepts nothing.
+   * @param registry the registry to publish metrics to
+   * @return a disabled offline circulation
+   */
+  public static OfflineCirculation disabled(MeterRegistry registry) {
+    return new OfflineCirculation(null, null, null, null, registry);
+  }
+
+  /**
+   * Indicates whether a command is accepted offline.
+   * @param command the SIP command
+   * @return true if the command is journaled while FOLIO is unavailable
+   */
+  public boolean accepts(Command command) {
+    return enabled && commands.contains(command);
+  }
+
+  /**
+   * Journal a checkin or checkout to be replayed once FOLIO is available. A
+   * transaction that is already journaled is accepted again without being
+   * journaled twice. A checkout is not accepted when the patron's password
+   * has to be verified.
+   * @param message the checkin or checkout
+   * @param sessionData the session the transaction was made on
+   * @return a future of {@code true} once the transaction is journaled, or
+   *     {@code false} if it could not be written
+   */
+  public Future<Boolean> record(Object message, SessionData sessionData) {
+    if (!enabled) {
+      return Future.succeededFuture(Boolean.FALSE);
+    }
+
+    final JsonObject record = new JsonObject()
+        .put("tenant", sessionData.getTenant())
+        .put("username", sessionData.getUsername())
+        .put("scLocation", sessionData.getScLocation());
+    if (message instanceof Checkin && commands.contains(Command.CHECKIN)) {
+      final Checkin checkin = (Checkin) message;
+      record.put("command", Command.CHECKIN.name())
+          .put("transactionDate", format(checkin.getTransactionDate()))
+          .put("returnDate", format(checkin.getReturnDate() != null
+              ? checkin.getReturnDate() : checkin.getTransactionDate()))
+          .put("institutionId", checkin.getInstitutionId())
+          .put("itemIdentifier", checkin.getItemIdentifier());
+    } else if (message instanceof Checkout && commands.contains(Command.CHECKOUT)
+        && !sessionData.isPatronPasswordVerificationRequired()) {
+      // the patron's password cannot be verified offline
+      final Checkout checkout = (Checkout) message;
+      record.put("command", Command.CHECKOUT.name())
+          .put("transactionDate", format(checkout.getTransactionDate()))
+          .put("institutionId", checkout.getInstitutionId())
+          .put("patronIdentifier", checkout.getPatronIdentifier())
+          .put("itemIdentifier", checkout.getItemIdentifier());
+    } else {
+      return Future.succeededFuture(Boolean.FALSE);
+    }
+
+    return blocking(() -> journal.append(idempotencyKey(record), record))
+        .map(appended -> {
+          if (TRUE.equals(appended)) {
+            accepted.increment();
+          }
+          remember(sessionData);
+          return TRUE;
+        })
+        .otherwise(e -> {
+          log.error("Unable to journal {} of item {}", record.getString("command"),
+              record.getString("itemIdentifier"), e);
+          failed.increment();
+          return Boolean.FALSE;
+        });
+  }
+
+  /**
+   * Keep the session of a kiosk login, to replay the transactions accepted on
+   * it with.
+   * @param sessionData the session of the kiosk
+   */
+  public void remember(SessionData sessionData) {
+    if (enabled && sessionData.getUsername() != null) {
+      // requests made once the transaction is answered are not bound by its deadline
+      sessions.put(sessionKey(sessionData.getTenant(), sessionData.getUsername()),
+          sessionData.getSession());
+    }
+  }
+
+  /**
+   * Send the pending transactions to FOLIO, if it is available. Returns at
+   * once, the transactions are replayed in the background.
+   * @return a future completed once the replay in progress is done
+   */
+  public Future<Void> replay() {
+    if (!enabled || loadShedder.isShedding()) {
+      return Future.succeededFuture();
+    }
+
+    final Future<Void> done;
+    synchronized (this) {
+      if (roundDone == null) {
+        heldItems.clear();
+        round.addAll(journal.pending());
+        roundDone = Promise.promise();
+      }
+      done = roundDone.future();
+    }
+    drain();
+    return done;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long getReplayIntervalMs() {
+    return replayIntervalMs;
+  }
+
+  public String getScreenMessage() {
+    return screenMessage;
+  }
+
+  int backlog() {
+    return enabled ? journal.size() : 0;
+  }
+
+  private void drain() {
+    Map.Entry<String, JsonObject> next;
+    while ((next = poll()) != null) {
+      final String key = next.getKey();
+      final JsonObject record = next.getValue();
+      final SessionData sessionData = sessionFor(record);
+      if (sessionData == null) {
+        log.debug("No login of {} to replay {} with", record.getString("username"), key);
+        // the later transactions of the item wait for the next replay
+        done(key, null);
+        continue;
+      }
+      replayRecord(record, sessionData).onComplete(ar -> {
+        if (ar.succeeded()) {
+          if (TRUE.equals(ar.result())) {
+            replayed.increment();
+          } else {
+            log.warn("FOLIO refused the offline {} of item {} accepted at {}",
+                record.getString("command"), record.getString("itemIdentifier"),
+                record.getString("transactionDate"));
+            conflicts.increment();
+          }
+          // the later transactions of the item wait for the acknowledgement
+          acknowledge(key).onComplete(v -> {
+            done(key, itemKey(record));
+            drain();
+          });
+        } else {
+          log.info("Unable to replay {}, retrying later: {}", key, ar.cause().getMessage());
+          retried.increment();
+          // FOLIO is still not available, the rest of the round waits as well
+          stopRound();
+          done(key, itemKey(record));
+          drain();
+        }
+      });
+    }
+    finishRound();
+  }
+
+  private Future<Boolean> replayRecord(JsonObject record, SessionData sessionData) {
+    try {
+      return send(record, sessionData);
+    } catch (RuntimeException e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  private Future<Boolean> send(JsonObject record, SessionData sessionData) {
+    if (Command.CHECKOUT.name().equals(record.getString("command"))) {
+      return circulationRepository.replayCheckout(Checkout.builder()
+          .scRenewalPolicy(Boolean.FALSE)
+          .noBlock(TRUE)
+          .transactionDate(parse(record.getString("transactionDate")))
+          .institutionId(record.getString("institutionId"))
+          .patronIdentifier(record.getString("patronIdentifier"))
+          .itemIdentifier(record.getString("itemIdentifier"))
+          .build(), sessionData);
+    }
+    return circulationRepository.replayCheckin(Checkin.builder()
+        .noBlock(TRUE)
+        .transactionDate(parse(record.getString("transactionDate")))
+        .returnDate(parse(record.getString("returnDate")))
+        .institutionId(record.getString("institutionId"))
+        .itemIdentifier(record.getString("itemIdentifier"))
+        .build(), sessionData);
+  }
+
+  private SessionData sessionFor(JsonObject record) {
+    final SessionData known = sessions.get(sessionKey(record.getString("tenant"),
+        record.getString("username")));
+    if (known == null) {
+      return null;
+    }
+    // a session of its own, logging in as the kiosk did, at the location the
+    // transaction was accepted at
+    final SessionData sessionData = SessionData.createSession(known.getTenant(),
+        known.getFieldDelimiter(), known.isErrorDetectionEnabled(), known.getCharset());
+    sessionData.setUsername(known.getUsername());
+    sessionData.setPassword(known.getPassword());
+    sessionData.setAuthenticationToken(known.getAuthenticationToken());
+    sessionData.setTimeZone(known.getTimeZone());
+    sessionData.setCurrency(known.getCurrency());
+    sessionData.setPatronPasswordVerificationRequired(
+        known.isPatronPasswordVerificationRequired());
+    sessionData.setScLocation(record.getString("scLocation"));
+    return sessionData;
+  }
+
+  private Future<Void> acknowledge(String key) {
+    return this.<Void>blocking(() -> {
+      journal.acknowledge(key);
+      return null;
+    }).otherwise(e -> {
+      // the transaction is replayed again, FOLIO refuses it as a conflict
+      log.error("Unable to acknowledge replayed transaction {}", key, e);
+      return null;
+    });
+  }
+
+  // the journal is synced to disk, which must not block the event loop
+  private <T> Future<T> blocking(Callable<T> io) {
+    return vertx.executeBlocking(promise -> {
+      try {
+        promise.complete(io.call());
+      } catch (Exception e) {
+        promise.fail(e);
+      }
+    }, true);
+  }
+
+  private synchronized Map.Entry<String, JsonObject> poll() {
+    if (inFlight.size() >= maxConcurrency || round.isEmpty()
+        || loadShedder.isShedding()) {
+      return null;
+    }
+    // the first transaction of an item not held by an earlier one
+    for (Iterator<Map.Entry<String, JsonObject>> it = round.iterator(); it.hasNext();) {
+      final Map.Entry<String, JsonObject> next = it.next();
+      if (heldItems.add(itemKey(next.getValue()))) {
+        it.remove();
+        inFlight.add(next.getKey());
+        return next;
+      }
+    }
+    if (inFlight.isEmpty()) {
+      // only transactions held by one without a login are left
+      round.clear();
+    }
+    return null;
+  }
+
+  private synchronized void done(String key, String itemKey) {
+    inFlight.remove(key);
+    if (itemKey != null) {
+      heldItems.remove(itemKey);
+    }
+  }
+
+  private synchronized void stopRound() {
+    round.clear();
+  }
+
+  private void finishRound() {
+    final Promise<Void> done;
+    synchronized (this) {
+      if (roundDone == null || !inFlight.isEmpty()) {
+        return;
+      }
+      // transactions left while shedding are tried in the next replay
+      round.clear();
+      done = roundDone;
+      roundDone = null;
+    }
+    done.complete();
+  }
+
+  private static String itemKey(JsonObject record) {
+    return record.getString("tenant") + '\u0000' + record.getString("itemIdentifier");
+  }
+
+  private static String idempotencyKey(JsonObject record) {
+    final String content = String.join("\u0000", record.getString("tenant"),
+        record.getString("command"), record.getString("institutionId"),
+        record.getString("patronIdentifier"), record.getString("itemIdentifier"),
+        record.getString("transactionDate"));
+    return UUID.nameUUIDFromBytes(content.getBytes(StandardCharsets.UTF_8)).toString();
+  }
+
+  private static String sessionKey(String tenant, String username) {
+    return tenant + '\u0000' + username;
+  }
+
+  private static String format(OffsetDateTime dateTime) {
+    return dateTime == null ? null : dateTime.toString();
+  }
+
+  private static OffsetDateTime parse(String dateTime) {
+    return dateTime == null ? null : OffsetDateTime.parse(dateTime);
+  }
+
+  private static Counter counter(String outcome, MeterRegistry registry) {
+    return Counter.builder(METRICS_PREFIX + "transactions")
+        .tag(OUTCOME_TAG, outcome)
+        .register(registry);
+  }
+}
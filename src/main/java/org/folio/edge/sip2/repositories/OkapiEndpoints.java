@@ -0,0 +1,270 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.folio.edge.sip2.metrics.Metrics;
+import org.folio.edge.sip2.resilience.CircuitBreaker;
+import org.folio.edge.sip2.resilience.RequestRejectedThrowable;
+
+/**
+ * The Okapi (or gateway) endpoints FOLIO requests are balanced across. Each
+ * request goes to the endpoint with the fewest outstanding requests or, with
+ * the {@code latencyWeighted} strategy, to the endpoint with the lowest
+ * outstanding requests weighted by its recent latency. An endpoint that fails
+ * {@code failureThreshold} consecutive requests is ejected for
+ * {@code ejectionMs}, after which a single trial request decides whether it
+ * is reinstated.
+ */
+public class OkapiEndpoints {
+  public static final String CONFIG_KEY = "okapiEndpointOptions";
+  public static final String LEAST_OUTSTANDING = "leastOutstanding";
+  public static final String LATENCY_WEIGHTED = "latencyWeighted";
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  public static final long DEFAULT_EJECTION_MS = 30000L;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.endpoint.";
+  private static final String ENDPOINT_TAG = "endpoint";
+  // weight of the latest latency in the moving average
+  private static final double LATENCY_DECAY = 0.3;
+
+  private final List<Endpoint> endpoints;
+  private final boolean latencyWeighted;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Construct the endpoints from the configured URLs and the
+   * {@code okapiEndpointOptions} configuration.
+   * @param urls the endpoint URLs, at least one
+   * @param options the options, may be {@code null} in which case the defaults are used
+   * @param clock the clock used to time ejections
+   * @param registry the registry to publish metrics to
+   */
+  public OkapiEndpoints(List<String> urls, JsonObject options, Clock clock,
+      MeterRegistry registry) {
+    Objects.requireNonNull(urls, "urls cannot be null");
+    if (urls.isEmpty()) {
+      throw new IllegalArgumentException("At least one okapiUrl is required");
+    }
+    Objects.requireNonNull(clock, "Clock cannot be null");
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    final JsonObject config = options == null ? new JsonObject() : options;
+    final String strategy = config.getString("strategy", LEAST_OUTSTANDING);
+    if (!LEAST_OUTSTANDING.equals(strategy) && !LATENCY_WEIGHTED.equals(strategy)) {
+      throw new IllegalArgumentException("Unknown okapiUrl balancing strategy: " + strategy);
+    }
+    this.latencyWeighted = LATENCY_WEIGHTED.equals(strategy);
+
+    final int failureThreshold = config.getInteger("failureThreshold",
+        DEFAULT_FAILURE_THRESHOLD);
+    final Duration ejection = Duration.ofMillis(config.getLong("ejectionMs",
+        DEFAULT_EJECTION_MS));
+    final List<Endpoint> list = new ArrayList<>();
+    for (String url : urls) {
+      final Endpoint endpoint = new Endpoint(url,
+          new CircuitBreaker(url, failureThreshold, ejection, clock));
+      list.add(endpoint);
+      // a single endpoint is never balanced or ejected
+      if (urls.size() > 1) {
+        endpoint.registerMetrics(registry);
+      }
+    }
+    this.endpoints = Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Returns endpoints consisting of a single URL.
+   * @param url the URL
+   * @return the endpoints
+   */
+  public static OkapiEndpoints single(String url) {
+    return new OkapiEndpoints(Collections.singletonList(url), null, Clock.systemUTC(),
+        Metrics.getDefaultRegistry());
+  }
+
+  /**
+   * Parse the {@code okapiUrl} configuration, which is either a single URL, a
+   * comma separated list of URLs or a JSON array of URLs.
+   * @param okapiUrl the configured value, may be {@code null}
+   * @return the URLs, empty if none are configured
+   */
+  public static List<String> parseUrls(Object okapiUrl) {
+    final List<String> urls;
+    if (okapiUrl instanceof JsonArray) {
+      urls = ((JsonArray) okapiUrl).stream()
+          .map(Object::toString)
+          .collect(Collectors.toList());
+    } else if (okapiUrl instanceof List) {
+      urls = ((List<?>) okapiUrl).stream()
+          .map(Object::toString)
+          .collect(Collectors.toList());
+    } else if (okapiUrl != null) {
+      urls = Arrays.asList(okapiUrl.toString().split(","));
+    } else {
+      urls = Collections.emptyList();
+    }
+    return urls.stream()
+        .map(String::trim)
+        .filter(url -> !url.isEmpty())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Send a request to the best endpoint and track its outcome.
+   * @param <T> the result type
+   * @param request sends the request given the base URL of the chosen endpoint
+   * @return the result of the request
+   */
+  public <T> Future<T> execute(Function<String, Future<T>> request) {
+    return execute(request, () -> true);
+  }
+
+  /**
+   * Send a request that may be answered without reaching the endpoint, for
+   * example from a cache, to the best endpoint. Its outcome only counts
+   * towards the health and latency of the endpoint when it was sent.
+   * @param <T> the result type
+   * @param request sends the request given the base URL of the chosen endpoint
+   * @param sent tells, once the request has completed, whether it was sent
+   * @return the result of the request
+   */
+  public <T> Future<T> execute(Function<String, Future<T>> request, BooleanSupplier sent) {
+    final Endpoint endpoint = select();
+    final long start = System.nanoTime();
+    endpoint.outstanding.incrementAndGet();
+    return request.apply(endpoint.url)
+        .onComplete(ar -> endpoint.requestCompleted(ar.cause(), System.nanoTime() - start,
+            sent.getAsBoolean()));
+  }
+
+  /**
+   * Returns the URL of the endpoint that would currently be chosen, without
+   * sending a request to it.
+   * @return the URL
+   */
+  public String getUrl() {
+    return endpoints.stream()
+        .filter(endpoint -> !endpoint.circuitBreaker.isOpen())
+        .min(Comparator.comparingDouble(this::score))
+        .orElse(endpoints.get(0))
+        .url;
+  }
+
+  public List<Endpoint> getEndpoints() {
+    return endpoints;
+  }
+
+  Endpoint select() {
+    if (endpoints.size() == 1) {
+      return endpoints.get(0);
+    }
+
+    // rotate the start so that endpoints with the same score share the load
+    final int start = Math.floorMod(next.getAndIncrement(), endpoints.size());
+    final List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+    final double[] scores = new double[endpoints.size()];
+    for (int i = 0; i < endpoints.size(); i++) {
+      final Endpoint endpoint = endpoints.get((start + i) % endpoints.size());
+      // insert by score, after any endpoint with the same score
+      int position = candidates.size();
+      final double endpointScore = score(endpoint);
+      while (position > 0 && scores[position - 1] > endpointScore) {
+        scores[position] = scores[position - 1];
+        position--;
+      }
+      scores[position] = endpointScore;
+      candidates.add(position, endpoint);
+    }
+
+    for (Endpoint candidate : candidates) {
+      if (candidate.circuitBreaker.allowRequest()) {
+        return candidate;
+      }
+    }
+    // every endpoint is ejected, trying one beats failing without trying
+    return candidates.get(0);
+  }
+
+  private double score(Endpoint endpoint) {
+    final int load = endpoint.outstanding.get();
+    return latencyWeighted ? (load + 1) * endpoint.latencyMillis : load;
+  }
+
+  /**
+   * A single Okapi endpoint.
+   */
+  public static class Endpoint {
+    private final String url;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double latencyMillis;
+    private Timer latency;
+
+    private Endpoint(String url, CircuitBreaker circuitBreaker) {
+      this.url = url;
+      this.circuitBreaker = circuitBreaker;
+    }
+
+    public String getUrl() {
+      return url;
+    }
+
+    public int getOutstanding() {
+      return outstanding.get();
+    }
+
+    public double getLatencyMillis() {
+      return latencyMillis;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+      return circuitBreaker;
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+      Gauge.builder(METRICS_PREFIX + "outstanding", outstanding, AtomicInteger::get)
+          .tag(ENDPOINT_TAG, url)
+          .register(registry);
+      Gauge.builder(METRICS_PREFIX + "state", circuitBreaker,
+          cb -> cb.getState().ordinal())
+          .tag(ENDPOINT_TAG, url)
+          .register(registry);
+      latency = Timer.builder(METRICS_PREFIX + "latency")
+          .tag(ENDPOINT_TAG, url)
+          .register(registry);
+    }
+
+    private synchronized void requestCompleted(Throwable failure, long nanos, boolean sent) {
+      outstanding.decrementAndGet();
+      if (!sent || RequestRejectedThrowable.isNotSent(failure)) {
+        circuitBreaker.recordAbandoned();
+        return;
+      }
+
+      circuitBreaker.record(failure);
+      final double millis = nanos / 1_000_000.0;
+      latencyMillis = latencyMillis == 0.0 ? millis
+          : LATENCY_DECAY * millis + (1 - LATENCY_DECAY) * latencyMillis;
+      if (latency != null) {
+        latency.record(nanos, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
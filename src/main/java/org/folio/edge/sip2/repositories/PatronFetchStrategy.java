@@ -0,0 +1,122 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.json.JsonObject;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Selects per tenant how the circulation data of a Patron Information
+ * response is read. The {@code query} strategy sends a query for the open
+ * loans, another for the overdue loans and one recall query per loan. The
+ * {@code snapshot} strategy reads the open loans once, finds the overdue ones
+ * against the clock and looks up the recalls of all loaned items in one
+ * query. Both are timed, so that they can be compared on the same tenants.
+ */
+public class PatronFetchStrategy {
+  public static final String CONFIG_KEY = "patronFetchOptions";
+  public static final int DEFAULT_MAX_LOANS = 500;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.patron.fetch";
+  private static final String STRATEGY_TAG = "strategy";
+
+  private static final Logger log = LogManager.getLogger();
+
+  /**
+   * The ways the circulation data of a patron is read.
+   */
+  public enum Strategy {
+    QUERY("query"),
+    SNAPSHOT("snapshot");
+
+    private final String name;
+
+    Strategy(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    static Strategy of(String name, Strategy defaultStrategy) {
+      for (Strategy strategy : values()) {
+        if (strategy.name.equals(name == null ? null : name.toLowerCase(Locale.ROOT))) {
+          return strategy;
+        }
+      }
+      if (name != null) {
+        log.warn("Unknown patron fetch strategy {}, using {}", name, defaultStrategy.name);
+      }
+      return defaultStrategy;
+    }
+  }
+
+  private final Strategy strategy;
+  private final JsonObject tenantStrategies;
+  private final int maxLoans;
+  private final MeterRegistry registry;
+
+  /**
+   * Construct the strategy from the {@code patronFetchOptions} configuration.
+   * @param options the options, may be {@code null} in which case every tenant is queried
+   * @param registry the registry to publish metrics to
+   */
+  public PatronFetchStrategy(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.registry = Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.strategy = Strategy.of(config.getString("strategy"), Strategy.QUERY);
+    this.tenantStrategies = config.getJsonObject("tenantStrategies", new JsonObject());
+    this.maxLoans = Math.max(1, config.getInteger("maxLoans", DEFAULT_MAX_LOANS));
+  }
+
+  /**
+   * Returns a strategy that queries for every tenant.
+   * @param registry the registry to publish metrics to
+   * @return the default strategy
+   */
+  public static PatronFetchStrategy defaults(MeterRegistry registry) {
+    return new PatronFetchStrategy(null, registry);
+  }
+
+  /**
+   * Returns the strategy of a tenant.
+   * @param tenant the tenant
+   * @return the strategy configured for the tenant, else the default one
+   */
+  public Strategy forTenant(String tenant) {
+    final String tenantStrategy = tenant == null ? null : tenantStrategies.getString(tenant);
+    return tenantStrategy == null ? strategy : Strategy.of(tenantStrategy, strategy);
+  }
+
+  /**
+   * Returns the most open loans read for a snapshot.
+   * @return the most loans read
+   */
+  public int getMaxLoans() {
+    return maxLoans;
+  }
+
+  /**
+   * Record how a patron's circulation data was read.
+   * @param used the strategy used
+   * @param elapsedNanos how long it took to read everything
+   * @param requests how many FOLIO requests were sent
+   */
+  public void record(Strategy used, long elapsedNanos, int requests) {
+    Timer.builder(METRICS_PREFIX)
+        .tag(STRATEGY_TAG, used.getName())
+        .register(registry)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder(METRICS_PREFIX + ".requests")
+        .tag(STRATEGY_TAG, used.getName())
+        .register(registry)
+        .record(requests);
+  }
+}
@@ -16,13 +16,17 @@ import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import java.math.BigDecimal;
 import java.time.Clock;
+import java.time.DateTimeException;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -31,6 +35,8 @@ import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.PatronDetails;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
 import org.folio.edge.sip2.domain.messages.enumerations.CurrencyType;
 import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
 import org.folio.edge.sip2.domain.messages.requests.EndPatronSession;
@@ -41,11 +47,17 @@ import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse;
 import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse.PatronInformationResponseBuilder;
 import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
 import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse.PatronStatusResponseBuilder;
+import org.folio.edge.sip2.repositories.PatronFetchStrategy.Strategy;
 import org.folio.edge.sip2.repositories.domain.Address;
 import org.folio.edge.sip2.repositories.domain.ExtendedUser;
+import org.folio.edge.sip2.repositories.domain.ExtendedUser.PatronGroup;
 import org.folio.edge.sip2.repositories.domain.Personal;
 import org.folio.edge.sip2.repositories.domain.User;
+import org.folio.edge.sip2.repositories.plan.FetchNode;
+import org.folio.edge.sip2.repositories.plan.FetchPlan;
+import org.folio.edge.sip2.session.ResponseProfile;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.utils.Utils;
 import org.folio.okapi.common.refreshtoken.client.ClientException;
 
 /**
@@ -63,6 +75,8 @@ public class PatronRepository {
   private static final String FIELD_TOTAL_RECORDS = "totalRecords";
   private static final String FIELD_INSTANCE = "instance";
   private static final String FIELD_ITEM = "item";
+  // keeps the CQL query of a recall lookup well within URL length limits
+  static final int RECALL_ITEM_IDS_PER_QUERY = 50;
   private static final Logger log = LogManager.getLogger();
   // These really should come from FOLIO
   static final String MESSAGE_INVALID_PATRON =
@@ -82,14 +96,25 @@ public class PatronRepository {
   private final FeeFinesRepository feeFinesRepository;
   private final PasswordVerifier passwordVerifier;
   private final Clock clock;
+  private final PatronDetailsCache patronDetailsCache;
+  private final PatronFetchStrategy patronFetchStrategy;
+  private final LoanPrefetcher loanPrefetcher;
 
   @Inject
   PatronRepository(UsersRepository usersRepository, CirculationRepository circulationRepository,
-      FeeFinesRepository feeFinesRepository, PasswordVerifier passwordVerifier, Clock clock) {
+      FeeFinesRepository feeFinesRepository, PasswordVerifier passwordVerifier, Clock clock,
+      PatronDetailsCache patronDetailsCache, PatronFetchStrategy patronFetchStrategy,
+      LoanPrefetcher loanPrefetcher) {
     this.circulationRepository = Objects.requireNonNull(circulationRepository, NULL_CIRC_REPO_MSG);
     this.feeFinesRepository = Objects.requireNonNull(feeFinesRepository, NULL_FEE_REPO_MSG);
     this.passwordVerifier = Objects.requireNonNull(passwordVerifier, NULL_PASS_VERIFY_MSG);
     this.clock = Objects.requireNonNull(clock, NULL_CLOCK_MSG);
+    this.patronDetailsCache = Objects.requireNonNull(patronDetailsCache,
+        "PatronDetailsCache cannot be null");
+    this.patronFetchStrategy = Objects.requireNonNull(patronFetchStrategy,
+        "PatronFetchStrategy cannot be null");
+    this.loanPrefetcher = Objects.requireNonNull(loanPrefetcher,
+        "LoanPrefetcher cannot be null");
   }
 
   /**
@@ -239,54 +264,55 @@ public class PatronRepository {
     }
     // Now that we have a valid patron, we can retrieve data from circulation
     final PatronInformationResponseBuilder builder = PatronInformationResponse.builder();
+    final ResponseProfile profile = sessionData.getResponseProfile();
     // Store patron data in the builder
-    addPersonalData(personal, patronInformation.getPatronIdentifier(), builder);
+    addPersonalData(personal, patronInformation.getPatronIdentifier(),
+        profile.isPersonalAddress(), builder);
     final Integer startItem = patronInformation.getStartItem();
     final Integer endItem = patronInformation.getEndItem();
-    // Get manual blocks data to build patron status
-    final Future<PatronInformationResponseBuilder> manualBlocksFuture = feeFinesRepository
-        .getManualBlocksByUserId(userId, sessionData)
-        .map(blocks -> buildPatronStatus(blocks, builder));
-    // Add fine count
-    final Future<PatronInformationResponseBuilder> accountFuture = feeFinesRepository
-        .getAccountDataByUserId(userId, sessionData)
-        .map(accounts -> {
-          totalAmount(accounts, builder);
-          populateFinesCount(accounts, builder);
-          return addExtendedAccountInfo(accounts,
-              patronInformation.getSummary() == EXTENDED_FEES, builder);
-        });
-
-    // Add charged count
-    final Future<PatronInformationResponseBuilder> loansFuture = circulationRepository
-        .getLoansByUserId(userId, null, null, sessionData)
-        .map(loans -> populateChargedCount(loans, builder));
-
-    // Get holds data (count and items) and store it in the builder
-    final Future<PatronInformationResponseBuilder> holdsFuture = circulationRepository
-        .getRequestsByUserId(userId, "Hold", startItem, endItem, sessionData).map(
-            holds -> addHolds(holds, patronInformation.getSummary() == HOLD_ITEMS, builder));
-    // Get overdue loans data (count and items) and store it in the builder
-    // Due date needs to be UTC since it is being used in CQL for time comparison in the DB.
-    final Future<PatronInformationResponseBuilder> overdueFuture =
-        circulationRepository.getOverdueLoansByUserId(userId, OffsetDateTime.now(clock),
-            startItem, endItem, sessionData).map(
-                overdues -> addOverdueItems(overdues,
-                    patronInformation.getSummary() == OVERDUE_ITEMS, builder));
-    // Get recalled items data (count and items) and store it in the builder
-    final Future<PatronInformationResponseBuilder> recallsFuture =
-        getRecalls(userId, sessionData).compose(recalls -> addRecalls(recalls, startItem, endItem,
-            patronInformation.getSummary() == RECALL_ITEMS, builder));
-    // When all operations complete, build and return the final PatronInformationResponse
-    return CompositeFuture.all(manualBlocksFuture, accountFuture, holdsFuture,
-        overdueFuture, recallsFuture, loansFuture)
+    final String patronIdentifier = patronInformation.getPatronIdentifier();
+    // A kiosk paging through a list sends the same request with another range,
+    // which is answered from the details kept on the session. These hold at
+    // most maxItems of each list, so a range ending past them is fetched as is.
+    final boolean cacheable = patronDetailsCache.isEnabled()
+        && (endItem == null || endItem <= patronDetailsCache.getMaxItems());
+    final PatronDetails cached = cacheable
+        ? patronDetailsCache.get(sessionData, patronIdentifier, userId) : null;
+    final Future<PatronDetails> details = cached != null ? Future.succeededFuture(cached)
+        : getPatronDetails(userId, startItem, endItem, cacheable, sessionData)
+            .onSuccess(fetched -> {
+              if (cacheable) {
+                patronDetailsCache.put(sessionData, patronIdentifier, userId, fetched);
+              }
+            });
+    final Future<PatronInformationResponse> response = details
         .map(result -> {
+          // Get manual blocks data to build patron status
+          buildPatronStatus(result.getManualBlocks(), builder);
+          // Add fine count
+          totalAmount(result.getAccounts(), builder);
+          populateFinesCount(result.getAccounts(), builder);
+          addExtendedAccountInfo(result.getAccounts(),
+              profile.isExtendedFees() && patronInformation.getSummary() == EXTENDED_FEES,
+              builder);
+          // Add charged count
+          populateChargedCount(result.getLoans(), builder);
+          // Add holds, overdue and recalled items data (count and items)
+          final Integer listStart = result.isComplete() ? startItem : null;
+          final Integer listEnd = result.isComplete() ? endItem : null;
+          addHolds(result.getHolds(), listStart, listEnd,
+              patronInformation.getSummary() == HOLD_ITEMS, builder);
+          addOverdueItems(result.getOverdues(), listStart, listEnd,
+              patronInformation.getSummary() == OVERDUE_ITEMS, builder);
+          if (profile.isRecallItems()) {
+            addRecalls(result.getRecalls(), startItem, endItem,
+                patronInformation.getSummary() == RECALL_ITEMS, builder);
+          }
+          addBorrowerType(extendedUser.getPatronGroup(), builder);
           log.info("validPatron language:{} institutionId:{}",
               patronInformation.getLanguage(),patronInformation.getInstitutionId());
           return builder
             // Get tenant language from config along with the timezone
-            .borrowerType(extendedUser.getPatronGroup().getGroup())
-            .borrowerTypeDescription(extendedUser.getPatronGroup().getDesc())
             .language(patronInformation.getLanguage())
             .transactionDate(OffsetDateTime.now(clock))
             .unavailableHoldsCount(null)
@@ -296,8 +322,12 @@ public class PatronRepository {
             .validPatronPassword(validPassword)
             .currencyType(matchCurrency(sessionData.getCurrency()))
             .build();
-          }
-        );
+        });
+    if (cached == null) {
+      // registered after the response, so the loaned items are read ahead once it is sent
+      details.onSuccess(result -> loanPrefetcher.prefetch(result.getLoans(), sessionData));
+    }
+    return response;
   }
 
   private Future<PatronStatusResponse> validPatron(ExtendedUser extendedUser,
@@ -312,13 +342,12 @@ public class PatronRepository {
     log.debug("Populating borrower info with patron group {}",
         extendedUser.getPatronGroup() != null ? extendedUser.getPatronGroup().getId()
         : null);
-    // When all operations complete, build and return the final PatronInformationResponse
+    final FetchPlan plan = FetchPlan.create("patronStatus", sessionData);
+    final FetchNode<BigDecimal> feeAmount = plan.node("feeAmount",
+        () -> feeFinesRepository.getFeeAmountByUserId(userId, sessionData));
 
-    final Future<PatronStatusResponseBuilder> getFeeAmountFuture = feeFinesRepository
-        .getFeeAmountByUserId(userId, sessionData)
-        .map(accounts -> totalAmount(accounts, builder));
-
-    return getFeeAmountFuture.map(result -> builder
+    // When all resources are fetched, build and return the final PatronStatusResponse
+    return plan.execute().map(result -> totalAmount(feeAmount.result(), builder)
             .patronStatus(EnumSet.allOf(PatronStatus.class))
             .language(patronStatus.getLanguage())
             .transactionDate(OffsetDateTime.now(clock))
@@ -331,6 +360,94 @@ public class PatronRepository {
     );
   }
 
+  private Future<PatronDetails> getPatronDetails(String userId, Integer startItem,
+      Integer endItem, boolean complete, SessionData sessionData) {
+    // Details kept on the session hold complete lists, pages are sliced from them
+    final Integer listStart = complete ? Integer.valueOf(1) : startItem;
+    final Integer listEnd = complete ? Integer.valueOf(patronDetailsCache.getMaxItems()) : endItem;
+    final Strategy strategy = patronFetchStrategy.forTenant(sessionData.getTenant());
+    final boolean recallItems = sessionData.getResponseProfile().isRecallItems();
+    final long start = System.nanoTime();
+    // Declare the FOLIO resources needed; independent ones are fetched in parallel
+    // and the open loans are fetched once for the charged count and the recalls
+    final FetchPlan plan = FetchPlan.create(strategy == Strategy.SNAPSHOT
+        ? "patronInformationSnapshot" : "patronInformation", sessionData);
+    final FetchNode<JsonObject> manualBlocks = plan.node("manualBlocks",
+        () -> feeFinesRepository.getManualBlocksByUserId(userId, sessionData));
+    final FetchNode<JsonObject> accounts = plan.node("accounts",
+        () -> feeFinesRepository.getAccountDataByUserId(userId, sessionData));
+    final FetchNode<JsonObject> holds = plan.node("holds",
+        () -> circulationRepository.getRequestsByUserId(userId, "Hold", listStart, listEnd,
+            sessionData));
+    final FetchNode<JsonObject> loans;
+    final FetchNode<JsonObject> overdues;
+    final FetchNode<List<JsonObject>> recalls;
+    if (strategy == Strategy.SNAPSHOT) {
+      // The overdue loans and the recalls are derived from one read of all open loans
+      final OffsetDateTime now = OffsetDateTime.now(clock);
+      loans = plan.node("loans", () -> circulationRepository.getLoansByUserId(userId, 1,
+          patronFetchStrategy.getMaxLoans(), sessionData));
+      overdues = plan.node("overdueLoans", loans, loansJson -> Future.succeededFuture(
+          getOverdueLoans(loansJson, now, listStart, listEnd)));
+      recalls = recallItems ? plan.node("recalls", loans,
+          loansJson -> getRecallsInBatches(loansJson, sessionData)) : noRecalls(plan);
+    } else {
+      loans = plan.node("loans",
+          () -> circulationRepository.getLoansByUserId(userId, null, null, sessionData));
+      // Due date needs to be UTC since it is being used in CQL for time comparison in the DB.
+      overdues = plan.node("overdueLoans",
+          () -> circulationRepository.getOverdueLoansByUserId(userId, OffsetDateTime.now(clock),
+              listStart, listEnd, sessionData));
+      recalls = recallItems ? plan.node("recalls", loans,
+          loansJson -> getRecalls(loansJson, sessionData)) : noRecalls(plan);
+    }
+    return plan.execute()
+        .onSuccess(v -> patronFetchStrategy.record(strategy, System.nanoTime() - start,
+            countRequests(strategy, loans.result(), recallItems)))
+        .map(result -> new PatronDetails(manualBlocks.result(), accounts.result(),
+            loans.result(), holds.result(), overdues.result(), recalls.result(), complete));
+  }
+
+  private JsonObject getOverdueLoans(JsonObject loansJson, OffsetDateTime now,
+      Integer startItem, Integer endItem) {
+    if (loansJson == null) {
+      return null;
+    }
+    final List<Object> overdue = getLoanArray(loansJson).stream()
+        .filter(o -> isOverdue((JsonObject) o, now))
+        .collect(Collectors.toList());
+    final int skip = startItem == null ? 0 : Math.min(overdue.size(), startItem - 1);
+    final int end = endItem == null ? overdue.size()
+        : Math.max(skip, Math.min(overdue.size(), endItem));
+    return new JsonObject()
+        .put("loans", new JsonArray(new ArrayList<>(overdue.subList(skip, end))))
+        .put(FIELD_TOTAL_RECORDS, overdue.size());
+  }
+
+  private boolean isOverdue(JsonObject loan, OffsetDateTime now) {
+    final String dueDate = loan.getString("dueDate");
+    if (dueDate == null) {
+      return false;
+    }
+    try {
+      return OffsetDateTime.from(Utils.getFolioDateTimeFormatter().parse(dueDate)).isBefore(now);
+    } catch (DateTimeException e) {
+      log.warn("Unable to parse due date {} of loan {}", dueDate, loan.getString("id"));
+      return false;
+    }
+  }
+
+  private int countRequests(Strategy strategy, JsonObject loansJson, boolean recallItems) {
+    // manual blocks, accounts, holds and loans, then the recall lookups
+    final int loanCount = loansJson == null || !recallItems ? 0 : getLoanArray(loansJson).size();
+    if (strategy == Strategy.SNAPSHOT) {
+      final int items = recallItems ? getLoanedItemIds(loansJson).size() : 0;
+      return 4 + (items + RECALL_ITEM_IDS_PER_QUERY - 1) / RECALL_ITEM_IDS_PER_QUERY;
+    }
+    // the overdue loans are a query of their own
+    return 5 + loanCount;
+  }
+
 
   private PatronInformationResponseBuilder populateChargedCount(JsonObject loans,
                                       PatronInformationResponseBuilder builder) {
@@ -373,16 +490,14 @@ public class PatronRepository {
   }
 
   private PatronStatusResponseBuilder totalAmount(
-      JsonObject jo,
+      BigDecimal total,
       PatronStatusResponseBuilder builder) {
-
-    final JsonArray arr = jo.getJsonArray(FIELD_ACCOUNTS);
-    Float total = 0.0f;
-    for (int i = 0;i < arr.size();i++) {
-      total += arr.getJsonObject(i).getFloat(FIELD_REMAINING);
-    }
     log.debug("Total is {}", total);
-    return builder.feeAmount(total.toString());
+    if (total == null) {
+      return builder;
+    }
+    // summed exactly, but formatted as the fee amount always was
+    return builder.feeAmount(Float.toString(total.floatValue()));
   }
 
 
@@ -462,9 +577,10 @@ public class PatronRepository {
 
   private PatronInformationResponseBuilder addPersonalData(Personal personal,
                                                      String patronIdentifier,
+                                                     boolean address,
                                                      PatronInformationResponseBuilder builder) {
     final String personalName = getPatronPersonalName(personal, patronIdentifier);
-    final String homeAddress = getPatronHomeAddress(personal);
+    final String homeAddress = address ? getPatronHomeAddress(personal) : null;
     final String emailAddress = personal == null ? null : personal.getEmail();
     final String homePhoneNumber = personal == null ? null : personal.getPhone();
 
@@ -474,15 +590,25 @@ public class PatronRepository {
         .homePhoneNumber(homePhoneNumber);
   }
 
-  private PatronInformationResponseBuilder addHolds(JsonObject holds, boolean details,
+  private PatronInformationResponseBuilder addBorrowerType(PatronGroup patronGroup,
       PatronInformationResponseBuilder builder) {
+    // there is no patron group when the tenant does not show the borrower type
+    if (patronGroup == null) {
+      return builder;
+    }
+    return builder.borrowerType(patronGroup.getGroup())
+        .borrowerTypeDescription(patronGroup.getDesc());
+  }
+
+  private PatronInformationResponseBuilder addHolds(JsonObject holds, Integer startItem,
+      Integer endItem, boolean details, PatronInformationResponseBuilder builder) {
     final int holdItemsCount;
     final List<String> holdItems;
 
     if (holds != null) {
       holdItemsCount = Math.min(getTotalRecords(holds), 9999);
       if (details) {
-        holdItems = getHoldItems(holds);
+        holdItems = slice(getHoldItems(holds), startItem, endItem);
       } else {
         holdItems = null;
       }
@@ -494,7 +620,8 @@ public class PatronRepository {
     return builder.holdItemsCount(Integer.valueOf(holdItemsCount)).holdItems(holdItems);
   }
 
-  private PatronInformationResponseBuilder addOverdueItems(JsonObject overdues, boolean details,
+  private PatronInformationResponseBuilder addOverdueItems(JsonObject overdues,
+      Integer startItem, Integer endItem, boolean details,
       PatronInformationResponseBuilder builder) {
     final int overdueItemsCount;
     final List<String> overdueItems;
@@ -502,7 +629,7 @@ public class PatronRepository {
     if (overdues != null) {
       overdueItemsCount = Math.min(getTotalRecords(overdues), 9999);
       if (details) {
-        overdueItems = getOverdueItems(overdues);
+        overdueItems = slice(getOverdueItems(overdues), startItem, endItem);
       } else {
         overdueItems = null;
       }
@@ -514,22 +641,19 @@ public class PatronRepository {
     return builder.overdueItemsCount(Integer.valueOf(overdueItemsCount)).overdueItems(overdueItems);
   }
 
-  @SuppressWarnings("rawtypes")
-  private Future<PatronInformationResponseBuilder> addRecalls(List<Future<JsonObject>> recalls,
+  private PatronInformationResponseBuilder addRecalls(List<JsonObject> recalls,
       Integer startItem, Integer endItem, boolean details,
       PatronInformationResponseBuilder builder) {
-    return CompositeFuture.all(new ArrayList<Future>(recalls)).map(result -> {
-      final int recallItemsCount = Math.min(countRecallItems(recalls), 9999);
-      final List<String> recallItems;
+    final int recallItemsCount = Math.min(countRecallItems(recalls), 9999);
+    final List<String> recallItems;
 
-      if (details) {
-        recallItems = getRecallItems(recalls, startItem, endItem);
-      } else {
-        recallItems = null;
-      }
+    if (details) {
+      recallItems = getRecallItems(recalls, startItem, endItem);
+    } else {
+      recallItems = null;
+    }
 
-      return builder.recallItemsCount(Integer.valueOf(recallItemsCount)).recallItems(recallItems);
-    });
+    return builder.recallItemsCount(Integer.valueOf(recallItemsCount)).recallItems(recallItems);
   }
 
   private PatronInformationResponseBuilder addExtendedAccountInfo(JsonObject accounts,
@@ -649,20 +773,26 @@ public class PatronRepository {
     return getTitlesForLoans(loanArray);
   }
 
-  private int countRecallItems(List<Future<JsonObject>> recallItems) {
+  private List<String> slice(List<String> items, Integer startItem, Integer endItem) {
+    // startItem and endItem are 1-based and inclusive, as FOLIO's offset and limit
+    final int skip = startItem == null ? 0 : Math.min(items.size(), startItem.intValue() - 1);
+    final int end = endItem == null ? items.size()
+        : Math.max(skip, Math.min(items.size(), endItem.intValue()));
+    return items.subList(skip, end);
+  }
+
+  private int countRecallItems(List<JsonObject> recallItems) {
     return (int) recallItems.stream()
-        .map(Future::result)
         .filter(Objects::nonNull)
         .filter(jo -> getTotalRecords(jo) > 0)
         .count();
   }
 
-  private List<String> getRecallItems(List<Future<JsonObject>> recallItems, Integer startItem,
+  private List<String> getRecallItems(List<JsonObject> recallItems, Integer startItem,
       Integer endItem) {
     final int skip = startItem == null ? 0 : startItem.intValue() - 1;
     final int maxSize = endItem == null ? 9999 : endItem.intValue() - skip;
     return recallItems.stream()
-        .map(Future::result)
         .filter(Objects::nonNull)
         .filter(jo -> getTotalRecords(jo) > 0)
         .map(jo -> jo.getJsonArray(FIELD_REQUESTS, new JsonArray()).stream().findAny()
@@ -702,21 +832,67 @@ public class PatronRepository {
             Collectors.joining(" "), result -> result.isEmpty() ? null : result));
   }
 
-  private Future<List<Future<JsonObject>>> getRecalls(String userId, SessionData sessionData) {
-    final Future<JsonObject> loansFuture =
-        circulationRepository.getLoansByUserId(userId, null, null, sessionData);
+  private FetchNode<List<JsonObject>> noRecalls(FetchPlan plan) {
+    // the tenant does not show recall items, the requests of the loaned items are not read
+    return plan.node("recalls", () -> Future.succeededFuture(Collections.emptyList()));
+  }
 
-    return loansFuture.map(jo -> {
-      final JsonArray loans = jo == null ? new JsonArray()
-          : jo.getJsonArray("loans", new JsonArray());
-      return loans.stream()
-          .map(o -> (JsonObject) o)
-          .map(loan -> circulationRepository.getRequestsByItemId(loan.getString("itemId"),
-              "Recall", null, null, sessionData))
+  private Future<List<JsonObject>> getRecalls(JsonObject loansJson, SessionData sessionData) {
+    final JsonArray loans = loansJson == null ? new JsonArray()
+        : loansJson.getJsonArray("loans", new JsonArray());
+    final List<Future> recalls = loans.stream()
+        .map(o -> (JsonObject) o)
+        .map(loan -> circulationRepository.getRequestsByItemId(loan.getString("itemId"),
+            "Recall", null, null, sessionData))
+        .collect(Collectors.toList());
+
+    return CompositeFuture.all(recalls).map(CompositeFuture::<JsonObject>list);
+  }
+
+  @SuppressWarnings("rawtypes")
+  private Future<List<JsonObject>> getRecallsInBatches(JsonObject loansJson,
+      SessionData sessionData) {
+    final List<String> itemIds = getLoanedItemIds(loansJson);
+    final List<Future> batches = new ArrayList<>();
+    for (int i = 0; i < itemIds.size(); i += RECALL_ITEM_IDS_PER_QUERY) {
+      batches.add(circulationRepository.getRequestsByItemIds(itemIds.subList(i,
+          Math.min(itemIds.size(), i + RECALL_ITEM_IDS_PER_QUERY)), "Recall", sessionData));
+    }
+
+    // Answer the recalls of each loan in the shape of a lookup by item
+    return CompositeFuture.all(batches).map(result -> {
+      final Map<String, JsonArray> byItem = new HashMap<>();
+      for (int i = 0; i < result.size(); i++) {
+        final JsonObject batch = result.resultAt(i);
+        if (batch == null) {
+          continue;
+        }
+        batch.getJsonArray(FIELD_REQUESTS, new JsonArray()).stream()
+            .map(o -> (JsonObject) o)
+            .forEach(request -> byItem.computeIfAbsent(request.getString("itemId"),
+                id -> new JsonArray()).add(request));
+      }
+      return getLoanArray(loansJson).stream()
+          .map(o -> byItem.getOrDefault(((JsonObject) o).getString("itemId"), new JsonArray()))
+          .map(requests -> new JsonObject()
+              .put(FIELD_REQUESTS, requests)
+              .put(FIELD_TOTAL_RECORDS, requests.size()))
           .collect(Collectors.toList());
     });
   }
 
+  private List<String> getLoanedItemIds(JsonObject loansJson) {
+    return loansJson == null ? Collections.emptyList() : getLoanArray(loansJson).stream()
+        .map(o -> ((JsonObject) o).getString("itemId"))
+        .filter(Objects::nonNull)
+        .distinct()
+        .collect(Collectors.toList());
+  }
+
+  private JsonArray getLoanArray(JsonObject loansJson) {
+    return loansJson.getJsonArray("loans", new JsonArray());
+  }
+
   private CurrencyType matchCurrency(String currencyString) {
     for (CurrencyType c : CurrencyType.values()) {
       if (c.name().equals(currencyString)) {
@@ -0,0 +1,314 @@
+package org.folio.edge.sip2.repositories;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decodes the body of a FOLIO response into only what a repository needs.
+ * Readers stream the response bytes, so the loans, accounts or requests of a
+ * patron are never built into a full JSON tree just to read a few fields of
+ * each record. Readers are immutable and are meant to be created once and
+ * shared.
+ *
+ * @param <T> the type the response is decoded to
+ */
+public abstract class ResponseReader<T> {
+  private static final ObjectMapper MAPPER = DatabindCodec.mapper();
+  private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+  private static final String TOTAL_RECORDS = "totalRecords";
+
+  /**
+   * Returns a reader that decodes each record of a collection response to the
+   * given type. Fields of the records that the type does not map are skipped
+   * without being decoded.
+   * @param <E> the record type
+   * @param collection the name of the records array, e.g. {@code users}
+   * @param type the record type
+   * @return the reader
+   */
+  public static <E> ResponseReader<List<E>> records(String collection, Class<E> type) {
+    final ObjectReader reader = MAPPER.readerFor(Objects.requireNonNull(type,
+        "type cannot be null"));
+    return new CollectionReader<List<E>, E>(collection) {
+      @Override
+      E readRecord(JsonParser parser) throws IOException {
+        return reader.readValue(parser);
+      }
+
+      @Override
+      E projectRecord(JsonObject json) {
+        return json.mapTo(type);
+      }
+
+      @Override
+      List<E> result(List<E> records, Integer totalRecords) {
+        return records;
+      }
+    };
+  }
+
+  /**
+   * Returns a reader that keeps only the given fields of each record of a
+   * collection response, e.g. {@code projection("loans", "itemId", "item.title")}.
+   * The result has the same shape as the response: the records array under
+   * its name and {@code totalRecords}, if present. Decimal numbers are read as
+   * {@link java.math.BigDecimal}, so that amounts keep the digits FOLIO sent.
+   * @param collection the name of the records array, e.g. {@code loans}
+   * @param fields the fields to keep, nested fields are separated by {@code .}
+   * @return the reader
+   */
+  public static ResponseReader<JsonObject> projection(String collection, String... fields) {
+    final Map<String, Map<String, ?>> projection = toProjection(fields);
+    return new CollectionReader<JsonObject, JsonObject>(collection) {
+      @Override
+      JsonObject readRecord(JsonParser parser) throws IOException {
+        return readObject(parser, projection);
+      }
+
+      @Override
+      JsonObject projectRecord(JsonObject json) {
+        return projectObject(json, projection);
+      }
+
+      @Override
+      JsonObject result(List<JsonObject> records, Integer totalRecords) {
+        final JsonObject result = new JsonObject()
+            .put(collection, new JsonArray(records));
+        if (totalRecords != null) {
+          result.put(TOTAL_RECORDS, totalRecords);
+        }
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Returns a reader that keeps only the given fields of a single record
+   * response, e.g. {@code objectProjection("patronGroup.group")}.
+   * @param fields the fields to keep, nested fields are separated by {@code .}
+   * @return the reader
+   */
+  public static ResponseReader<JsonObject> objectProjection(String... fields) {
+    final Map<String, Map<String, ?>> projection = toProjection(fields);
+    return new ResponseReader<JsonObject>() {
+      @Override
+      JsonObject read(JsonParser parser) throws IOException {
+        return readObject(parser, projection);
+      }
+
+      @Override
+      JsonObject project(JsonObject json) {
+        return projectObject(json, projection);
+      }
+    };
+  }
+
+  /**
+   * Decode a response body.
+   * @param body the response body, may be {@code null}
+   * @return the decoded response or {@code null} if there is no body
+   * @throws DecodeException if the body is not valid JSON
+   */
+  public T read(Buffer body) {
+    if (body == null || body.length() == 0) {
+      return null;
+    }
+
+    try (InputStream in = new ByteBufInputStream(body.getByteBuf());
+        JsonParser parser = JSON_FACTORY.createParser(in)) {
+      parser.nextToken();
+      return read(parser);
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode FOLIO response: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Decode a response that has already been decoded to JSON. The response is
+   * projected as is, without being encoded again.
+   * @param json the response, may be {@code null}
+   * @return the decoded response or {@code null} if there is no response
+   */
+  public T read(JsonObject json) {
+    return json == null ? null : project(json);
+  }
+
+  /**
+   * Decode the value the parser is positioned at.
+   * @param parser the parser positioned at the first token of the value
+   * @return the decoded value
+   * @throws IOException if the value cannot be decoded
+   */
+  abstract T read(JsonParser parser) throws IOException;
+
+  /**
+   * Decode a response that has already been decoded to JSON.
+   * @param json the response
+   * @return the decoded response
+   */
+  abstract T project(JsonObject json);
+
+  private abstract static class CollectionReader<T, E> extends ResponseReader<T> {
+    private final String collection;
+
+    private CollectionReader(String collection) {
+      this.collection = Objects.requireNonNull(collection, "collection cannot be null");
+    }
+
+    @Override
+    T read(JsonParser parser) throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw new DecodeException("Expected a JSON object with " + collection);
+      }
+
+      final List<E> records = new ArrayList<>();
+      Integer totalRecords = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        final JsonToken token = parser.nextToken();
+        if (collection.equals(name) && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+              records.add(readRecord(parser));
+            } else {
+              parser.skipChildren();
+            }
+          }
+        } else if (TOTAL_RECORDS.equals(name) && token == JsonToken.VALUE_NUMBER_INT) {
+          totalRecords = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+
+      return result(records, totalRecords);
+    }
+
+    @Override
+    T project(JsonObject json) {
+      final List<E> records = new ArrayList<>();
+      final Object array = json.getValue(collection);
+      if (array instanceof JsonArray) {
+        for (Object value : (JsonArray) array) {
+          // the iterator wraps nested maps as JSON objects
+          if (value instanceof JsonObject) {
+            records.add(projectRecord((JsonObject) value));
+          }
+        }
+      }
+      final Object totalRecords = json.getValue(TOTAL_RECORDS);
+      return result(records, totalRecords instanceof Integer ? (Integer) totalRecords : null);
+    }
+
+    abstract E readRecord(JsonParser parser) throws IOException;
+
+    abstract E projectRecord(JsonObject json);
+
+    abstract T result(List<E> records, Integer totalRecords);
+  }
+
+  private static JsonObject readObject(JsonParser parser, Map<String, Map<String, ?>> projection)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+
+    final JsonObject result = new JsonObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      final JsonToken token = parser.nextToken();
+      @SuppressWarnings("unchecked")
+      final Map<String, Map<String, ?>> nested =
+          (Map<String, Map<String, ?>>) projection.get(name);
+      if (nested == null) {
+        parser.skipChildren();
+      } else if (nested.isEmpty()) {
+        result.put(name, readValue(parser));
+      } else if (token == JsonToken.START_OBJECT) {
+        result.put(name, readObject(parser, nested));
+      } else {
+        // a nested field was asked for, but this is not an object
+        parser.skipChildren();
+      }
+    }
+
+    return result;
+  }
+
+  private static JsonObject projectObject(JsonObject json,
+      Map<String, Map<String, ?>> projection) {
+    final JsonObject result = new JsonObject();
+    for (Map.Entry<String, Map<String, ?>> field : projection.entrySet()) {
+      final String name = field.getKey();
+      if (!json.containsKey(name)) {
+        continue;
+      }
+      final Object value = json.getValue(name);
+      @SuppressWarnings("unchecked")
+      final Map<String, Map<String, ?>> nested = (Map<String, Map<String, ?>>) field.getValue();
+      if (nested.isEmpty()) {
+        // the value is copied, as a decoded response does not share the source
+        result.put(name, value instanceof JsonObject ? ((JsonObject) value).copy()
+            : value instanceof JsonArray ? ((JsonArray) value).copy() : value);
+      } else if (value instanceof JsonObject) {
+        result.put(name, projectObject((JsonObject) value, nested));
+      }
+    }
+
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object readValue(JsonParser parser) throws IOException {
+    switch (parser.currentToken()) {
+      case START_OBJECT:
+        return new JsonObject(MAPPER.readValue(parser, Map.class));
+      case START_ARRAY:
+        return new JsonArray(MAPPER.readValue(parser, List.class));
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDecimalValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      default:
+        return null;
+    }
+  }
+
+  private static Map<String, Map<String, ?>> toProjection(String... fields) {
+    final Map<String, Map<String, ?>> projection = new HashMap<>();
+    for (String field : fields) {
+      Map<String, Map<String, ?>> level = projection;
+      for (String name : field.split("\\.")) {
+        @SuppressWarnings("unchecked")
+        final Map<String, Map<String, ?>> next = (Map<String, Map<String, ?>>) level
+            .computeIfAbsent(name, k -> new HashMap<>());
+        level = next;
+      }
+    }
+    return Collections.unmodifiableMap(projection);
+  }
+}
@@ -1,15 +1,18 @@
 package org.folio.edge.sip2.repositories;
 
 import io.vertx.core.Future;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.NegativeResultCache;
 import org.folio.edge.sip2.repositories.domain.ExtendedUser;
 import org.folio.edge.sip2.repositories.domain.User;
 import org.folio.edge.sip2.session.SessionData;
@@ -24,13 +27,25 @@ import org.folio.edge.sip2.utils.Utils;
 public class UsersRepository {
 
   private static final Logger log = LogManager.getLogger();
+  private static final ResponseReader<List<User>> USERS =
+      ResponseReader.records("users", User.class);
+  // the composite bl-users record is large, only the patron group is used
+  private static final ResponseReader<JsonObject> EXTENDED_USER =
+      ResponseReader.objectProjection("patronGroup.id", "patronGroup.group",
+          "patronGroup.desc");
 
   private final IResourceProvider<IRequestData> resourceProvider;
+  private final LookupBatcher lookupBatcher;
+  private final NegativeResultCache negativeResultCache;
 
   @Inject
-  UsersRepository(IResourceProvider<IRequestData> resourceProvider) {
+  UsersRepository(IResourceProvider<IRequestData> resourceProvider,
+      LookupBatcher lookupBatcher, NegativeResultCache negativeResultCache) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
+    this.lookupBatcher = Objects.requireNonNull(lookupBatcher, "LookupBatcher cannot be null");
+    this.negativeResultCache = Objects.requireNonNull(negativeResultCache,
+        "NegativeResultCache cannot be null");
   }
 
   /**
@@ -47,20 +62,37 @@ public class UsersRepository {
     Objects.requireNonNull(sessionData, "sessionData cannot be null");
     log.debug("getUserById identifier:{}", identifier);
 
+    final String tenant = sessionData.getTenant();
+    if (negativeResultCache.isKnownMissing(tenant, NegativeResultCache.Kind.USER, identifier)) {
+      return Future.succeededFuture(null);
+    }
+
     final Map<String, String> headers = new HashMap<>();
     headers.put("accept", "application/json");
 
     final GetUserByIdentifierRequestData getUserByBarcodeRequestData =
         new GetUserByIdentifierRequestData(identifier, headers, sessionData);
-    final Future<IResource> result = resourceProvider.retrieveResource(getUserByBarcodeRequestData);
+    final Future<IResource> result = lookupBatcher.retrieveResource(
+        UsersByIdentifierLookup.INSTANCE, identifier, getUserByBarcodeRequestData);
 
     log.debug("Users lookup success is {}", result.succeeded());
 
     return result
         .otherwise(() -> null)
-        .map(IResource::getResource)
+        .map(resource -> resource.getResource(USERS))
         .map(this::getUserFromList)
+        .onSuccess(user -> {
+          if (user == null && result.succeeded()) {
+            negativeResultCache.recordMissing(tenant, NegativeResultCache.Kind.USER, identifier);
+          }
+        })
         .compose(user -> {
+          if (user != null && !sessionData.getResponseProfile().isBorrowerType()) {
+            // the patron group only feeds the borrower type, which the tenant does not show
+            final ExtendedUser extendedUser = new ExtendedUser();
+            extendedUser.setUser(user);
+            return Future.succeededFuture(extendedUser);
+          }
           Future<IResource> blResult;
           if (user != null) {
             log.debug("Getting extended user info for id {}", user.getId());
@@ -77,7 +109,8 @@ public class UsersRepository {
               if (blResult.failed()) {
                 return Future.succeededFuture(null);
               } else {
-                JsonObject extendedUserJson = extendedUserResult.getResource();
+                JsonObject extendedUserJson =
+                    extendedUserResult.getResource(EXTENDED_USER);
                 log.debug("Got extended user JSON: {}", extendedUserJson.encode());
                 JsonObject patronGroupJson = extendedUserJson.getJsonObject("patronGroup");
                 ExtendedUser extendedUser = new ExtendedUser();
@@ -95,24 +128,48 @@ public class UsersRepository {
         });
   }
 
-  private User getUserFromList(JsonObject userList) {
-    log.info("getUserFromList userList:{}",userList);
-    final User user;
-
-    if (userList == null
-        || userList.getInteger("totalRecords", 0) == 0) {
-      user = null;
-    } else {
-      final JsonArray users = userList.getJsonArray("users");
-      if (users == null || users.size() == 0) {
-        user = null;
-      } else {
-        // there should be only 1 user, if barcode/username/the external ID exists
-        user = users.getJsonObject(0).mapTo(User.class);
-      }
+  private User getUserFromList(List<User> users) {
+    log.info("getUserFromList users:{}", users);
+    // there should be only 1 user, if barcode/username/the external ID exists
+    return users == null || users.isEmpty() ? null : users.get(0);
+  }
+
+  static class UsersByIdentifierLookup implements BatchedLookup {
+    static final UsersByIdentifierLookup INSTANCE = new UsersByIdentifierLookup();
+
+    @Override
+    public String getName() {
+      return "users";
     }
 
-    return user;
+    @Override
+    public String getPath(Collection<String> identifiers) {
+      final String anyOf = identifiers.stream()
+          .map(Utils::cqlQuote)
+          .collect(Collectors.joining(" or ", "(", ")"));
+      StringBuilder query = new StringBuilder()
+          .append("barcode==")
+          .append(anyOf)
+          .append(" or externalSystemId==")
+          .append(anyOf)
+          .append(" or username==")
+          .append(anyOf);
+      // each identifier may match a different user by each field
+      return "/users?limit=" + identifiers.size() * 3 + "&query="
+          + Utils.encode(query.toString());
+    }
+
+    @Override
+    public String getRecordsName() {
+      return "users";
+    }
+
+    @Override
+    public boolean matches(JsonObject user, String identifier) {
+      return identifier.equalsIgnoreCase(user.getString("barcode"))
+          || identifier.equalsIgnoreCase(user.getString("externalSystemId"))
+          || identifier.equalsIgnoreCase(user.getString("username"));
+    }
   }
 
   private class GetExtendedUserData implements IRequestData {
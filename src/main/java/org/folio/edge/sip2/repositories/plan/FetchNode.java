@@ -0,0 +1,73 @@
+package org.folio.edge.sip2.repositories.plan;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.folio.edge.sip2.resilience.RequestRejectedThrowable;
+
+/**
+ * A FOLIO resource declared in a {@link FetchPlan}. The node is fetched once,
+ * after all of the nodes it depends on have been fetched. An optional node is
+ * {@code null} when its request is not sent to FOLIO.
+ *
+ * @param <T> the type of the fetched resource
+ */
+public final class FetchNode<T> {
+  private final FetchPlan plan;
+  private final String name;
+  private final List<FetchNode<?>> dependencies;
+  private final boolean optional;
+  private final Supplier<Future<T>> fetch;
+  private Future<T> future;
+
+  FetchNode(FetchPlan plan, String name, List<FetchNode<?>> dependencies, boolean optional,
+      Supplier<Future<T>> fetch) {
+    this.plan = plan;
+    this.name = name;
+    this.dependencies = dependencies;
+    this.optional = optional;
+    this.fetch = fetch;
+  }
+
+  /**
+   * Returns the fetched resource, starting the fetch of the node and its
+   * dependencies if that has not happened yet.
+   * @return the future result of the node
+   */
+  @SuppressWarnings("rawtypes")
+  public synchronized Future<T> future() {
+    if (future == null) {
+      final List<Future> dependencyFutures = new ArrayList<>();
+      for (FetchNode<?> dependency : dependencies) {
+        dependencyFutures.add(dependency.future());
+      }
+      final Future<T> fetched = CompositeFuture.all(dependencyFutures)
+          .compose(v -> plan.fetch(name, fetch));
+      future = !optional ? fetched : fetched.recover(t -> RequestRejectedThrowable.isNotSent(t)
+          ? Future.succeededFuture() : Future.failedFuture(t));
+    }
+    return future;
+  }
+
+  /**
+   * Returns the fetched resource once the plan has been executed.
+   * @return the resource
+   */
+  public T result() {
+    return future().result();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  boolean isOptional() {
+    return optional;
+  }
+
+  List<FetchNode<?>> getDependencies() {
+    return dependencies;
+  }
+}
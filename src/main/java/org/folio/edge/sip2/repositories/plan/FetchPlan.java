@@ -0,0 +1,203 @@
+package org.folio.edge.sip2.repositories.plan;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.metrics.Metrics;
+import org.folio.edge.sip2.resilience.Deadline;
+import org.folio.edge.sip2.resilience.DeadlineExceededThrowable;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Declares the FOLIO resources a SIP command needs, and their dependencies,
+ * as a directed acyclic graph of {@link FetchNode}s. Executing the plan
+ * fetches every node as soon as the nodes it depends on are available, so
+ * independent nodes are fetched in parallel. A node declared twice under the
+ * same name, with the same dependencies, is fetched once; declaring a name
+ * again with other dependencies is an error. No node is fetched after the
+ * transaction deadline has passed and the time taken by each node is recorded.
+ * An optional node, e.g. one read after a write for the response only, is
+ * {@code null} instead of failing the plan when its request is not sent.
+ */
+public final class FetchPlan {
+  private static final String METRICS_NAME = "org.folio.edge.sip2.fetch.node";
+  private static final Logger log = LogManager.getLogger();
+
+  private final String name;
+  private final Deadline deadline;
+  private final MeterRegistry registry;
+  private final Map<String, FetchNode<?>> nodes = new LinkedHashMap<>();
+  private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  private FetchPlan(String name, SessionData sessionData, MeterRegistry registry) {
+    this.name = Objects.requireNonNull(name, "name cannot be null");
+    // the deadline of the transaction the plan is created for
+    this.deadline = Objects.requireNonNull(sessionData, "SessionData cannot be null")
+        .getDeadline();
+    this.registry = Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+  }
+
+  /**
+   * Create a plan for a transaction.
+   * @param name the name of the plan, used for metrics
+   * @param sessionData the session of the transaction
+   * @return the plan
+   */
+  public static FetchPlan create(String name, SessionData sessionData) {
+    return create(name, sessionData, Metrics.getDefaultRegistry());
+  }
+
+  /**
+   * Create a plan for a transaction.
+   * @param name the name of the plan, used for metrics
+   * @param sessionData the session of the transaction
+   * @param registry the registry to record node timings in
+   * @return the plan
+   */
+  public static FetchPlan create(String name, SessionData sessionData, MeterRegistry registry) {
+    return new FetchPlan(name, sessionData, registry);
+  }
+
+  /**
+   * Declare a node without dependencies.
+   * @param <T> the type of the resource
+   * @param nodeName the name of the node, identical nodes share a name
+   * @param fetch fetches the resource
+   * @return the node
+   */
+  public <T> FetchNode<T> node(String nodeName, Supplier<Future<T>> fetch) {
+    return addNode(nodeName, Collections.emptyList(), false, fetch);
+  }
+
+  /**
+   * Declare a node that depends on another node.
+   * @param <A> the type of the dependency
+   * @param <T> the type of the resource
+   * @param nodeName the name of the node, identical nodes share a name
+   * @param dependency the node this node depends on
+   * @param fetch fetches the resource from the result of the dependency
+   * @return the node
+   */
+  public <A, T> FetchNode<T> node(String nodeName, FetchNode<A> dependency,
+      Function<A, Future<T>> fetch) {
+    return addNode(nodeName, Collections.singletonList(dependency), false,
+        () -> fetch.apply(dependency.result()));
+  }
+
+  /**
+   * Declare a node that depends on two other nodes.
+   * @param <A> the type of the first dependency
+   * @param <B> the type of the second dependency
+   * @param <T> the type of the resource
+   * @param nodeName the name of the node, identical nodes share a name
+   * @param first the first node this node depends on
+   * @param second the second node this node depends on
+   * @param fetch fetches the resource from the results of the dependencies
+   * @return the node
+   */
+  public <A, B, T> FetchNode<T> node(String nodeName, FetchNode<A> first, FetchNode<B> second,
+      BiFunction<A, B, Future<T>> fetch) {
+    return addNode(nodeName, Arrays.asList(first, second), false,
+        () -> fetch.apply(first.result(), second.result()));
+  }
+
+  /**
+   * Declare an optional node that depends on another node. The node is
+   * {@code null} when its request is not sent to FOLIO, because the deadline
+   * has passed or the request is rejected locally, so that a transaction that
+   * already wrote to FOLIO is not failed for a resource it can do without.
+   * @param <A> the type of the dependency
+   * @param <T> the type of the resource
+   * @param nodeName the name of the node, identical nodes share a name
+   * @param dependency the node this node depends on
+   * @param fetch fetches the resource from the result of the dependency
+   * @return the node
+   */
+  public <A, T> FetchNode<T> optionalNode(String nodeName, FetchNode<A> dependency,
+      Function<A, Future<T>> fetch) {
+    return addNode(nodeName, Collections.singletonList(dependency), true,
+        () -> fetch.apply(dependency.result()));
+  }
+
+  /**
+   * Fetch every declared node.
+   * @return a future that completes when all nodes have been fetched, or
+   *     fails with the first node that failed
+   */
+  @SuppressWarnings("rawtypes")
+  public Future<Void> execute() {
+    final List<Future> futures = new ArrayList<>();
+    synchronized (nodes) {
+      for (FetchNode<?> node : nodes.values()) {
+        futures.add(node.future());
+      }
+    }
+    return CompositeFuture.all(futures)
+        .onComplete(ar -> log.debug("Fetch plan {} timings (ms): {}", name, timings))
+        .mapEmpty();
+  }
+
+  /**
+   * Returns the time taken to fetch each node that has completed.
+   * @return the node timings in milliseconds, by node name
+   */
+  public Map<String, Long> getTimings() {
+    synchronized (timings) {
+      return new LinkedHashMap<>(timings);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> FetchNode<T> addNode(String nodeName, List<FetchNode<?>> dependencies,
+      boolean optional, Supplier<Future<T>> fetch) {
+    Objects.requireNonNull(nodeName, "nodeName cannot be null");
+    synchronized (nodes) {
+      final FetchNode<?> declared = nodes.get(nodeName);
+      if (declared == null) {
+        final FetchNode<T> node = new FetchNode<>(this, nodeName, dependencies, optional,
+            fetch);
+        nodes.put(nodeName, node);
+        return node;
+      }
+      // a name identifies one request, another declaration must issue the same one
+      if (!declared.getDependencies().equals(dependencies)
+          || declared.isOptional() != optional) {
+        throw new IllegalStateException(
+            "Node " + nodeName + " is already declared with other dependencies");
+      }
+      return (FetchNode<T>) declared;
+    }
+  }
+
+  <T> Future<T> fetch(String nodeName, Supplier<Future<T>> fetch) {
+    if (deadline.isExpired()) {
+      return Future.failedFuture(new DeadlineExceededThrowable(
+          "Transaction deadline exceeded before fetching " + nodeName));
+    }
+
+    final long start = System.nanoTime();
+    return fetch.get().onComplete(ar -> {
+      final long elapsed = System.nanoTime() - start;
+      timings.put(nodeName, TimeUnit.NANOSECONDS.toMillis(elapsed));
+      Timer.builder(METRICS_NAME)
+          .tag("plan", name)
+          .tag("node", nodeName)
+          .register(registry)
+          .record(elapsed, TimeUnit.NANOSECONDS);
+    });
+  }
+}
@@ -0,0 +1,169 @@
+package org.folio.edge.sip2.resilience;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent requests to a FOLIO module. Requests over
+ * the limit wait in a bounded queue; once the queue is full requests are
+ * rejected immediately. A waiting request fails once its deadline passes, so
+ * that the queue does not fill up with transactions that ran out of time.
+ */
+public class Bulkhead {
+  private final String name;
+  private final int maxConcurrent;
+  private final int maxQueue;
+  private final Deque<Waiter> queue = new ArrayDeque<>();
+  private int active;
+  private long rejected;
+
+  /**
+   * Construct a bulkhead.
+   * @param name the name reported when requests are rejected
+   * @param maxConcurrent the maximum number of concurrent requests
+   * @param maxQueue the maximum number of waiting requests
+   */
+  public Bulkhead(String name, int maxConcurrent, int maxQueue) {
+    if (maxConcurrent < 1) {
+      throw new IllegalArgumentException("maxConcurrent must be greater than 0");
+    }
+    if (maxQueue < 0) {
+      throw new IllegalArgumentException("maxQueue cannot be negative");
+    }
+    this.name = name;
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueue = maxQueue;
+  }
+
+  /**
+   * Run the task once a slot is available.
+   * @param <T> the result type
+   * @param task the task to run
+   * @return the result of the task or a failed future if the queue is full
+   */
+  public <T> Future<T> execute(Supplier<Future<T>> task) {
+    return execute(Deadline.none(), task);
+  }
+
+  /**
+   * Run the task once a slot is available, unless the deadline passes first.
+   * @param <T> the result type
+   * @param deadline the deadline of the transaction the task is run for
+   * @param task the task to run
+   * @return the result of the task, or a failed future if the queue is full
+   *     or the deadline passed while waiting
+   */
+  public <T> Future<T> execute(Deadline deadline, Supplier<Future<T>> task) {
+    final Promise<T> promise = Promise.promise();
+    final Runnable runnable = () -> {
+      final Future<T> result;
+      try {
+        result = task.get();
+      } catch (RuntimeException e) {
+        release();
+        promise.fail(e);
+        return;
+      }
+      result.onComplete(ar -> {
+        release();
+        promise.handle(ar);
+      });
+    };
+
+    synchronized (this) {
+      if (active >= maxConcurrent) {
+        if (deadline.isExpired()) {
+          return Future.failedFuture(deadlineExceeded());
+        }
+        if (queue.size() >= maxQueue) {
+          rejected++;
+          return Future.failedFuture(
+              new RequestRejectedThrowable("Too many requests to " + name));
+        }
+        enqueue(new Waiter(runnable, deadline, promise), promise);
+        return promise.future();
+      }
+      active++;
+    }
+
+    runnable.run();
+    return promise.future();
+  }
+
+  private <T> void enqueue(Waiter waiter, Promise<T> promise) {
+    queue.add(waiter);
+    final Context context = Vertx.currentContext();
+    if (!waiter.deadline.isBounded() || context == null) {
+      // without a timer the deadline is checked when the request is dequeued
+      return;
+    }
+    final long timerId = context.owner().setTimer(
+        Math.max(1L, waiter.deadline.remainingMillis()), id -> {
+          final boolean expired;
+          synchronized (this) {
+            expired = queue.remove(waiter);
+          }
+          if (expired) {
+            waiter.expire();
+          }
+        });
+    promise.future().onComplete(ar -> context.owner().cancelTimer(timerId));
+  }
+
+  private void release() {
+    final List<Waiter> expired = new ArrayList<>();
+    Waiter next;
+    synchronized (this) {
+      while ((next = queue.poll()) != null && next.deadline.isExpired()) {
+        expired.add(next);
+      }
+      if (next == null) {
+        active--;
+      }
+    }
+    expired.forEach(Waiter::expire);
+    if (next != null) {
+      next.task.run();
+    }
+  }
+
+  private DeadlineExceededThrowable deadlineExceeded() {
+    return new DeadlineExceededThrowable(
+        "Transaction deadline exceeded while waiting for " + name);
+  }
+
+  public synchronized int getActive() {
+    return active;
+  }
+
+  public synchronized int getQueued() {
+    return queue.size();
+  }
+
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  private class Waiter {
+    private final Runnable task;
+    private final Deadline deadline;
+    private final Promise<?> promise;
+
+    private Waiter(Runnable task, Deadline deadline, Promise<?> promise) {
+      this.task = task;
+      this.deadline = deadline;
+      this.promise = promise;
+    }
+
+    private void expire() {
+      promise.tryFail(deadlineExceeded());
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package org.folio.edge.sip2.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.repositories.FolioRequestThrowable;
+
+/**
+ * A consecutive failure circuit breaker for calls to FOLIO.
+ * After {@code failureThreshold} consecutive failures the circuit opens for
+ * {@code openDuration}. Once that has elapsed the circuit is half open and a
+ * single trial request decides whether it closes again or re-opens.
+ */
+public class CircuitBreaker {
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final String name;
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final Clock clock;
+
+  private int consecutiveFailures;
+  private long openUntil;
+  private boolean open;
+  private boolean trialInFlight;
+
+  /**
+   * Construct a circuit breaker.
+   * @param name the name used when logging state changes
+   * @param failureThreshold consecutive failures required to open the circuit
+   * @param openDuration how long the circuit stays open before a trial request
+   * @param clock the clock used to time the open state
+   */
+  public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+    this.name = Objects.requireNonNull(name, "name cannot be null");
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("failureThreshold must be greater than 0");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openDuration = Objects.requireNonNull(openDuration, "openDuration cannot be null");
+    this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+  }
+
+  /**
+   * Returns the current state of the circuit.
+   * @return the state
+   */
+  public synchronized State getState() {
+    if (!open) {
+      return State.CLOSED;
+    }
+    return clock.millis() < openUntil ? State.OPEN : State.HALF_OPEN;
+  }
+
+  /**
+   * Indicates whether the circuit is open and no trial request is allowed yet.
+   * @return true if the circuit is open
+   */
+  public boolean isOpen() {
+    return getState() == State.OPEN;
+  }
+
+  /**
+   * Asks the circuit for permission to issue a request. While half open only
+   * a single trial request is permitted.
+   * @return true if the request may be issued
+   */
+  public synchronized boolean allowRequest() {
+    switch (getState()) {
+      case CLOSED:
+        return true;
+      case HALF_OPEN:
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Record a successful call, closing the circuit.
+   */
+  public synchronized void recordSuccess() {
+    if (open) {
+      log.info("Circuit {} closed", name);
+    }
+    consecutiveFailures = 0;
+    open = false;
+    trialInFlight = false;
+  }
+
+  /**
+   * Record a failed call, opening the circuit once the threshold is reached.
+   */
+  public synchronized void recordFailure() {
+    consecutiveFailures++;
+    if (getState() == State.HALF_OPEN
+        || (!open && consecutiveFailures >= failureThreshold)) {
+      log.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+      open = true;
+      openUntil = clock.millis() + openDuration.toMillis();
+      trialInFlight = false;
+    }
+  }
+
+  /**
+   * Record a call that was abandoned locally before it reached FOLIO. The
+   * state of the circuit is unchanged but a pending trial may be retried.
+   */
+  public synchronized void recordAbandoned() {
+    trialInFlight = false;
+  }
+
+  /**
+   * Record the outcome of a call.
+   * @param failure the cause of the failure or {@code null} for a success
+   */
+  public void record(Throwable failure) {
+    if (isFailure(failure)) {
+      recordFailure();
+    } else {
+      recordSuccess();
+    }
+  }
+
+  /**
+   * Determines whether the outcome of a call indicates that FOLIO is unhealthy.
+   * Client errors (4xx) are answers from a healthy FOLIO and do not count.
+   * @param failure the cause of the failure or {@code null} for a success
+   * @return true if the outcome counts as a failure
+   */
+  public static boolean isFailure(Throwable failure) {
+    if (failure == null) {
+      return false;
+    }
+    if (failure instanceof FolioRequestThrowable) {
+      final int statusCode = ((FolioRequestThrowable) failure).getStatusCode();
+      return statusCode < 400 || statusCode >= 500;
+    }
+    return true;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
@@ -0,0 +1,265 @@
+package org.folio.edge.sip2.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Adaptive per tenant limit on concurrent FOLIO requests. The limit is
+ * discovered TCP Vegas style: while the latency of requests stays close to
+ * the lowest latency seen, FOLIO is not queueing and the limit grows; once
+ * latency inflates the limit shrinks, and it is cut back at once when
+ * requests fail. Requests over the limit wait briefly in a bounded queue and
+ * are otherwise rejected, so that the SIP transaction gets a degraded
+ * response instead of adding to the load of a struggling FOLIO.
+ */
+public class ConcurrencyLimiter {
+  public static final String CONFIG_KEY = "concurrencyLimitOptions";
+  public static final int DEFAULT_INITIAL_LIMIT = 20;
+  public static final int DEFAULT_MIN_LIMIT = 5;
+  public static final int DEFAULT_MAX_LIMIT = 200;
+  public static final int DEFAULT_MAX_QUEUE = 50;
+  public static final long DEFAULT_MAX_QUEUE_MS = 100L;
+  public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+  public static final int DEFAULT_PROBE_INTERVAL = 1000;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.concurrency.";
+  private static final String TENANT_TAG = "tenant";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int maxQueue;
+  private final long maxQueueMs;
+  private final double backoffRatio;
+  private final int probeInterval;
+  private final MeterRegistry registry;
+  private final Map<String, TenantLimit> tenantLimits = new ConcurrentHashMap<>();
+
+  /**
+   * Construct the limiter from the {@code concurrencyLimitOptions} configuration.
+   * @param options the options, may be {@code null} in which case there is no limit
+   * @param registry the registry to publish metrics to
+   */
+  public ConcurrencyLimiter(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.registry = Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.minLimit = Math.max(1, config.getInteger("minLimit", DEFAULT_MIN_LIMIT));
+    this.maxLimit = Math.max(minLimit, config.getInteger("maxLimit", DEFAULT_MAX_LIMIT));
+    this.initialLimit = Math.max(minLimit, Math.min(maxLimit,
+        config.getInteger("initialLimit", DEFAULT_INITIAL_LIMIT)));
+    this.maxQueue = config.getInteger("maxQueue", DEFAULT_MAX_QUEUE);
+    this.maxQueueMs = config.getLong("maxQueueMs", DEFAULT_MAX_QUEUE_MS);
+    this.backoffRatio = config.getDouble("backoffRatio", DEFAULT_BACKOFF_RATIO);
+    if (backoffRatio <= 0.0 || backoffRatio >= 1.0) {
+      throw new IllegalArgumentException("backoffRatio must be in (0, 1): " + backoffRatio);
+    }
+    this.probeInterval = config.getInteger("probeInterval", DEFAULT_PROBE_INTERVAL);
+  }
+
+  /**
+   * Returns a limiter that lets every request through.
+   * @param registry the registry to publish metrics to
+   * @return a disabled limiter
+   */
+  public static ConcurrencyLimiter disabled(MeterRegistry registry) {
+    return new ConcurrencyLimiter(null, registry);
+  }
+
+  /**
+   * Run a FOLIO request for a tenant once the tenant is under its limit.
+   * @param <T> the result type
+   * @param tenant the tenant
+   * @param request the request to run
+   * @return the result of the request or a failed future if it was rejected
+   */
+  public <T> Future<T> execute(String tenant, Supplier<Future<T>> request) {
+    if (!enabled) {
+      return request.get();
+    }
+    return getTenantLimit(tenant).execute(request);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  TenantLimit getTenantLimit(String tenant) {
+    return tenantLimits.computeIfAbsent(String.valueOf(tenant), TenantLimit::new);
+  }
+
+  /**
+   * The limit, in-flight requests and queue of a single tenant.
+   */
+  class TenantLimit {
+    private final String tenant;
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+    private final Counter rejected;
+    private double limit = initialLimit;
+    private int inFlight;
+    private long minRttNanos;
+    private int samples;
+
+    private TenantLimit(String tenant) {
+      this.tenant = tenant;
+      Gauge.builder(METRICS_PREFIX + "limit", this, TenantLimit::getLimit)
+          .tag(TENANT_TAG, tenant)
+          .register(registry);
+      Gauge.builder(METRICS_PREFIX + "inflight", this, TenantLimit::getInFlight)
+          .tag(TENANT_TAG, tenant)
+          .register(registry);
+      Gauge.builder(METRICS_PREFIX + "queued", this, TenantLimit::getQueued)
+          .tag(TENANT_TAG, tenant)
+          .register(registry);
+      rejected = Counter.builder(METRICS_PREFIX + "rejected")
+          .tag(TENANT_TAG, tenant)
+          .register(registry);
+    }
+
+    private <T> Future<T> execute(Supplier<Future<T>> request) {
+      final Promise<T> promise = Promise.promise();
+      final Runnable task = () -> run(request, promise);
+
+      synchronized (this) {
+        if (inFlight < getLimit()) {
+          inFlight++;
+        } else {
+          final Context context = Vertx.currentContext();
+          if (queue.size() >= maxQueue || maxQueueMs <= 0 || context == null) {
+            return reject();
+          }
+          enqueue(task, promise, context);
+          return promise.future();
+        }
+      }
+
+      task.run();
+      return promise.future();
+    }
+
+    private <T> void enqueue(Runnable task, Promise<T> promise, Context context) {
+      queue.add(task);
+      final long timerId = context.owner().setTimer(maxQueueMs, id -> {
+        final boolean expired;
+        synchronized (this) {
+          expired = queue.remove(task);
+        }
+        if (expired) {
+          log.warn("Request for tenant {} waited {}ms for the concurrency limit", tenant,
+              maxQueueMs);
+          rejected.increment();
+          promise.tryFail(new RequestRejectedThrowable(
+              "Concurrency limit reached for tenant " + tenant));
+        }
+      });
+      promise.future().onComplete(ar -> context.owner().cancelTimer(timerId));
+    }
+
+    private <T> void run(Supplier<Future<T>> request, Promise<T> promise) {
+      final int inFlightAtStart = getInFlight();
+      final long start = System.nanoTime();
+      final Future<T> result;
+      try {
+        result = request.get();
+      } catch (RuntimeException e) {
+        release(0L, inFlightAtStart, null);
+        promise.fail(e);
+        return;
+      }
+      result.onComplete(ar -> {
+        release(System.nanoTime() - start, inFlightAtStart, ar.cause());
+        promise.handle(ar);
+      });
+    }
+
+    private void release(long rttNanos, int inFlightAtStart, Throwable failure) {
+      final Deque<Runnable> ready = new ArrayDeque<>();
+      synchronized (this) {
+        inFlight--;
+        // requests rejected locally or past their deadline never reached FOLIO
+        if (!RequestRejectedThrowable.isNotSent(failure)
+            && (rttNanos > 0 || failure != null)) {
+          onSample(rttNanos, inFlightAtStart, CircuitBreaker.isFailure(failure));
+        }
+        while (!queue.isEmpty() && inFlight < getLimit()) {
+          inFlight++;
+          ready.add(queue.poll());
+        }
+      }
+      ready.forEach(Runnable::run);
+    }
+
+    /**
+     * Adjust the limit for the outcome of a request.
+     * @param rttNanos the latency of the request
+     * @param inFlightAtStart the requests in flight when the request started
+     * @param dropped true if FOLIO failed the request
+     */
+    synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+      if (dropped) {
+        limit = Math.max(minLimit, limit * backoffRatio);
+        return;
+      }
+
+      // the lowest latency is probed again from time to time, as FOLIO changes
+      if (minRttNanos == 0 || rttNanos < minRttNanos || ++samples >= probeInterval) {
+        minRttNanos = rttNanos;
+        samples = 0;
+      }
+      // with few requests in flight the latency says nothing about the limit
+      if (inFlightAtStart * 2 < limit) {
+        return;
+      }
+
+      final double step = Math.max(1.0, Math.log10(limit));
+      // the number of requests queueing inside FOLIO
+      final double queued = limit * (1.0 - (double) minRttNanos / rttNanos);
+      if (queued < 3 * step) {
+        limit = Math.min(maxLimit, limit + step);
+      } else if (queued > 6 * step) {
+        limit = Math.max(minLimit, limit - step);
+      }
+    }
+
+    private <T> Future<T> reject() {
+      rejected.increment();
+      log.warn("Concurrency limit {} reached for tenant {}", getLimit(), tenant);
+      return Future.failedFuture(new RequestRejectedThrowable(
+          "Concurrency limit reached for tenant " + tenant));
+    }
+
+    synchronized int getLimit() {
+      return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+      return inFlight;
+    }
+
+    synchronized int getQueued() {
+      return queue.size();
+    }
+
+    double rejectedCount() {
+      return rejected.count();
+    }
+  }
+}
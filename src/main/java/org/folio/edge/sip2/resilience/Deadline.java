@@ -0,0 +1,75 @@
+package org.folio.edge.sip2.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The point in time by which a SIP transaction must be answered. FOLIO
+ * requests made on behalf of the transaction are given the remaining budget as
+ * their timeout and are not issued at all once the deadline has passed.
+ */
+public final class Deadline {
+  private static final Deadline NONE = new Deadline(Long.MAX_VALUE, Clock.systemUTC());
+
+  private final long expiresAt;
+  private final Clock clock;
+
+  private Deadline(long expiresAt, Clock clock) {
+    this.expiresAt = expiresAt;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns a deadline that never expires.
+   * @return the unbounded deadline
+   */
+  public static Deadline none() {
+    return NONE;
+  }
+
+  /**
+   * Returns a deadline that expires after the specified budget.
+   * @param budget the time allowed for the transaction
+   * @param clock the clock used to measure the budget
+   * @return the deadline
+   */
+  public static Deadline after(Duration budget, Clock clock) {
+    Objects.requireNonNull(budget, "budget cannot be null");
+    Objects.requireNonNull(clock, "clock cannot be null");
+    return new Deadline(clock.millis() + budget.toMillis(), clock);
+  }
+
+  /**
+   * Indicates whether this deadline can expire at all.
+   * @return true if the deadline is bounded
+   */
+  public boolean isBounded() {
+    return expiresAt != Long.MAX_VALUE;
+  }
+
+  /**
+   * Indicates whether the deadline has passed.
+   * @return true if there is no time left
+   */
+  public boolean isExpired() {
+    return isBounded() && clock.millis() >= expiresAt;
+  }
+
+  /**
+   * Returns the time left before the deadline passes.
+   * @return the remaining milliseconds, 0 once expired or {@code Long.MAX_VALUE}
+   *     if the deadline is not bounded
+   */
+  public long remainingMillis() {
+    if (!isBounded()) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0L, expiresAt - clock.millis());
+  }
+
+  @Override
+  public String toString() {
+    return isBounded() ? "Deadline[remaining=" + remainingMillis() + "ms]" : "Deadline[none]";
+  }
+}
@@ -0,0 +1,24 @@
+package org.folio.edge.sip2.resilience;
+
+import java.util.Collections;
+import java.util.List;
+import org.folio.edge.sip2.repositories.RequestThrowable;
+
+/**
+ * Throwable that occurs when a request to FOLIO is not issued because the
+ * deadline of the SIP transaction it belongs to has already passed. Unlike a
+ * {@link RequestRejectedThrowable}, it does not tell that FOLIO was not asked
+ * anything in the transaction: earlier requests of it may have been sent.
+ */
+public class DeadlineExceededThrowable extends RequestThrowable {
+  private static final long serialVersionUID = -2238614781029475176L;
+
+  public DeadlineExceededThrowable(String message) {
+    super(message);
+  }
+
+  @Override
+  public List<String> getErrorMessages() {
+    return Collections.singletonList(getMessage());
+  }
+}
@@ -0,0 +1,74 @@
+package org.folio.edge.sip2.resilience;
+
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Derives the deadline of a SIP transaction. The station's {@code timeoutPeriod}
+ * from the {@code selfCheckoutConfig} is used when it is known, otherwise the
+ * configured {@code defaultTimeoutMs} applies.
+ */
+public class DeadlinePolicy {
+  public static final String CONFIG_KEY = "deadlineOptions";
+  public static final long DEFAULT_TIMEOUT_MS = 30000L;
+
+  // SIP timeout periods are in tenths of a second, 000 means the ACS is
+  // offline and 999 means the timeout is unknown
+  private static final int TIMEOUT_PERIOD_OFFLINE = 0;
+  private static final int TIMEOUT_PERIOD_UNKNOWN = 999;
+  private static final long MILLIS_PER_TIMEOUT_PERIOD = 100L;
+
+  private final boolean enabled;
+  private final boolean useStationTimeout;
+  private final Duration defaultTimeout;
+  private final Clock clock;
+
+  /**
+   * Construct a deadline policy from the {@code deadlineOptions} configuration.
+   * @param options the options, may be {@code null} in which case no deadlines are set
+   * @param clock the clock used to measure deadlines
+   */
+  public DeadlinePolicy(JsonObject options, Clock clock) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.useStationTimeout = config.getBoolean("useStationTimeout", Boolean.TRUE);
+    this.defaultTimeout =
+        Duration.ofMillis(config.getLong("defaultTimeoutMs", DEFAULT_TIMEOUT_MS));
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+  }
+
+  /**
+   * Returns a deadline policy that never sets a deadline.
+   * @return a disabled deadline policy
+   */
+  public static DeadlinePolicy disabled() {
+    return new DeadlinePolicy(null, Clock.systemUTC());
+  }
+
+  /**
+   * Returns the deadline for a transaction that starts now.
+   * @param sessionData the session the transaction belongs to
+   * @return the deadline
+   */
+  public Deadline forTransaction(SessionData sessionData) {
+    if (!enabled) {
+      return Deadline.none();
+    }
+    return Deadline.after(getBudget(sessionData.getTimeoutPeriod()), clock);
+  }
+
+  Duration getBudget(Integer timeoutPeriod) {
+    if (useStationTimeout && timeoutPeriod != null
+        && timeoutPeriod > TIMEOUT_PERIOD_OFFLINE && timeoutPeriod < TIMEOUT_PERIOD_UNKNOWN) {
+      return Duration.ofMillis(timeoutPeriod * MILLIS_PER_TIMEOUT_PERIOD);
+    }
+    return defaultTimeout;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+}
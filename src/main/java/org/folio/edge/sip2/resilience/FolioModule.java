@@ -0,0 +1,55 @@
+package org.folio.edge.sip2.resilience;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The FOLIO back end modules edge-sip2 talks to, classified by request path.
+ * Each class is isolated from the others so that a slow or failing module
+ * cannot exhaust the capacity needed to talk to the rest of FOLIO.
+ */
+public enum FolioModule {
+  CIRCULATION("/circulation", "/cancellation-reason-storage"),
+  INVENTORY("/inventory", "/holdings-storage", "/item-storage", "/instance-storage",
+      "/locations", "/service-points", "/material-types"),
+  USERS("/users", "/bl-users", "/groups", "/automated-patron-blocks", "/patron-pin"),
+  FEESFINES("/accounts", "/accounts-bulk", "/feefines", "/feefineactions", "/manualblocks"),
+  CONFIGURATION("/configurations"),
+  SEARCH("/search"),
+  OTHER();
+
+  private final List<String> pathPrefixes;
+
+  FolioModule(String... pathPrefixes) {
+    this.pathPrefixes = Collections.unmodifiableList(Arrays.asList(pathPrefixes));
+  }
+
+  /**
+   * Classify a request path.
+   * @param path the request path, e.g. {@code /circulation/loans?query=...}
+   * @return the module serving the path or {@code OTHER} if unknown
+   */
+  public static FolioModule fromPath(String path) {
+    if (path != null) {
+      for (FolioModule module : values()) {
+        for (String prefix : module.pathPrefixes) {
+          if (path.startsWith(prefix) && (path.length() == prefix.length()
+              || "/?".indexOf(path.charAt(prefix.length())) >= 0)) {
+            return module;
+          }
+        }
+      }
+    }
+    return OTHER;
+  }
+
+  /**
+   * Returns the name used in configuration and metrics, e.g. {@code feesfines}.
+   * @return the configuration name
+   */
+  public String getConfigName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
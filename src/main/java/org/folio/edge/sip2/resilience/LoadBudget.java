@@ -0,0 +1,40 @@
+package org.folio.edge.sip2.resilience;
+
+/**
+ * A token bucket that limits extra FOLIO requests, such as hedges or retries,
+ * to a share of the regular ones. Every regular request deposits
+ * {@code ratio} of a token and every extra request withdraws a whole one.
+ */
+class LoadBudget {
+  private final double ratio;
+  private final double maxTokens;
+  private double tokens;
+
+  /**
+   * Construct a budget.
+   * @param ratio the extra requests allowed per regular request
+   * @param maxTokens the most extra requests that may be saved up for a burst
+   * @param full true if the budget starts full rather than empty
+   */
+  LoadBudget(double ratio, double maxTokens, boolean full) {
+    this.ratio = ratio;
+    this.maxTokens = maxTokens;
+    this.tokens = full ? maxTokens : 0.0;
+  }
+
+  synchronized void deposit() {
+    tokens = Math.min(maxTokens, tokens + ratio);
+  }
+
+  synchronized boolean tryWithdraw() {
+    if (tokens < 1.0) {
+      return false;
+    }
+    tokens -= 1.0;
+    return true;
+  }
+
+  synchronized double getTokens() {
+    return tokens;
+  }
+}
@@ -0,0 +1,134 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.folio.edge.sip2.parser.Command.CHECKIN;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT;
+import static org.folio.edge.sip2.parser.Command.END_PATRON_SESSION;
+import static org.folio.edge.sip2.parser.Command.FEE_PAID;
+import static org.folio.edge.sip2.parser.Command.HOLD;
+import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION;
+import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_REQUEST;
+import static org.folio.edge.sip2.parser.Command.RENEW;
+import static org.folio.edge.sip2.parser.Command.RENEW_ALL;
+
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.parser.Command;
+
+/**
+ * Decides when edge-sip2 should stop sending work to FOLIO and answer SIP
+ * transactions with fast, degraded responses instead. Shedding starts when the
+ * number of in-flight FOLIO requests reaches {@code maxInFlight} or when the
+ * FOLIO circuit breaker is open.
+ */
+public class LoadShedder {
+  public static final String CONFIG_KEY = "loadSheddingOptions";
+  public static final int DEFAULT_MAX_IN_FLIGHT = 200;
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  public static final long DEFAULT_OPEN_DURATION_MS = 30000L;
+  public static final String DEFAULT_SCREEN_MESSAGE =
+      "Service temporarily unavailable, please see a staff member";
+
+  /** Commands that depend on FOLIO and are answered with a degraded response. */
+  static final Set<Command> SHEDDABLE_COMMANDS = EnumSet.of(CHECKOUT, CHECKIN,
+      PATRON_STATUS_REQUEST, PATRON_INFORMATION, END_PATRON_SESSION, FEE_PAID,
+      ITEM_INFORMATION, RENEW, RENEW_ALL, HOLD);
+
+  private final boolean enabled;
+  private final int maxInFlight;
+  private final String screenMessage;
+  private final CircuitBreaker circuitBreaker;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * Construct a load shedder from the {@code loadSheddingOptions} configuration.
+   * @param options the options, may be {@code null} in which case shedding is disabled
+   * @param clock the clock used by the circuit breaker
+   */
+  public LoadShedder(JsonObject options, Clock clock) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.maxInFlight = config.getInteger("maxInFlight", DEFAULT_MAX_IN_FLIGHT);
+    this.screenMessage = config.getString("screenMessage", DEFAULT_SCREEN_MESSAGE);
+    this.circuitBreaker = new CircuitBreaker("folio",
+        config.getInteger("failureThreshold", DEFAULT_FAILURE_THRESHOLD),
+        Duration.ofMillis(config.getLong("openDurationMs", DEFAULT_OPEN_DURATION_MS)),
+        Objects.requireNonNull(clock, "Clock cannot be null"));
+  }
+
+  /**
+   * Returns a load shedder that never sheds.
+   * @return a disabled load shedder
+   */
+  public static LoadShedder disabled() {
+    return new LoadShedder(null, Clock.systemUTC());
+  }
+
+  /**
+   * Indicates whether FOLIO is currently considered overloaded or unavailable.
+   * @return true if new work should be shed
+   */
+  public boolean isShedding() {
+    return enabled && (inFlight.get() >= maxInFlight || circuitBreaker.isOpen());
+  }
+
+  /**
+   * Indicates whether the given command should be answered with a degraded response.
+   * @param command the SIP command
+   * @return true if the command should be shed
+   */
+  public boolean shouldShed(Command command) {
+    return SHEDDABLE_COMMANDS.contains(command) && isShedding();
+  }
+
+  /**
+   * Indicates whether the given command can be answered with a degraded
+   * response, e.g. when its FOLIO requests were rejected locally.
+   * @param command the SIP command
+   * @return true if there is a degraded response for the command
+   */
+  public boolean hasDegradedResponse(Command command) {
+    return SHEDDABLE_COMMANDS.contains(command);
+  }
+
+  /**
+   * Track the start of a FOLIO request.
+   */
+  public void requestStarted() {
+    inFlight.incrementAndGet();
+  }
+
+  /**
+   * Track the completion of a FOLIO request.
+   * @param failure the cause of the failure or {@code null} for a success
+   */
+  public void requestCompleted(Throwable failure) {
+    inFlight.decrementAndGet();
+    // requests rejected locally or past their deadline never reached FOLIO and
+    // say nothing about its health
+    if (!RequestRejectedThrowable.isNotSent(failure)) {
+      circuitBreaker.record(failure);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public String getScreenMessage() {
+    return screenMessage;
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+}
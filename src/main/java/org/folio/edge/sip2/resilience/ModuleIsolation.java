@@ -0,0 +1,167 @@
+package org.folio.edge.sip2.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Per FOLIO module bulkheads and circuit breakers. Every {@link FolioModule}
+ * gets its own concurrency limit, queue limit and circuit breaker so that,
+ * for example, a struggling search module cannot starve check outs.
+ */
+public class ModuleIsolation {
+  public static final String CONFIG_KEY = "moduleIsolationOptions";
+  public static final int DEFAULT_MAX_CONCURRENT = 50;
+  public static final int DEFAULT_MAX_QUEUE = 100;
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  public static final long DEFAULT_OPEN_DURATION_MS = 30000L;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.";
+  private static final String MODULE_TAG = "module";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final Map<FolioModule, Bulkhead> bulkheads = new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, CircuitBreaker> circuitBreakers =
+      new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, Counter> circuitRejections = new EnumMap<>(FolioModule.class);
+
+  /**
+   * Construct the module isolation from the {@code moduleIsolationOptions} configuration.
+   * @param options the options, may be {@code null} in which case isolation is disabled
+   * @param clock the clock used by the circuit breakers
+   * @param registry the registry to publish metrics to
+   */
+  public ModuleIsolation(JsonObject options, Clock clock, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    final JsonObject defaults = config.getJsonObject("defaults", new JsonObject());
+    final JsonObject modules = config.getJsonObject("modules", new JsonObject());
+    Objects.requireNonNull(clock, "Clock cannot be null");
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+
+    for (FolioModule module : FolioModule.values()) {
+      final JsonObject moduleConfig = defaults.copy()
+          .mergeIn(modules.getJsonObject(module.getConfigName(), new JsonObject()));
+      final String name = module.getConfigName();
+
+      final Bulkhead bulkhead = new Bulkhead(name,
+          moduleConfig.getInteger("maxConcurrent", DEFAULT_MAX_CONCURRENT),
+          moduleConfig.getInteger("maxQueue", DEFAULT_MAX_QUEUE));
+      final CircuitBreaker circuitBreaker = new CircuitBreaker(name,
+          moduleConfig.getInteger("failureThreshold", DEFAULT_FAILURE_THRESHOLD),
+          Duration.ofMillis(moduleConfig.getLong("openDurationMs", DEFAULT_OPEN_DURATION_MS)),
+          clock);
+      bulkheads.put(module, bulkhead);
+      circuitBreakers.put(module, circuitBreaker);
+
+      if (enabled) {
+        Gauge.builder(METRICS_PREFIX + "bulkhead.active", bulkhead, Bulkhead::getActive)
+            .tag(MODULE_TAG, name)
+            .register(registry);
+        Gauge.builder(METRICS_PREFIX + "bulkhead.queued", bulkhead, Bulkhead::getQueued)
+            .tag(MODULE_TAG, name)
+            .register(registry);
+        Gauge.builder(METRICS_PREFIX + "circuit.state", circuitBreaker,
+            cb -> cb.getState().ordinal())
+            .tag(MODULE_TAG, name)
+            .register(registry);
+        FunctionCounter.builder(METRICS_PREFIX + "rejected", bulkhead, Bulkhead::getRejected)
+            .tag(MODULE_TAG, name)
+            .tag("reason", "bulkhead")
+            .register(registry);
+        circuitRejections.put(module, Counter.builder(METRICS_PREFIX + "rejected")
+            .tag(MODULE_TAG, name)
+            .tag("reason", "circuit")
+            .register(registry));
+      }
+    }
+  }
+
+  /**
+   * Returns an isolation that lets every request through.
+   * @param registry the registry to publish metrics to
+   * @return a disabled module isolation
+   */
+  public static ModuleIsolation disabled(MeterRegistry registry) {
+    return new ModuleIsolation(null, Clock.systemUTC(), registry);
+  }
+
+  /**
+   * Run a request against a FOLIO module subject to that module's bulkhead
+   * and circuit breaker.
+   * @param <T> the result type
+   * @param module the module serving the request
+   * @param request the request to run
+   * @return the result of the request or a failed future if it was rejected
+   */
+  public <T> Future<T> execute(FolioModule module, Supplier<Future<T>> request) {
+    return execute(module, Deadline.none(), request);
+  }
+
+  /**
+   * Run a request against a FOLIO module subject to that module's bulkhead
+   * and circuit breaker. The request stops waiting for the bulkhead once the
+   * deadline passes.
+   * @param <T> the result type
+   * @param module the module serving the request
+   * @param deadline the deadline of the transaction the request is made for
+   * @param request the request to run
+   * @return the result of the request or a failed future if it was rejected
+   */
+  public <T> Future<T> execute(FolioModule module, Deadline deadline,
+      Supplier<Future<T>> request) {
+    if (!enabled) {
+      return request.get();
+    }
+
+    final CircuitBreaker circuitBreaker = circuitBreakers.get(module);
+    return bulkheads.get(module).execute(deadline, () -> {
+      if (!circuitBreaker.allowRequest()) {
+        circuitRejections.get(module).increment();
+        return Future.<T>failedFuture(new RequestRejectedThrowable(
+            module.getConfigName() + " is temporarily unavailable"));
+      }
+      return request.get().onComplete(ar -> {
+        if (RequestRejectedThrowable.isNotSent(ar.cause())) {
+          circuitBreaker.recordAbandoned();
+        } else {
+          circuitBreaker.record(ar.cause());
+        }
+      });
+    }).onFailure(t -> {
+      if (t instanceof RequestRejectedThrowable) {
+        log.warn("Request to {} rejected: {}", module.getConfigName(), t.getMessage());
+      }
+    });
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Bulkhead getBulkhead(FolioModule module) {
+    return bulkheads.get(module);
+  }
+
+  public CircuitBreaker getCircuitBreaker(FolioModule module) {
+    return circuitBreakers.get(module);
+  }
+
+  double circuitRejectedCount(FolioModule module) {
+    return circuitRejections.get(module).count();
+  }
+}
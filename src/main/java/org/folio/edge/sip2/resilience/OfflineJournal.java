@@ -0,0 +1,286 @@
+package org.folio.edge.sip2.resilience;
+
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A durable, append-only journal of records on local disk. The journal is a
+ * sequence of memory-mapped segment files of a fixed size. Each record is
+ * written as its length, the CRC32 of its content and its content, a JSON
+ * object. A record is either an entry, which is pending until it is
+ * acknowledged, or the acknowledgement of an entry. When the journal is
+ * opened the segments are read in order and a segment is read up to its
+ * first record that is incomplete or fails its CRC, so that a write torn by a
+ * crash loses only that record. Segments are deleted from the oldest on, once
+ * all their entries are acknowledged.
+ */
+public class OfflineJournal {
+  static final int HEADER_SIZE = 8;
+
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String KEY = "key";
+  private static final String ACK = "ack";
+  private static final String RECORD = "record";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final Path directory;
+  private final int segmentSize;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  // the pending entries by key, in the order they were appended
+  private final Map<String, Entry> pending = new LinkedHashMap<>();
+
+  /**
+   * Open the journal in a directory, reading the entries that are pending.
+   * @param directory the directory of the segment files, created if missing
+   * @param segmentSize the size of each segment file in bytes
+   * @throws IOException if the journal cannot be read or created
+   */
+  public OfflineJournal(Path directory, int segmentSize) throws IOException {
+    this.directory = Objects.requireNonNull(directory, "directory cannot be null");
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("segmentSize must be larger than " + HEADER_SIZE);
+    }
+    this.segmentSize = segmentSize;
+
+    Files.createDirectories(directory);
+    for (Path path : segmentPaths()) {
+      recover(path);
+    }
+    deleteAcknowledgedSegments();
+  }
+
+  /**
+   * Append an entry. An entry with the key of a pending entry is not appended
+   * again.
+   * @param key the key of the entry
+   * @param record the content of the entry
+   * @return {@code true} if the entry was appended, {@code false} if an entry
+   *     with the key is already pending
+   * @throws IOException if the entry cannot be written
+   */
+  public synchronized boolean append(String key, JsonObject record) throws IOException {
+    Objects.requireNonNull(key, "key cannot be null");
+    if (pending.containsKey(key)) {
+      return false;
+    }
+    final Segment segment = write(new JsonObject().put(KEY, key).put(RECORD, record));
+    segment.live++;
+    pending.put(key, new Entry(key, record, segment));
+    return true;
+  }
+
+  /**
+   * Acknowledge an entry, it is no longer pending.
+   * @param key the key of the entry
+   * @throws IOException if the acknowledgement cannot be written
+   */
+  public synchronized void acknowledge(String key) throws IOException {
+    final Entry entry = pending.get(key);
+    if (entry == null) {
+      return;
+    }
+    write(new JsonObject().put(KEY, key).put(ACK, true));
+    pending.remove(key);
+    entry.segment.live--;
+    deleteAcknowledgedSegments();
+  }
+
+  /**
+   * Returns the pending entries in the order they were appended.
+   * @return the keys and contents of the pending entries
+   */
+  public synchronized List<Map.Entry<String, JsonObject>> pending() {
+    final List<Map.Entry<String, JsonObject>> entries = new ArrayList<>(pending.size());
+    for (Entry entry : pending.values()) {
+      entries.add(Map.entry(entry.key, entry.record));
+    }
+    return entries;
+  }
+
+  public synchronized boolean isPending(String key) {
+    return pending.containsKey(key);
+  }
+
+  public synchronized int size() {
+    return pending.size();
+  }
+
+  synchronized int segmentCount() {
+    return segments.size();
+  }
+
+  private Segment write(JsonObject record) throws IOException {
+    final byte[] content = record.encode().getBytes(StandardCharsets.UTF_8);
+    final int length = HEADER_SIZE + content.length;
+    if (length > segmentSize) {
+      throw new IOException("Journal record of " + length
+          + " bytes does not fit into a segment of " + segmentSize + " bytes");
+    }
+
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.buffer == null
+        || segment.buffer.remaining() < length) {
+      segment = createSegment(segment == null ? 0 : segment.sequence + 1);
+    }
+
+    final MappedByteBuffer buffer = segment.buffer;
+    final int position = buffer.position();
+    final CRC32 crc = new CRC32();
+    crc.update(content);
+    // the length is written last, so that a record is only read once complete
+    buffer.putInt(position + 4, (int) crc.getValue());
+    buffer.put(position + HEADER_SIZE, content);
+    buffer.putInt(position, content.length);
+    buffer.position(position + length);
+    buffer.force(position, length);
+    return segment;
+  }
+
+  private Segment createSegment(long sequence) throws IOException {
+    final Segment previous = segments.peekLast();
+    if (previous != null) {
+      // the previous segment is not written to anymore
+      previous.buffer = null;
+    }
+    final Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, sequence,
+        SEGMENT_SUFFIX));
+    final Segment segment = new Segment(sequence, path, map(path, segmentSize));
+    segments.add(segment);
+    return segment;
+  }
+
+  private void recover(Path path) throws IOException {
+    final long sequence = Long.parseLong(path.getFileName().toString()
+        .substring(SEGMENT_PREFIX.length()).replace(SEGMENT_SUFFIX, ""));
+    // a segment written with another segment size is read whole
+    final MappedByteBuffer buffer = map(path, (int) Math.max(Files.size(path), segmentSize));
+    final Segment previous = segments.peekLast();
+    if (previous != null) {
+      // only the last segment is appended to
+      previous.buffer = null;
+    }
+    final Segment segment = new Segment(sequence, path, buffer);
+    segments.add(segment);
+
+    int count = 0;
+    while (buffer.remaining() >= HEADER_SIZE) {
+      final int position = buffer.position();
+      final int length = buffer.getInt(position);
+      if (length == 0) {
+        break;
+      }
+      final byte[] content = readContent(buffer, position, length);
+      if (content == null) {
+        log.warn("Journal segment {} has a torn or corrupt record at {}", path, position);
+        // nothing is appended after the damage, the next record starts a new segment
+        segment.buffer = null;
+        break;
+      }
+      read(new JsonObject(new String(content, StandardCharsets.UTF_8)), segment);
+      buffer.position(position + HEADER_SIZE + length);
+      count++;
+    }
+    log.info("Read {} records from journal segment {}", count, path);
+  }
+
+  private static byte[] readContent(MappedByteBuffer buffer, int position, int length) {
+    if (length < 0 || length > buffer.limit() - position - HEADER_SIZE) {
+      return null;
+    }
+    final byte[] content = new byte[length];
+    buffer.get(position + HEADER_SIZE, content);
+    final CRC32 crc = new CRC32();
+    crc.update(content);
+    return (int) crc.getValue() == buffer.getInt(position + 4) ? content : null;
+  }
+
+  private void read(JsonObject record, Segment segment) {
+    final String key = record.getString(KEY);
+    if (record.getBoolean(ACK, Boolean.FALSE)) {
+      final Entry entry = pending.remove(key);
+      if (entry != null) {
+        entry.segment.live--;
+      }
+    } else if (!pending.containsKey(key)) {
+      segment.live++;
+      pending.put(key, new Entry(key, record.getJsonObject(RECORD), segment));
+    }
+  }
+
+  private void deleteAcknowledgedSegments() throws IOException {
+    // acknowledgements of older entries may be kept in newer segments, so a
+    // segment is only deleted once all older ones are
+    while (segments.size() > 1 && segments.peekFirst().live == 0) {
+      final Segment segment = segments.removeFirst();
+      Files.deleteIfExists(segment.path);
+      log.debug("Deleted journal segment {}", segment.path);
+    }
+  }
+
+  private List<Path> segmentPaths() throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths
+          .filter(path -> {
+            final String name = path.getFileName().toString();
+            return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+          })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static MappedByteBuffer map(Path path, int size) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // the mapping stays valid once the channel is closed
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+  }
+
+  private static class Segment {
+    private final long sequence;
+    private final Path path;
+    // null once the segment is not written to anymore
+    private MappedByteBuffer buffer;
+    // the entries of the segment that are pending
+    private int live;
+
+    private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.path = path;
+      this.buffer = buffer;
+    }
+  }
+
+  private static class Entry {
+    private final String key;
+    private final JsonObject record;
+    private final Segment segment;
+
+    private Entry(String key, JsonObject record, Segment segment) {
+      this.key = key;
+      this.record = record;
+      this.segment = segment;
+    }
+  }
+}
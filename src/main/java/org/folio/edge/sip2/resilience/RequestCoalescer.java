@@ -0,0 +1,163 @@
+package org.folio.edge.sip2.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Single flight coalescing of identical FOLIO reads. While a request for a key
+ * is in flight, further requests for the same key do not reach FOLIO; they
+ * wait for the in-flight request, within their own deadline, and receive a
+ * copy of its result.
+ */
+public class RequestCoalescer {
+  public static final String CONFIG_KEY = "coalescingOptions";
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.coalescing.";
+  private static final String MODULE_TAG = "module";
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final Map<String, Future<?>> inFlight = new ConcurrentHashMap<>();
+  private final Map<FolioModule, Counter> requests = new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, Counter> coalesced = new EnumMap<>(FolioModule.class);
+
+  /**
+   * Construct the coalescer from the {@code coalescingOptions} configuration.
+   * @param options the options, may be {@code null} in which case coalescing is disabled
+   * @param registry the registry to publish metrics to
+   */
+  public RequestCoalescer(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+
+    if (enabled) {
+      Gauge.builder(METRICS_PREFIX + "inflight", inFlight, Map::size)
+          .register(registry);
+      for (FolioModule module : FolioModule.values()) {
+        requests.put(module, Counter.builder(METRICS_PREFIX + "requests")
+            .tag(MODULE_TAG, module.getConfigName())
+            .register(registry));
+        coalesced.put(module, Counter.builder(METRICS_PREFIX + "coalesced")
+            .tag(MODULE_TAG, module.getConfigName())
+            .register(registry));
+      }
+    }
+  }
+
+  /**
+   * Returns a coalescer that sends every request.
+   * @param registry the registry to publish metrics to
+   * @return a disabled coalescer
+   */
+  public static RequestCoalescer disabled(MeterRegistry registry) {
+    return new RequestCoalescer(null, registry);
+  }
+
+  /**
+   * Run a request unless an identical request is already in flight, in which
+   * case the result of that request is shared. Every caller, the one whose
+   * request is sent included, receives its own copy of a shared result, so
+   * that no caller sees another one change it. A waiting caller is bound by
+   * its own deadline: it fails once its deadline passes, and it sends its own
+   * request when the shared one failed because of the deadline of the caller
+   * that sent it.
+   * @param <T> the result type
+   * @param module the module serving the request
+   * @param key the key identifying identical requests
+   * @param deadline the deadline of the caller
+   * @param request the request to run
+   * @param copier copies the shared result for each caller
+   * @return the result of the request
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> execute(FolioModule module, String key, Deadline deadline,
+      Supplier<Future<T>> request, UnaryOperator<T> copier) {
+    if (!enabled) {
+      return request.get();
+    }
+
+    requests.get(module).increment();
+
+    final Future<T> shared = (Future<T>) inFlight.get(key);
+    if (shared != null) {
+      log.debug("Coalescing request {}", key);
+      coalesced.get(module).increment();
+      return withDeadline(shared, deadline)
+          .recover(e -> isDeadlineFailure(e) && !deadline.isExpired()
+              // another caller's deadline is not this caller's, so it tries itself
+              ? request.get()
+              : Future.failedFuture(e))
+          .map(copier::apply);
+    }
+
+    final Future<T> result = request.get();
+    if (!result.isComplete()) {
+      inFlight.put(key, result);
+      result.onComplete(ar -> inFlight.remove(key, result));
+      // the copy is taken before any waiting caller can see the result
+      return result.map(copier::apply);
+    }
+    return result;
+  }
+
+  private static <T> Future<T> withDeadline(Future<T> shared, Deadline deadline) {
+    if (deadline.isExpired()) {
+      return Future.failedFuture(new DeadlineExceededThrowable(
+          "Transaction deadline exceeded while waiting for a coalesced request"));
+    }
+    final Context context = Vertx.currentContext();
+    if (!deadline.isBounded() || context == null) {
+      return shared;
+    }
+
+    final Promise<T> promise = Promise.promise();
+    final long timerId = context.owner().setTimer(Math.max(1L, deadline.remainingMillis()),
+        id -> promise.tryFail(new DeadlineExceededThrowable(
+            "Transaction deadline exceeded while waiting for a coalesced request")));
+    shared.onComplete(ar -> {
+      context.owner().cancelTimer(timerId);
+      if (ar.succeeded()) {
+        promise.tryComplete(ar.result());
+      } else {
+        promise.tryFail(ar.cause());
+      }
+    });
+    return promise.future();
+  }
+
+  private static boolean isDeadlineFailure(Throwable throwable) {
+    // the request of another caller timed out at that caller's deadline
+    return throwable instanceof DeadlineExceededThrowable
+        || throwable instanceof TimeoutException;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  int getInFlight() {
+    return inFlight.size();
+  }
+
+  long coalescedCount(FolioModule module) {
+    return (long) coalesced.get(module).count();
+  }
+}
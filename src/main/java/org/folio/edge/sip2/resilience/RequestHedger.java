@@ -0,0 +1,227 @@
+package org.folio.edge.sip2.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hedging of idempotent FOLIO reads. When a read has not completed within
+ * the {@code percentile} of the recent latencies of its module, an identical
+ * second read is sent and whichever succeeds first is used. Hedges are paid
+ * for from a budget that grows by {@code budgetPercent} of a hedge with every
+ * read, so hedging never adds more than that share of extra load to FOLIO.
+ */
+public class RequestHedger {
+  public static final String CONFIG_KEY = "hedgingOptions";
+  public static final double DEFAULT_PERCENTILE = 0.95;
+  public static final long DEFAULT_MIN_DELAY_MS = 20L;
+  public static final long DEFAULT_MAX_DELAY_MS = 1000L;
+  public static final double DEFAULT_BUDGET_PERCENT = 5.0;
+  public static final int DEFAULT_SAMPLE_SIZE = 1000;
+  public static final int DEFAULT_MIN_SAMPLES = 20;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.hedging.";
+  private static final String MODULE_TAG = "module";
+  // how many hedges may be saved up for a burst of slow reads
+  private static final double MAX_BUDGET = 10.0;
+  // how often the hedge delay is recomputed from the latency samples
+  private static final int RECOMPUTE_INTERVAL = 50;
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final double percentile;
+  private final long minDelayMs;
+  private final long maxDelayMs;
+  private final int minSamples;
+  private final Map<FolioModule, LatencyWindow> latencies = new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, Counter> requests = new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, Counter> hedges = new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, Counter> wins = new EnumMap<>(FolioModule.class);
+  private final LoadBudget budget;
+
+  /**
+   * Construct the hedger from the {@code hedgingOptions} configuration.
+   * @param options the options, may be {@code null} in which case hedging is disabled
+   * @param registry the registry to publish metrics to
+   */
+  public RequestHedger(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.percentile = config.getDouble("percentile", DEFAULT_PERCENTILE);
+    if (percentile <= 0.0 || percentile > 1.0) {
+      throw new IllegalArgumentException("Hedging percentile must be in (0, 1]: " + percentile);
+    }
+    this.minDelayMs = config.getLong("minDelayMs", DEFAULT_MIN_DELAY_MS);
+    this.maxDelayMs = Math.max(minDelayMs, config.getLong("maxDelayMs", DEFAULT_MAX_DELAY_MS));
+    this.budget = new LoadBudget(
+        config.getDouble("budgetPercent", DEFAULT_BUDGET_PERCENT) / 100.0, MAX_BUDGET,
+        false);
+    this.minSamples = config.getInteger("minSamples", DEFAULT_MIN_SAMPLES);
+    final int sampleSize = Math.max(minSamples,
+        config.getInteger("sampleSize", DEFAULT_SAMPLE_SIZE));
+
+    if (enabled) {
+      for (FolioModule module : FolioModule.values()) {
+        final LatencyWindow window = new LatencyWindow(sampleSize);
+        latencies.put(module, window);
+        final String name = module.getConfigName();
+        requests.put(module, Counter.builder(METRICS_PREFIX + "requests")
+            .tag(MODULE_TAG, name)
+            .register(registry));
+        hedges.put(module, Counter.builder(METRICS_PREFIX + "hedges")
+            .tag(MODULE_TAG, name)
+            .register(registry));
+        wins.put(module, Counter.builder(METRICS_PREFIX + "wins")
+            .tag(MODULE_TAG, name)
+            .register(registry));
+        Gauge.builder(METRICS_PREFIX + "delay", window, w -> w.delayMs)
+            .tag(MODULE_TAG, name)
+            .baseUnit("milliseconds")
+            .register(registry);
+      }
+    }
+  }
+
+  /**
+   * Returns a hedger that never hedges.
+   * @param registry the registry to publish metrics to
+   * @return a disabled hedger
+   */
+  public static RequestHedger disabled(MeterRegistry registry) {
+    return new RequestHedger(null, registry);
+  }
+
+  /**
+   * Run an idempotent read, hedging it with a second identical read if it is
+   * slow. Reads are only hedged when run on a Vert.x context.
+   * @param <T> the result type
+   * @param module the module serving the read
+   * @param request the read to run, called once more for the hedge
+   * @return the result of the first read to succeed, or the last failure
+   */
+  public <T> Future<T> execute(FolioModule module, Supplier<Future<T>> request) {
+    final Context context = Vertx.currentContext();
+    if (!enabled || context == null) {
+      return request.get();
+    }
+
+    requests.get(module).increment();
+    budget.deposit();
+
+    final LatencyWindow window = latencies.get(module);
+    final Attempts<T> attempts = new Attempts<>(module);
+    final long start = System.nanoTime();
+    request.get().onComplete(ar -> {
+      if (ar.succeeded()) {
+        window.add((System.nanoTime() - start) / 1_000_000L);
+      }
+      attempts.completed(ar, false);
+    });
+
+    if (!attempts.result.future().isComplete() && window.delayMs > 0) {
+      final long timerId = context.owner().setTimer(window.delayMs, id -> {
+        if (attempts.result.future().isComplete()) {
+          return;
+        }
+        if (!budget.tryWithdraw()) {
+          log.debug("Hedging budget exhausted, not hedging read from {}",
+              module.getConfigName());
+          return;
+        }
+        log.debug("Hedging read from {} after {}ms", module.getConfigName(), window.delayMs);
+        hedges.get(module).increment();
+        attempts.pending++;
+        request.get().onComplete(ar -> attempts.completed(ar, true));
+      });
+      attempts.result.future().onComplete(ar -> context.owner().cancelTimer(timerId));
+    }
+
+    return attempts.result.future();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  long getDelayMillis(FolioModule module) {
+    return latencies.get(module).delayMs;
+  }
+
+  void recordLatency(FolioModule module, long millis) {
+    latencies.get(module).add(millis);
+  }
+
+  double hedgeCount(FolioModule module) {
+    return hedges.get(module).count();
+  }
+
+  double winCount(FolioModule module) {
+    return wins.get(module).count();
+  }
+
+  private class Attempts<T> {
+    private final FolioModule module;
+    private final Promise<T> result = Promise.promise();
+    private int pending = 1;
+
+    private Attempts(FolioModule module) {
+      this.module = module;
+    }
+
+    private void completed(AsyncResult<T> ar, boolean hedge) {
+      pending--;
+      if (ar.succeeded()) {
+        if (hedge && !result.future().isComplete()) {
+          wins.get(module).increment();
+        }
+        result.tryComplete(ar.result());
+      } else if (pending == 0) {
+        // only fail once no other attempt can still succeed
+        result.tryFail(ar.cause());
+      }
+    }
+  }
+
+  private class LatencyWindow {
+    private final long[] samples;
+    private int count;
+    private int next;
+    private int sinceRecompute;
+    // zero until there are enough samples, which disables hedging
+    private volatile long delayMs;
+
+    private LatencyWindow(int size) {
+      this.samples = new long[size];
+    }
+
+    private synchronized void add(long millis) {
+      samples[next] = millis;
+      next = (next + 1) % samples.length;
+      count = Math.min(count + 1, samples.length);
+      if (count >= minSamples
+          && (delayMs == 0 || ++sinceRecompute >= RECOMPUTE_INTERVAL)) {
+        sinceRecompute = 0;
+        final long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        final int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+        delayMs = Math.max(minDelayMs, Math.min(maxDelayMs, sorted[Math.max(0, index)]));
+      }
+    }
+  }
+}
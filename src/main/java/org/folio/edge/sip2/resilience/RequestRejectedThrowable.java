@@ -0,0 +1,33 @@
+package org.folio.edge.sip2.resilience;
+
+import java.util.Collections;
+import java.util.List;
+import org.folio.edge.sip2.repositories.RequestThrowable;
+
+/**
+ * Throwable that occurs when a request to FOLIO is rejected locally, without
+ * being sent, e.g. because a module's bulkhead is full or its circuit is open.
+ */
+public class RequestRejectedThrowable extends RequestThrowable {
+  private static final long serialVersionUID = 4105391771514212417L;
+
+  public RequestRejectedThrowable(String message) {
+    super(message);
+  }
+
+  @Override
+  public List<String> getErrorMessages() {
+    return Collections.singletonList(getMessage());
+  }
+
+  /**
+   * Determines whether a request failed without being sent to FOLIO, because
+   * it was rejected locally or its deadline had already passed.
+   * @param failure the cause of the failure or {@code null} for a success
+   * @return true if the request never reached FOLIO
+   */
+  public static boolean isNotSent(Throwable failure) {
+    return failure instanceof RequestRejectedThrowable
+        || failure instanceof DeadlineExceededThrowable;
+  }
+}
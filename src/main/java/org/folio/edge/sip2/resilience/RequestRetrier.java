@@ -0,0 +1,176 @@
+package org.folio.edge.sip2.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.repositories.FolioRequestThrowable;
+
+/**
+ * Retries of idempotent FOLIO reads that failed transiently: a 502 or 503
+ * from the gateway, or a connection that was reset or closed. Retries wait an
+ * exponentially growing, fully jittered backoff, are never started when the
+ * backoff would outlast the transaction deadline and are paid for from a
+ * budget that grows by {@code budgetPercent} of a retry with every read, so
+ * that retries cannot multiply the load of a struggling FOLIO.
+ */
+public class RequestRetrier {
+  public static final String CONFIG_KEY = "retryOptions";
+  public static final int DEFAULT_MAX_RETRIES = 2;
+  public static final long DEFAULT_BASE_BACKOFF_MS = 50L;
+  public static final long DEFAULT_MAX_BACKOFF_MS = 1000L;
+  public static final double DEFAULT_BUDGET_PERCENT = 10.0;
+
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.folio.retry.";
+  private static final String MODULE_TAG = "module";
+  // how many retries may be saved up for a burst of failures
+  private static final double MAX_BUDGET = 10.0;
+
+  private static final Logger log = LogManager.getLogger();
+
+  private final boolean enabled;
+  private final int maxRetries;
+  private final long baseBackoffMs;
+  private final long maxBackoffMs;
+  private final LoadBudget budget;
+  private final Map<FolioModule, Counter> retries = new EnumMap<>(FolioModule.class);
+  private final Map<FolioModule, Counter> exhausted = new EnumMap<>(FolioModule.class);
+
+  /**
+   * Construct the retrier from the {@code retryOptions} configuration.
+   * @param options the options, may be {@code null} in which case retries are disabled
+   * @param registry the registry to publish metrics to
+   */
+  public RequestRetrier(JsonObject options, MeterRegistry registry) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+    Objects.requireNonNull(registry, "MeterRegistry cannot be null");
+
+    this.enabled = config.getBoolean("enabled", Boolean.FALSE);
+    this.maxRetries = config.getInteger("maxRetries", DEFAULT_MAX_RETRIES);
+    this.baseBackoffMs = config.getLong("baseBackoffMs", DEFAULT_BASE_BACKOFF_MS);
+    this.maxBackoffMs = Math.max(baseBackoffMs,
+        config.getLong("maxBackoffMs", DEFAULT_MAX_BACKOFF_MS));
+    // a full budget lets the first reads after a start be retried
+    this.budget = new LoadBudget(
+        config.getDouble("budgetPercent", DEFAULT_BUDGET_PERCENT) / 100.0, MAX_BUDGET, true);
+
+    if (enabled) {
+      for (FolioModule module : FolioModule.values()) {
+        retries.put(module, Counter.builder(METRICS_PREFIX + "retries")
+            .tag(MODULE_TAG, module.getConfigName())
+            .register(registry));
+        exhausted.put(module, Counter.builder(METRICS_PREFIX + "exhausted")
+            .tag(MODULE_TAG, module.getConfigName())
+            .register(registry));
+      }
+    }
+  }
+
+  /**
+   * Returns a retrier that never retries.
+   * @param registry the registry to publish metrics to
+   * @return a disabled retrier
+   */
+  public static RequestRetrier disabled(MeterRegistry registry) {
+    return new RequestRetrier(null, registry);
+  }
+
+  /**
+   * Run an idempotent read, retrying it after transient failures. Reads are
+   * only retried when run on a Vert.x context.
+   * @param <T> the result type
+   * @param module the module serving the read
+   * @param deadline the deadline of the transaction
+   * @param request the read to run, called again for every retry
+   * @return the result of the read or its last failure
+   */
+  public <T> Future<T> execute(FolioModule module, Deadline deadline,
+      Supplier<Future<T>> request) {
+    final Context context = Vertx.currentContext();
+    if (!enabled || context == null) {
+      return request.get();
+    }
+
+    budget.deposit();
+    final Promise<T> promise = Promise.promise();
+    attempt(module, deadline, request, context, 0, promise);
+    return promise.future();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Determines whether a failure is transient, so that the read may succeed
+   * when sent again.
+   * @param failure the cause of the failure
+   * @return true if the read may be retried
+   */
+  public static boolean isRetryable(Throwable failure) {
+    if (failure instanceof FolioRequestThrowable) {
+      final int statusCode = ((FolioRequestThrowable) failure).getStatusCode();
+      return statusCode == 502 || statusCode == 503;
+    }
+    // connections reset or closed by FOLIO or anything in between
+    return failure instanceof IOException || failure instanceof HttpClosedException;
+  }
+
+  double retryCount(FolioModule module) {
+    return retries.get(module).count();
+  }
+
+  double exhaustedCount(FolioModule module) {
+    return exhausted.get(module).count();
+  }
+
+  private <T> void attempt(FolioModule module, Deadline deadline, Supplier<Future<T>> request,
+      Context context, int attempt, Promise<T> promise) {
+    request.get().onComplete(ar -> {
+      if (ar.succeeded() || !isRetryable(ar.cause())) {
+        promise.handle(ar);
+        return;
+      }
+
+      final long backoffMs = backoff(attempt);
+      if (attempt >= maxRetries
+          || (deadline.isBounded() && deadline.remainingMillis() <= backoffMs)
+          || !budget.tryWithdraw()) {
+        log.debug("Not retrying read from {} after attempt {}", module.getConfigName(),
+            attempt + 1);
+        exhausted.get(module).increment();
+        promise.fail(ar.cause());
+        return;
+      }
+
+      log.info("Retrying read from {} in {}ms after: {}", module.getConfigName(), backoffMs,
+          ar.cause().getMessage());
+      retries.get(module).increment();
+      final Runnable retry = () -> attempt(module, deadline, request, context, attempt + 1,
+          promise);
+      if (backoffMs > 0) {
+        context.owner().setTimer(backoffMs, id -> retry.run());
+      } else {
+        retry.run();
+      }
+    });
+  }
+
+  private long backoff(int attempt) {
+    // full jitter spreads the retries of kiosks that failed at the same moment
+    final long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt, 20));
+    return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+}
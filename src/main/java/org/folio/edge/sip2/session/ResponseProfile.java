@@ -0,0 +1,89 @@
+package org.folio.edge.sip2.session;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The optional fields of SIP responses that the kiosks of a tenant show. A
+ * field that is turned off is left out of the responses and the FOLIO lookups
+ * that only feed it are skipped, so that a tenant trades detail for latency
+ * explicitly. Every field is populated unless the tenant turns it off.
+ */
+public class ResponseProfile {
+  public static final String CONFIG_KEY = "responseProfile";
+  public static final ResponseProfile FULL = new ResponseProfile(null);
+
+  private final boolean borrowerType;
+  private final boolean extendedFees;
+  private final boolean recallItems;
+  private final boolean checkinTitle;
+  private final boolean personalAddress;
+  private final boolean checkoutTitleFallback;
+
+  /**
+   * Construct the profile from the {@code responseProfile} of a tenant configuration.
+   * @param options the options, may be {@code null} in which case every field is populated
+   */
+  public ResponseProfile(JsonObject options) {
+    final JsonObject config = options == null ? new JsonObject() : options;
+
+    this.borrowerType = config.getBoolean("borrowerType", Boolean.TRUE);
+    this.extendedFees = config.getBoolean("extendedFees", Boolean.TRUE);
+    this.recallItems = config.getBoolean("recallItems", Boolean.TRUE);
+    this.checkinTitle = config.getBoolean("checkinTitle", Boolean.TRUE);
+    this.personalAddress = config.getBoolean("personalAddress", Boolean.TRUE);
+    this.checkoutTitleFallback = config.getBoolean("checkoutTitleFallback", Boolean.TRUE);
+  }
+
+  /**
+   * Returns the profile of a tenant configuration.
+   * @param options the {@code responseProfile} of the tenant, may be {@code null}
+   * @return the profile, the full one if the tenant has none
+   */
+  public static ResponseProfile of(JsonObject options) {
+    return options == null ? FULL : new ResponseProfile(options);
+  }
+
+  /**
+   * Returns whether the borrower type of a patron is populated, which needs
+   * the patron group of the patron from {@code bl-users}.
+   * @return true if the borrower type is populated
+   */
+  public boolean isBorrowerType() {
+    return borrowerType;
+  }
+
+  /**
+   * Returns whether the fee/fine details of a patron are listed, which needs
+   * the fee/fine type of every account.
+   * @return true if extended fee details are listed
+   */
+  public boolean isExtendedFees() {
+    return extendedFees;
+  }
+
+  /**
+   * Returns whether the recalled items of a patron are counted and listed,
+   * which needs the requests of every item on loan to the patron.
+   * @return true if recall items are populated
+   */
+  public boolean isRecallItems() {
+    return recallItems;
+  }
+
+  public boolean isCheckinTitle() {
+    return checkinTitle;
+  }
+
+  public boolean isPersonalAddress() {
+    return personalAddress;
+  }
+
+  /**
+   * Returns whether the title of an item that failed to check out is searched
+   * for in the instances when the checkout does not name it.
+   * @return true if the title is searched for
+   */
+  public boolean isCheckoutTitleFallback() {
+    return checkoutTitleFallback;
+  }
+}
@@ -1,8 +1,12 @@
 package org.folio.edge.sip2.session;
 
+import java.util.Objects;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.PreviousMessage;
+import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.resilience.Deadline;
 
 
 public class SessionData {
@@ -21,6 +25,13 @@ public class SessionData {
   private String timeZone;
   private String currency;
   private boolean patronPasswordVerificationRequired;
+  private Integer timeoutPeriod;
+  private ResponseProfile responseProfile = ResponseProfile.FULL;
+  // the messages the tenant supports, unknown until the ACS status was read
+  private Set<Messages> supportedMessages;
+  // the session a transaction belongs to, the state above is kept on it alone
+  private final SessionData session;
+  private final Deadline deadline;
 
   private static final Logger log = LogManager.getLogger();
   private static final String DEFAULT_CURRENCY = "USD";
@@ -33,46 +44,57 @@ public class SessionData {
     this.fieldDelimiter = fieldDelimiter;
     this.errorDetectionEnabled = errorDetectionEnabled;
     this.charset = charset;
+    this.session = this;
+    this.deadline = Deadline.none();
+  }
+
+  private SessionData(SessionData session, Deadline deadline) {
+    this.tenant = session.tenant;
+    this.fieldDelimiter = session.fieldDelimiter;
+    this.errorDetectionEnabled = session.errorDetectionEnabled;
+    this.charset = session.charset;
+    this.session = session;
+    this.deadline = deadline;
   }
 
   public String getScLocation() {
-    return scLocation;
+    return session.scLocation;
   }
 
   public void setScLocation(String scLocation) {
-    this.scLocation = scLocation;
+    session.scLocation = scLocation;
   }
 
   public String getAuthenticationToken() {
-    return authenticationToken;
+    return session.authenticationToken;
   }
 
   public void setAuthenticationToken(String authenticationToken) {
-    this.authenticationToken = authenticationToken;
+    session.authenticationToken = authenticationToken;
   }
 
   public int getMaxPrintWidth() {
-    return maxPrintWidth;
+    return session.maxPrintWidth;
   }
 
   public void setMaxPrintWidth(int maxPrintWidth) {
-    this.maxPrintWidth = maxPrintWidth;
+    session.maxPrintWidth = maxPrintWidth;
   }
 
   public String getUsername() {
-    return username;
+    return session.username;
   }
 
   public void setUsername(String username) {
-    this.username = username;
+    session.username = username;
   }
 
   public String getPassword() {
-    return password;
+    return session.password;
   }
 
   public void setPassword(String password) {
-    this.password = password;
+    session.password = password;
   }
 
   public char getFieldDelimiter() {
@@ -92,15 +114,15 @@ public class SessionData {
   }
 
   public PreviousMessage getPreviousMessage() {
-    return previousMessage;
+    return session.previousMessage;
   }
 
   public void setPreviousMessage(PreviousMessage message) {
-    this.previousMessage = message;
+    session.previousMessage = message;
   }
 
   public String getTimeZone() {
-    return timeZone != null ? timeZone : DEFAULT_TIMEZONE;
+    return session.timeZone != null ? session.timeZone : DEFAULT_TIMEZONE;
   }
 
   /**
@@ -112,15 +134,15 @@ public class SessionData {
       log.warn("The timezone value is null and therefore "
           + "default value {} will be used.", DEFAULT_TIMEZONE);
     }
-    this.timeZone = timeZone;
+    session.timeZone = timeZone;
   }
 
   public boolean isPatronPasswordVerificationRequired() {
-    return patronPasswordVerificationRequired;
+    return session.patronPasswordVerificationRequired;
   }
 
   public void setPatronPasswordVerificationRequired(boolean patronPasswordVerificationRequired) {
-    this.patronPasswordVerificationRequired = patronPasswordVerificationRequired;
+    session.patronPasswordVerificationRequired = patronPasswordVerificationRequired;
   }
 
   public static SessionData createSession(String tenant, char fieldDelimiter,
@@ -129,24 +151,55 @@ public class SessionData {
       charset);
   }
 
+  /**
+   * Returns the session data of a transaction on this session. The
+   * transaction reads and changes the state of this session, but is bound by
+   * its own deadline, so that transactions of a session that overlap do not
+   * share one.
+   * @param deadline the deadline of the transaction
+   * @return the session data of the transaction
+   */
+  public SessionData forTransaction(Deadline deadline) {
+    return new SessionData(session, Objects.requireNonNull(deadline,
+        "deadline cannot be null"));
+  }
+
+  /**
+   * Returns the session a transaction belongs to. It is bound by no deadline,
+   * e.g. for FOLIO requests made in the background once a transaction is
+   * answered, and stays the same for all transactions of the session.
+   * @return the session, this session data if it is not that of a transaction
+   */
+  public SessionData getSession() {
+    return session;
+  }
+
+  /**
+   * Returns the deadline of the transaction.
+   * @return the deadline, none if this is not the session data of a transaction
+   */
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
   public String getLoginErrorMessage() {
-    return loginErrorMessage;
+    return session.loginErrorMessage;
   }
 
   public void setLoginErrorMessage(String loginErrorMessage) {
-    this.loginErrorMessage = loginErrorMessage;
+    session.loginErrorMessage = loginErrorMessage;
   }
 
   public void setErrorResponseMessage(Object errorResponseMessage) {
-    this.errorResponseMessage = errorResponseMessage;
+    session.errorResponseMessage = errorResponseMessage;
   }
 
   public Object getErrorResponseMessage() {
-    return this.errorResponseMessage;
+    return session.errorResponseMessage;
   }
 
   public String getCurrency() {
-    return currency != null ? currency : DEFAULT_CURRENCY;
+    return session.currency != null ? session.currency : DEFAULT_CURRENCY;
   }
 
   /**
@@ -159,7 +212,32 @@ public class SessionData {
       log.warn("Null currency value, therefore default value {} will be used",
           DEFAULT_CURRENCY);
     } else {
-      this.currency = currency;
+      session.currency = currency;
     }
   }
+
+  public Integer getTimeoutPeriod() {
+    return session.timeoutPeriod;
+  }
+
+  public void setTimeoutPeriod(Integer timeoutPeriod) {
+    session.timeoutPeriod = timeoutPeriod;
+  }
+
+  public ResponseProfile getResponseProfile() {
+    return session.responseProfile;
+  }
+
+  public void setResponseProfile(ResponseProfile responseProfile) {
+    session.responseProfile = Objects.requireNonNull(responseProfile,
+        "responseProfile cannot be null");
+  }
+
+  public Set<Messages> getSupportedMessages() {
+    return session.supportedMessages;
+  }
+
+  public void setSupportedMessages(Set<Messages> supportedMessages) {
+    session.supportedMessages = supportedMessages;
+  }
 }
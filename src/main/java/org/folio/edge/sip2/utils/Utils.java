@@ -1,5 +1,6 @@
 package org.folio.edge.sip2.utils;
 
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonObject;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -8,6 +9,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -111,6 +113,43 @@ public final class Utils {
     return URLEncoder.encode(url, StandardCharsets.UTF_8);
   }
 
+  /**
+   * Quotes a term for a CQL query, so that it is matched as is.
+   * @param term the term, e.g. a barcode read by a kiosk
+   * @return the term in double quotes, with quotes, backslashes and masking
+   *     characters escaped
+   */
+  public static String cqlQuote(String term) {
+    final StringBuilder quoted = new StringBuilder(term.length() + 2).append('"');
+    for (int i = 0; i < term.length(); i++) {
+      final char c = term.charAt(i);
+      if (c == '"' || c == '\\' || c == '*' || c == '?' || c == '^') {
+        quoted.append('\\');
+      }
+      quoted.append(c);
+    }
+    return quoted.append('"').toString();
+  }
+
+  /**
+   * Returns the id of the user an Okapi token was issued for, read from the
+   * payload of the token without verifying it.
+   * @param token the token, a JWT
+   * @return the user id, or {@code null} if the token does not carry one
+   */
+  public static String getUserIdFromToken(String token) {
+    final String[] parts = token == null ? new String[0] : token.split("\\.");
+    if (parts.length < 2) {
+      return null;
+    }
+    try {
+      return new JsonObject(new String(Base64.getUrlDecoder().decode(parts[1]),
+          StandardCharsets.UTF_8)).getString("user_id");
+    } catch (IllegalArgumentException | DecodeException | ClassCastException e) {
+      return null;
+    }
+  }
+
   /**
    * Utility method to handle mod-search errors.
    * @param cause - a throwable object
@@ -0,0 +1,28 @@
+<#import "lib.ftl" as lib>
+16<#t>
+<#-- ok: 1-char, fixed-length required field: 0 or 1 -->
+<@lib.ok value=holdResponse.ok/>
+<#-- available: 1-char, fixed-length required field: Y or N -->
+<@lib.available value=holdResponse.available/>
+<#--
+    transaction date: 18-char, fixed-length required field: YYYYMMDDZZZZHHMMSS
+-->
+<@lib.transactionDate value=holdResponse.transactionDate/>
+<#-- expiration date: 18-char, fixed-length optional field: YYYYMMDDZZZZHHMMSS -->
+<@lib.expirationDate value=holdResponse.expirationDate!""/>
+<#-- queue position: variable-length optional field -->
+<@lib.queuePosition value=holdResponse.queuePosition!""/>
+<#-- pickup location: variable-length optional field -->
+<@lib.pickupLocation value=holdResponse.pickupLocation!""/>
+<#-- institution id: variable-length required field -->
+<@lib.institutionId value=holdResponse.institutionId/>
+<#-- patron identifier: variable-length required field -->
+<@lib.patronIdentifier value=holdResponse.patronIdentifier!""/>
+<#-- item identifier: variable-length optional field -->
+<@lib.itemIdentifier value=holdResponse.itemIdentifier!""/>
+<#-- title identifier: variable-length optional field -->
+<@lib.titleIdentifier value=holdResponse.titleIdentifier!"" required=false/>
+<#-- screen message: variable-length optional field -->
+<@lib.screenMessage value=holdResponse.screenMessage!""/>
+<#-- print line: variable-length optional field -->
+<@lib.printLine value=holdResponse.printLine!""/>
@@ -0,0 +1,19 @@
+<#import "lib.ftl" as lib>
+20<#t>
+<#-- item properties ok: 1-char, fixed-length required field: 0 or 1 -->
+<@lib.itemPropertiesOk value=itemStatusUpdateResponse.itemPropertiesOk/>
+<#--
+    transaction date: 18-char, fixed-length required field: YYYYMMDDZZZZHHMMSS
+-->
+<@lib.transactionDate value=itemStatusUpdateResponse.transactionDate/>
+<#-- item identifier: variable-length required field -->
+<@lib.itemIdentifier value=itemStatusUpdateResponse.itemIdentifier/>
+<#-- title identifier: variable-length optional field -->
+<@lib.titleIdentifier
+    value=itemStatusUpdateResponse.titleIdentifier!"" required=false/>
+<#-- item properties: variable-length optional field -->
+<@lib.itemProperties value=itemStatusUpdateResponse.itemProperties!""/>
+<#-- screen message: variable-length optional field -->
+<@lib.screenMessage value=itemStatusUpdateResponse.screenMessage!""/>
+<#-- print line: variable-length optional field -->
+<@lib.printLine value=itemStatusUpdateResponse.printLine!""/>
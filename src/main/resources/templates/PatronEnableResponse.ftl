@@ -0,0 +1,25 @@
+<#import "lib.ftl" as lib>
+26<#t>
+<#-- patron status: 14-char, fixed-length required field -->
+<@lib.patronStatus value=patronEnableResponse.patronStatus/>
+<#-- language: 3-char, fixed-length required field -->
+<@lib.language value=patronEnableResponse.language/>
+<#--
+    transaction date: 18-char, fixed-length required field: YYYYMMDDZZZZHHMMSS
+-->
+<@lib.transactionDate value=patronEnableResponse.transactionDate/>
+<#-- institution id: variable-length required field -->
+<@lib.institutionId value=patronEnableResponse.institutionId/>
+<#-- patron identifier: variable-length required field -->
+<@lib.patronIdentifier value=patronEnableResponse.patronIdentifier/>
+<#-- personal name: variable-length required field -->
+<@lib.personalName value=patronEnableResponse.personalName/>
+<#-- valid patron: 1-char, optional field -->
+<@lib.validPatron value=patronEnableResponse.validPatron!""/>
+<#-- valid patron password: 1-char, optional field -->
+<@lib.validPatronPassword
+    value=patronEnableResponse.validPatronPassword!""/>
+<#-- screen message: variable-length optional field -->
+<@lib.screenMessage value=patronEnableResponse.screenMessage!""/>
+<#-- print line: variable-length optional field -->
+<@lib.printLine value=patronEnableResponse.printLine!""/>
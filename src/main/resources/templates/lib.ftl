@@ -110,6 +110,10 @@
   <@booleanToYorN value=value/><#t>
 </#macro>
 
+<#macro available value>
+  <@booleanToYorN value=value/><#t>
+</#macro>
+
 <#macro chargedItems value>
   <@variableLengthListField id="AU" value=value/>
 </#macro>
@@ -162,6 +166,12 @@
   <@variableLengthField id="BE" value=value/>
 </#macro>
 
+<#macro expirationDate value>
+  <#if value?has_content>
+    <@variableLengthDateField id="BW" value=value/>
+  </#if>
+</#macro>
+
 <#macro feeAmount value>
   <#if value?has_content>
     <@variableLengthField id="BV" value=value/>
@@ -342,6 +352,10 @@
   </#if>
 </#macro>
 
+<#macro itemPropertiesOk value>
+  <@booleanTo1or0 value=value/><#t>
+</#macro>
+
 <#macro language value>
   <#if value?has_content>
     <#switch value>
@@ -529,12 +543,24 @@
   <@variableLengthField id="AE" value=value/>
 </#macro>
 
+<#macro pickupLocation value>
+  <#if value?has_content>
+    <@variableLengthField id="BS" value=value/>
+  </#if>
+</#macro>
+
 <#macro printLine value>
   <#if value?has_content>
     <@variableLengthListRepeatableField id="AG" value=value length="${maxLength!255}"/>
   </#if>
 </#macro>
 
+<#macro queuePosition value>
+  <#if value?has_content>
+    <@variableLengthField id="BR" value=value?c/>
+  </#if>
+</#macro>
+
 <#macro recallItems value>
   <@variableLengthListField id="BU" value=value/>
 </#macro>
@@ -0,0 +1,43 @@
+package org.folio.edge.sip2.api.support;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock for tests that only moves when told to.
+ */
+public class MutableClock extends Clock {
+  private Instant instant;
+  private final ZoneId zone;
+
+  public MutableClock() {
+    this(Instant.parse("2019-06-04T12:00:00Z"), ZoneOffset.UTC);
+  }
+
+  public MutableClock(Instant instant, ZoneId zone) {
+    this.instant = instant;
+    this.zone = zone;
+  }
+
+  public void advance(Duration duration) {
+    instant = instant.plus(duration);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return new MutableClock(instant, zone);
+  }
+
+  @Override
+  public Instant instant() {
+    return instant;
+  }
+}
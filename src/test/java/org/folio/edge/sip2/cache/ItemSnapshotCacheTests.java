@@ -0,0 +1,145 @@
+package org.folio.edge.sip2.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+class ItemSnapshotCacheTests {
+  private static final String TENANT = "diku";
+
+  private static JsonObject item(String barcode) {
+    return new JsonObject()
+        .put("id", "item-" + barcode)
+        .put("barcode", barcode)
+        .put("holdingsRecordId", "holdings-" + barcode)
+        .put("title", "Title " + barcode)
+        .put("effectiveLocation", new JsonObject().put("name", "Main Library"))
+        .put("status", new JsonObject().put("name", "Available"))
+        .put("notes", "not kept");
+  }
+
+  @Test
+  void canKeepOnlyStaticFieldsByDefault() {
+    final ItemSnapshotCache cache = new ItemSnapshotCache(new JsonObject().put("enabled", true),
+        new MutableClock(), new SimpleMeterRegistry());
+
+    cache.putItem(TENANT, "123", item("123"));
+
+    assertNull(cache.getItem(TENANT, "123"));
+    assertEquals("Title 123", cache.getTitle(TENANT, "123"));
+    assertEquals("Title 123", cache.getTitle(TENANT.toUpperCase(), "123"));
+    assertNull(cache.getTitle("other", "123"));
+  }
+
+  @Test
+  void canKeepStatusForVolatileTtl() {
+    final MutableClock clock = new MutableClock();
+    final ItemSnapshotCache cache = new ItemSnapshotCache(new JsonObject()
+        .put("enabled", true)
+        .put("ttlMs", 60000)
+        .put("volatileTtlMs", 1000), clock, new SimpleMeterRegistry());
+
+    cache.putItem(TENANT, "123", item("123"));
+    final JsonObject cached = cache.getItem(TENANT, "123");
+
+    assertEquals("Available", cached.getJsonObject("status").getString("name"));
+    assertEquals("Main Library", cached.getJsonObject("effectiveLocation").getString("name"));
+    assertFalse(cached.containsKey("notes"));
+
+    clock.advance(Duration.ofMillis(1000));
+    assertNull(cache.getItem(TENANT, "123"));
+    assertEquals("Title 123", cache.getTitle(TENANT, "123"));
+
+    clock.advance(Duration.ofMillis(59000));
+    assertNull(cache.getTitle(TENANT, "123"));
+  }
+
+  @Test
+  void canCountHitsOfPrefetchedSnapshots() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ItemSnapshotCache cache = new ItemSnapshotCache(new JsonObject()
+        .put("enabled", true)
+        .put("volatileTtlMs", 1000), new MutableClock(), registry);
+
+    cache.putItem(TENANT, "123", item("123"), true);
+    cache.putTitle(TENANT, "456", "Title 456", true);
+    cache.putItem(TENANT, "789", item("789"));
+
+    assertEquals("item-123", cache.getItem(TENANT, "123").getString("id"));
+    assertEquals("Title 456", cache.getTitle(TENANT, "456"));
+    assertEquals("Title 789", cache.getTitle(TENANT, "789"));
+
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.item.prefetch.hits")
+        .tag("read", "item").counter().count());
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.item.prefetch.hits")
+        .tag("read", "title").counter().count());
+    assertEquals(2, registry.get("org.folio.edge.sip2.cache.item.hits")
+        .tag("read", "title").counter().count());
+  }
+
+  @Test
+  void canInvalidateChangedItem() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ItemSnapshotCache cache = new ItemSnapshotCache(
+        new JsonObject().put("enabled", true).put("volatileTtlMs", 1000), new MutableClock(),
+        registry);
+
+    cache.putItem(TENANT, "123", item("123"));
+    cache.invalidate(TENANT, "123");
+
+    assertNull(cache.getItem(TENANT, "123"));
+    assertNull(cache.getTitle(TENANT, "123"));
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.item.invalidations")
+        .counter().count());
+  }
+
+  @Test
+  void canKeepTitleWithoutItem() {
+    final ItemSnapshotCache cache = new ItemSnapshotCache(
+        new JsonObject().put("enabled", true).put("volatileTtlMs", 1000), new MutableClock(),
+        new SimpleMeterRegistry());
+
+    cache.putTitle(TENANT, "123", "Searched title");
+
+    assertEquals("Searched title", cache.getTitle(TENANT, "123"));
+    assertNull(cache.getItem(TENANT, "123"));
+  }
+
+  @Test
+  void canEvictLeastRecentlyUsed() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ItemSnapshotCache cache = new ItemSnapshotCache(
+        new JsonObject().put("enabled", true).put("maxEntries", 2), new MutableClock(),
+        registry);
+
+    cache.putItem(TENANT, "1", item("1"));
+    cache.putItem(TENANT, "2", item("2"));
+    cache.getTitle(TENANT, "1");
+    cache.putItem(TENANT, "3", item("3"));
+
+    assertEquals(2, cache.size());
+    assertNull(cache.getTitle(TENANT, "2"));
+    assertEquals("Title 1", cache.getTitle(TENANT, "1"));
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.item.evictions").counter().count());
+    assertEquals(2, registry.get("org.folio.edge.sip2.cache.item.hits")
+        .tag("read", "title").counter().count());
+  }
+
+  @Test
+  void canDisable() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ItemSnapshotCache cache = ItemSnapshotCache.disabled(registry);
+
+    cache.putItem(TENANT, "123", item("123"));
+
+    assertNull(cache.getTitle(TENANT, "123"));
+    assertTrue(registry.getMeters().isEmpty());
+  }
+}
@@ -0,0 +1,121 @@
+package org.folio.edge.sip2.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.cache.NegativeResultCache.Kind;
+import org.junit.jupiter.api.Test;
+
+class NegativeResultCacheTests {
+  private static final String TENANT = "diku";
+
+  @Test
+  void canRememberMissingBarcodeUntilExpired() {
+    final MutableClock clock = new MutableClock();
+    final NegativeResultCache cache = new NegativeResultCache(
+        new JsonObject().put("enabled", true).put("ttlMs", 1000), clock,
+        new SimpleMeterRegistry());
+
+    assertFalse(cache.isKnownMissing(TENANT, Kind.ITEM, "123"));
+    cache.recordMissing(TENANT, Kind.ITEM, "123");
+
+    assertTrue(cache.isKnownMissing(TENANT, Kind.ITEM, "123"));
+    assertTrue(cache.isKnownMissing(TENANT.toUpperCase(), Kind.ITEM, "123"));
+    assertFalse(cache.isKnownMissing(TENANT, Kind.USER, "123"));
+    assertFalse(cache.isKnownMissing("other", Kind.ITEM, "123"));
+    assertEquals(2, cache.hitCount(Kind.ITEM));
+
+    clock.advance(Duration.ofMillis(1000));
+    assertFalse(cache.isKnownMissing(TENANT, Kind.ITEM, "123"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void canUseTenantTtl() {
+    final MutableClock clock = new MutableClock();
+    final NegativeResultCache cache = new NegativeResultCache(new JsonObject()
+        .put("enabled", true)
+        .put("ttlMs", 1000)
+        .put("tenantTtlMs", new JsonObject().put("slow", 5000).put("off", 0)), clock,
+        new SimpleMeterRegistry());
+
+    cache.recordMissing(TENANT, Kind.USER, "jane");
+    cache.recordMissing("slow", Kind.USER, "jane");
+    cache.recordMissing("off", Kind.USER, "jane");
+    clock.advance(Duration.ofMillis(2000));
+
+    assertFalse(cache.isKnownMissing(TENANT, Kind.USER, "jane"));
+    assertTrue(cache.isKnownMissing("slow", Kind.USER, "jane"));
+    assertFalse(cache.isKnownMissing("off", Kind.USER, "jane"));
+    assertEquals(2, cache.storeCount(Kind.USER));
+  }
+
+  @Test
+  void canInvalidate() {
+    final NegativeResultCache cache = new NegativeResultCache(
+        new JsonObject().put("enabled", true), new MutableClock(), new SimpleMeterRegistry());
+
+    cache.recordMissing(TENANT, Kind.ITEM, "123");
+    cache.recordMissing(TENANT, Kind.TITLE, "123");
+    cache.recordMissing("other", Kind.ITEM, "123");
+
+    cache.invalidate(TENANT, Kind.ITEM, "123");
+    assertFalse(cache.isKnownMissing(TENANT, Kind.ITEM, "123"));
+    assertTrue(cache.isKnownMissing(TENANT, Kind.TITLE, "123"));
+
+    cache.invalidateTenant(TENANT);
+    assertFalse(cache.isKnownMissing(TENANT, Kind.TITLE, "123"));
+    assertTrue(cache.isKnownMissing("other", Kind.ITEM, "123"));
+
+    cache.clear();
+    assertFalse(cache.isKnownMissing("other", Kind.ITEM, "123"));
+  }
+
+  @Test
+  void canBoundEntries() {
+    final NegativeResultCache cache = new NegativeResultCache(
+        new JsonObject().put("enabled", true).put("maxEntries", 2), new MutableClock(),
+        new SimpleMeterRegistry());
+
+    cache.recordMissing(TENANT, Kind.ITEM, "1");
+    cache.recordMissing(TENANT, Kind.ITEM, "2");
+    cache.recordMissing(TENANT, Kind.ITEM, "3");
+
+    assertEquals(2, cache.size());
+    assertFalse(cache.isKnownMissing(TENANT, Kind.ITEM, "1"));
+    assertTrue(cache.isKnownMissing(TENANT, Kind.ITEM, "3"));
+  }
+
+  @Test
+  void canReportMetrics() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final NegativeResultCache cache = new NegativeResultCache(
+        new JsonObject().put("enabled", true), new MutableClock(), registry);
+
+    cache.isKnownMissing(TENANT, Kind.ITEM, "1");
+    cache.recordMissing(TENANT, Kind.ITEM, "1");
+    cache.isKnownMissing(TENANT, Kind.ITEM, "1");
+
+    final String prefix = "org.folio.edge.sip2.cache.negative.";
+    assertEquals(1, registry.get(prefix + "hits").tag("kind", "item").counter().count());
+    assertEquals(1, registry.get(prefix + "misses").tag("kind", "item").counter().count());
+    assertEquals(1, registry.get(prefix + "stores").tag("kind", "item").counter().count());
+    assertEquals(1, registry.get(prefix + "size").gauge().value());
+  }
+
+  @Test
+  void canDisable() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final NegativeResultCache cache = NegativeResultCache.disabled(registry);
+
+    cache.recordMissing(TENANT, Kind.ITEM, "1");
+
+    assertFalse(cache.isKnownMissing(TENANT, Kind.ITEM, "1"));
+    assertTrue(registry.getMeters().isEmpty());
+  }
+}
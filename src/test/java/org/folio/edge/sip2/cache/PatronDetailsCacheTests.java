@@ -0,0 +1,91 @@
+package org.folio.edge.sip2.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import java.util.Collections;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+
+class PatronDetailsCacheTests {
+  private static final String PATRON = "1234567890";
+  private static final String USER_ID = "4f0e711c-d583-41e0-9555-b62f1725023f";
+
+  @Test
+  void canKeepDetailsOfSessionUntilExpired() {
+    final MutableClock clock = new MutableClock();
+    final PatronDetailsCache cache = new PatronDetailsCache(
+        new JsonObject().put("enabled", true).put("ttlMs", 1000), clock,
+        new SimpleMeterRegistry());
+    final SessionData session = TestUtils.getMockedSessionData();
+    final PatronDetails details = details(true);
+
+    cache.put(session, PATRON, USER_ID, details);
+
+    assertSame(details, cache.get(session, PATRON, USER_ID));
+    assertNull(cache.get(TestUtils.getMockedSessionData(), PATRON, USER_ID));
+    assertNull(cache.get(session, "other", USER_ID));
+    assertEquals(1, cache.hitCount());
+
+    cache.put(session, PATRON, USER_ID, details);
+    clock.advance(Duration.ofMillis(1000));
+    assertNull(cache.get(session, PATRON, USER_ID));
+  }
+
+  @Test
+  void cannotKeepIncompleteDetails() {
+    final PatronDetailsCache cache = new PatronDetailsCache(
+        new JsonObject().put("enabled", true), new MutableClock(), new SimpleMeterRegistry());
+    final SessionData session = TestUtils.getMockedSessionData();
+
+    cache.put(session, PATRON, USER_ID, details(false));
+    assertNull(cache.get(session, PATRON, USER_ID));
+
+    cache.put(session, PATRON, USER_ID, new PatronDetails(new JsonObject(), null,
+        new JsonObject(), new JsonObject(), new JsonObject(), Collections.emptyList(), true));
+    assertNull(cache.get(session, PATRON, USER_ID));
+  }
+
+  @Test
+  void canInvalidateForPatronOrAnyPatron() {
+    final PatronDetailsCache cache = new PatronDetailsCache(
+        new JsonObject().put("enabled", true), new MutableClock(), new SimpleMeterRegistry());
+    final SessionData session = TestUtils.getMockedSessionData();
+
+    cache.put(session, PATRON, USER_ID, details(true));
+    cache.invalidate(session, "other");
+    assertSame(cache.get(session, PATRON, USER_ID), cache.get(session, PATRON, USER_ID));
+
+    cache.invalidate(session, PATRON.toUpperCase());
+    assertNull(cache.get(session, PATRON, USER_ID));
+
+    cache.put(session, PATRON, USER_ID, details(true));
+    cache.invalidate(session, null);
+    assertNull(cache.get(session, PATRON, USER_ID));
+    assertEquals(2, cache.invalidationCount());
+  }
+
+  @Test
+  void canDisable() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final PatronDetailsCache cache = PatronDetailsCache.disabled(registry);
+    final SessionData session = TestUtils.getMockedSessionData();
+
+    cache.put(session, PATRON, USER_ID, details(true));
+
+    assertNull(cache.get(session, PATRON, USER_ID));
+    assertTrue(registry.getMeters().isEmpty());
+  }
+
+  private static PatronDetails details(boolean complete) {
+    return new PatronDetails(new JsonObject(), new JsonObject(), new JsonObject(),
+        new JsonObject(), new JsonObject(), Collections.emptyList(), complete);
+  }
+}
@@ -0,0 +1,115 @@
+package org.folio.edge.sip2.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.cache.ReferenceDataCache.Type;
+import org.junit.jupiter.api.Test;
+
+class ReferenceDataCacheTests {
+  private static final String TENANT = "diku";
+
+  @Test
+  void canReadThrough() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ReferenceDataCache cache = new ReferenceDataCache(
+        new JsonObject().put("enabled", true), new MutableClock(), registry);
+    final AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      final JsonObject holdings = cache.get(TENANT, Type.HOLDINGS, "h-1", () -> {
+        loads.incrementAndGet();
+        return Future.succeededFuture(new JsonObject().put("instanceId", "i-1"));
+      }).result();
+      assertEquals("i-1", holdings.getString("instanceId"));
+      // callers cannot change the cached record
+      holdings.put("instanceId", "changed");
+    }
+
+    assertEquals(1, loads.get());
+    final String prefix = "org.folio.edge.sip2.cache.reference.";
+    assertEquals(2, registry.get(prefix + "hits").tag("type", "holdings").counter().count());
+    assertEquals(1, registry.get(prefix + "misses").tag("type", "holdings").counter().count());
+  }
+
+  @Test
+  void cannotCacheFailedOrEmptyLoads() {
+    final ReferenceDataCache cache = new ReferenceDataCache(
+        new JsonObject().put("enabled", true), new MutableClock(), new SimpleMeterRegistry());
+
+    cache.get(TENANT, Type.INSTANCE, "i-1", () -> Future.failedFuture("down"));
+    cache.get(TENANT, Type.INSTANCE, "i-2", () -> Future.succeededFuture());
+
+    assertNull(cache.getIfPresent(TENANT, Type.INSTANCE, "i-1"));
+    assertNull(cache.getIfPresent(TENANT, Type.INSTANCE, "i-2"));
+  }
+
+  @Test
+  void canUseTypeTtls() {
+    final MutableClock clock = new MutableClock();
+    final ReferenceDataCache cache = new ReferenceDataCache(new JsonObject()
+        .put("enabled", true)
+        .put("types", new JsonObject()
+            .put("holdings", new JsonObject().put("ttlMs", 1000))
+            .put("instances", new JsonObject().put("ttlMs", 0))),
+        clock, new SimpleMeterRegistry());
+    final JsonObject record = new JsonObject().put("id", "1");
+
+    cache.put(TENANT, Type.HOLDINGS, "1", record);
+    cache.put(TENANT, Type.INSTANCE, "1", record);
+    cache.put(TENANT, Type.FEE_FINE_TYPE, "1", record);
+    clock.advance(Duration.ofMillis(1000));
+
+    assertNull(cache.getIfPresent(TENANT, Type.HOLDINGS, "1"));
+    assertNull(cache.getIfPresent(TENANT, Type.INSTANCE, "1"));
+    assertEquals(record, cache.getIfPresent(TENANT, Type.FEE_FINE_TYPE, "1"));
+  }
+
+  @Test
+  void canIsolateTenants() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ReferenceDataCache cache = new ReferenceDataCache(new JsonObject()
+        .put("enabled", true)
+        .put("types", new JsonObject()
+            .put("feeFineTypes", new JsonObject().put("maxEntries", 10))),
+        new MutableClock(), registry);
+
+    cache.put(TENANT, Type.FEE_FINE_TYPE, "kept", new JsonObject());
+    for (int i = 0; i < 100; i++) {
+      cache.put("busy", Type.FEE_FINE_TYPE, "ff-" + i, new JsonObject());
+    }
+
+    assertEquals(new JsonObject(), cache.getIfPresent(TENANT, Type.FEE_FINE_TYPE, "kept"));
+    assertNull(cache.getIfPresent("busy", Type.FEE_FINE_TYPE, "kept"));
+    assertEquals(10, cache.size("busy", Type.FEE_FINE_TYPE));
+    assertEquals(90, registry.get("org.folio.edge.sip2.cache.reference.evictions")
+        .tag("type", "feeFineTypes").counter().count());
+
+    cache.invalidateTenant(TENANT);
+    assertNull(cache.getIfPresent(TENANT, Type.FEE_FINE_TYPE, "kept"));
+  }
+
+  @Test
+  void canDisable() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ReferenceDataCache cache = ReferenceDataCache.disabled(registry);
+    final AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      cache.get(TENANT, Type.HOLDINGS, "h-1", () -> {
+        loads.incrementAndGet();
+        return Future.succeededFuture(new JsonObject());
+      });
+    }
+
+    assertEquals(2, loads.get());
+    assertTrue(registry.getMeters().isEmpty());
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.edge.sip2.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class TinyLfuStoreTests {
+
+  @Test
+  void canExpireEntries() {
+    final TinyLfuStore<String> store = new TinyLfuStore<>(10, () -> { });
+
+    store.put("a", "A", 1000L);
+
+    assertEquals("A", store.get("a", 999L));
+    assertNull(store.get("a", 1000L));
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  void canKeepFrequentlyUsedEntriesDuringScan() {
+    final AtomicInteger evictions = new AtomicInteger();
+    final TinyLfuStore<String> store = new TinyLfuStore<>(100, evictions::incrementAndGet);
+
+    for (int i = 0; i < 100; i++) {
+      store.put("hot-" + i, "hot", Long.MAX_VALUE);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 100; i++) {
+        store.get("hot-" + i, 0L);
+      }
+    }
+    // a scan of keys used only once
+    for (int i = 0; i < 1000; i++) {
+      store.get("cold-" + i, 0L);
+      store.put("cold-" + i, "cold", Long.MAX_VALUE);
+    }
+
+    int kept = 0;
+    for (int i = 0; i < 100; i++) {
+      if (store.get("hot-" + i, 0L) != null) {
+        kept++;
+      }
+    }
+    assertEquals(100, store.size());
+    assertEquals(1000, evictions.get());
+    // the scan can only displace the odd hot entry
+    assertTrue(kept >= 95, "kept " + kept);
+  }
+
+  @Test
+  void canRemoveAndClear() {
+    final TinyLfuStore<String> store = new TinyLfuStore<>(10, () -> { });
+
+    store.put("a", "A", Long.MAX_VALUE);
+    store.put("b", "B", Long.MAX_VALUE);
+    store.remove("a");
+
+    assertNull(store.get("a", 0L));
+    assertEquals("B", store.get("b", 0L));
+
+    store.clear();
+    assertEquals(0, store.size());
+  }
+}
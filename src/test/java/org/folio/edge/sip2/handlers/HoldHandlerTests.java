@@ -0,0 +1,109 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.domain.messages.enumerations.HoldMode;
+import org.folio.edge.sip2.domain.messages.requests.Hold;
+import org.folio.edge.sip2.domain.messages.responses.HoldResponse;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.repositories.CirculationRepository;
+import org.folio.edge.sip2.session.SessionData;
+import org.folio.okapi.common.refreshtoken.client.ClientException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class HoldHandlerTests {
+
+  @Test
+  void canHoldWithHandler(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock CirculationRepository mockCirculationRepository) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final OffsetDateTime expirationDate = OffsetDateTime.now(clock).plusDays(7);
+
+    when(mockCirculationRepository.performHoldCommand(any(), any()))
+        .thenReturn(Future.succeededFuture(HoldResponse.builder()
+            .ok(TRUE)
+            .available(FALSE)
+            .transactionDate(OffsetDateTime.now(clock))
+            .expirationDate(expirationDate)
+            .queuePosition(2)
+            .pickupLocation("Circ Desk 1")
+            .institutionId("diku")
+            .patronIdentifier("1029384756")
+            .itemIdentifier("453987605438")
+            .titleIdentifier("Some book")
+            .build()));
+
+    final HoldHandler handler = new HoldHandler(mockCirculationRepository,
+        FreemarkerRepository.getInstance().getFreemarkerTemplate(Command.HOLD_RESPONSE));
+
+    final String expectedString = "16" + "1" + "N"
+        + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+        + "BW" + TestUtils.getFormattedLocalDateTime(expirationDate)
+        + "|BR2|BSCirc Desk 1|AOdiku|AA1029384756|AB453987605438|AJSome book|";
+
+    handler.execute(hold(), TestUtils.getMockedSessionData()).onComplete(
+        testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals(expectedString, sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canHoldWithHandlerFail(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock CirculationRepository mockCirculationRepository) {
+    when(mockCirculationRepository.performHoldCommand(any(), any()))
+        .thenReturn(Future.failedFuture(new ClientException("Invalid username")));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setErrorResponseMessage(HoldResponse.builder()
+        .ok(FALSE)
+        .available(FALSE)
+        .transactionDate(OffsetDateTime.now(TestUtils.getUtcFixedClock()))
+        .institutionId("diku")
+        .screenMessage(Collections.singletonList("Invalid username"))
+        .build());
+
+    final HoldHandler handler = new HoldHandler(mockCirculationRepository,
+        FreemarkerRepository.getInstance().getFreemarkerTemplate(Command.HOLD_RESPONSE));
+
+    handler.execute(hold(), sessionData).onComplete(
+        testContext.failing(throwable -> testContext.verify(() -> {
+          assertEquals("Invalid username", throwable.getMessage());
+          final String sipMessage = (String) sessionData.getErrorResponseMessage();
+          assertNotNull(sipMessage);
+          assertEquals("160N", sipMessage.substring(0, 4));
+          testContext.completeNow();
+        })));
+  }
+
+  private static Hold hold() {
+    return Hold.builder()
+        .holdMode(HoldMode.ADD)
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .patronIdentifier("1029384756")
+        .patronPassword("7890")
+        .itemIdentifier("453987605438")
+        .build();
+  }
+}
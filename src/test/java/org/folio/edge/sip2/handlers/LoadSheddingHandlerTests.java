@@ -0,0 +1,96 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.domain.messages.enumerations.Language;
+import org.folio.edge.sip2.domain.messages.requests.Checkin;
+import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.requests.PatronInformation;
+import org.folio.edge.sip2.domain.messages.requests.SCStatus;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class LoadSheddingHandlerTests {
+  private final Clock clock = TestUtils.getUtcFixedClock();
+  private final LoadShedder loadShedder = new LoadShedder(
+      new JsonObject().put("enabled", true).put("screenMessage", "Try later"), clock);
+
+  @Test
+  void canRespondToCheckout(Vertx vertx, VertxTestContext testContext) {
+    final Checkout checkout = Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .patronIdentifier("1234")
+        .itemIdentifier("5678")
+        .build();
+
+    new LoadSheddingHandler(loadShedder, clock)
+        .execute(checkout, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("120NUN" + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AOdiku|AA1234|AB5678|AJ5678|AH|AFTry later|", sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canRespondToCheckin(Vertx vertx, VertxTestContext testContext) {
+    final Checkin checkin = Checkin.builder()
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.now(clock))
+        .returnDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .itemIdentifier("5678")
+        .build();
+
+    new LoadSheddingHandler(loadShedder, clock)
+        .execute(checkin, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("100NUN" + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AOdiku|AB5678|AQ|AJ5678|AFTry later|CS|CV|", sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canRespondToPatronInformation(Vertx vertx, VertxTestContext testContext) {
+    final PatronInformation patronInformation = PatronInformation.builder()
+        .language(Language.ENGLISH)
+        .transactionDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .patronIdentifier("1234")
+        .build();
+
+    new LoadSheddingHandler(loadShedder, clock)
+        .execute(patronInformation, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("64YYYYYYYYYYYYYY000"
+              + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "000000000000000000000000AOdiku|AA1234|AE1234|BE|AFTry later|FU|FV|",
+              sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void cannotRespondToUnsupportedMessage(Vertx vertx, VertxTestContext testContext) {
+    new LoadSheddingHandler(loadShedder, clock)
+        .execute(SCStatus.builder().build(), TestUtils.getMockedSessionData())
+        .onComplete(testContext.failing(e -> testContext.verify(() -> {
+          assertEquals("Try later", e.getMessage());
+          testContext.completeNow();
+        })));
+  }
+}
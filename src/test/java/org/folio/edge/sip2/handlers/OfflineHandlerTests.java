@@ -0,0 +1,73 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.domain.messages.requests.Checkin;
+import org.folio.edge.sip2.repositories.CirculationRepository;
+import org.folio.edge.sip2.repositories.OfflineCirculation;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class OfflineHandlerTests {
+  private final Clock clock = TestUtils.getUtcFixedClock();
+  private final LoadShedder loadShedder = new LoadShedder(
+      new JsonObject().put("enabled", true).put("screenMessage", "Try later"), clock);
+
+  @Test
+  void canAcceptCheckinOffline(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    final OfflineCirculation offlineCirculation = new OfflineCirculation(new JsonObject()
+        .put("enabled", true)
+        .put("directory", directory.toString()), mockCirculationRepository, loadShedder, vertx,
+        new SimpleMeterRegistry());
+
+    new OfflineHandler(offlineCirculation, new LoadSheddingHandler(loadShedder, clock),
+        loadShedder, clock)
+        .execute(checkin(), TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("101YUN" + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AOdiku|AB5678|AQ|AJ5678|AFAccepted while offline|CS|CV|", sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canFailWhenNotJournaled(Vertx vertx, VertxTestContext testContext) {
+    final OfflineCirculation offlineCirculation =
+        OfflineCirculation.disabled(new SimpleMeterRegistry());
+
+    new OfflineHandler(offlineCirculation, new LoadSheddingHandler(loadShedder, clock),
+        loadShedder, clock)
+        .execute(checkin(), TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("100NUN" + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AOdiku|AB5678|AQ|AJ5678|AFTry later|CS|CV|", sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  private Checkin checkin() {
+    return Checkin.builder()
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.now(clock))
+        .returnDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .itemIdentifier("5678")
+        .build();
+  }
+}
@@ -0,0 +1,104 @@
+package org.folio.edge.sip2.handlers;
+
+import static java.lang.Boolean.FALSE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.domain.messages.requests.BlockPatron;
+import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.requests.ItemStatusUpdate;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class UnsupportedMessageHandlerTests {
+  private final Clock clock = TestUtils.getUtcFixedClock();
+  private final UnsupportedMessageHandler handler = new UnsupportedMessageHandler(
+      new LoadSheddingHandler(LoadShedder.disabled(), clock), clock);
+
+  @Test
+  void canDecideWhatIsUnsupported() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    // until the SC Status is answered only the missing handlers count
+    assertTrue(handler.isUnsupported(Command.BLOCK_PATRON, sessionData, false));
+    assertFalse(handler.isUnsupported(Command.CHECKOUT, sessionData, true));
+    assertFalse(handler.isUnsupported(Command.LOGIN, sessionData, true));
+    assertFalse(handler.isUnsupported(Command.SC_STATUS, sessionData, true));
+
+    sessionData.setSupportedMessages(EnumSet.of(Messages.CHECKIN));
+
+    assertTrue(handler.isUnsupported(Command.CHECKOUT, sessionData, true));
+    assertFalse(handler.isUnsupported(Command.CHECKIN, sessionData, true));
+    assertFalse(handler.isUnsupported(Command.LOGIN, sessionData, true));
+  }
+
+  @Test
+  void canRespondToBlockPatron(Vertx vertx, VertxTestContext testContext) {
+    final BlockPatron blockPatron = BlockPatron.builder()
+        .cardRetained(FALSE)
+        .transactionDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .blockedCardMsg("Card retained")
+        .patronIdentifier("1234")
+        .build();
+
+    handler.execute(blockPatron, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("24YYYYYYYYYYYYYY000"
+              + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AOdiku|AA1234|AE1234|AF" + UnsupportedMessageHandler.SCREEN_MESSAGE + "|",
+              sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canRespondToItemStatusUpdate(Vertx vertx, VertxTestContext testContext) {
+    final ItemStatusUpdate itemStatusUpdate = ItemStatusUpdate.builder()
+        .transactionDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .itemIdentifier("5678")
+        .itemProperties("Rare")
+        .build();
+
+    handler.execute(itemStatusUpdate, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("200" + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AB5678|AF" + UnsupportedMessageHandler.SCREEN_MESSAGE + "|", sipMessage);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canRespondToUnsupportedCheckout(Vertx vertx, VertxTestContext testContext) {
+    final Checkout checkout = Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.now(clock))
+        .institutionId("diku")
+        .patronIdentifier("1234")
+        .itemIdentifier("5678")
+        .build();
+
+    handler.execute(checkout, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(sipMessage -> testContext.verify(() -> {
+          assertEquals("120NUN" + TestUtils.getFormattedLocalDateTime(OffsetDateTime.now(clock))
+              + "AOdiku|AA1234|AB5678|AJ5678|AH|AF"
+              + UnsupportedMessageHandler.SCREEN_MESSAGE + "|", sipMessage);
+          testContext.completeNow();
+        })));
+  }
+}
@@ -83,4 +83,24 @@ class MetricsTests {
     assertNotNull(m);
     m.stop();
   }
+
+  @Test
+  void testLoadShed() {
+    final Metrics m = Metrics.getMetrics(1234);
+    final double checkouts = m.loadShedCount(Command.CHECKOUT);
+    final double checkins = m.loadShedCount(Command.CHECKIN);
+    m.loadShed(Command.CHECKOUT);
+    m.loadShed(Command.CHECKOUT);
+    m.loadShed(Command.CHECKIN);
+    assertEquals(checkouts + 2, m.loadShedCount(Command.CHECKOUT));
+    assertEquals(checkins + 1, m.loadShedCount(Command.CHECKIN));
+  }
+
+  @Test
+  void testUnsupported() {
+    final Metrics m = Metrics.getMetrics(1234);
+    final double blocks = m.unsupportedCount(Command.BLOCK_PATRON);
+    m.unsupported(Command.BLOCK_PATRON);
+    assertEquals(blocks + 1, m.unsupportedCount(Command.BLOCK_PATRON));
+  }
 }
@@ -0,0 +1,87 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AccountPagerTests {
+
+  @Test
+  void canFoldUntilShortPage() {
+    final List<Integer> offsets = new ArrayList<>();
+    final AccountPager pager = new AccountPager(new JsonObject().put("pageSize", 3),
+        new SimpleMeterRegistry());
+
+    final Future<Integer> count = pager.fold((offset, limit) -> {
+      offsets.add(offset);
+      return Future.succeededFuture(page(offset, Math.min(limit, 7 - offset)));
+    }, 0, (total, account) -> total + 1);
+
+    assertEquals(7, count.result());
+    assertEquals(List.of(0, 3, 6), offsets);
+  }
+
+  @Test
+  void canStopAtTotalRecords() {
+    final List<Integer> offsets = new ArrayList<>();
+    final AccountPager pager = new AccountPager(new JsonObject().put("pageSize", 2),
+        new SimpleMeterRegistry());
+
+    final Future<Integer> count = pager.fold((offset, limit) -> {
+      offsets.add(offset);
+      return Future.succeededFuture(page(offset, limit).put("totalRecords", 4));
+    }, 0, (total, account) -> total + 1);
+
+    assertEquals(4, count.result());
+    assertEquals(List.of(0, 2), offsets);
+  }
+
+  @Test
+  void canStopAtMaxPages() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final AccountPager pager = new AccountPager(new JsonObject()
+        .put("pageSize", 2).put("maxPages", 3), registry);
+
+    final Future<Integer> count = pager.fold(
+        (offset, limit) -> Future.succeededFuture(page(offset, limit)),
+        0, (total, account) -> total + 1);
+
+    assertEquals(6, count.result());
+    assertEquals(1, registry.get("org.folio.edge.sip2.accounts.truncated").counter().count());
+    assertEquals(3, registry.get("org.folio.edge.sip2.accounts.pages").summary().max());
+  }
+
+  @Test
+  void cannotFoldWhenPageFails() {
+    final AccountPager pager = AccountPager.withDefaults(new SimpleMeterRegistry());
+
+    final Future<Integer> count = pager.fold(
+        (offset, limit) -> Future.failedFuture("accounts unavailable"),
+        0, (total, account) -> total + 1);
+
+    assertTrue(count.failed());
+  }
+
+  @Test
+  void canReadAmountsExactly() {
+    assertEquals(new BigDecimal("0.1"), AccountPager.toAmount(0.1d));
+    assertEquals(new BigDecimal("12.50"), AccountPager.toAmount("12.50"));
+    assertEquals(BigDecimal.ZERO, AccountPager.toAmount(null));
+  }
+
+  private static JsonObject page(int offset, int size) {
+    final JsonArray accounts = new JsonArray();
+    for (int i = 0; i < size; i++) {
+      accounts.add(new JsonObject().put("id", "a" + (offset + i)));
+    }
+    return new JsonObject().put("accounts", accounts);
+  }
+}
@@ -14,8 +14,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
@@ -28,21 +31,29 @@ import io.vertx.junit5.VertxTestContext;
 import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.cache.NegativeResultCache;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
+import org.folio.edge.sip2.domain.messages.enumerations.HoldMode;
 import org.folio.edge.sip2.domain.messages.enumerations.MediaType;
 import org.folio.edge.sip2.domain.messages.requests.Checkin;
 import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.requests.Hold;
 import org.folio.edge.sip2.domain.messages.requests.Renew;
 import org.folio.edge.sip2.domain.messages.requests.RenewAll;
 import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
 import org.folio.edge.sip2.repositories.domain.ExtendedUser;
 import org.folio.edge.sip2.repositories.domain.PatronPasswordVerificationRecords;
 import org.folio.edge.sip2.repositories.domain.User;
+import org.folio.edge.sip2.session.ResponseProfile;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
 import org.folio.okapi.common.refreshtoken.client.ClientException;
@@ -51,6 +62,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -62,7 +74,7 @@ class CirculationRepositoryTests {
       @Mock IResourceProvider<IRequestData> mockFolioResource,
       @Mock PasswordVerifier mockPasswordVerifier,
       @Mock Clock clock) {
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioResource, mockPasswordVerifier, clock);
 
     assertNotNull(circulationRepository);
@@ -72,7 +84,7 @@ class CirculationRepositoryTests {
   void cannotCreateCirculationRepositoryWhenResourceProviderIsNull() {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
-        () -> new CirculationRepository(null, null, null));
+        () -> new CirculationRepository(null, null, null, null, null, null, null, null, null));
 
     assertEquals("Resource provider cannot be null", thrown.getMessage());
   }
@@ -129,7 +141,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckinCommand(checkin, sessionData).onComplete(
         testContext.succeeding(checkinResponse -> testContext.verify(() -> {
@@ -197,7 +209,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckinCommand(checkin, sessionData).onComplete(
         testContext.succeeding(checkinResponse -> testContext.verify(() -> {
@@ -248,7 +260,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckinCommand(checkin, sessionData).onComplete(
         testContext.succeeding(checkinResponse -> testContext.verify(() -> {
@@ -310,7 +322,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -387,7 +399,7 @@ class CirculationRepositoryTests {
         .screenMessage(Collections.singletonList("Incorrect Username"))
         .build());
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.failing(checkoutResponse -> testContext.verify(() -> {
@@ -433,7 +445,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performRenewCommand(renew, sessionData).onComplete(
         testContext.succeeding(renewResponse -> testContext.verify(() -> {
@@ -496,7 +508,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performRenewCommand(renew, sessionData).onComplete(
         testContext.succeeding(renewResponse -> testContext.verify(() -> {
@@ -551,7 +563,7 @@ class CirculationRepositoryTests {
         .put("dueDate", nbDueDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performRenewCommand(renew, sessionData).onComplete(
         testContext.succeeding(renewResponse -> testContext.verify(() -> {
@@ -629,7 +641,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
 
     circulationRepository.performRenewAllCommand(renewAll, sessionData).onComplete(
@@ -673,7 +685,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
 
     circulationRepository.performRenewAllCommand(renewAll, sessionData).onComplete(
@@ -733,7 +745,7 @@ class CirculationRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
     sessionData.setPatronPasswordVerificationRequired(true);
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -796,7 +808,7 @@ class CirculationRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
     sessionData.setPatronPasswordVerificationRequired(true);
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -861,7 +873,7 @@ class CirculationRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
     sessionData.setPatronPasswordVerificationRequired(true);
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performRenewCommand(renew, sessionData).onComplete(
         testContext.succeeding(renewResponse -> testContext.verify(() -> {
@@ -999,7 +1011,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -1070,7 +1082,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -1140,7 +1152,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -1168,6 +1180,47 @@ class CirculationRepositoryTests {
         })));
   }
 
+  @Test
+  void cannotCheckoutWithoutTitleSearchWhenFallbackIsOff(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final String patronIdentifier = "1029384756";
+    final String itemIdentifier = "453987605438";
+    final Checkout checkout = Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .patronIdentifier(patronIdentifier)
+        .itemIdentifier(itemIdentifier)
+        .patronPassword("7890")
+        .build();
+
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable(
+            "{\"errors\" : [ {\"message\" : \"Item is already checked out\"} ]}")));
+    when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder().build()));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setResponseProfile(new ResponseProfile(
+        new JsonObject().put("checkoutTitleFallback", false)));
+
+    final CirculationRepository circulationRepository = newCirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, clock);
+    circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
+        testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
+          assertFalse(checkoutResponse.getOk());
+          assertEquals("", checkoutResponse.getTitleIdentifier());
+          assertEquals(List.of("Item is already checked out"),
+              checkoutResponse.getScreenMessage());
+          verify(mockFolioProvider, never()).retrieveResource(any());
+          testContext.completeNow();
+        })));
+  }
+
   @ParameterizedTest
   @MethodSource("provideCirculationAndTitleNotFound")
   void cannotCheckoutAndTitleNotFoundInSearchandReturnNull(String errorMessage,
@@ -1208,7 +1261,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.performCheckoutCommand(checkout, sessionData).onComplete(
         testContext.succeeding(checkoutResponse -> testContext.verify(() -> {
@@ -1237,6 +1290,31 @@ class CirculationRepositoryTests {
         })));
   }
 
+  @Test
+  void canGetRequestsOfSeveralItemsInOneQuery(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final String expectedPath = "/circulation/requests?query="
+        + Utils.encode("(itemId==(item-1 or item-2) and status=Open and requestType==Recall)")
+        + "&offset=0&limit=" + CirculationRepository.ITEM_REQUESTS_LIMIT;
+
+    when(mockFolioProvider.retrieveResource(
+        argThat((IRequestData data) -> data.getPath().equals(expectedPath))))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("requests", new JsonArray().add(new JsonObject().put("itemId", "item-2")))
+            .put("totalRecords", 1), MultiMap.caseInsensitiveMultiMap())));
+
+    final CirculationRepository circulationRepository = newCirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock());
+    circulationRepository.getRequestsByItemIds(Arrays.asList("item-1", "item-2"), "Recall",
+        TestUtils.getMockedSessionData()).onComplete(
+        testContext.succeeding(requests -> testContext.verify(() -> {
+          assertEquals(1, requests.getInteger("totalRecords"));
+          testContext.completeNow();
+        })));
+  }
+
   @Test
   void canGetLoansByUserId(Vertx vertx,
       VertxTestContext testContext,
@@ -1265,7 +1343,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getLoansByUserId(userId, null, null, sessionData).onComplete(
         testContext.succeeding(loansResponse -> testContext.verify(() -> {
@@ -1295,7 +1373,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getLoansByUserId(userId, null, null, sessionData).onComplete(
         testContext.succeeding(loansResponse -> testContext.verify(() -> {
@@ -1334,7 +1412,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getOverdueLoansByUserId(userId, OffsetDateTime.now(clock), null, null,
         sessionData).onComplete(testContext.succeeding(loansResponse -> testContext.verify(() -> {
@@ -1364,7 +1442,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getOverdueLoansByUserId(userId, OffsetDateTime.now(clock), null, null,
         sessionData).onComplete(testContext.succeeding(loansResponse -> testContext.verify(() -> {
@@ -1403,7 +1481,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getRequestsByItemId(itemId, "Recall", null, null, sessionData)
         .onComplete(testContext.succeeding(requestsResponse -> testContext.verify(() -> {
@@ -1432,7 +1510,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getRequestsByItemId(itemId, "Recall", null, null,
         sessionData).onComplete(testContext.succeeding(
@@ -1467,7 +1545,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getRequestsByUserId(userId, "Hold", null, null, sessionData)
         .onComplete(testContext.succeeding(requestsResponse -> testContext.verify(() -> {
@@ -1497,7 +1575,7 @@ class CirculationRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final CirculationRepository circulationRepository = new CirculationRepository(
+    final CirculationRepository circulationRepository = newCirculationRepository(
         mockFolioProvider, mockPasswordVerifier, clock);
     circulationRepository.getRequestsByUserId(userId, "Hold", null, null,
         sessionData).onComplete(testContext.succeeding(
@@ -1507,4 +1585,326 @@ class CirculationRepositoryTests {
               testContext.completeNow();
             })));
   }
+
+  @Test
+  void canPlaceHold(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final Hold hold = holdBuilder(HoldMode.ADD)
+        .expirationDate(OffsetDateTime.now(clock).plusDays(7))
+        .build();
+
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation ->
+        holdResource(((IRequestData) invocation.getArgument(0)).getPath()));
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("id", "request-1")
+            .put("status", "Open - Not yet filled")
+            .put("position", 2)
+            .put("pickupServicePoint", new JsonObject().put("name", "Circ Desk 1"))
+            .put("instance", new JsonObject().put("title", "Some book")),
+            MultiMap.caseInsensitiveMultiMap())));
+    when(mockPasswordVerifier.verifyPatronPassword(eq("1029384756"), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(verifiedPatron()));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setScLocation("service-point-1");
+
+    final CirculationRepository circulationRepository = newCirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, clock);
+    circulationRepository.performHoldCommand(hold, sessionData).onComplete(
+        testContext.succeeding(holdResponse -> testContext.verify(() -> {
+          assertTrue(holdResponse.getOk());
+          assertFalse(holdResponse.getAvailable());
+          assertEquals(2, holdResponse.getQueuePosition());
+          assertEquals("Circ Desk 1", holdResponse.getPickupLocation());
+          assertEquals("Some book", holdResponse.getTitleIdentifier());
+          assertEquals("453987605438", holdResponse.getItemIdentifier());
+          assertNull(holdResponse.getScreenMessage());
+
+          final ArgumentCaptor<IRequestData> request =
+              ArgumentCaptor.forClass(IRequestData.class);
+          verify(mockFolioProvider).createResource(request.capture());
+          assertEquals("/circulation/requests", request.getValue().getPath());
+          final JsonObject body = request.getValue().getBody();
+          assertEquals("Hold", body.getString("requestType"));
+          assertEquals("item-1", body.getString("itemId"));
+          assertEquals("holdings-1", body.getString("holdingsRecordId"));
+          assertEquals("instance-1", body.getString("instanceId"));
+          assertEquals("service-point-1", body.getString("pickupServicePointId"));
+          assertNotNull(body.getString("requestExpirationDate"));
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canCancelHold(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final Hold hold = holdBuilder(HoldMode.DELETE).build();
+
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation ->
+        holdResource(((IRequestData) invocation.getArgument(0)).getPath()));
+    when(mockFolioProvider.editResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource((JsonObject) null,
+            MultiMap.caseInsensitiveMultiMap())));
+    when(mockPasswordVerifier.verifyPatronPassword(eq("1029384756"), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(verifiedPatron()));
+
+    final CirculationRepository circulationRepository = newCirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, clock);
+    circulationRepository.performHoldCommand(hold, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(holdResponse -> testContext.verify(() -> {
+          assertTrue(holdResponse.getOk());
+          assertEquals("Some book", holdResponse.getTitleIdentifier());
+
+          final ArgumentCaptor<IRequestData> request =
+              ArgumentCaptor.forClass(IRequestData.class);
+          verify(mockFolioProvider).editResource(request.capture());
+          assertEquals("/circulation/requests/request-1", request.getValue().getPath());
+          final JsonObject body = request.getValue().getBody();
+          assertEquals("Closed - Cancelled", body.getString("status"));
+          assertEquals("reason-1", body.getString("cancellationReasonId"));
+          assertNotNull(body.getString("cancelledByUserId"));
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void cannotHoldUnknownItem(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Hold hold = holdBuilder(HoldMode.ADD).build();
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(
+            new JsonObject().put("items", new JsonArray()),
+            MultiMap.caseInsensitiveMultiMap())));
+    when(mockPasswordVerifier.verifyPatronPassword(eq("1029384756"), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(verifiedPatron()));
+
+    final CirculationRepository circulationRepository = newCirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock());
+    circulationRepository.performHoldCommand(hold, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(holdResponse -> testContext.verify(() -> {
+          assertFalse(holdResponse.getOk());
+          assertEquals(List.of("Item not found"), holdResponse.getScreenMessage());
+          verify(mockFolioProvider, never()).createResource(any());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canReplayCheckin(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final OffsetDateTime returnDate = OffsetDateTime.parse("2026-03-01T10:15:30-05:00");
+    final Checkin checkin = Checkin.builder()
+        .noBlock(TRUE)
+        .transactionDate(returnDate)
+        .returnDate(returnDate)
+        .institutionId("diku")
+        .itemIdentifier("1234567890")
+        .build();
+
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap())));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setScLocation("sp-1");
+
+    newCirculationRepository(mockFolioProvider, mockPasswordVerifier,
+        TestUtils.getUtcFixedClock())
+        .replayCheckin(checkin, sessionData)
+        .onComplete(testContext.succeeding(checkedIn -> testContext.verify(() -> {
+          assertTrue(checkedIn);
+          final ArgumentCaptor<IRequestData> request =
+              ArgumentCaptor.forClass(IRequestData.class);
+          verify(mockFolioProvider).createResource(request.capture());
+          assertEquals("/circulation/check-in-by-barcode", request.getValue().getPath());
+          assertEquals(new JsonObject()
+              .put("itemBarcode", "1234567890")
+              .put("servicePointId", "sp-1")
+              .put("checkInDate", "2026-03-01T15:15:30Z"), request.getValue().getBody());
+          // only the check in is made when replaying
+          verify(mockFolioProvider, never()).retrieveResource(any());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canTellRefusedFromFailedReplay(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock UsersRepository mockUsersRepository) {
+    final Checkout checkout = Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(TRUE)
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .patronIdentifier("1029384756")
+        .itemIdentifier("1234567890")
+        .build();
+
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable(
+            "Item is already checked out", 422)))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable("Bad gateway", 502)));
+    when(mockUsersRepository.getUserById(any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+
+    final CirculationRepository circulationRepository = newCirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(),
+        mockUsersRepository);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    circulationRepository.replayCheckout(checkout, sessionData)
+        .onComplete(testContext.succeeding(checkedOut -> testContext.verify(() -> {
+          assertFalse(checkedOut);
+          circulationRepository.replayCheckout(checkout, sessionData)
+              .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+                assertEquals("Bad gateway", throwable.getMessage());
+                testContext.completeNow();
+              })));
+        })));
+  }
+
+  @Test
+  void canReplayCheckoutOfPatronFoundByIdentifier(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock UsersRepository mockUsersRepository) {
+    final Checkout checkout = Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(TRUE)
+        .transactionDate(OffsetDateTime.parse("2026-03-01T10:15:30Z"))
+        .institutionId("diku")
+        .patronIdentifier("external-42")
+        .itemIdentifier("1234567890")
+        .build();
+
+    when(mockUsersRepository.getUserById(eq("external-42"), any()))
+        .thenReturn(Future.succeededFuture(verifiedPatron().getExtendedUser()));
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap())));
+
+    newCirculationRepository(mockFolioProvider, mockPasswordVerifier,
+        TestUtils.getUtcFixedClock(), mockUsersRepository)
+        .replayCheckout(checkout, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(checkedOut -> testContext.verify(() -> {
+          assertTrue(checkedOut);
+          final ArgumentCaptor<IRequestData> request =
+              ArgumentCaptor.forClass(IRequestData.class);
+          verify(mockFolioProvider).createResource(request.capture());
+          // the live checkout sends the barcode of the patron it found as well
+          assertEquals(verifiedPatron().getUser().getBarcode(),
+              request.getValue().getBody().getString("userBarcode"));
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canRetryReplayRefusedForKioskLogin(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final OffsetDateTime returnDate = OffsetDateTime.parse("2026-03-01T10:15:30-05:00");
+    final Checkin checkin = Checkin.builder()
+        .noBlock(TRUE)
+        .transactionDate(returnDate)
+        .returnDate(returnDate)
+        .institutionId("diku")
+        .itemIdentifier("1234567890")
+        .build();
+
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable("Invalid token", 401)));
+
+    newCirculationRepository(mockFolioProvider, mockPasswordVerifier,
+        TestUtils.getUtcFixedClock())
+        .replayCheckin(checkin, TestUtils.getMockedSessionData())
+        // the kiosk's credentials may be renewed, so the checkin is not dropped
+        .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+          assertEquals("Invalid token", throwable.getMessage());
+          testContext.completeNow();
+        })));
+  }
+
+  private static CirculationRepository newCirculationRepository(
+      IResourceProvider<IRequestData> resourceProvider, PasswordVerifier passwordVerifier,
+      Clock clock) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return newCirculationRepository(resourceProvider, passwordVerifier, clock,
+        new UsersRepository(resourceProvider, LookupBatcher.disabled(resourceProvider, registry),
+            NegativeResultCache.disabled(registry)));
+  }
+
+  private static CirculationRepository newCirculationRepository(
+      IResourceProvider<IRequestData> resourceProvider, PasswordVerifier passwordVerifier,
+      Clock clock, UsersRepository usersRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new CirculationRepository(resourceProvider, passwordVerifier, clock,
+        NegativeResultCache.disabled(registry), ItemSnapshotCache.disabled(registry),
+        PatronDetailsCache.disabled(registry),
+        new ItemRepository(resourceProvider, clock,
+            LookupBatcher.disabled(resourceProvider, registry),
+            NegativeResultCache.disabled(registry), ItemSnapshotCache.disabled(registry),
+            ReferenceDataCache.disabled(registry)),
+        ReferenceDataCache.disabled(registry), usersRepository);
+  }
+
+  private static Hold.HoldBuilder holdBuilder(HoldMode holdMode) {
+    return Hold.builder()
+        .holdMode(holdMode)
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .patronIdentifier("1029384756")
+        .patronPassword("7890")
+        .itemIdentifier("453987605438");
+  }
+
+  private static PatronPasswordVerificationRecords verifiedPatron() {
+    final ExtendedUser extendedUser = new ExtendedUser();
+    extendedUser.setUser(Json.decodeValue(getJsonFromFile("json/user_response.json"),
+        User.class));
+    return PatronPasswordVerificationRecords.builder()
+        .extendedUser(extendedUser)
+        .build();
+  }
+
+  private static Future<IResource> holdResource(String path) {
+    final JsonObject resource;
+    if (path.startsWith("/inventory/items")) {
+      resource = new JsonObject().put("items", new JsonArray().add(new JsonObject()
+          .put("id", "item-1")
+          .put("holdingsRecordId", "holdings-1")));
+    } else if (path.startsWith("/holdings-storage")) {
+      resource = new JsonObject().put("id", "holdings-1").put("instanceId", "instance-1");
+    } else if (path.startsWith("/circulation/requests")) {
+      resource = new JsonObject().put("requests", new JsonArray().add(new JsonObject()
+          .put("id", "request-1")
+          .put("status", "Open - Not yet filled")
+          .put("instance", new JsonObject().put("title", "Some book"))));
+    } else if (path.startsWith("/cancellation-reason-storage")) {
+      resource = new JsonObject().put("cancellationReasons", new JsonArray()
+          .add(new JsonObject().put("id", "reason-1").put("name", "Patron Cancelled")));
+    } else {
+      return Future.failedFuture("Unexpected path: " + path);
+    }
+    return Future.succeededFuture(new FolioResource(resource,
+        MultiMap.caseInsensitiveMultiMap()));
+  }
 }
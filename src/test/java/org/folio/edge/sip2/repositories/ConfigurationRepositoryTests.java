@@ -4,7 +4,11 @@ import static io.vertx.core.Future.succeededFuture;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.vertx.core.Vertx;
@@ -15,10 +19,12 @@ import io.vertx.junit5.VertxTestContext;
 import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import org.folio.edge.sip2.api.support.TestUtils;
 import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.resilience.LoadShedder;
 import org.folio.edge.sip2.session.SessionData;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -102,6 +108,7 @@ public class ConfigurationRepositoryTests {
           assertEquals(false, status.getAcsRenewalPolicy());
           assertEquals(true, status.getOffLineOk());
           assertEquals(3, status.getTimeoutPeriod());
+          assertEquals(3, sessionData.getTimeoutPeriod());
           assertEquals(2, status.getRetriesAllowed());
           assertEquals("2.00", status.getProtocolVersion());
           assertEquals("dikutest", status.getInstitutionId());
@@ -152,5 +159,83 @@ public class ConfigurationRepositoryTests {
             testContext.completeNow();
           })));
   }
-}
 
+  @Test
+  public void canGetOffLineAcsStatusWhenShedding(Vertx vertx, VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final LoadShedder loadShedder = openLoadShedder(clock);
+
+    final ConfigurationRepository configurationRepository =
+        new ConfigurationRepository(mockFolioProvider, clock, loadShedder);
+
+    configurationRepository.getACSStatus(TestUtils.getMockedSessionData()).onComplete(
+        testContext.succeeding(status -> testContext.verify(() -> {
+          verify(mockFolioProvider, never()).retrieveResource(any());
+          assertEquals(false, status.getOnLineStatus());
+          assertEquals(false, status.getCheckinOk());
+          assertEquals(false, status.getCheckoutOk());
+          assertEquals(0, status.getTimeoutPeriod());
+          assertEquals(999, status.getRetriesAllowed());
+          assertEquals("dikutest", status.getInstitutionId());
+          assertEquals("testLocation", status.getTerminalLocation());
+          assertTrue(status.getSupportedMessages().isEmpty());
+          assertEquals(Collections.singletonList("Offline"), status.getScreenMessage());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canGetLastKnownAcsStatusOffLineWhenShedding(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final JsonObject scConfigObject = new JsonObject()
+        .put("value", "{\"checkinOk\": true,\"checkoutOk\": true,"
+            + "\"acsRenewalPolicy\": false,\"timeoutPeriod\":3,\"retriesAllowed\":2,"
+            + "\"libraryName\": \"diku\",\"terminalLocation\": \"SE10\"}")
+        .put("module", "edge-sip2")
+        .put("configName", "selfCheckoutConfig.testLocation");
+    final JsonObject resultsWrapper = new JsonObject()
+        .put("configs", new JsonArray().add(scConfigObject));
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(succeededFuture(() -> resultsWrapper));
+
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("failureThreshold", 1)
+        .put("screenMessage", "Offline"), clock);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    final ConfigurationRepository configurationRepository =
+        new ConfigurationRepository(mockFolioProvider, clock, loadShedder);
+
+    configurationRepository.getACSStatus(sessionData)
+        .compose(online -> {
+          loadShedder.requestStarted();
+          loadShedder.requestCompleted(new FolioRequestThrowable("Unavailable", 503));
+          return configurationRepository.getACSStatus(sessionData);
+        })
+        .onComplete(testContext.succeeding(status -> testContext.verify(() -> {
+          verify(mockFolioProvider, times(1)).retrieveResource(any());
+          assertEquals(false, status.getOnLineStatus());
+          assertEquals(true, status.getCheckinOk());
+          assertEquals(3, status.getTimeoutPeriod());
+          assertEquals(2, status.getRetriesAllowed());
+          assertEquals("diku", status.getLibraryName());
+          assertEquals("SE10", status.getTerminalLocation());
+          testContext.completeNow();
+        })));
+  }
+
+  private static LoadShedder openLoadShedder(Clock clock) {
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("failureThreshold", 1)
+        .put("screenMessage", "Offline"), clock);
+    loadShedder.requestStarted();
+    loadShedder.requestCompleted(new FolioRequestThrowable("Unavailable", 503));
+    return loadShedder;
+  }
+}
@@ -10,24 +10,40 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.impl.NoStackTraceThrowable;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.math.BigDecimal;
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.FutureTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.folio.edge.sip2.api.support.MutableClock;
 import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
 import org.folio.edge.sip2.domain.messages.requests.FeePaid;
+import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
 import org.folio.edge.sip2.repositories.domain.ExtendedUser;
 import org.folio.edge.sip2.repositories.domain.User;
 import org.folio.edge.sip2.session.SessionData;
@@ -49,7 +65,7 @@ class FeeFinesRepositoryTests {
       @Mock UsersRepository mockUsersRepository,
       @Mock Clock clock) {
     final FeeFinesRepository feesFineRepository =
-        new FeeFinesRepository(mockFolioResource, mockUsersRepository, clock);
+        newFeeFinesRepository(mockFolioResource, mockUsersRepository, clock);
 
     assertNotNull(feesFineRepository);
   }
@@ -58,7 +74,7 @@ class FeeFinesRepositoryTests {
   void cannotCreateFeeFinesRepositoryWhenResourceProviderIsNull() {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
-        () -> new FeeFinesRepository(null, null, null));
+        () -> new FeeFinesRepository(null, null, null, null, null, null));
 
     assertEquals("Resource provider cannot be null", thrown.getMessage());
   }
@@ -82,7 +98,7 @@ class FeeFinesRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
     final FeeFinesRepository feeFinesRepository
-        = new FeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
+        = newFeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
     feeFinesRepository.getManualBlocksByUserId(UUID.randomUUID().toString(),
         sessionData).onComplete(
             testContext.succeeding(manualBlocks -> testContext.verify(() -> {
@@ -107,7 +123,7 @@ class FeeFinesRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
     final FeeFinesRepository feeFinesRepository
-        = new FeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
+        = newFeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
     feeFinesRepository.getManualBlocksByUserId(UUID.randomUUID().toString(),
         sessionData).onComplete(
             testContext.succeeding(manualBlocks -> testContext.verify(() -> {
@@ -137,7 +153,7 @@ class FeeFinesRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
     final FeeFinesRepository feeFinesRepository
-        = new FeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
+        = newFeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
     feeFinesRepository.getManualBlocksByUserId(userId, sessionData).onComplete(
         testContext.succeeding(manualBlocks -> testContext.verify(() -> {
           assertNotNull(manualBlocks);
@@ -180,7 +196,7 @@ class FeeFinesRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
     final FeeFinesRepository feeFinesRepository
-        = new FeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
+        = newFeeFinesRepository(mockFolioProvider, mockUsersRepository, clock);
     feeFinesRepository.getAccountDataByUserId(UUID.randomUUID().toString(),
         sessionData).onComplete(
           testContext.succeeding(account -> testContext.verify(() -> {
@@ -224,7 +240,7 @@ class FeeFinesRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(
+    final FeeFinesRepository feeFinesRepository = newFeeFinesRepository(
         mockFolioProvider, mockUsersRepository, clock);
 
     feeFinesRepository.getAccountDataByUserId(userId, sessionData).onComplete(
@@ -274,7 +290,7 @@ class FeeFinesRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(
+    final FeeFinesRepository feeFinesRepository = newFeeFinesRepository(
         mockFolioProvider, mockUsersRepository, clock);
 
     feeFinesRepository.getAccountDataByUserId(userId, sessionData).onComplete(
@@ -340,7 +356,7 @@ class FeeFinesRepositoryTests {
 
     when(mockFolioProvider.retrieveResource(
         argThat(arg -> arg.getPath()
-          .endsWith(Utils.encode("userId==" + userId + "  and status.name==Open)")))))
+          .contains(Utils.encode("userId==" + userId + "  and status.name==Open)")))))
         .thenReturn(Future.succeededFuture(new FolioResource(queryAccountResponse,
         MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
 
@@ -348,7 +364,7 @@ class FeeFinesRepositoryTests {
         .thenReturn(Future.succeededFuture(new FolioResource(accountPayResponse,
         MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
 
-    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(
+    final FeeFinesRepository feeFinesRepository = newFeeFinesRepository(
         mockFolioProvider, mockUsersRepository, clock);
 
     feeFinesRepository.performFeePaidCommand(feePaid, sessionData).onComplete(
@@ -363,6 +379,47 @@ class FeeFinesRepositoryTests {
 
   }
 
+  @Test
+  void canDropPatronDetailsOnceFeeIsPaid(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock UsersRepository mockUsersRepository,
+      @Mock PatronDetailsCache mockPatronDetailsCache) {
+    final String patronIdentifier = "1029384756";
+    final String userId = "62628aed-f753-462c-88ca-3def9f870e7a";
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final ExtendedUser extendedUser = new ExtendedUser();
+    extendedUser.setUser(new User.Builder().id(userId).build());
+    when(mockUsersRepository.getUserById(anyString(), any()))
+        .thenReturn(Future.succeededFuture(extendedUser));
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put(FIELD_ACCOUNT, new JsonArray().add(new JsonObject()
+                .put("remaining", 20.43).put("id", UUID.randomUUID().toString()))),
+            MultiMap.caseInsensitiveMultiMap())));
+    final Promise<IResource> payment = Promise.promise();
+    when(mockFolioProvider.createResource(any())).thenReturn(payment.future());
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(mockFolioProvider,
+        mockUsersRepository, TestUtils.getUtcFixedClock(), ReferenceDataCache.disabled(registry),
+        AccountPager.withDefaults(registry), mockPatronDetailsCache);
+    final Future<FeePaidResponse> response = feeFinesRepository.performFeePaidCommand(
+        FeePaid.builder()
+            .institutionId("diku")
+            .patronIdentifier(patronIdentifier)
+            .transactionId(UUID.randomUUID().toString())
+            .feeAmount("20.43")
+            .build(),
+        sessionData);
+
+    // details read while the payment is posted must not outlive it
+    verify(mockPatronDetailsCache, never()).invalidate(any(), any());
+    payment.complete(new FolioResource(new JsonObject(), MultiMap.caseInsensitiveMultiMap()));
+
+    assertTrue(response.result().getPaymentAccepted());
+    verify(mockPatronDetailsCache).invalidate(sessionData, patronIdentifier);
+  }
+
   @Test
   void canGetFeeAmountByUserId(Vertx vertx,
       VertxTestContext testContext,
@@ -383,16 +440,57 @@ class FeeFinesRepositoryTests {
     when(mockFolioProvider.retrieveResource(any()))
         .thenReturn(Future.succeededFuture(new FolioResource(queryAccountResponse,
             MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
-    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(
+    final FeeFinesRepository feeFinesRepository = newFeeFinesRepository(
         mockFolioProvider, mockUsersRepository, clock);
     final SessionData sessionData = TestUtils.getMockedSessionData();
     feeFinesRepository.getFeeAmountByUserId(userId, sessionData).onComplete(
         testContext.succeeding(feeAmount -> testContext.verify(() -> {
+          assertEquals(new BigDecimal("20.43"), feeAmount);
           testContext.completeNow();
         }))
     );
   }
 
+  @Test
+  void canTotalFeeAmountOverSeveralPages(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock UsersRepository mockUsersRepository) {
+    final String userId = "658d7aa7-0dce-4428-a1d0-fd287bbc8476";
+    final List<String> remaining = Arrays.asList("0.1", "0.2", "0.3", "0.4", "0.5");
+    final List<String> paths = new ArrayList<>();
+
+    doAnswer(invocation -> {
+      final String path = ((IRequestData) invocation.getArgument(0)).getPath();
+      paths.add(path);
+      final Matcher matcher = Pattern.compile("offset=(\\d+)&limit=(\\d+)").matcher(path);
+      assertTrue(matcher.find());
+      final int offset = Integer.parseInt(matcher.group(1));
+      final int limit = Integer.parseInt(matcher.group(2));
+      final JsonArray accounts = new JsonArray();
+      for (int i = offset; i < Math.min(offset + limit, remaining.size()); i++) {
+        accounts.add(new JsonObject().put("id", "a" + i)
+            .put("remaining", Double.valueOf(remaining.get(i))));
+      }
+      return Future.succeededFuture(new FolioResource(new JsonObject()
+          .put("accounts", accounts).put("totalRecords", remaining.size()),
+          MultiMap.caseInsensitiveMultiMap()));
+    }).when(mockFolioProvider).retrieveResource(any());
+
+    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(
+        mockFolioProvider, mockUsersRepository, TestUtils.getUtcFixedClock(),
+        ReferenceDataCache.disabled(new SimpleMeterRegistry()),
+        new AccountPager(new JsonObject().put("pageSize", 2), new SimpleMeterRegistry()),
+        PatronDetailsCache.disabled(new SimpleMeterRegistry()));
+    feeFinesRepository.getFeeAmountByUserId(userId, TestUtils.getMockedSessionData())
+        .onComplete(testContext.succeeding(feeAmount -> testContext.verify(() -> {
+          assertEquals(new BigDecimal("1.5"), feeAmount);
+          assertEquals(3, paths.size());
+          assertTrue(paths.get(2).startsWith("/accounts?offset=4&limit=2&query="));
+          testContext.completeNow();
+        })));
+  }
+
   @Test
   void cannotPerformFeePaidCommandWithOverpay(Vertx vertx,
       VertxTestContext testContext,
@@ -432,12 +530,12 @@ class FeeFinesRepositoryTests {
 
     when(mockFolioProvider.retrieveResource(
         argThat(arg -> arg.getPath()
-            .endsWith(Utils.encode("userId==" + userId + "  and status.name==Open)")))))
+            .contains(Utils.encode("userId==" + userId + "  and status.name==Open)")))))
         .thenReturn(Future.succeededFuture(new FolioResource(queryAccountResponse,
         MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
 
 
-    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(
+    final FeeFinesRepository feeFinesRepository = newFeeFinesRepository(
         mockFolioProvider, mockUsersRepository, clock);
 
     feeFinesRepository.performFeePaidCommand(feePaid, sessionData).onComplete(
@@ -448,4 +546,93 @@ class FeeFinesRepositoryTests {
         }))
     );
   }
+
+  @Test
+  void canReadOnlyUncachedFeeFineTypes(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock UsersRepository mockUsersRepository) {
+    final JsonObject lostItemFee = new JsonObject().put("id", "ff-1")
+        .put("feeFineType", "Lost item fee");
+    final JsonObject overdueFine = new JsonObject().put("id", "ff-2")
+        .put("feeFineType", "Overdue fine");
+    doReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+        .put("feefines", new JsonArray().add(lostItemFee)), MultiMap.caseInsensitiveMultiMap())))
+        .when(mockFolioProvider).retrieveResource(
+            argThat((IRequestData data) -> data.getPath().equals(
+                "/feefines?query=((id==ff-1))&limit=1")));
+    doReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+        .put("feefines", new JsonArray().add(overdueFine)), MultiMap.caseInsensitiveMultiMap())))
+        .when(mockFolioProvider).retrieveResource(
+            argThat((IRequestData data) -> data.getPath().equals(
+                "/feefines?query=((id==ff-2))&limit=1")));
+
+    final ReferenceDataCache referenceDataCache = new ReferenceDataCache(
+        new JsonObject().put("enabled", true), new MutableClock(), new SimpleMeterRegistry());
+    final FeeFinesRepository feeFinesRepository = new FeeFinesRepository(mockFolioProvider,
+        mockUsersRepository, TestUtils.getUtcFixedClock(), referenceDataCache,
+        AccountPager.withDefaults(new SimpleMeterRegistry()),
+        PatronDetailsCache.disabled(new SimpleMeterRegistry()));
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    feeFinesRepository.getFeeFinesByIds(Arrays.asList("ff-1"), sessionData);
+    final JsonObject feeFines = feeFinesRepository
+        .getFeeFinesByIds(Arrays.asList("ff-1", "ff-2"), sessionData).result();
+
+    assertEquals(2, feeFines.getJsonArray("feefines").size());
+    assertEquals("Lost item fee",
+        feeFines.getJsonArray("feefines").getJsonObject(0).getString("feeFineType"));
+    verify(mockFolioProvider, times(2)).retrieveResource(any());
+  }
+
+  @Test
+  void canLookUpFeeFineTypesInChunks(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock UsersRepository mockUsersRepository) {
+    final String userId = "2205005b-ca51-4a04-87fd-938eefa8f6de";
+    final int typeCount = FeeFinesRepository.FEE_FINE_IDS_PER_QUERY * 2 + 20;
+    final JsonArray accounts = new JsonArray();
+    for (int i = 0; i < typeCount * 2; i++) {
+      accounts.add(new JsonObject().put("id", "account-" + i)
+          .put("feeFineId", "ff-" + (i % typeCount)));
+    }
+    doReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+        .put(FIELD_ACCOUNT, accounts), MultiMap.caseInsensitiveMultiMap())))
+        .when(mockFolioProvider).retrieveResource(
+            argThat((IRequestData data) -> data.getPath().startsWith("/accounts?")));
+    final List<String> feeFinePaths = new ArrayList<>();
+    doAnswer(invocation -> {
+      final String path = invocation.<IRequestData>getArgument(0).getPath();
+      feeFinePaths.add(path);
+      final JsonArray feeFines = new JsonArray();
+      final Matcher matcher = Pattern.compile("id==(ff-[0-9]+)").matcher(path);
+      while (matcher.find()) {
+        feeFines.add(new JsonObject().put("id", matcher.group(1))
+            .put("feeFineType", "Type " + matcher.group(1)));
+      }
+      return Future.succeededFuture(new FolioResource(new JsonObject()
+          .put("feefines", feeFines), MultiMap.caseInsensitiveMultiMap()));
+    }).when(mockFolioProvider).retrieveResource(
+        argThat((IRequestData data) -> data.getPath().startsWith("/feefines?")));
+
+    final FeeFinesRepository feeFinesRepository = newFeeFinesRepository(
+        mockFolioProvider, mockUsersRepository, TestUtils.getUtcFixedClock());
+    final JsonObject accountJson = feeFinesRepository
+        .getAccountDataByUserId(userId, TestUtils.getMockedSessionData()).result();
+
+    assertEquals(3, feeFinePaths.size());
+    final JsonArray populated = accountJson.getJsonArray(FIELD_ACCOUNT);
+    for (int i = 0; i < populated.size(); i++) {
+      assertEquals("Type ff-" + (i % typeCount),
+          populated.getJsonObject(i).getString("feeFineType"));
+    }
+  }
+
+  private static FeeFinesRepository newFeeFinesRepository(
+      IResourceProvider<IRequestData> resourceProvider, UsersRepository usersRepository,
+      Clock clock) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new FeeFinesRepository(resourceProvider, usersRepository, clock,
+        ReferenceDataCache.disabled(registry), AccountPager.withDefaults(registry),
+        PatronDetailsCache.disabled(registry));
+  }
 }
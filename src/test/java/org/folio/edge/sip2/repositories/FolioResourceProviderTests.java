@@ -2,14 +2,37 @@ package org.folio.edge.sip2.repositories;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.junit5.Timeout;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.resilience.CircuitBreaker;
+import org.folio.edge.sip2.resilience.ConcurrencyLimiter;
+import org.folio.edge.sip2.resilience.Deadline;
+import org.folio.edge.sip2.resilience.DeadlineExceededThrowable;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.resilience.ModuleIsolation;
+import org.folio.edge.sip2.resilience.RequestCoalescer;
+import org.folio.edge.sip2.resilience.RequestHedger;
+import org.folio.edge.sip2.resilience.RequestRejectedThrowable;
+import org.folio.edge.sip2.resilience.RequestRetrier;
 import org.folio.edge.sip2.session.SessionData;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -19,6 +42,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 @ExtendWith(VertxExtension.class)
 public class FolioResourceProviderTests {
   private static int port;
+  private static final AtomicInteger coalescedRequests = new AtomicInteger();
+  private static final AtomicInteger flakyRequests = new AtomicInteger();
 
   @Timeout(5000)
   @BeforeAll
@@ -31,12 +56,45 @@ public class FolioResourceProviderTests {
               .putHeader("content-type", "application/json")
               .putHeader("x-okapi-token", "token-value")
               .end("{\"test\":\"value\"}");
+        } else if (req.path().equals("/test_slow")) {
+          vertx.setTimer(5000, id -> req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end("{\"test\":\"value\"}"));
+        } else if (req.path().equals("/test_coalesce")) {
+          coalescedRequests.incrementAndGet();
+          vertx.setTimer(200, id -> req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end("{\"test\":\"value\"}"));
+        } else if (req.path().equals("/test_route/items")) {
+          req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end(new JsonObject()
+                  .put("okapiUrl", req.getHeader("x-okapi-url"))
+                  .encode());
+        } else if (req.path().equals("/test_flaky")) {
+          if (flakyRequests.incrementAndGet() == 1) {
+            req.response()
+                .setStatusCode(503)
+                .end("Service unavailable");
+          } else {
+            req.response()
+                .setStatusCode(200)
+                .putHeader("content-type", "application/json")
+                .end("{\"test\":\"value\"}");
+          }
         } else if (req.path().equals("/test_create")) {
           req.response()
               .setStatusCode(201)
               .putHeader("content-type", "application/json")
               .putHeader("x-okapi-token", "token-value")
               .end("{\"test\":\"value\"}");
+        } else if (req.path().equals("/test_edit") && req.method() == HttpMethod.PUT) {
+          req.response()
+              .setStatusCode(204)
+              .end();
         } else {
           req.response()
               .setStatusCode(500)
@@ -133,6 +191,331 @@ public class FolioResourceProviderTests {
         })));
   }
 
+  @Test
+  public void canEdit(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, WebClient.create(vertx));
+    folioResourceProvider.editResource(new FolioRequestData() {
+      @Override
+      public String getPath() {
+        return "/test_edit";
+      }
+
+      @Override
+      public JsonObject getBody() {
+        return new JsonObject().put("test", "value");
+      }
+    }).onComplete(testContext.succeeding(resource -> testContext.verify(() -> {
+      assertNull(resource.getResource());
+
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  public void canReportOutcomesToLoadShedder(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("failureThreshold", 1), Clock.systemUTC());
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        OkapiEndpoints.single("http://localhost:" + port),
+        ModuleRoutes.disabled(new SimpleMeterRegistry()),
+        FolioWebClients.of(WebClient.create(vertx)), loadShedder,
+        ModuleIsolation.disabled(new SimpleMeterRegistry()),
+        RequestCoalescer.disabled(new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        RequestRetrier.disabled(new SimpleMeterRegistry()),
+        ConcurrencyLimiter.disabled(new SimpleMeterRegistry()));
+
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_retrieve")
+        .compose(resource -> {
+          assertEquals(0, loadShedder.getInFlight());
+          assertTrue(!loadShedder.isShedding());
+          return folioResourceProvider.retrieveResource(
+              (FolioRequestData)() -> "/test_retrieve_bad");
+        })
+        .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+          assertEquals(500, ((FolioRequestThrowable) throwable).getStatusCode());
+          assertEquals(0, loadShedder.getInFlight());
+          assertTrue(loadShedder.isShedding());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canRejectRequestsToFailingModule(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final ModuleIsolation moduleIsolation = new ModuleIsolation(new JsonObject()
+        .put("enabled", true)
+        .put("defaults", new JsonObject().put("failureThreshold", 1)),
+        Clock.systemUTC(), new SimpleMeterRegistry());
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        OkapiEndpoints.single("http://localhost:" + port),
+        ModuleRoutes.disabled(new SimpleMeterRegistry()),
+        FolioWebClients.of(WebClient.create(vertx)), LoadShedder.disabled(),
+        moduleIsolation, RequestCoalescer.disabled(new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        RequestRetrier.disabled(new SimpleMeterRegistry()),
+        ConcurrencyLimiter.disabled(new SimpleMeterRegistry()));
+
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/search/instances")
+        .recover(throwable -> folioResourceProvider.retrieveResource(
+            (FolioRequestData)() -> "/search/instances"))
+        .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+          assertTrue(throwable instanceof RequestRejectedThrowable);
+          assertEquals("search is temporarily unavailable", throwable.getMessage());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canCoalesceIdenticalRequests(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        OkapiEndpoints.single("http://localhost:" + port),
+        ModuleRoutes.disabled(new SimpleMeterRegistry()),
+        FolioWebClients.of(WebClient.create(vertx)), LoadShedder.disabled(),
+        ModuleIsolation.disabled(new SimpleMeterRegistry()),
+        new RequestCoalescer(new JsonObject().put("enabled", true), new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        RequestRetrier.disabled(new SimpleMeterRegistry()),
+        ConcurrencyLimiter.disabled(new SimpleMeterRegistry()));
+
+    final Future<IResource> first =
+        folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_coalesce");
+    final Future<IResource> second =
+        folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_coalesce");
+
+    CompositeFuture.all(first, second).onComplete(
+        testContext.succeeding(result -> testContext.verify(() -> {
+          assertEquals(1, coalescedRequests.get());
+          assertEquals(first.result().getResource(), second.result().getResource());
+          assertNotSame(first.result().getResource(), second.result().getResource());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canSteerRequestsAwayFromFailingEndpoint(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final OkapiEndpoints okapiEndpoints = new OkapiEndpoints(
+        Arrays.asList("http://localhost:1", "http://localhost:" + port),
+        new JsonObject().put("failureThreshold", 1), Clock.systemUTC(),
+        new SimpleMeterRegistry());
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        okapiEndpoints, ModuleRoutes.disabled(new SimpleMeterRegistry()),
+        FolioWebClients.of(WebClient.create(vertx)), LoadShedder.disabled(),
+        ModuleIsolation.disabled(new SimpleMeterRegistry()),
+        RequestCoalescer.disabled(new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        RequestRetrier.disabled(new SimpleMeterRegistry()),
+        ConcurrencyLimiter.disabled(new SimpleMeterRegistry()));
+
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_retrieve")
+        .recover(throwable -> folioResourceProvider.retrieveResource(
+            (FolioRequestData)() -> "/test_retrieve"))
+        .compose(resource -> folioResourceProvider.retrieveResource(
+            (FolioRequestData)() -> "/test_retrieve"))
+        .onComplete(testContext.succeeding(resource -> testContext.verify(() -> {
+          assertEquals("value", resource.getResource().getString("test"));
+          assertEquals(CircuitBreaker.State.OPEN,
+              okapiEndpoints.getEndpoints().get(0).getCircuitBreaker().getState());
+          assertEquals("http://localhost:" + port, okapiEndpoints.getUrl());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canRouteRequestsDirectlyToModule(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final ModuleRoutes moduleRoutes = new ModuleRoutes(new JsonObject()
+        .put("enabled", true)
+        .put("routes", new JsonObject().put("/test_route", "http://localhost:" + port)),
+        new SimpleMeterRegistry());
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        OkapiEndpoints.single("http://localhost:1"), moduleRoutes,
+        FolioWebClients.of(WebClient.create(vertx)), LoadShedder.disabled(),
+        ModuleIsolation.disabled(new SimpleMeterRegistry()),
+        RequestCoalescer.disabled(new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        RequestRetrier.disabled(new SimpleMeterRegistry()),
+        ConcurrencyLimiter.disabled(new SimpleMeterRegistry()));
+
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_route/items")
+        .onComplete(testContext.succeeding(resource -> testContext.verify(() -> {
+          assertEquals("http://localhost:1", resource.getResource().getString("okapiUrl"));
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canRetryTransientFailure(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        OkapiEndpoints.single("http://localhost:" + port),
+        ModuleRoutes.disabled(new SimpleMeterRegistry()),
+        FolioWebClients.of(WebClient.create(vertx)), LoadShedder.disabled(),
+        ModuleIsolation.disabled(new SimpleMeterRegistry()),
+        RequestCoalescer.disabled(new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        new RequestRetrier(new JsonObject().put("enabled", true), new SimpleMeterRegistry()),
+        ConcurrencyLimiter.disabled(new SimpleMeterRegistry()));
+
+    vertx.runOnContext(v -> folioResourceProvider
+        .retrieveResource((FolioRequestData)() -> "/test_flaky")
+        .onComplete(testContext.succeeding(resource -> testContext.verify(() -> {
+          assertEquals("value", resource.getResource().getString("test"));
+          assertEquals(2, flakyRequests.get());
+
+          testContext.completeNow();
+        }))));
+  }
+
+  @Test
+  public void canLimitEveryRequestOfTenant(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider = new FolioResourceProvider(
+        OkapiEndpoints.single("http://localhost:" + port),
+        ModuleRoutes.disabled(new SimpleMeterRegistry()),
+        FolioWebClients.of(WebClient.create(vertx)), LoadShedder.disabled(),
+        ModuleIsolation.disabled(new SimpleMeterRegistry()),
+        RequestCoalescer.disabled(new SimpleMeterRegistry()),
+        RequestHedger.disabled(new SimpleMeterRegistry()),
+        RequestRetrier.disabled(new SimpleMeterRegistry()),
+        new ConcurrencyLimiter(new JsonObject()
+            .put("enabled", true)
+            .put("minLimit", 1)
+            .put("maxLimit", 1)
+            .put("maxQueue", 0), new SimpleMeterRegistry()));
+
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_slow");
+    // updates are held to the limit like reads
+    folioResourceProvider.editResource(new FolioRequestData() {
+      @Override
+      public String getPath() {
+        return "/test_edit";
+      }
+
+      @Override
+      public JsonObject getBody() {
+        return new JsonObject().put("test", "value");
+      }
+    }).onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+      assertTrue(throwable instanceof RequestRejectedThrowable);
+
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  public void cannotRequestAfterDeadline(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final MutableClock clock = new MutableClock();
+    final SessionData sessionData = getSessionData()
+        .forTransaction(Deadline.after(Duration.ofSeconds(1), clock));
+    clock.advance(Duration.ofSeconds(1));
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, WebClient.create(vertx));
+
+    folioResourceProvider.retrieveResource(new DeadlineRequestData("/test_retrieve", sessionData))
+        .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+          assertTrue(throwable instanceof DeadlineExceededThrowable);
+          assertEquals("Transaction deadline exceeded before requesting /test_retrieve",
+              throwable.getMessage());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void cannotRequestWithoutTimeLeft(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final AtomicInteger reads = new AtomicInteger();
+    final MutableClock clock = new MutableClock() {
+      @Override
+      public Instant instant() {
+        // the deadline passes after it was checked, before the timeout is read
+        if (reads.incrementAndGet() == 4) {
+          advance(Duration.ofSeconds(1));
+        }
+        return super.instant();
+      }
+    };
+    final SessionData sessionData = getSessionData()
+        .forTransaction(Deadline.after(Duration.ofSeconds(1), clock));
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, WebClient.create(vertx));
+
+    folioResourceProvider.retrieveResource(new DeadlineRequestData("/test_retrieve", sessionData))
+        .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+          assertTrue(throwable instanceof DeadlineExceededThrowable);
+          assertEquals(4, reads.get());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canTimeoutRequestAtDeadline(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final SessionData sessionData = getSessionData()
+        .forTransaction(Deadline.after(Duration.ofMillis(1000), Clock.systemUTC()));
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, WebClient.create(vertx));
+
+    folioResourceProvider.retrieveResource(new DeadlineRequestData("/test_slow", sessionData))
+        .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+          assertTrue(throwable instanceof TimeoutException);
+
+          testContext.completeNow();
+        })));
+  }
+
+  private static SessionData getSessionData() {
+    SessionData sessionData = SessionData.createSession("diku", '|', true, "IBM850");
+    sessionData.setUsername("testUser");
+    sessionData.setPassword("testpassword");
+    return sessionData;
+  }
+
+  private static class DeadlineRequestData implements IRequestData {
+    private final String path;
+    private final SessionData sessionData;
+
+    DeadlineRequestData(String path, SessionData sessionData) {
+      this.path = path;
+      this.sessionData = sessionData;
+    }
+
+    @Override
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public SessionData getSessionData() {
+      return sessionData;
+    }
+  }
+
   private interface FolioRequestData extends IRequestData {
     @Override
     default SessionData getSessionData() {
@@ -0,0 +1,141 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class FolioWebClientsTests {
+  private static int port;
+
+  @Timeout(5000)
+  @BeforeAll
+  static void setup(Vertx vertx, VertxTestContext testContext) {
+    vertx.createHttpServer()
+        .requestHandler(req -> vertx.setTimer(50, id -> req.response()
+            .setStatusCode(200)
+            .putHeader("content-type", "application/json")
+            .end("{\"test\":\"value\"}")))
+        .listen(0)
+        .onSuccess(httpServer -> port = httpServer.actualPort())
+        .onComplete(testContext.succeedingThenComplete());
+  }
+
+  @AfterAll
+  static void tearDown(Vertx vertx, VertxTestContext testContext) {
+    vertx.close(testContext.succeedingThenComplete());
+  }
+
+  @Test
+  void canCreateWebClientsFromConfig(Vertx vertx) {
+    final FolioWebClients webClients = FolioWebClients.create(vertx, new JsonObject()
+        .put(FolioWebClients.CONFIG_KEY, new JsonObject()
+            .put("maxPoolSize", 50)
+            .put("maxWaitQueueSize", 200)
+            .put("keepAliveTimeout", 30)
+            .put("protocolVersion", "HTTP_2")
+            .put("http2ClearTextUpgrade", false)
+            .put("tryUseCompression", true)
+            .put("connectTimeout", 2000)
+            .put("idleTimeout", 60)), new SimpleMeterRegistry());
+
+    final WebClientOptions options = webClients.getOptions();
+    assertEquals(50, options.getMaxPoolSize());
+    assertEquals(200, options.getMaxWaitQueueSize());
+    assertEquals(30, options.getKeepAliveTimeout());
+    assertEquals(HttpVersion.HTTP_2, options.getProtocolVersion());
+    assertFalse(options.isHttp2ClearTextUpgrade());
+    assertTrue(options.isTryUseCompression());
+    assertEquals(2000, options.getConnectTimeout());
+    assertEquals(60, options.getIdleTimeout());
+    assertFalse(webClients.isPerTenant());
+
+    webClients.close();
+  }
+
+  @Test
+  void canShareWebClientByDefault(Vertx vertx) {
+    final FolioWebClients webClients =
+        FolioWebClients.create(vertx, null, new SimpleMeterRegistry());
+
+    assertSame(webClients.getWebClient(), webClients.forTenant("diku"));
+    assertSame(webClients.getWebClient(), webClients.forTenant("other"));
+
+    webClients.close();
+  }
+
+  @Test
+  void canIsolateTenantWebClients(Vertx vertx) {
+    final FolioWebClients webClients = FolioWebClients.create(vertx, new JsonObject()
+        .put(FolioWebClients.PER_TENANT_CONFIG_KEY, true), new SimpleMeterRegistry());
+
+    final WebClient diku = webClients.forTenant("diku");
+    assertSame(diku, webClients.forTenant("diku"));
+    assertNotSame(diku, webClients.forTenant("other"));
+    assertNotSame(diku, webClients.getWebClient());
+    assertSame(webClients.getWebClient(), webClients.forTenant(null));
+
+    webClients.close();
+  }
+
+  @Test
+  void canUseExistingWebClient(Vertx vertx) {
+    final WebClient webClient = WebClient.create(vertx);
+    final FolioWebClients webClients = FolioWebClients.of(webClient);
+
+    assertSame(webClient, webClients.getWebClient());
+    assertSame(webClient, webClients.forTenant("diku"));
+    assertThrows(NullPointerException.class, () -> FolioWebClients.of(null));
+
+    webClient.close();
+  }
+
+  @Test
+  void canReportPoolMetrics(VertxTestContext testContext) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final Vertx vertx = Vertx.vertx(new VertxOptions()
+        .setMetricsOptions(new MicrometerMetricsOptions()
+            .setEnabled(true)
+            .setMicrometerRegistry(registry)));
+    final FolioWebClients webClients = FolioWebClients.create(vertx, new JsonObject()
+        .put(FolioWebClients.CONFIG_KEY, new JsonObject().put("maxPoolSize", 1))
+        .put(FolioWebClients.PER_TENANT_CONFIG_KEY, true), registry);
+    final WebClient webClient = webClients.forTenant("diku");
+
+    // with a single connection the second request waits for the first
+    CompositeFuture.all(
+        webClient.getAbs("http://localhost:" + port + "/first").send(),
+        webClient.getAbs("http://localhost:" + port + "/second").send())
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          assertEquals(2, registry.get("vertx.http.client.queue.time").timer().count());
+          assertTrue(registry.get("vertx.http.client.queue.time").timer()
+              .max(TimeUnit.MILLISECONDS) >= 40);
+          assertEquals(1, registry.get("org.folio.edge.sip2.folio.client.connections")
+              .tag("pool", "diku").gauge().value());
+
+          webClients.close();
+          vertx.close(testContext.succeedingThenComplete());
+        })));
+  }
+}
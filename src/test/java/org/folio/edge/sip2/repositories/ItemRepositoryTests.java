@@ -7,8 +7,11 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
 import io.vertx.core.json.JsonObject;
@@ -16,8 +19,13 @@ import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import java.time.Clock;
 import java.time.OffsetDateTime;
+import org.folio.edge.sip2.api.support.MutableClock;
 import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.cache.NegativeResultCache;
+import org.folio.edge.sip2.cache.ReferenceDataCache;
 import org.folio.edge.sip2.domain.messages.requests.ItemInformation;
+import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
 import org.folio.edge.sip2.session.SessionData;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,7 +39,7 @@ class ItemRepositoryTests {
   void canCreateItemRepository(
       @Mock IResourceProvider<IRequestData> mockFolioResource,
       @Mock Clock clock) {
-    final ItemRepository ItemRepository = new ItemRepository(
+    final ItemRepository ItemRepository = newItemRepository(
         mockFolioResource, clock);
 
     assertNotNull(ItemRepository);
@@ -41,7 +49,7 @@ class ItemRepositoryTests {
    void cannotCreateItemRepositoryWhenResourceProviderIsNull() {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
-        () -> new ItemRepository(null, null));
+        () -> new ItemRepository(null, null, null, null, null, null));
 
     assertEquals("Resource provider cannot be null", thrown.getMessage());
   }
@@ -79,7 +87,7 @@ class ItemRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final ItemRepository ItemRepository = new ItemRepository(
+    final ItemRepository ItemRepository = newItemRepository(
         mockFolioProvider, clock);
     ItemRepository.performItemInformationCommand(itemInformation, sessionData).onComplete(
         testContext.succeeding(itemInformationResponse -> testContext.verify(() -> {
@@ -117,7 +125,7 @@ class ItemRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final ItemRepository ItemRepository = new ItemRepository(
+    final ItemRepository ItemRepository = newItemRepository(
         mockFolioProvider, clock);
     ItemRepository.performItemInformationCommand(itemInformation, sessionData).onComplete(
         testContext.failing(throwable -> testContext.verify(() -> {
@@ -125,4 +133,53 @@ class ItemRepositoryTests {
           testContext.completeNow();
         })));
   }
+
+  @Test
+  void canReadItemThroughSnapshotCache(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final JsonObject itemInformationRes = new JsonObject(getJsonFromFile(
+        "json/item_information_response.json"));
+    final ItemInformation itemInformation = ItemInformation.builder()
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .itemIdentifier("230317")
+        .terminalPassword("1234")
+        .build();
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(itemInformationRes,
+        MultiMap.caseInsensitiveMultiMap())));
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final MutableClock clock = new MutableClock();
+    final ItemSnapshotCache itemSnapshotCache = new ItemSnapshotCache(
+        new JsonObject().put("enabled", true).put("volatileTtlMs", 5000), clock, registry);
+    final ItemRepository itemRepository = new ItemRepository(mockFolioProvider, clock,
+        LookupBatcher.disabled(mockFolioProvider, registry),
+        NegativeResultCache.disabled(registry), itemSnapshotCache,
+        ReferenceDataCache.disabled(registry));
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    final ItemInformationResponse first = itemRepository
+        .performItemInformationCommand(itemInformation, sessionData).result();
+    final ItemInformationResponse second = itemRepository
+        .performItemInformationCommand(itemInformation, sessionData).result();
+
+    assertEquals("Fool moon", first.getTitleIdentifier());
+    assertEquals(first.getTitleIdentifier(), second.getTitleIdentifier());
+    assertEquals(first.getCirculationStatus(), second.getCirculationStatus());
+    verify(mockFolioProvider, times(1)).retrieveResource(argThat((IRequestData data) ->
+        data.getPath().startsWith("/inventory/items")));
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.item.hits")
+        .tag("read", "item").counter().count());
+  }
+
+  private static ItemRepository newItemRepository(
+      IResourceProvider<IRequestData> resourceProvider, Clock clock) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new ItemRepository(resourceProvider, clock,
+        LookupBatcher.disabled(resourceProvider, registry),
+        NegativeResultCache.disabled(registry), ItemSnapshotCache.disabled(registry),
+        ReferenceDataCache.disabled(registry));
+  }
 }
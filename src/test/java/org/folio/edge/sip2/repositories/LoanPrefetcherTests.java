@@ -0,0 +1,117 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.cache.ItemSnapshotCache;
+import org.folio.edge.sip2.resilience.Deadline;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LoanPrefetcherTests {
+
+  @Test
+  void canPrefetchLoanedItemsWithinConcurrencyCap(@Mock ItemRepository mockItemRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ItemSnapshotCache cache = new ItemSnapshotCache(new JsonObject().put("enabled", true),
+        new MutableClock(), registry);
+    final List<Promise<Void>> reads = new ArrayList<>();
+    when(mockItemRepository.prefetchItem(any(), any())).thenAnswer(invocation -> {
+      final Promise<Void> read = Promise.promise();
+      reads.add(read);
+      return read.future();
+    });
+    final LoanPrefetcher prefetcher = new LoanPrefetcher(new JsonObject()
+        .put("enabled", true)
+        .put("maxConcurrency", 1), mockItemRepository, cache, registry);
+    final SessionData sessionData = TestUtils.getMockedSessionData()
+        .forTransaction(Deadline.after(Duration.ofSeconds(1), new MutableClock()));
+
+    prefetcher.prefetch(loans("111", "222", "111"), sessionData);
+
+    assertEquals("Title 222", cache.getTitle("dikutest", "222"));
+    assertEquals(1, reads.size());
+    assertEquals(1, prefetcher.queued());
+    final ArgumentCaptor<SessionData> session = ArgumentCaptor.forClass(SessionData.class);
+    verify(mockItemRepository).prefetchItem(eq("111"), session.capture());
+    // the background reads are not bound by the deadline of the transaction
+    assertFalse(session.getValue().getDeadline().isBounded());
+    assertSame(sessionData.getSession(), session.getValue());
+
+    reads.get(0).complete();
+    reads.get(1).fail("item unavailable");
+
+    verify(mockItemRepository, times(1)).prefetchItem(eq("222"), any());
+    assertEquals(0, prefetcher.queued());
+    assertEquals(1, registry.get("org.folio.edge.sip2.prefetch.items")
+        .tag("outcome", "fetched").counter().count());
+    assertEquals(1, registry.get("org.folio.edge.sip2.prefetch.items")
+        .tag("outcome", "failed").counter().count());
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.item.prefetch.hits")
+        .tag("read", "title").counter().count());
+  }
+
+  @Test
+  void canDropItemsBeyondQueueLimit(@Mock ItemRepository mockItemRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    when(mockItemRepository.prefetchItem(any(), any())).thenReturn(Promise.<Void>promise()
+        .future());
+    final LoanPrefetcher prefetcher = new LoanPrefetcher(new JsonObject()
+        .put("enabled", true)
+        .put("maxConcurrency", 1)
+        .put("maxQueued", 1)
+        .put("maxItemsPerPatron", 3), mockItemRepository,
+        ItemSnapshotCache.disabled(registry), registry);
+
+    prefetcher.prefetch(loans("111", "222", "333", "444"), TestUtils.getMockedSessionData());
+
+    verify(mockItemRepository, times(1)).prefetchItem(any(), any());
+    assertEquals(1, prefetcher.queued());
+    assertEquals(1, registry.get("org.folio.edge.sip2.prefetch.items")
+        .tag("outcome", "dropped").counter().count());
+  }
+
+  @Test
+  void canDisable(@Mock ItemRepository mockItemRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final LoanPrefetcher prefetcher = new LoanPrefetcher(null, mockItemRepository,
+        ItemSnapshotCache.disabled(registry), registry);
+
+    prefetcher.prefetch(loans("111"), TestUtils.getMockedSessionData());
+
+    assertFalse(prefetcher.isEnabled());
+    verify(mockItemRepository, never()).prefetchItem(any(), any());
+    assertEquals(0, registry.getMeters().size());
+  }
+
+  private static JsonObject loans(String... barcodes) {
+    final JsonArray loans = new JsonArray();
+    for (String barcode : barcodes) {
+      loans.add(new JsonObject().put("item", new JsonObject()
+          .put("barcode", barcode)
+          .put("title", "Title " + barcode)));
+    }
+    return new JsonObject().put("loans", loans).put("totalRecords", barcodes.length);
+  }
+}
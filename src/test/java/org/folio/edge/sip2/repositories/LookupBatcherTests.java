@@ -0,0 +1,230 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.List;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.resilience.DeadlineExceededThrowable;
+import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.utils.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+public class LookupBatcherTests {
+  private static final JsonObject BATCH_RESPONSE = new JsonObject()
+      .put("items", new JsonArray()
+          .add(new JsonObject().put("id", "1").put("barcode", "111"))
+          .add(new JsonObject().put("id", "2").put("barcode", "222")))
+      .put("totalRecords", 2);
+
+  @Test
+  public void canSendLookupsOnTheirOwnWhenDisabled(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final List<String> paths = new ArrayList<>();
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      paths.add(((IRequestData) invocation.getArgument(0)).getPath());
+      return Future.succeededFuture(new FolioResource(BATCH_RESPONSE, null));
+    });
+    final LookupBatcher batcher =
+        LookupBatcher.disabled(mockFolioProvider, new SimpleMeterRegistry());
+
+    vertx.runOnContext(v -> CompositeFuture.all(lookup(batcher, "111"), lookup(batcher, "222"))
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          assertFalse(batcher.isEnabled());
+          assertEquals(2, paths.size());
+          assertEquals("/inventory/items?limit=1&query=barcode==111", paths.get(0));
+
+          testContext.completeNow();
+        }))));
+  }
+
+  @Test
+  public void canMergeConcurrentLookups(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final List<String> paths = new ArrayList<>();
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      paths.add(((IRequestData) invocation.getArgument(0)).getPath());
+      return Future.succeededFuture(new FolioResource(BATCH_RESPONSE, null));
+    });
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final LookupBatcher batcher = new LookupBatcher(new JsonObject()
+        .put("enabled", true)
+        .put("windowMs", 20), mockFolioProvider, registry);
+
+    vertx.runOnContext(v -> {
+      final Future<IResource> first = lookup(batcher, "111");
+      final Future<IResource> second = lookup(batcher, "222");
+      final Future<IResource> third = lookup(batcher, "333");
+
+      CompositeFuture.all(first, second, third)
+          .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+            assertEquals(1, paths.size());
+            assertEquals("/inventory/items?limit=3&query="
+                + Utils.encode("barcode==(\"111\" or \"222\" or \"333\")"), paths.get(0));
+
+            final JsonObject firstItems = first.result().getResource();
+            assertEquals(1, firstItems.getInteger("totalRecords"));
+            assertEquals("1", firstItems.getJsonArray("items").getJsonObject(0).getString("id"));
+            assertEquals("2", second.result().getResource().getJsonArray("items")
+                .getJsonObject(0).getString("id"));
+            assertTrue(third.result().getResource().getJsonArray("items").isEmpty());
+
+            assertEquals(3.0, registry.get("org.folio.edge.sip2.folio.batch.size")
+                .tag("lookup", "items").summary().totalAmount());
+            assertEquals(3, registry.get("org.folio.edge.sip2.folio.batch.wait")
+                .tag("lookup", "items").timer().count());
+
+            testContext.completeNow();
+          })));
+    });
+  }
+
+  @Test
+  public void canFlushFullBatch(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(BATCH_RESPONSE, null)));
+    final LookupBatcher batcher = new LookupBatcher(new JsonObject()
+        .put("enabled", true)
+        .put("windowMs", 60000)
+        .put("maxBatchSize", 2), mockFolioProvider, new SimpleMeterRegistry());
+
+    vertx.runOnContext(v -> CompositeFuture.all(lookup(batcher, "111"), lookup(batcher, "222"))
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          verify(mockFolioProvider, times(1)).retrieveResource(any());
+
+          testContext.completeNow();
+        }))));
+  }
+
+  @Test
+  public void canFallBackToSingleLookups(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final List<String> paths = new ArrayList<>();
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      final String path = ((IRequestData) invocation.getArgument(0)).getPath();
+      paths.add(path);
+      if (path.contains("limit=2")) {
+        return Future.failedFuture(new DeadlineExceededThrowable("Deadline exceeded"));
+      }
+      return path.endsWith("111")
+          ? Future.succeededFuture(new FolioResource(BATCH_RESPONSE, null))
+          : Future.failedFuture(new FolioRequestThrowable("Not found", 404));
+    });
+    final LookupBatcher batcher = new LookupBatcher(new JsonObject()
+        .put("enabled", true), mockFolioProvider, new SimpleMeterRegistry());
+
+    vertx.runOnContext(v -> {
+      final Future<IResource> first = lookup(batcher, "111");
+      final Future<IResource> second = lookup(batcher, "222");
+
+      CompositeFuture.join(first, second)
+          .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+            // each lookup is sent on its own and fails or succeeds by itself
+            assertEquals(3, paths.size());
+            assertTrue(first.succeeded());
+            assertTrue(second.failed());
+            assertEquals("Not found", second.cause().getMessage());
+
+            testContext.completeNow();
+          })));
+    });
+  }
+
+  @Test
+  public void canFailLookupsOfFailedBatch(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable("Unavailable", 503)));
+    final LookupBatcher batcher = new LookupBatcher(new JsonObject()
+        .put("enabled", true), mockFolioProvider, new SimpleMeterRegistry());
+
+    vertx.runOnContext(v -> {
+      final Future<IResource> first = lookup(batcher, "111");
+      final Future<IResource> second = lookup(batcher, "222");
+
+      CompositeFuture.join(first, second)
+          .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+            // the lookups are not sent again on their own
+            verify(mockFolioProvider, times(1)).retrieveResource(any());
+            assertEquals("Unavailable", first.cause().getMessage());
+            assertEquals("Unavailable", second.cause().getMessage());
+
+            testContext.completeNow();
+          })));
+    });
+  }
+
+  @Test
+  public void cannotMergeLookupsOfOtherLogins(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final List<IRequestData> requests = new ArrayList<>();
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      requests.add(invocation.getArgument(0));
+      return Future.succeededFuture(new FolioResource(BATCH_RESPONSE, null));
+    });
+    final LookupBatcher batcher = new LookupBatcher(new JsonObject()
+        .put("enabled", true), mockFolioProvider, new SimpleMeterRegistry());
+    final SessionData kiosk1 = TestUtils.getMockedSessionData();
+    kiosk1.setUsername("kiosk1");
+    final SessionData kiosk2 = TestUtils.getMockedSessionData();
+    kiosk2.setUsername("kiosk2");
+
+    vertx.runOnContext(v -> CompositeFuture.all(lookup(batcher, "111", kiosk1),
+        lookup(batcher, "222", kiosk2), lookup(batcher, "333", kiosk1))
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          assertEquals(2, requests.size());
+          for (IRequestData request : requests) {
+            final boolean merged = request.getPath().contains("limit=2");
+            assertEquals(merged ? "kiosk1" : "kiosk2",
+                request.getSessionData().getUsername());
+          }
+
+          testContext.completeNow();
+        }))));
+  }
+
+  private static Future<IResource> lookup(LookupBatcher batcher, String barcode) {
+    return lookup(batcher, barcode, TestUtils.getMockedSessionData());
+  }
+
+  private static Future<IResource> lookup(LookupBatcher batcher, String barcode,
+      SessionData sessionData) {
+    return batcher.retrieveResource(ItemRepository.ItemsByBarcodeLookup.INSTANCE, barcode,
+        new IRequestData() {
+          @Override
+          public String getPath() {
+            return "/inventory/items?limit=1&query=barcode==" + barcode;
+          }
+
+          @Override
+          public SessionData getSessionData() {
+            return sessionData;
+          }
+        });
+  }
+}
@@ -0,0 +1,77 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+class ModuleRoutesTests {
+  private static final JsonObject OPTIONS = new JsonObject()
+      .put("enabled", true)
+      .put("routes", new JsonObject()
+          .put("/circulation", "http://mod-circulation:8081/")
+          .put("/circulation/requests", "http://mod-circulation-requests:8081")
+          .put("inventory/", "http://mod-inventory:8081"));
+
+  @Test
+  void canRouteByLongestPrefix() {
+    final ModuleRoutes routes = new ModuleRoutes(OPTIONS, new SimpleMeterRegistry());
+
+    assertEquals("http://mod-circulation:8081",
+        routes.getRoute("/circulation/loans?query=(userId==1234)").getBaseUrl());
+    assertEquals("http://mod-circulation-requests:8081",
+        routes.getRoute("/circulation/requests?query=(itemId==1234)").getBaseUrl());
+    assertEquals("/inventory", routes.getRoute("/inventory/items?query=x").getPrefix());
+    assertEquals("/circulation", routes.getRoute("/circulation").getPrefix());
+  }
+
+  @Test
+  void canRouteOnlyWholeSegments() {
+    final ModuleRoutes routes = new ModuleRoutes(OPTIONS, new SimpleMeterRegistry());
+
+    assertNull(routes.getRoute("/circulation-storage/loans"));
+    assertNull(routes.getRoute("/inventory-storage/items"));
+    assertEquals("/circulation", routes.getRoute("/circulation?x=y").getPrefix());
+    assertNull(routes.getRoute("/accounts"));
+  }
+
+  @Test
+  void canSendToGatewayWhenDisabled() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ModuleRoutes routes = new ModuleRoutes(OPTIONS.copy().put("enabled", false), registry);
+
+    final String url = routes.execute("/circulation/loans",
+        () -> Future.succeededFuture("gateway"), Future::succeededFuture).result();
+
+    assertEquals("gateway", url);
+    assertFalse(routes.isEnabled());
+    assertTrue(routes.getRoutes().isEmpty());
+    assertTrue(registry.getMeters().isEmpty());
+    assertNull(ModuleRoutes.disabled(registry).getRoute("/circulation/loans"));
+  }
+
+  @Test
+  void canReportRouteMetrics() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ModuleRoutes routes = new ModuleRoutes(OPTIONS, registry);
+
+    assertEquals("http://mod-circulation:8081", routes.execute("/circulation/loans",
+        () -> Future.succeededFuture("gateway"), Future::succeededFuture).result());
+    routes.execute("/circulation/loans", () -> Future.succeededFuture("gateway"),
+        url -> Future.failedFuture("Connection refused"));
+    assertEquals("gateway", routes.execute("/accounts",
+        () -> Future.succeededFuture("gateway"), Future::succeededFuture).result());
+
+    assertEquals(1, registry.get("org.folio.edge.sip2.folio.route.requests")
+        .tag("route", "/circulation").tag("outcome", "success").timer().count());
+    assertEquals(1, registry.get("org.folio.edge.sip2.folio.route.requests")
+        .tag("route", "/circulation").tag("outcome", "failure").timer().count());
+    assertEquals(1, registry.get("org.folio.edge.sip2.folio.route.requests")
+        .tag("route", ModuleRoutes.GATEWAY_ROUTE).tag("outcome", "success").timer().count());
+  }
+}
@@ -0,0 +1,285 @@
+package org.folio.edge.sip2.repositories;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.domain.messages.requests.Checkin;
+import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.resilience.LoadShedder;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class OfflineCirculationTests {
+  private static final String TRANSACTIONS = "org.folio.edge.sip2.offline.transactions";
+
+  @Test
+  void canJournalAndReplayCheckin(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final OfflineCirculation offline = new OfflineCirculation(options(directory),
+        mockCirculationRepository, LoadShedder.disabled(), vertx, registry);
+    final SessionData sessionData = kioskSession();
+    when(mockCirculationRepository.replayCheckin(any(), any()))
+        .thenReturn(Future.succeededFuture(TRUE));
+
+    assertTrue(offline.accepts(Command.CHECKIN));
+    assertFalse(offline.accepts(Command.CHECKOUT));
+    offline.record(checkin("111"), sessionData)
+        .compose(journaled -> {
+          assertTrue(journaled);
+          // a resent checkin is not journaled twice
+          return offline.record(checkin("111"), sessionData);
+        })
+        .compose(journaled -> {
+          assertTrue(journaled);
+          assertEquals(1, offline.backlog());
+          assertEquals(1, registry.get("org.folio.edge.sip2.offline.backlog").gauge().value());
+          return offline.replay();
+        })
+        .onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+          final ArgumentCaptor<Checkin> checkin = ArgumentCaptor.forClass(Checkin.class);
+          final ArgumentCaptor<SessionData> session = ArgumentCaptor.forClass(SessionData.class);
+          verify(mockCirculationRepository).replayCheckin(checkin.capture(), session.capture());
+          assertEquals("111", checkin.getValue().getItemIdentifier());
+          assertEquals(checkin("111").getReturnDate(), checkin.getValue().getReturnDate());
+          assertEquals("sp-1", session.getValue().getScLocation());
+          assertEquals("kiosk", session.getValue().getUsername());
+          assertEquals(0, offline.backlog());
+          assertEquals(1, registry.get(TRANSACTIONS).tag("outcome", "accepted").counter().count());
+          assertEquals(1, registry.get(TRANSACTIONS).tag("outcome", "replayed").counter().count());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canRetryAndCountConflicts(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final OfflineCirculation offline = new OfflineCirculation(options(directory)
+        .put("commands", new JsonArray().add("CHECKIN").add("CHECKOUT")),
+        mockCirculationRepository, LoadShedder.disabled(), vertx, registry);
+    final SessionData sessionData = kioskSession();
+    when(mockCirculationRepository.replayCheckout(any(), any()))
+        .thenReturn(Future.failedFuture("Connection refused"))
+        .thenReturn(Future.succeededFuture(FALSE));
+
+    offline.record(Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.parse("2026-03-01T10:15:30Z"))
+        .institutionId("diku")
+        .patronIdentifier("1029384756")
+        .itemIdentifier("222")
+        .build(), sessionData)
+        .compose(journaled -> offline.record(checkin("111"), sessionData))
+        .compose(journaled -> offline.replay())
+        .compose(v -> {
+          // the rest of the round waits for the next replay
+          verify(mockCirculationRepository, never()).replayCheckin(any(), any());
+          assertEquals(2, offline.backlog());
+          assertEquals(1, registry.get(TRANSACTIONS).tag("outcome", "retried").counter().count());
+
+          when(mockCirculationRepository.replayCheckin(any(), any()))
+              .thenReturn(Future.succeededFuture(TRUE));
+          return offline.replay();
+        })
+        .onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+          verify(mockCirculationRepository, times(2)).replayCheckout(any(), any());
+          assertEquals(0, offline.backlog());
+          assertEquals(1, registry.get(TRANSACTIONS).tag("outcome", "conflict").counter().count());
+          assertEquals(1, registry.get(TRANSACTIONS).tag("outcome", "replayed").counter().count());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canReplayTransactionsOfItemInOrder(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    final OfflineCirculation offline = new OfflineCirculation(options(directory)
+        .put("commands", new JsonArray().add("CHECKIN").add("CHECKOUT")),
+        mockCirculationRepository, LoadShedder.disabled(), vertx, new SimpleMeterRegistry());
+    final SessionData sessionData = kioskSession();
+    final Promise<Boolean> checkedIn = Promise.promise();
+    when(mockCirculationRepository.replayCheckin(any(), any()))
+        .thenReturn(checkedIn.future())
+        .thenReturn(Future.succeededFuture(TRUE));
+    when(mockCirculationRepository.replayCheckout(any(), any()))
+        .thenReturn(Future.succeededFuture(TRUE));
+
+    offline.record(checkin("111"), sessionData)
+        .compose(journaled -> offline.record(Checkout.builder()
+            .scRenewalPolicy(FALSE)
+            .noBlock(FALSE)
+            .transactionDate(OffsetDateTime.parse("2026-03-01T10:20:00Z"))
+            .institutionId("diku")
+            .patronIdentifier("1029384756")
+            .itemIdentifier("111")
+            .build(), sessionData))
+        .compose(journaled -> offline.record(checkin("222"), sessionData))
+        .compose(journaled -> {
+          final Future<Void> replayed = offline.replay();
+
+          // the checkout of the item waits for its checkin, another item does not
+          verify(mockCirculationRepository, times(2)).replayCheckin(any(), any());
+          verify(mockCirculationRepository, never()).replayCheckout(any(), any());
+
+          checkedIn.complete(TRUE);
+          return replayed;
+        })
+        .onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+          verify(mockCirculationRepository).replayCheckout(any(), any());
+          assertEquals(0, offline.backlog());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void cannotAcceptCheckoutRequiringPatronPassword(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    final OfflineCirculation offline = new OfflineCirculation(options(directory)
+        .put("commands", new JsonArray().add("CHECKIN").add("CHECKOUT")),
+        mockCirculationRepository, LoadShedder.disabled(), vertx, new SimpleMeterRegistry());
+    final SessionData sessionData = kioskSession();
+    sessionData.setPatronPasswordVerificationRequired(true);
+
+    offline.record(Checkout.builder()
+        .scRenewalPolicy(FALSE)
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.parse("2026-03-01T10:15:30Z"))
+        .institutionId("diku")
+        .patronIdentifier("1029384756")
+        .patronPassword("secret")
+        .itemIdentifier("222")
+        .build(), sessionData)
+        .compose(journaled -> {
+          assertFalse(journaled);
+          return offline.record(checkin("111"), sessionData);
+        })
+        .onComplete(testContext.succeeding(journaled -> testContext.verify(() -> {
+          assertTrue(journaled);
+          assertEquals(1, offline.backlog());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canReplayAfterRestartOnceKioskLogsIn(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    new OfflineCirculation(options(directory), mockCirculationRepository,
+        LoadShedder.disabled(), vertx, new SimpleMeterRegistry())
+        .record(checkin("111"), kioskSession())
+        .compose(journaled -> {
+          final OfflineCirculation restarted = new OfflineCirculation(options(directory),
+              mockCirculationRepository, LoadShedder.disabled(), vertx,
+              new SimpleMeterRegistry());
+          assertEquals(1, restarted.backlog());
+          return restarted.replay().map(restarted);
+        })
+        .compose(restarted -> {
+          verify(mockCirculationRepository, never()).replayCheckin(any(), any());
+
+          when(mockCirculationRepository.replayCheckin(any(), any()))
+              .thenReturn(Future.succeededFuture(TRUE));
+          restarted.remember(kioskSession());
+          return restarted.replay().map(restarted);
+        })
+        .onComplete(testContext.succeeding(restarted -> testContext.verify(() -> {
+          verify(mockCirculationRepository).replayCheckin(any(), any());
+          assertEquals(0, restarted.backlog());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void cannotReplayWhileShedding(@TempDir Path directory, Vertx vertx,
+      VertxTestContext testContext, @Mock CirculationRepository mockCirculationRepository) {
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("maxInFlight", 1), TestUtils.getUtcFixedClock());
+    final OfflineCirculation offline = new OfflineCirculation(options(directory),
+        mockCirculationRepository, loadShedder, vertx, new SimpleMeterRegistry());
+
+    offline.record(checkin("111"), kioskSession())
+        .compose(journaled -> {
+          loadShedder.requestStarted();
+          return offline.replay();
+        })
+        .onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+          verify(mockCirculationRepository, never()).replayCheckin(any(), any());
+          assertEquals(1, offline.backlog());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canDisable(Vertx vertx, VertxTestContext testContext,
+      @Mock CirculationRepository mockCirculationRepository) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final OfflineCirculation offline = new OfflineCirculation(null,
+        mockCirculationRepository, LoadShedder.disabled(), vertx, registry);
+
+    assertFalse(offline.isEnabled());
+    assertFalse(offline.accepts(Command.CHECKIN));
+    offline.record(checkin("111"), kioskSession())
+        .compose(journaled -> {
+          assertFalse(journaled);
+          return offline.replay();
+        })
+        .onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+          verify(mockCirculationRepository, never()).replayCheckin(any(), any());
+          assertEquals(0, registry.getMeters().size());
+          testContext.completeNow();
+        })));
+  }
+
+  private static JsonObject options(Path directory) {
+    return new JsonObject()
+        .put("enabled", true)
+        .put("directory", directory.toString())
+        .put("segmentSize", 4096);
+  }
+
+  private static SessionData kioskSession() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setUsername("kiosk");
+    sessionData.setPassword("secret");
+    sessionData.setScLocation("sp-1");
+    return sessionData;
+  }
+
+  private static Checkin checkin(String itemIdentifier) {
+    return Checkin.builder()
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.parse("2026-03-01T10:15:30Z"))
+        .returnDate(OffsetDateTime.parse("2026-03-01T10:15:00Z"))
+        .institutionId("diku")
+        .itemIdentifier(itemIdentifier)
+        .build();
+  }
+}
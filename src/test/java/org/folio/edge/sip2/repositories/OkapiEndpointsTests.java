@@ -0,0 +1,251 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.resilience.CircuitBreaker;
+import org.folio.edge.sip2.resilience.RequestRejectedThrowable;
+import org.junit.jupiter.api.Test;
+
+class OkapiEndpointsTests {
+  private static final String FIRST = "http://okapi-1:9130";
+  private static final String SECOND = "http://okapi-2:9130";
+
+  @Test
+  void canParseUrls() {
+    assertEquals(Collections.singletonList(FIRST), OkapiEndpoints.parseUrls(FIRST));
+    assertEquals(Arrays.asList(FIRST, SECOND),
+        OkapiEndpoints.parseUrls(FIRST + ", " + SECOND + ","));
+    assertEquals(Arrays.asList(FIRST, SECOND),
+        OkapiEndpoints.parseUrls(new JsonArray().add(FIRST).add(SECOND)));
+    assertTrue(OkapiEndpoints.parseUrls(null).isEmpty());
+  }
+
+  @Test
+  void cannotCreateWithoutUrls() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final MutableClock clock = new MutableClock();
+    final List<String> none = Collections.emptyList();
+    final List<String> urls = Arrays.asList(FIRST, SECOND);
+    final JsonObject unknownStrategy = new JsonObject().put("strategy", "random");
+
+    assertThrows(IllegalArgumentException.class,
+        () -> new OkapiEndpoints(none, null, clock, registry));
+    assertThrows(IllegalArgumentException.class,
+        () -> new OkapiEndpoints(urls, unknownStrategy, clock, registry));
+  }
+
+  @Test
+  void canSpreadRequestsEvenly() {
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND), null,
+        new MutableClock(), new SimpleMeterRegistry());
+    final List<String> used = new ArrayList<>();
+
+    for (int i = 0; i < 4; i++) {
+      endpoints.execute(url -> {
+        used.add(url);
+        return Future.succeededFuture();
+      });
+    }
+
+    assertEquals(2, used.stream().filter(FIRST::equals).count());
+    assertEquals(2, used.stream().filter(SECOND::equals).count());
+  }
+
+  @Test
+  void canPreferLeastOutstanding() {
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND), null,
+        new MutableClock(), new SimpleMeterRegistry());
+    final Promise<Void> slow = Promise.promise();
+    final List<String> used = new ArrayList<>();
+
+    endpoints.execute(url -> {
+      used.add(url);
+      return slow.future();
+    });
+    for (int i = 0; i < 3; i++) {
+      endpoints.execute(url -> {
+        used.add(url);
+        return Future.succeededFuture();
+      });
+    }
+
+    final String busy = used.get(0);
+    assertEquals(1, used.stream().filter(busy::equals).count());
+    assertEquals(1, endpoints.getEndpoints().stream()
+        .filter(endpoint -> endpoint.getUrl().equals(busy))
+        .findFirst().get().getOutstanding());
+
+    slow.complete();
+    assertTrue(endpoints.getEndpoints().stream().allMatch(e -> e.getOutstanding() == 0));
+  }
+
+  @Test
+  void canPreferLowLatency() throws InterruptedException {
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND),
+        new JsonObject().put("strategy", OkapiEndpoints.LATENCY_WEIGHTED),
+        new MutableClock(), new SimpleMeterRegistry());
+
+    // one request to each endpoint, the first one is slow
+    final Promise<Void> slow = Promise.promise();
+    final List<String> used = new ArrayList<>();
+    endpoints.execute(url -> {
+      used.add(url);
+      return slow.future();
+    });
+    endpoints.execute(url -> Future.succeededFuture());
+    Thread.sleep(20);
+    slow.complete();
+
+    final String slowUrl = used.remove(0);
+    for (int i = 0; i < 4; i++) {
+      endpoints.execute(url -> {
+        used.add(url);
+        return Future.succeededFuture();
+      });
+    }
+
+    assertTrue(used.stream().noneMatch(url -> url.equals(slowUrl)));
+  }
+
+  @Test
+  void canEjectAndReinstateFailingEndpoint() {
+    final MutableClock clock = new MutableClock();
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND),
+        new JsonObject().put("failureThreshold", 2).put("ejectionMs", 1000),
+        clock, new SimpleMeterRegistry());
+    final List<String> used = new ArrayList<>();
+
+    // the first endpoint is down
+    for (int i = 0; i < 10; i++) {
+      endpoints.execute(url -> {
+        used.add(url);
+        return FIRST.equals(url)
+            ? Future.failedFuture(new FolioRequestThrowable("Bad gateway", 502))
+            : Future.succeededFuture();
+      });
+    }
+
+    assertEquals(2, used.stream().filter(FIRST::equals).count());
+    assertEquals(CircuitBreaker.State.OPEN,
+        endpoints.getEndpoints().get(0).getCircuitBreaker().getState());
+    assertEquals(SECOND, endpoints.getUrl());
+
+    // after the ejection a trial request reinstates it
+    clock.advance(Duration.ofMillis(1000));
+    used.clear();
+    for (int i = 0; i < 4; i++) {
+      endpoints.execute(url -> {
+        used.add(url);
+        return Future.succeededFuture();
+      });
+    }
+
+    assertEquals(2, used.stream().filter(FIRST::equals).count());
+    assertEquals(CircuitBreaker.State.CLOSED,
+        endpoints.getEndpoints().get(0).getCircuitBreaker().getState());
+  }
+
+  @Test
+  void cannotEjectForClientErrorsOrLocalRejections() {
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND),
+        new JsonObject().put("failureThreshold", 1), new MutableClock(),
+        new SimpleMeterRegistry());
+
+    for (int i = 0; i < 4; i++) {
+      endpoints.execute(url -> Future.failedFuture(new FolioRequestThrowable("Not found", 404)));
+      endpoints.execute(url -> Future.failedFuture(new RequestRejectedThrowable("Rejected")));
+    }
+
+    assertTrue(endpoints.getEndpoints().stream()
+        .allMatch(e -> e.getCircuitBreaker().getState() == CircuitBreaker.State.CLOSED));
+  }
+
+  @Test
+  void cannotReinstateWithRequestsNotSent() {
+    final MutableClock clock = new MutableClock();
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND),
+        new JsonObject().put("failureThreshold", 1).put("ejectionMs", 1000),
+        clock, new SimpleMeterRegistry());
+    endpoints.execute(url -> FIRST.equals(url)
+        ? Future.failedFuture("Connection refused") : Future.succeededFuture());
+    clock.advance(Duration.ofMillis(1000));
+    final double latency = endpoints.getEndpoints().get(0).getLatencyMillis();
+
+    // answered from a cache, so nothing is learned about the endpoint
+    for (int i = 0; i < 4; i++) {
+      endpoints.execute(url -> Future.succeededFuture(), () -> false);
+    }
+
+    assertTrue(endpoints.getEndpoints().get(0).getCircuitBreaker().getState()
+        != CircuitBreaker.State.CLOSED);
+    assertEquals(latency, endpoints.getEndpoints().get(0).getLatencyMillis());
+    assertTrue(endpoints.getEndpoints().stream().allMatch(e -> e.getOutstanding() == 0));
+  }
+
+  @Test
+  void canUseEjectedEndpointWhenAllAreEjected() {
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND),
+        new JsonObject().put("failureThreshold", 1), new MutableClock(),
+        new SimpleMeterRegistry());
+
+    endpoints.execute(url -> Future.failedFuture("Connection refused"));
+    endpoints.execute(url -> Future.failedFuture("Connection refused"));
+
+    final List<String> used = new ArrayList<>();
+    endpoints.execute(url -> {
+      used.add(url);
+      return Future.succeededFuture();
+    });
+
+    assertEquals(1, used.size());
+  }
+
+  @Test
+  void canReportEndpointMetrics() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Arrays.asList(FIRST, SECOND), null,
+        new MutableClock(), registry);
+
+    endpoints.execute(url -> Future.succeededFuture());
+    endpoints.execute(url -> Future.succeededFuture());
+
+    for (String url : Arrays.asList(FIRST, SECOND)) {
+      assertEquals(1, registry.get("org.folio.edge.sip2.folio.endpoint.latency")
+          .tag("endpoint", url).timer().count());
+      assertEquals(0, registry.get("org.folio.edge.sip2.folio.endpoint.outstanding")
+          .tag("endpoint", url).gauge().value());
+      assertEquals(0, registry.get("org.folio.edge.sip2.folio.endpoint.state")
+          .tag("endpoint", url).gauge().value());
+    }
+  }
+
+  @Test
+  void canUseSingleEndpointWithoutMetrics() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final OkapiEndpoints endpoints = new OkapiEndpoints(Collections.singletonList(FIRST),
+        new JsonObject().put("failureThreshold", 1), new MutableClock(), registry);
+
+    endpoints.execute(url -> Future.failedFuture("Connection refused"));
+    final List<String> used = new ArrayList<>();
+    endpoints.execute(url -> {
+      used.add(url);
+      return Future.succeededFuture();
+    });
+
+    assertEquals(Collections.singletonList(FIRST), used);
+    assertTrue(registry.getMeters().isEmpty());
+  }
+}
@@ -0,0 +1,48 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.util.concurrent.TimeUnit;
+import org.folio.edge.sip2.repositories.PatronFetchStrategy.Strategy;
+import org.junit.jupiter.api.Test;
+
+class PatronFetchStrategyTests {
+
+  @Test
+  void canSelectStrategyPerTenant() {
+    final PatronFetchStrategy strategy = new PatronFetchStrategy(new JsonObject()
+        .put("strategy", "query")
+        .put("tenantStrategies", new JsonObject()
+            .put("diku", "Snapshot")
+            .put("other", "unknown")), new SimpleMeterRegistry());
+
+    assertEquals(Strategy.SNAPSHOT, strategy.forTenant("diku"));
+    assertEquals(Strategy.QUERY, strategy.forTenant("other"));
+    assertEquals(Strategy.QUERY, strategy.forTenant("test"));
+    assertEquals(Strategy.QUERY, strategy.forTenant(null));
+  }
+
+  @Test
+  void canDefaultToQuery() {
+    final PatronFetchStrategy strategy = PatronFetchStrategy.defaults(new SimpleMeterRegistry());
+
+    assertEquals(Strategy.QUERY, strategy.forTenant("diku"));
+    assertEquals(PatronFetchStrategy.DEFAULT_MAX_LOANS, strategy.getMaxLoans());
+  }
+
+  @Test
+  void canRecordStrategiesSeparately() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final PatronFetchStrategy strategy = new PatronFetchStrategy(null, registry);
+
+    strategy.record(Strategy.QUERY, TimeUnit.MILLISECONDS.toNanos(40), 9);
+    strategy.record(Strategy.SNAPSHOT, TimeUnit.MILLISECONDS.toNanos(20), 5);
+
+    assertEquals(40, registry.get("org.folio.edge.sip2.patron.fetch").tag("strategy", "query")
+        .timer().totalTime(TimeUnit.MILLISECONDS));
+    assertEquals(5, registry.get("org.folio.edge.sip2.patron.fetch.requests")
+        .tag("strategy", "snapshot").summary().totalAmount());
+  }
+}
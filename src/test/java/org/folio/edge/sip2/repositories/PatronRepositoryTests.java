@@ -20,8 +20,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
@@ -29,6 +32,7 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -40,6 +44,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.cache.PatronDetailsCache;
 import org.folio.edge.sip2.domain.messages.enumerations.CurrencyType;
 import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
 import org.folio.edge.sip2.domain.messages.enumerations.Summary;
@@ -51,6 +56,7 @@ import org.folio.edge.sip2.repositories.domain.ExtendedUser;
 import org.folio.edge.sip2.repositories.domain.PatronPasswordVerificationRecords;
 import org.folio.edge.sip2.repositories.domain.Personal;
 import org.folio.edge.sip2.repositories.domain.User;
+import org.folio.edge.sip2.session.ResponseProfile;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.okapi.common.refreshtoken.client.ClientException;
 import org.junit.jupiter.api.Test;
@@ -70,7 +76,7 @@ public class PatronRepositoryTests {
       @Mock FeeFinesRepository mockFeeFinesRepository,
       @Mock PasswordVerifier mockPasswordVerifier,
       @Mock Clock clock) {
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
 
     assertNotNull(patronRepository);
@@ -82,7 +88,8 @@ public class PatronRepositoryTests {
       @Mock Clock mockClock) {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
-        () -> new PatronRepository(mockUsersRepository, null, null, null, mockClock));
+        () -> new PatronRepository(mockUsersRepository, null, null, null, mockClock, null,
+            null, null));
 
     assertEquals("Circulation repository cannot be null", thrown.getMessage());
   }
@@ -95,7 +102,7 @@ public class PatronRepositoryTests {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
         () -> new PatronRepository(mockUsersRepository, mockCirculationRepository, null, null,
-            mockClock));
+            mockClock, null, null, null));
 
     assertEquals("FeeFines repository cannot be null", thrown.getMessage());
   }
@@ -109,7 +116,7 @@ public class PatronRepositoryTests {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
         () -> new PatronRepository(mockUsersRepository, mockCirculationRepository,
-            mockFeeFinesRepository, null, mockClock));
+            mockFeeFinesRepository, null, mockClock, null, null, null));
 
     assertEquals("Password verifier cannot be null", thrown.getMessage());
   }
@@ -123,7 +130,7 @@ public class PatronRepositoryTests {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
         () -> new PatronRepository(mockUsersRepository, mockCirculationRepository,
-            mockFeeFinesRepository, mockPasswordVerifier, null));
+            mockFeeFinesRepository, mockPasswordVerifier, null, null, null, null));
 
     assertEquals("Clock cannot be null", thrown.getMessage());
   }
@@ -191,7 +198,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -238,6 +245,10 @@ public class PatronRepositoryTests {
           assertNull(patronInformationResponse.getScreenMessage());
           assertNull(patronInformationResponse.getPrintLine());
 
+          // charged items and recalls share a single loans lookup
+          verify(mockCirculationRepository, times(1))
+              .getLoansByUserId(any(), any(), any(), any());
+
           testContext.completeNow();
         })));
   }
@@ -301,7 +312,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -413,7 +424,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -527,7 +538,7 @@ public class PatronRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
     sessionData.setPatronPasswordVerificationRequired(true);
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -616,22 +627,14 @@ public class PatronRepositoryTests {
         .transactionDate(OffsetDateTime.now())
         .build();
 
-    final JsonObject queryAccountResponse = new JsonObject()
-        .put("accounts", new JsonArray()
-        .add(new JsonObject()
-          .put("remaining", feeAmount)
-          .put("id", "2345")
-        )
-    );
-
     when(mockPasswordVerifier.verifyPatronPassword(anyString(), anyString(), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
             .extendedUser(extendedUser).build()));
 
     when(mockFeeFinesRepository.getFeeAmountByUserId(eq(userId), any()))
-        .thenReturn(Future.succeededFuture(queryAccountResponse));
+        .thenReturn(Future.succeededFuture(new BigDecimal(feeAmount.toString())));
 
-    PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier,
         clock);
 
@@ -686,22 +689,14 @@ public class PatronRepositoryTests {
         .transactionDate(OffsetDateTime.now())
         .build();
 
-    final JsonObject queryAccountResponse = new JsonObject()
-        .put("accounts", new JsonArray()
-            .add(new JsonObject()
-                .put("remaining", feeAmount)
-                .put("id", "2345")
-            )
-        );
-
     when(mockPasswordVerifier.verifyPatronPassword(anyString(), anyString(), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
         .extendedUser(extendedUser).build()));
 
     when(mockFeeFinesRepository.getFeeAmountByUserId(eq(userId), any()))
-        .thenReturn(Future.succeededFuture(queryAccountResponse));
+        .thenReturn(Future.succeededFuture(new BigDecimal(feeAmount.toString())));
 
-    PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier,
         clock);
 
@@ -759,7 +754,7 @@ public class PatronRepositoryTests {
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
             .extendedUser(null).build()));
 
-    PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier,
         clock);
 
@@ -861,7 +856,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -976,7 +971,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
 
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
@@ -1067,7 +1062,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1119,6 +1114,275 @@ public class PatronRepositoryTests {
         })));
   }
 
+  @Test
+  void canPageHoldsFromSessionCache(Vertx vertx, VertxTestContext testContext,
+      @Mock UsersRepository mockUsersRepository,
+      @Mock CirculationRepository mockCirculationRepository,
+      @Mock FeeFinesRepository mockFeeFinesRepository,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final String patronIdentifier = "1234567890";
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response3.json"),
+        User.class);
+    final ExtendedUser extendedUser = new ExtendedUser();
+    extendedUser.setUser(userResponse);
+    extendedUser.setPatronGroup("patrons","The Library Patrons", "12335");
+
+    when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/no_manual_blocks_response.json"))));
+    when(mockFeeFinesRepository.getAccountDataByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/account_request_response.json"))));
+    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/overdue_response.json"))));
+    when(mockCirculationRepository.getRequestsByUserId(any(), eq("Hold"), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/holds_requests_response.json"))));
+    when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(new JsonObject().put("loans", new JsonArray())));
+    when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), any(), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+        .extendedUser(extendedUser).build()));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final PatronDetailsCache cache = new PatronDetailsCache(
+        new JsonObject().put("enabled", true).put("maxItems", 50), clock,
+        new SimpleMeterRegistry());
+    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+        mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock, cache,
+        PatronFetchStrategy.defaults(new SimpleMeterRegistry()),
+        LoanPrefetcher.disabled(new SimpleMeterRegistry()));
+
+    patronRepository.performPatronInformationCommand(holdsPage(patronIdentifier, 1), sessionData)
+        .compose(first -> {
+          assertEquals(Arrays.asList("Interesting Times"), first.getHoldItems());
+          return patronRepository.performPatronInformationCommand(
+              holdsPage(patronIdentifier, 2), sessionData);
+        })
+        .onComplete(testContext.succeeding(second -> testContext.verify(() -> {
+          assertEquals(Arrays.asList("Request title1556587200969"), second.getHoldItems());
+          assertEquals(2, second.getHoldItemsCount());
+          verify(mockCirculationRepository, times(1)).getRequestsByUserId(any(), eq("Hold"),
+              eq(1), eq(50), any());
+          verify(mockFeeFinesRepository, times(1)).getAccountDataByUserId(any(), any());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canFetchPageBeyondSessionCache(Vertx vertx, VertxTestContext testContext,
+      @Mock UsersRepository mockUsersRepository,
+      @Mock CirculationRepository mockCirculationRepository,
+      @Mock FeeFinesRepository mockFeeFinesRepository,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final String patronIdentifier = "1234567890";
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response3.json"),
+        User.class);
+    final ExtendedUser extendedUser = new ExtendedUser();
+    extendedUser.setUser(userResponse);
+    extendedUser.setPatronGroup("patrons","The Library Patrons", "12335");
+
+    when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/no_manual_blocks_response.json"))));
+    when(mockFeeFinesRepository.getAccountDataByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/account_request_response.json"))));
+    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/overdue_response.json"))));
+    when(mockCirculationRepository.getRequestsByUserId(any(), eq("Hold"), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/holds_requests_response.json"))));
+    when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(new JsonObject().put("loans", new JsonArray())));
+    when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), any(), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+        .extendedUser(extendedUser).build()));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final PatronDetailsCache cache = new PatronDetailsCache(
+        new JsonObject().put("enabled", true).put("maxItems", 1), clock,
+        new SimpleMeterRegistry());
+    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+        mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock, cache,
+        PatronFetchStrategy.defaults(new SimpleMeterRegistry()),
+        LoanPrefetcher.disabled(new SimpleMeterRegistry()));
+
+    patronRepository.performPatronInformationCommand(holdsPage(patronIdentifier, 1), sessionData)
+        .compose(first -> patronRepository.performPatronInformationCommand(
+            holdsPage(patronIdentifier, 2), sessionData))
+        .onComplete(testContext.succeeding(second -> testContext.verify(() -> {
+          // the second page is past the items kept on the session
+          verify(mockCirculationRepository).getRequestsByUserId(any(), eq("Hold"),
+              eq(1), eq(1), any());
+          verify(mockCirculationRepository).getRequestsByUserId(any(), eq("Hold"),
+              eq(2), eq(2), any());
+          verify(mockFeeFinesRepository, times(2)).getAccountDataByUserId(any(), any());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canPatronInformationFromLoanSnapshot(Vertx vertx, VertxTestContext testContext,
+      @Mock UsersRepository mockUsersRepository,
+      @Mock CirculationRepository mockCirculationRepository,
+      @Mock FeeFinesRepository mockFeeFinesRepository,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final String patronIdentifier = "1234567890";
+    final PatronInformation patronInformation = PatronInformation.builder()
+        .language(ENGLISH)
+        .transactionDate(OffsetDateTime.now())
+        .summary(Summary.OVERDUE_ITEMS)
+        .institutionId("diku")
+        .patronIdentifier(patronIdentifier)
+        .terminalPassword("1234")
+        .patronPassword("0989")
+        .startItem(Integer.valueOf(2))
+        .endItem(Integer.valueOf(3))
+        .build();
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response3.json"),
+        User.class);
+    final ExtendedUser extendedUser = new ExtendedUser();
+    extendedUser.setUser(userResponse);
+    extendedUser.setPatronGroup("patrons","The Library Patrons", "12335");
+    final JsonArray recalls = new JsonArray();
+    for (String file : Arrays.asList("recall_requests_response", "recall_requests_response1",
+        "recall_requests_response2")) {
+      recalls.addAll(new JsonObject(getJsonFromFile("json/" + file + ".json"))
+          .getJsonArray("requests"));
+    }
+
+    when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/no_manual_blocks_response.json"))));
+    when(mockFeeFinesRepository.getAccountDataByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/account_request_response.json"))));
+    when(mockCirculationRepository.getRequestsByUserId(any(), eq("Hold"), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/holds_requests_response.json"))));
+    when(mockCirculationRepository.getLoansByUserId(any(), eq(1), eq(100), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/open_loans_response.json"))));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), eq("Recall"), any()))
+        .thenReturn(Future.succeededFuture(new JsonObject().put("requests", recalls)));
+    when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), any(), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+        .extendedUser(extendedUser).build()));
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final PatronFetchStrategy strategy = new PatronFetchStrategy(new JsonObject()
+        .put("maxLoans", 100)
+        .put("tenantStrategies", new JsonObject().put("dikutest", "snapshot")), registry);
+    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+        mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock,
+        PatronDetailsCache.disabled(registry), strategy, LoanPrefetcher.disabled(registry));
+
+    patronRepository.performPatronInformationCommand(patronInformation,
+        TestUtils.getMockedSessionData()).onComplete(
+        testContext.succeeding(response -> testContext.verify(() -> {
+          assertEquals(3, response.getChargedItemsCount());
+          assertEquals(3, response.getOverdueItemsCount());
+          assertEquals(Arrays.asList("Al Gore", "In defense of our country"),
+              response.getOverdueItems());
+          assertEquals(3, response.getRecallItemsCount());
+          verify(mockCirculationRepository, times(0)).getOverdueLoansByUserId(any(), any(),
+              any(), any(), any());
+          verify(mockCirculationRepository, times(0)).getRequestsByItemId(any(), any(), any(),
+              any(), any());
+          verify(mockCirculationRepository, times(1)).getRequestsByItemIds(any(), any(), any());
+          assertEquals(1, registry.get("org.folio.edge.sip2.patron.fetch.requests")
+              .tag("strategy", "snapshot").summary().count());
+          assertEquals(5, registry.get("org.folio.edge.sip2.patron.fetch.requests")
+              .tag("strategy", "snapshot").summary().totalAmount());
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canPatronInformationWithoutFieldsTurnedOff(Vertx vertx, VertxTestContext testContext,
+      @Mock UsersRepository mockUsersRepository,
+      @Mock CirculationRepository mockCirculationRepository,
+      @Mock FeeFinesRepository mockFeeFinesRepository,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = TestUtils.getUtcFixedClock();
+    final String patronIdentifier = "1234567890";
+    final PatronInformation patronInformation = PatronInformation.builder()
+        .language(ENGLISH)
+        .transactionDate(OffsetDateTime.now())
+        .summary(Summary.RECALL_ITEMS)
+        .institutionId("diku")
+        .patronIdentifier(patronIdentifier)
+        .terminalPassword("1234")
+        .patronPassword("0989")
+        .build();
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response3.json"),
+        User.class);
+    // without the borrower type the patron group is not looked up
+    final ExtendedUser extendedUser = new ExtendedUser();
+    extendedUser.setUser(userResponse);
+
+    when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/no_manual_blocks_response.json"))));
+    when(mockFeeFinesRepository.getAccountDataByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/account_request_response.json"))));
+    when(mockCirculationRepository.getRequestsByUserId(any(), eq("Hold"), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/holds_requests_response.json"))));
+    when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/open_loans_response.json"))));
+    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(
+            new JsonObject(getJsonFromFile("json/overdue_response.json"))));
+    when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), any(), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+        .extendedUser(extendedUser).build()));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setResponseProfile(new ResponseProfile(new JsonObject()
+        .put("borrowerType", false)
+        .put("recallItems", false)
+        .put("personalAddress", false)));
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
+        mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
+
+    patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
+        testContext.succeeding(response -> testContext.verify(() -> {
+          assertTrue(response.getValidPatron());
+          assertEquals(3, response.getChargedItemsCount());
+          assertNull(response.getRecallItemsCount());
+          assertTrue(response.getRecallItems().isEmpty());
+          assertNull(response.getBorrowerType());
+          assertNull(response.getBorrowerTypeDescription());
+          assertNull(response.getHomeAddress());
+          verify(mockCirculationRepository, times(0)).getRequestsByItemId(any(), any(), any(),
+              any(), any());
+          testContext.completeNow();
+        })));
+  }
+
+  private static PatronInformation holdsPage(String patronIdentifier, int item) {
+    return PatronInformation.builder()
+        .language(ENGLISH)
+        .transactionDate(OffsetDateTime.now())
+        .summary(Summary.HOLD_ITEMS)
+        .institutionId("diku")
+        .patronIdentifier(patronIdentifier)
+        .terminalPassword("1234")
+        .patronPassword("0989")
+        .startItem(Integer.valueOf(item))
+        .endItem(Integer.valueOf(item))
+        .build();
+  }
+
   @Test
   public void patronInformationContainsInvalidPatronWhenUserNotFound(Vertx vertx,
       VertxTestContext testContext,
@@ -1143,7 +1407,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1218,7 +1482,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1293,7 +1557,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1374,7 +1638,7 @@ public class PatronRepositoryTests {
         .patronIdentifier(patronIdentifier)
         .build());
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.failing(patronInformationResponse -> testContext.verify(() -> {
@@ -1431,7 +1695,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1528,7 +1792,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1626,7 +1890,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
         testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
@@ -1698,7 +1962,7 @@ public class PatronRepositoryTests {
 
     final SessionData sessionData = TestUtils.getMockedSessionData();
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performEndPatronSessionCommand(endPatronSession, sessionData).onComplete(
         testContext.succeeding(endSessionResponse -> testContext.verify(() -> {
@@ -1739,7 +2003,7 @@ public class PatronRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
     sessionData.setPatronPasswordVerificationRequired(true);
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performEndPatronSessionCommand(endPatronSession, sessionData).onComplete(
         testContext.succeeding(endSessionResponse -> testContext.verify(() -> {
@@ -1783,7 +2047,7 @@ public class PatronRepositoryTests {
     final SessionData sessionData = TestUtils.getMockedSessionData();
     sessionData.setPatronPasswordVerificationRequired(true);
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performEndPatronSessionCommand(endPatronSession, sessionData).onComplete(
         testContext.succeeding(endSessionResponse -> testContext.verify(() -> {
@@ -1829,7 +2093,7 @@ public class PatronRepositoryTests {
         .patronIdentifier(endPatronSession.getPatronIdentifier())
         .build());
 
-    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+    final PatronRepository patronRepository = newPatronRepository(mockUsersRepository,
         mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
     patronRepository.performEndPatronSessionCommand(endPatronSession, sessionData).onComplete(
         testContext.failing(endSessionResponse -> testContext.verify(() -> {
@@ -1894,4 +2158,13 @@ public class PatronRepositoryTests {
             EnumSet.noneOf(PatronStatus.class),
             null));
   }
+
+  private static PatronRepository newPatronRepository(UsersRepository usersRepository,
+      CirculationRepository circulationRepository, FeeFinesRepository feeFinesRepository,
+      PasswordVerifier passwordVerifier, Clock clock) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new PatronRepository(usersRepository, circulationRepository, feeFinesRepository,
+        passwordVerifier, clock, PatronDetailsCache.disabled(registry),
+        PatronFetchStrategy.defaults(registry), LoanPrefetcher.disabled(registry));
+  }
 }
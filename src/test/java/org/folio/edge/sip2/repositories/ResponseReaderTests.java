@@ -0,0 +1,231 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.math.BigDecimal;
+import java.util.List;
+import org.folio.edge.sip2.repositories.domain.User;
+import org.junit.jupiter.api.Test;
+
+class ResponseReaderTests {
+  private static final ResponseReader<JsonObject> LOANS =
+      ResponseReader.projection("loans", "itemId", "item.title");
+
+  @Test
+  void canProjectCollection() {
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray()
+            .add(getLoan("1", "Title 1"))
+            .add(getLoan("2", "Title 2")))
+        .put("totalRecords", 2)
+        .put("resultInfo", new JsonObject().put("facets", new JsonArray()));
+
+    final JsonObject loans = LOANS.read(response.toBuffer());
+
+    assertEquals(new JsonObject()
+        .put("loans", new JsonArray()
+            .add(new JsonObject()
+                .put("itemId", "1")
+                .put("item", new JsonObject().put("title", "Title 1")))
+            .add(new JsonObject()
+                .put("itemId", "2")
+                .put("item", new JsonObject().put("title", "Title 2"))))
+        .put("totalRecords", 2), loans);
+  }
+
+  @Test
+  void canProjectWholeValues() {
+    final ResponseReader<JsonObject> reader = ResponseReader.projection("accounts",
+        "remaining", "metadata", "tags");
+    final JsonObject response = new JsonObject()
+        .put("accounts", new JsonArray()
+            .add(new JsonObject()
+                .put("id", "a")
+                .put("remaining", 10.5)
+                .put("paid", false)
+                .put("tags", new JsonArray().add("x").add("y"))
+                .put("metadata", new JsonObject().put("createdDate", "2020-01-01"))));
+
+    final JsonObject account = reader.read(response.toBuffer())
+        .getJsonArray("accounts").getJsonObject(0);
+
+    assertEquals(new BigDecimal("10.5"), account.getValue("remaining"));
+    assertEquals(10.5, account.getDouble("remaining"));
+    assertEquals("2020-01-01", account.getJsonObject("metadata").getString("createdDate"));
+    assertEquals(new JsonArray().add("x").add("y"), account.getJsonArray("tags"));
+    assertFalse(account.containsKey("id"));
+    assertFalse(account.containsKey("paid"));
+  }
+
+  @Test
+  void canProjectMissingCollection() {
+    final JsonObject loans = LOANS.read(new JsonObject().put("totalRecords", 0).toBuffer());
+
+    assertTrue(loans.getJsonArray("loans").isEmpty());
+    assertEquals(0, loans.getInteger("totalRecords"));
+  }
+
+  @Test
+  void canSkipNonObjectRecords() {
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray().addNull().add("loan").add(getLoan("1", "Title 1")));
+
+    final JsonObject loans = LOANS.read(response.toBuffer());
+
+    assertEquals(1, loans.getJsonArray("loans").size());
+    assertFalse(loans.containsKey("totalRecords"));
+  }
+
+  @Test
+  void canSkipNestedFieldsOfScalars() {
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray().add(new JsonObject()
+            .put("itemId", "1")
+            .put("item", "not an object")));
+
+    final JsonObject loan = LOANS.read(response.toBuffer())
+        .getJsonArray("loans").getJsonObject(0);
+
+    assertEquals(new JsonObject().put("itemId", "1"), loan);
+  }
+
+  @Test
+  void canReadRecords() {
+    final ResponseReader<List<User>> reader = ResponseReader.records("users", User.class);
+    final JsonObject response = new JsonObject()
+        .put("users", new JsonArray().add(new JsonObject()
+            .put("id", "1234")
+            .put("barcode", "997383903573496")
+            .put("active", true)
+            .put("proxyFor", new JsonArray().add("5678"))
+            .put("personal", new JsonObject()
+                .put("firstName", "Joe")
+                .put("lastName", "Zee"))))
+        .put("totalRecords", 1);
+
+    final List<User> users = reader.read(response.toBuffer());
+
+    assertEquals(1, users.size());
+    assertEquals("1234", users.get(0).getId());
+    assertEquals("997383903573496", users.get(0).getBarcode());
+    assertTrue(users.get(0).getActive());
+    assertEquals("Zee", users.get(0).getPersonal().getLastName());
+  }
+
+  @Test
+  void canProjectObject() {
+    final ResponseReader<JsonObject> reader =
+        ResponseReader.objectProjection("patronGroup.group");
+    final JsonObject response = new JsonObject()
+        .put("user", new JsonObject().put("id", "1234"))
+        .put("patronGroup", new JsonObject()
+            .put("id", "5678")
+            .put("group", "staff"))
+        .put("permissions", new JsonObject().put("permissions", new JsonArray().add("all")));
+
+    assertEquals(new JsonObject().put("patronGroup", new JsonObject().put("group", "staff")),
+        reader.read(response.toBuffer()));
+  }
+
+  @Test
+  void canReadDecodedJson() {
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray().add(getLoan("1", "Title 1")))
+        .put("totalRecords", 1);
+
+    assertEquals(LOANS.read(response.toBuffer()), LOANS.read(response));
+    assertEquals(ResponseReader.objectProjection("totalRecords").read(response.toBuffer()),
+        ResponseReader.objectProjection("totalRecords").read(response));
+  }
+
+  @Test
+  void canReadDecodedJsonWithoutSharingIt() {
+    final ResponseReader<JsonObject> reader = ResponseReader.projection("loans", "item");
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray().add(getLoan("1", "Title 1")));
+
+    final JsonObject loans = reader.read(response);
+    loans.getJsonArray("loans").getJsonObject(0).getJsonObject("item").put("title", "Changed");
+
+    assertEquals("Title 1", response.getJsonArray("loans").getJsonObject(0)
+        .getJsonObject("item").getString("title"));
+  }
+
+  @Test
+  void canReadRecordsFromDecodedJson() {
+    final ResponseReader<List<User>> reader = ResponseReader.records("users", User.class);
+    final JsonObject response = new JsonObject()
+        .put("users", new JsonArray().add(new JsonObject()
+            .put("id", "1234")
+            .put("unknownField", "x")
+            .put("personal", new JsonObject().put("lastName", "Zee"))));
+
+    final List<User> users = reader.read(response);
+
+    assertEquals(1, users.size());
+    assertEquals("Zee", users.get(0).getPersonal().getLastName());
+  }
+
+  @Test
+  void canReadNoBody() {
+    assertNull(LOANS.read((Buffer) null));
+    assertNull(LOANS.read(Buffer.buffer()));
+    assertNull(LOANS.read((JsonObject) null));
+  }
+
+  @Test
+  void cannotReadInvalidJson() {
+    assertThrows(DecodeException.class, () -> LOANS.read(Buffer.buffer("{\"loans\": [")));
+    assertThrows(DecodeException.class, () -> LOANS.read(Buffer.buffer("[]")));
+  }
+
+  @Test
+  void canReadFolioResourceBody() {
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray().add(getLoan("1", "Title 1")));
+    final FolioResource resource = new FolioResource(response.toBuffer(),
+        MultiMap.caseInsensitiveMultiMap());
+
+    assertEquals("Title 1", resource.getResource(LOANS).getJsonArray("loans")
+        .getJsonObject(0).getJsonObject("item").getString("title"));
+    assertEquals(response, resource.getResource());
+
+    // changes to the decoded JSON are seen by readers
+    resource.getResource().getJsonArray("loans").getJsonObject(0).put("itemId", "2");
+    assertEquals("2", resource.getResource(LOANS).getJsonArray("loans")
+        .getJsonObject(0).getString("itemId"));
+  }
+
+  @Test
+  void canCopyFolioResource() {
+    final JsonObject response = new JsonObject()
+        .put("loans", new JsonArray().add(getLoan("1", "Title 1")));
+    final FolioResource resource = new FolioResource(response.toBuffer(),
+        MultiMap.caseInsensitiveMultiMap());
+    final FolioResource copy = resource.copy();
+
+    copy.getResource().put("totalRecords", 1);
+
+    assertFalse(resource.getResource().containsKey("totalRecords"));
+    assertEquals(1, copy.getResource().getInteger("totalRecords"));
+  }
+
+  private static JsonObject getLoan(String itemId, String title) {
+    return new JsonObject()
+        .put("id", "loan-" + itemId)
+        .put("itemId", itemId)
+        .put("action", "checkedout")
+        .put("item", new JsonObject()
+            .put("title", title)
+            .put("barcode", "barcode-" + itemId));
+  }
+}
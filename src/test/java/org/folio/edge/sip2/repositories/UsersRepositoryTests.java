@@ -2,22 +2,32 @@ package org.folio.edge.sip2.repositories;
 
 import static org.folio.edge.sip2.api.support.TestUtils.getJsonFromFile;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.withSettings;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
 import io.vertx.core.impl.NoStackTraceThrowable;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.util.Arrays;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.cache.NegativeResultCache;
+import org.folio.edge.sip2.session.ResponseProfile;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
 import org.junit.jupiter.api.Test;
@@ -32,7 +42,7 @@ public class UsersRepositoryTests {
   public void canCreateUsersRepository(
       @Mock IResourceProvider<IRequestData> mockFolioResource) {
     final UsersRepository usersRepository =
-        new UsersRepository(mockFolioResource);
+        newUsersRepository(mockFolioResource);
 
     assertNotNull(usersRepository);
   }
@@ -41,7 +51,7 @@ public class UsersRepositoryTests {
   public void cannotCreateUsersRepositoryWhenResourceProviderIsNull() {
     final NullPointerException thrown = assertThrows(
         NullPointerException.class,
-        () -> new UsersRepository(null));
+        () -> new UsersRepository(null, null, null));
 
     assertEquals("Resource provider cannot be null", thrown.getMessage());
   }
@@ -78,7 +88,7 @@ public class UsersRepositoryTests {
 
     final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
 
-    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider);
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
     usersRepository.getUserById(barcode, sessionData).onComplete(
         testContext.succeeding(extendedUser -> testContext.verify(() -> {
           assertNotNull(extendedUser);
@@ -119,7 +129,7 @@ public class UsersRepositoryTests {
 
     final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
 
-    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider);
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
     usersRepository.getUserById(username, sessionData).onComplete(
         testContext.succeeding(extendedUser -> testContext.verify(() -> {
           assertNotNull(extendedUser);
@@ -160,7 +170,7 @@ public class UsersRepositoryTests {
 
     final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
 
-    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider);
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
     usersRepository.getUserById(username, sessionData).onComplete(
         testContext.succeeding(extendedUser -> testContext.verify(() -> {
           assertNotNull(extendedUser);
@@ -170,6 +180,34 @@ public class UsersRepositoryTests {
         })));
   }
 
+  @Test
+  void canGetUserWithoutPatronGroupWhenBorrowerTypeIsOff(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final JsonObject userResponse = new JsonObject(getJsonFromFile("json/users_response.json"));
+    final String username = "leslie";
+
+    doReturn(Future.succeededFuture(new FolioResource(userResponse,
+        MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))))
+        .when(mockFolioProvider).retrieveResource(
+        argThat((IRequestData data) -> data.getPath().startsWith("/users?")));
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    sessionData.setResponseProfile(new ResponseProfile(
+        new JsonObject().put("borrowerType", false)));
+
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
+    usersRepository.getUserById(username, sessionData).onComplete(
+        testContext.succeeding(extendedUser -> testContext.verify(() -> {
+          assertNotNull(extendedUser);
+          assertEquals(username, extendedUser.getUser().getUsername());
+          assertNull(extendedUser.getPatronGroup());
+          verify(mockFolioProvider, times(0)).retrieveResource(
+              argThat((IRequestData data) -> data.getPath().startsWith("/bl-users/")));
+          testContext.completeNow();
+        })));
+  }
+
   /**
    * In the unlikely case of multiple user records returning for the same externalSystemId
    * because it's not unique, the service should only return the first record.
@@ -211,7 +249,7 @@ public class UsersRepositoryTests {
 
     final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
 
-    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider);
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
     usersRepository.getUserById(extSystemId, sessionData).onComplete(
         testContext.succeeding(extendedUser -> testContext.verify(() -> {
           assertNotNull(extendedUser);
@@ -239,7 +277,7 @@ public class UsersRepositoryTests {
 
     final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
 
-    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider);
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
     usersRepository.getUserById(barcode, sessionData).onComplete(
         testContext.succeeding(extendedUser -> testContext.verify(() -> {
           assertNull(extendedUser);
@@ -278,7 +316,7 @@ public class UsersRepositoryTests {
 
     final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
 
-    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider);
+    final UsersRepository usersRepository = newUsersRepository(mockFolioProvider);
     usersRepository.getUserById(barcode, sessionData).onComplete(
         testContext.succeeding(extendedUser -> testContext.verify(() -> {
           assertNull(extendedUser);
@@ -286,4 +324,52 @@ public class UsersRepositoryTests {
           testContext.completeNow();
         })));
   }
+
+  @Test
+  public void canBatchUserLookupsByAnyIdentifier() {
+    final BatchedLookup lookup = UsersRepository.UsersByIdentifierLookup.INSTANCE;
+
+    // each identifier is quoted, with quotes and masking characters escaped
+    final String anyOf = "(\"123\" or \"j\\*\\\"\")";
+    assertEquals("/users?limit=6&query=" + Utils.encode("barcode==" + anyOf
+        + " or externalSystemId==" + anyOf + " or username==" + anyOf),
+        lookup.getPath(Arrays.asList("123", "j*\"")));
+    assertTrue(lookup.matches(new JsonObject().put("barcode", "123"), "123"));
+    assertTrue(lookup.matches(new JsonObject().put("username", "jdoe"), "jdoe"));
+    assertTrue(lookup.matches(new JsonObject().put("externalSystemId", "123"), "123"));
+    assertFalse(lookup.matches(new JsonObject().put("barcode", "123"), "jdoe"));
+  }
+
+  @Test
+  public void canSkipLookupOfRecentlyUnknownUser(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final JsonObject noUsers = new JsonObject()
+        .put("users", new JsonArray())
+        .put("totalRecords", 0);
+    doReturn(Future.succeededFuture(new FolioResource(noUsers,
+        MultiMap.caseInsensitiveMultiMap())))
+        .when(mockFolioProvider).retrieveResource(any());
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final NegativeResultCache negativeResultCache = new NegativeResultCache(
+        new JsonObject().put("enabled", true), new MutableClock(), registry);
+    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider,
+        LookupBatcher.disabled(mockFolioProvider, registry), negativeResultCache);
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+
+    assertNull(usersRepository.getUserById("unknown", sessionData).result());
+    assertNull(usersRepository.getUserById("unknown", sessionData).result());
+
+    verify(mockFolioProvider, times(1)).retrieveResource(any());
+    assertEquals(1, registry.get("org.folio.edge.sip2.cache.negative.hits")
+        .tag("kind", "user").counter().count());
+  }
+
+  private static UsersRepository newUsersRepository(
+      IResourceProvider<IRequestData> resourceProvider) {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new UsersRepository(resourceProvider,
+        LookupBatcher.disabled(resourceProvider, registry),
+        NegativeResultCache.disabled(registry));
+  }
 }
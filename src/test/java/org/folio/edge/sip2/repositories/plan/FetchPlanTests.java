@@ -0,0 +1,185 @@
+package org.folio.edge.sip2.repositories.plan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.resilience.Deadline;
+import org.folio.edge.sip2.resilience.DeadlineExceededThrowable;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+
+class FetchPlanTests {
+  @Test
+  void canFetchIndependentNodesInParallel() {
+    final FetchPlan plan = FetchPlan.create("test", TestUtils.getMockedSessionData(),
+        new SimpleMeterRegistry());
+    final Promise<String> first = Promise.promise();
+    final Promise<String> second = Promise.promise();
+    final AtomicInteger started = new AtomicInteger();
+
+    final FetchNode<String> firstNode = plan.node("first", () -> {
+      started.incrementAndGet();
+      return first.future();
+    });
+    final FetchNode<String> secondNode = plan.node("second", () -> {
+      started.incrementAndGet();
+      return second.future();
+    });
+
+    final Future<Void> result = plan.execute();
+    assertEquals(2, started.get());
+    assertFalse(result.isComplete());
+
+    second.complete("b");
+    first.complete("a");
+
+    assertTrue(result.succeeded());
+    assertEquals("a", firstNode.result());
+    assertEquals("b", secondNode.result());
+  }
+
+  @Test
+  void canFetchNodeAfterItsDependencies() {
+    final FetchPlan plan = FetchPlan.create("test", TestUtils.getMockedSessionData(),
+        new SimpleMeterRegistry());
+    final Promise<String> item = Promise.promise();
+
+    final FetchNode<String> itemNode = plan.node("item", item::future);
+    final FetchNode<String> holdingsNode = plan.node("holdings", itemNode,
+        itemResult -> Future.succeededFuture(itemResult + "-holdings"));
+    final FetchNode<String> loanNode = plan.node("loan", itemNode,
+        itemResult -> Future.succeededFuture(itemResult + "-loan"));
+    final FetchNode<String> viewNode = plan.node("view", holdingsNode, loanNode,
+        (holdings, loan) -> Future.succeededFuture(holdings + "," + loan));
+
+    final Future<Void> result = plan.execute();
+    assertFalse(holdingsNode.future().isComplete());
+
+    item.complete("item");
+
+    assertTrue(result.succeeded());
+    assertEquals("item-holdings,item-loan", viewNode.result());
+  }
+
+  @Test
+  void canFetchIdenticalNodesOnce() {
+    final FetchPlan plan = FetchPlan.create("test", TestUtils.getMockedSessionData(),
+        new SimpleMeterRegistry());
+    final AtomicInteger fetched = new AtomicInteger();
+
+    final FetchNode<Integer> first = plan.node("loans",
+        () -> Future.succeededFuture(fetched.incrementAndGet()));
+    final FetchNode<Integer> second = plan.node("loans",
+        () -> Future.succeededFuture(fetched.incrementAndGet()));
+
+    assertSame(first, second);
+    assertTrue(plan.execute().succeeded());
+    assertEquals(1, fetched.get());
+    assertEquals(1, second.result());
+  }
+
+  @Test
+  void cannotRedeclareNodeWithOtherDependencies() {
+    final FetchPlan plan = FetchPlan.create("test", TestUtils.getMockedSessionData(),
+        new SimpleMeterRegistry());
+    final FetchNode<String> loans = plan.node("loans", () -> Future.succeededFuture("loans"));
+    plan.node("recalls", loans, loansResult -> Future.succeededFuture(loansResult));
+
+    assertThrows(IllegalStateException.class,
+        () -> plan.node("recalls", () -> Future.succeededFuture("none")));
+  }
+
+  @Test
+  void canFailWithFailedNode() {
+    final FetchPlan plan = FetchPlan.create("test", TestUtils.getMockedSessionData(),
+        new SimpleMeterRegistry());
+    final AtomicInteger fetched = new AtomicInteger();
+
+    final FetchNode<String> item = plan.node("item", () -> Future.failedFuture("No item"));
+    plan.node("holdings", item, itemResult -> {
+      fetched.incrementAndGet();
+      return Future.succeededFuture("holdings");
+    });
+
+    final Future<Void> result = plan.execute();
+    assertTrue(result.failed());
+    assertEquals("No item", result.cause().getMessage());
+    assertEquals(0, fetched.get());
+  }
+
+  @Test
+  void cannotFetchAfterDeadline() {
+    final MutableClock clock = new MutableClock();
+    final SessionData sessionData = TestUtils.getMockedSessionData()
+        .forTransaction(Deadline.after(Duration.ofMillis(100), clock));
+    final FetchPlan plan = FetchPlan.create("test", sessionData, new SimpleMeterRegistry());
+    final Promise<String> item = Promise.promise();
+    final AtomicInteger fetched = new AtomicInteger();
+
+    final FetchNode<String> itemNode = plan.node("item", item::future);
+    plan.node("holdings", itemNode, itemResult -> {
+      fetched.incrementAndGet();
+      return Future.succeededFuture("holdings");
+    });
+
+    final Future<Void> result = plan.execute();
+    clock.advance(Duration.ofMillis(100));
+    item.complete("item");
+
+    assertTrue(result.failed());
+    assertTrue(result.cause() instanceof DeadlineExceededThrowable);
+    assertEquals("Transaction deadline exceeded before fetching holdings",
+        result.cause().getMessage());
+    assertEquals(0, fetched.get());
+  }
+
+  @Test
+  void canSkipOptionalNodeAfterDeadline() {
+    final MutableClock clock = new MutableClock();
+    final SessionData sessionData = TestUtils.getMockedSessionData()
+        .forTransaction(Deadline.after(Duration.ofMillis(100), clock));
+    final FetchPlan plan = FetchPlan.create("test", sessionData, new SimpleMeterRegistry());
+    final Promise<String> checkin = Promise.promise();
+    final AtomicInteger fetched = new AtomicInteger();
+
+    final FetchNode<String> checkinNode = plan.node("checkin", checkin::future);
+    final FetchNode<String> requestsNode = plan.optionalNode("requests", checkinNode,
+        checkinResult -> {
+          fetched.incrementAndGet();
+          return Future.succeededFuture("requests");
+        });
+
+    final Future<Void> result = plan.execute();
+    clock.advance(Duration.ofMillis(100));
+    checkin.complete("checkin");
+
+    assertTrue(result.succeeded());
+    assertEquals("checkin", checkinNode.result());
+    assertNull(requestsNode.result());
+    assertEquals(0, fetched.get());
+  }
+
+  @Test
+  void canRecordNodeTimings() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final FetchPlan plan = FetchPlan.create("test", TestUtils.getMockedSessionData(), registry);
+
+    plan.node("item", () -> Future.succeededFuture("item"));
+    plan.execute();
+
+    assertTrue(plan.getTimings().containsKey("item"));
+    assertEquals(1, registry.get("org.folio.edge.sip2.fetch.node")
+        .tag("plan", "test").tag("node", "item").timer().count());
+  }
+}
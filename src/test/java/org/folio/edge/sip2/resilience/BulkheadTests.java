@@ -0,0 +1,104 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class BulkheadTests {
+  @Test
+  void canQueueAndRejectRequests() {
+    final Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+    final Promise<String> first = Promise.promise();
+    final Promise<String> second = Promise.promise();
+
+    final Future<String> firstResult = bulkhead.execute(first::future);
+    final Future<String> secondResult = bulkhead.execute(second::future);
+    final Future<String> thirdResult = bulkhead.execute(() -> Future.succeededFuture("third"));
+
+    assertEquals(1, bulkhead.getActive());
+    assertEquals(1, bulkhead.getQueued());
+    assertTrue(thirdResult.failed());
+    assertTrue(thirdResult.cause() instanceof RequestRejectedThrowable);
+    assertEquals("Too many requests to test", thirdResult.cause().getMessage());
+    assertEquals(1, bulkhead.getRejected());
+
+    first.complete("first");
+    assertEquals("first", firstResult.result());
+    assertEquals(1, bulkhead.getActive());
+    assertEquals(0, bulkhead.getQueued());
+    assertTrue(!secondResult.isComplete());
+
+    second.complete("second");
+    assertEquals("second", secondResult.result());
+    assertEquals(0, bulkhead.getActive());
+  }
+
+  @Test
+  void canReleaseWhenTaskThrows() {
+    final Bulkhead bulkhead = new Bulkhead("test", 1, 0);
+
+    final Future<String> result = bulkhead.execute(() -> {
+      throw new IllegalStateException("boom");
+    });
+
+    assertTrue(result.failed());
+    assertEquals(0, bulkhead.getActive());
+    assertTrue(bulkhead.execute(() -> Future.succeededFuture("ok")).succeeded());
+  }
+
+  @Test
+  void canSkipQueuedRequestsPastDeadline() {
+    final MutableClock clock = new MutableClock();
+    final Bulkhead bulkhead = new Bulkhead("test", 1, 2);
+    final Promise<String> first = Promise.promise();
+
+    bulkhead.execute(first::future);
+    final Future<String> expired = bulkhead.execute(
+        Deadline.after(Duration.ofSeconds(1), clock), () -> Future.succeededFuture("expired"));
+    final Future<String> waiting = bulkhead.execute(
+        Deadline.after(Duration.ofSeconds(5), clock), () -> Future.succeededFuture("waiting"));
+    clock.advance(Duration.ofSeconds(2));
+
+    assertTrue(bulkhead.execute(Deadline.after(Duration.ZERO, clock),
+        () -> Future.succeededFuture("late")).cause() instanceof DeadlineExceededThrowable);
+    first.complete("first");
+
+    assertTrue(expired.cause() instanceof DeadlineExceededThrowable);
+    assertEquals("Transaction deadline exceeded while waiting for test",
+        expired.cause().getMessage());
+    assertEquals("waiting", waiting.result());
+    assertEquals(0, bulkhead.getActive());
+    assertEquals(0, bulkhead.getQueued());
+  }
+
+  @Test
+  void canFailQueuedRequestAtDeadline(Vertx vertx, VertxTestContext testContext) {
+    final Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+    final Promise<String> first = Promise.promise();
+
+    vertx.runOnContext(v -> {
+      bulkhead.execute(first::future);
+      bulkhead.execute(Deadline.after(Duration.ofMillis(50), Clock.systemUTC()),
+          () -> Future.succeededFuture("queued"))
+          .onComplete(testContext.failing(throwable -> testContext.verify(() -> {
+            assertTrue(throwable instanceof DeadlineExceededThrowable);
+            // the slot of the queued request is free for others
+            assertEquals(0, bulkhead.getQueued());
+            assertEquals(1, bulkhead.getActive());
+
+            testContext.completeNow();
+          })));
+    });
+  }
+}
@@ -0,0 +1,101 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.impl.NoStackTraceThrowable;
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.repositories.FolioRequestThrowable;
+import org.folio.edge.sip2.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTests {
+  @Test
+  void canOpenAfterConsecutiveFailures() {
+    final CircuitBreaker breaker =
+        new CircuitBreaker("test", 3, Duration.ofSeconds(10), new MutableClock());
+
+    breaker.recordFailure();
+    breaker.recordFailure();
+    assertEquals(State.CLOSED, breaker.getState());
+    assertTrue(breaker.allowRequest());
+
+    breaker.recordFailure();
+    assertEquals(State.OPEN, breaker.getState());
+    assertTrue(breaker.isOpen());
+    assertFalse(breaker.allowRequest());
+  }
+
+  @Test
+  void canResetFailuresOnSuccess() {
+    final CircuitBreaker breaker =
+        new CircuitBreaker("test", 2, Duration.ofSeconds(10), new MutableClock());
+
+    breaker.recordFailure();
+    breaker.recordSuccess();
+    breaker.recordFailure();
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void canCloseAfterSuccessfulTrial() {
+    final MutableClock clock = new MutableClock();
+    final CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(10), clock);
+
+    breaker.recordFailure();
+    clock.advance(Duration.ofSeconds(10));
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.allowRequest());
+    assertFalse(breaker.allowRequest());
+
+    breaker.recordSuccess();
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void canReopenAfterFailedTrial() {
+    final MutableClock clock = new MutableClock();
+    final CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(10), clock);
+
+    breaker.recordFailure();
+    clock.advance(Duration.ofSeconds(11));
+    assertTrue(breaker.allowRequest());
+
+    breaker.recordFailure();
+    assertEquals(State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void canRetryAbandonedTrial() {
+    final MutableClock clock = new MutableClock();
+    final CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(10), clock);
+
+    breaker.recordFailure();
+    clock.advance(Duration.ofSeconds(10));
+    assertTrue(breaker.allowRequest());
+
+    breaker.recordAbandoned();
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  void canClassifyFailures() {
+    assertFalse(CircuitBreaker.isFailure(null));
+    assertFalse(CircuitBreaker.isFailure(new FolioRequestThrowable("Not found", 404)));
+    assertTrue(CircuitBreaker.isFailure(new FolioRequestThrowable("Bad gateway", 502)));
+    assertTrue(CircuitBreaker.isFailure(new FolioRequestThrowable("Unknown")));
+    assertTrue(CircuitBreaker.isFailure(new NoStackTraceThrowable("Connection refused")));
+  }
+
+  @Test
+  void cannotCreateWithInvalidThreshold() {
+    final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+        () -> new CircuitBreaker("test", 0, Duration.ofSeconds(1), new MutableClock()));
+
+    assertEquals("failureThreshold must be greater than 0", thrown.getMessage());
+  }
+}
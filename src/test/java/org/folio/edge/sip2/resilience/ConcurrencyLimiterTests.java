@@ -0,0 +1,193 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class ConcurrencyLimiterTests {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  void canSendEveryRequestWhenDisabled() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ConcurrencyLimiter limiter = ConcurrencyLimiter.disabled(registry);
+
+    for (int i = 0; i < 1000; i++) {
+      limiter.execute("diku", () -> Promise.promise().future());
+    }
+
+    assertFalse(limiter.isEnabled());
+    assertTrue(registry.getMeters().isEmpty());
+  }
+
+  @Test
+  void canRejectOverLimitWithoutContext() {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("minLimit", 2)
+        .put("initialLimit", 2), new SimpleMeterRegistry());
+
+    limiter.execute("diku", () -> Promise.promise().future());
+    limiter.execute("diku", () -> Promise.promise().future());
+    final Future<Object> rejected = limiter.execute("diku", () -> Promise.promise().future());
+    final Future<Object> otherTenant = limiter.execute("test", () -> Promise.promise().future());
+
+    assertTrue(rejected.failed());
+    assertTrue(rejected.cause() instanceof RequestRejectedThrowable);
+    assertEquals("Concurrency limit reached for tenant diku", rejected.cause().getMessage());
+    assertFalse(otherTenant.isComplete());
+    assertEquals(1, limiter.getTenantLimit("diku").rejectedCount());
+  }
+
+  @Test
+  void canQueueUntilSlotIsFree(Vertx vertx, VertxTestContext testContext) {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("minLimit", 1)
+        .put("initialLimit", 1)
+        .put("maxQueueMs", 1000), new SimpleMeterRegistry());
+    final Promise<String> first = Promise.promise();
+
+    vertx.runOnContext(v -> {
+      limiter.execute("diku", first::future);
+      limiter.execute("diku", () -> Future.succeededFuture("second"))
+          .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+            assertEquals("second", result);
+            assertEquals(0, limiter.getTenantLimit("diku").getQueued());
+            testContext.completeNow();
+          })));
+      assertEquals(1, limiter.getTenantLimit("diku").getQueued());
+      vertx.setTimer(50, id -> first.complete("first"));
+    });
+  }
+
+  @Test
+  void canRejectAfterWaitingInQueue(Vertx vertx, VertxTestContext testContext) {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("minLimit", 1)
+        .put("initialLimit", 1)
+        .put("maxQueueMs", 50), new SimpleMeterRegistry());
+
+    vertx.runOnContext(v -> {
+      limiter.execute("diku", () -> Promise.promise().future());
+      limiter.execute("diku", () -> Future.succeededFuture("second"))
+          .onComplete(testContext.failing(t -> testContext.verify(() -> {
+            assertTrue(t instanceof RequestRejectedThrowable);
+            assertEquals(0, limiter.getTenantLimit("diku").getQueued());
+            assertEquals(1, limiter.getTenantLimit("diku").rejectedCount());
+            testContext.completeNow();
+          })));
+    });
+  }
+
+  @Test
+  void canGrowLimitWhileLatencyIsSteady() {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("initialLimit", 10)
+        .put("maxLimit", 50), new SimpleMeterRegistry());
+    final ConcurrencyLimiter.TenantLimit tenantLimit = limiter.getTenantLimit("diku");
+
+    for (int i = 0; i < 100; i++) {
+      tenantLimit.onSample(20 * MILLIS, tenantLimit.getLimit(), false);
+    }
+
+    assertEquals(50, tenantLimit.getLimit());
+  }
+
+  @Test
+  void canShrinkLimitWhenLatencyInflates() {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("initialLimit", 40)
+        .put("minLimit", 5), new SimpleMeterRegistry());
+    final ConcurrencyLimiter.TenantLimit tenantLimit = limiter.getTenantLimit("diku");
+
+    tenantLimit.onSample(20 * MILLIS, 40, false);
+    final int before = tenantLimit.getLimit();
+    for (int i = 0; i < 20; i++) {
+      tenantLimit.onSample(200 * MILLIS, tenantLimit.getLimit(), false);
+    }
+
+    assertTrue(tenantLimit.getLimit() < before);
+    assertTrue(tenantLimit.getLimit() >= 5);
+  }
+
+  @Test
+  void canIgnoreLatencyWhenLightlyLoaded() {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("initialLimit", 40), new SimpleMeterRegistry());
+    final ConcurrencyLimiter.TenantLimit tenantLimit = limiter.getTenantLimit("diku");
+
+    tenantLimit.onSample(20 * MILLIS, 1, false);
+    tenantLimit.onSample(2000 * MILLIS, 1, false);
+
+    assertEquals(40, tenantLimit.getLimit());
+  }
+
+  @Test
+  void canBackOffOnFailures() {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true)
+        .put("initialLimit", 100)
+        .put("backoffRatio", 0.5), new SimpleMeterRegistry());
+    final ConcurrencyLimiter.TenantLimit tenantLimit = limiter.getTenantLimit("diku");
+
+    tenantLimit.onSample(20 * MILLIS, 1, true);
+
+    assertEquals(50, tenantLimit.getLimit());
+  }
+
+  @Test
+  void canReleaseSlotsOnCompletion() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new JsonObject()
+        .put("enabled", true), registry);
+    final List<Promise<Object>> promises = new ArrayList<>();
+
+    for (int i = 0; i < 3; i++) {
+      final Promise<Object> promise = Promise.promise();
+      promises.add(promise);
+      limiter.execute("diku", promise::future);
+    }
+    assertEquals(3, registry.get("org.folio.edge.sip2.folio.concurrency.inflight")
+        .tag("tenant", "diku").gauge().value());
+
+    promises.get(0).complete();
+    promises.get(1).fail(new RequestRejectedThrowable("Too many requests to users"));
+    promises.get(2).fail("Connection refused");
+
+    assertEquals(0, registry.get("org.folio.edge.sip2.folio.concurrency.inflight")
+        .tag("tenant", "diku").gauge().value());
+    // only the failure from FOLIO lowers the limit
+    assertEquals((int) (ConcurrencyLimiter.DEFAULT_INITIAL_LIMIT
+        * ConcurrencyLimiter.DEFAULT_BACKOFF_RATIO),
+        registry.get("org.folio.edge.sip2.folio.concurrency.limit")
+        .tag("tenant", "diku").gauge().value());
+  }
+
+  @Test
+  void cannotCreateWithInvalidBackoffRatio() {
+    final JsonObject options = new JsonObject().put("enabled", true).put("backoffRatio", 1.5);
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(options, registry));
+  }
+}
@@ -0,0 +1,59 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+
+class DeadlinePolicyTests {
+  @Test
+  void cannotSetDeadlineWhenDisabled() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setTimeoutPeriod(50);
+
+    final DeadlinePolicy policy = DeadlinePolicy.disabled();
+
+    assertFalse(policy.isEnabled());
+    assertFalse(policy.forTransaction(sessionData).isBounded());
+  }
+
+  @Test
+  void canUseStationTimeoutPeriod() {
+    final MutableClock clock = new MutableClock();
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setTimeoutPeriod(50);
+
+    final Deadline deadline = new DeadlinePolicy(new JsonObject()
+        .put("enabled", true), clock).forTransaction(sessionData);
+
+    assertTrue(deadline.isBounded());
+    assertEquals(5000, deadline.remainingMillis());
+  }
+
+  @Test
+  void canUseDefaultWithoutStationTimeoutPeriod() {
+    final DeadlinePolicy policy = new DeadlinePolicy(new JsonObject()
+        .put("enabled", true)
+        .put("defaultTimeoutMs", 8000), new MutableClock());
+
+    assertEquals(Duration.ofMillis(8000), policy.getBudget(null));
+    assertEquals(Duration.ofMillis(8000), policy.getBudget(0));
+    assertEquals(Duration.ofMillis(8000), policy.getBudget(999));
+    assertEquals(Duration.ofMillis(100), policy.getBudget(1));
+  }
+
+  @Test
+  void canIgnoreStationTimeoutPeriod() {
+    final DeadlinePolicy policy = new DeadlinePolicy(new JsonObject()
+        .put("enabled", true)
+        .put("useStationTimeout", false), new MutableClock());
+
+    assertEquals(Duration.ofMillis(DeadlinePolicy.DEFAULT_TIMEOUT_MS), policy.getBudget(50));
+  }
+}
@@ -0,0 +1,46 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTests {
+  @Test
+  void canNeverExpireWithoutDeadline() {
+    final Deadline deadline = Deadline.none();
+
+    assertFalse(deadline.isBounded());
+    assertFalse(deadline.isExpired());
+    assertEquals(Long.MAX_VALUE, deadline.remainingMillis());
+  }
+
+  @Test
+  void canExpireAfterBudget() {
+    final MutableClock clock = new MutableClock();
+    final Deadline deadline = Deadline.after(Duration.ofMillis(500), clock);
+
+    assertTrue(deadline.isBounded());
+    assertFalse(deadline.isExpired());
+    assertEquals(500, deadline.remainingMillis());
+
+    clock.advance(Duration.ofMillis(300));
+    assertEquals(200, deadline.remainingMillis());
+
+    clock.advance(Duration.ofMillis(300));
+    assertTrue(deadline.isExpired());
+    assertEquals(0, deadline.remainingMillis());
+  }
+
+  @Test
+  void cannotCreateWithoutBudget() {
+    final NullPointerException thrown = assertThrows(NullPointerException.class,
+        () -> Deadline.after(null, new MutableClock()));
+
+    assertEquals("budget cannot be null", thrown.getMessage());
+  }
+}
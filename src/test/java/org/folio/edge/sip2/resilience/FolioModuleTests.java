@@ -0,0 +1,38 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class FolioModuleTests {
+  @Test
+  void canClassifyPaths() {
+    assertEquals(FolioModule.CIRCULATION,
+        FolioModule.fromPath("/circulation/loans?query=(userId==1)"));
+    assertEquals(FolioModule.CIRCULATION,
+        FolioModule.fromPath("/circulation/check-out-by-barcode"));
+    assertEquals(FolioModule.INVENTORY, FolioModule.fromPath("/inventory/items?limit=1"));
+    assertEquals(FolioModule.INVENTORY, FolioModule.fromPath("/holdings-storage/holdings/1234"));
+    assertEquals(FolioModule.USERS, FolioModule.fromPath("/users?limit=1"));
+    assertEquals(FolioModule.USERS, FolioModule.fromPath("/bl-users/by-id/1234"));
+    assertEquals(FolioModule.FEESFINES, FolioModule.fromPath("/accounts?query=(userId==1)"));
+    assertEquals(FolioModule.FEESFINES, FolioModule.fromPath("/accounts-bulk/pay"));
+    assertEquals(FolioModule.FEESFINES, FolioModule.fromPath("/manualblocks?query=userId"));
+    assertEquals(FolioModule.FEESFINES, FolioModule.fromPath("/feefines?query=(id==1)"));
+    assertEquals(FolioModule.CONFIGURATION,
+        FolioModule.fromPath("/configurations/entries?query=x"));
+    assertEquals(FolioModule.SEARCH, FolioModule.fromPath("/search/instances?limit=1"));
+  }
+
+  @Test
+  void canClassifyUnknownPaths() {
+    assertEquals(FolioModule.OTHER, FolioModule.fromPath("/usersettings"));
+    assertEquals(FolioModule.OTHER, FolioModule.fromPath("/test_retrieve"));
+    assertEquals(FolioModule.OTHER, FolioModule.fromPath(null));
+  }
+
+  @Test
+  void canGetConfigName() {
+    assertEquals("feesfines", FolioModule.FEESFINES.getConfigName());
+  }
+}
@@ -0,0 +1,36 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LoadBudgetTests {
+  @Test
+  void canEarnExtraRequests() {
+    final LoadBudget budget = new LoadBudget(0.25, 10.0, false);
+
+    assertFalse(budget.tryWithdraw());
+    for (int i = 0; i < 4; i++) {
+      budget.deposit();
+    }
+
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void canCapSavedUpRequests() {
+    final LoadBudget budget = new LoadBudget(1.0, 2.0, true);
+
+    for (int i = 0; i < 10; i++) {
+      budget.deposit();
+    }
+
+    assertEquals(2.0, budget.getTokens());
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+  }
+}
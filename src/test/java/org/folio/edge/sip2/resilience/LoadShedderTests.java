@@ -0,0 +1,91 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.impl.NoStackTraceThrowable;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.parser.Command;
+import org.junit.jupiter.api.Test;
+
+class LoadShedderTests {
+  @Test
+  void cannotShedWhenDisabled() {
+    final LoadShedder loadShedder = LoadShedder.disabled();
+
+    for (int i = 0; i < LoadShedder.DEFAULT_MAX_IN_FLIGHT + 1; i++) {
+      loadShedder.requestStarted();
+    }
+
+    assertFalse(loadShedder.isEnabled());
+    assertFalse(loadShedder.isShedding());
+    assertFalse(loadShedder.shouldShed(Command.CHECKOUT));
+  }
+
+  @Test
+  void canShedWhenTooManyRequestsInFlight() {
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("maxInFlight", 2), new MutableClock());
+
+    loadShedder.requestStarted();
+    assertFalse(loadShedder.isShedding());
+
+    loadShedder.requestStarted();
+    assertEquals(2, loadShedder.getInFlight());
+    assertTrue(loadShedder.shouldShed(Command.CHECKOUT));
+    assertTrue(loadShedder.shouldShed(Command.PATRON_INFORMATION));
+    assertFalse(loadShedder.shouldShed(Command.LOGIN));
+    assertFalse(loadShedder.shouldShed(Command.SC_STATUS));
+
+    loadShedder.requestCompleted(null);
+    assertFalse(loadShedder.isShedding());
+  }
+
+  @Test
+  void canShedWhileCircuitIsOpen() {
+    final MutableClock clock = new MutableClock();
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("failureThreshold", 2)
+        .put("openDurationMs", 5000)
+        .put("screenMessage", "Offline"), clock);
+
+    loadShedder.requestStarted();
+    loadShedder.requestCompleted(new NoStackTraceThrowable("Connection refused"));
+    loadShedder.requestStarted();
+    loadShedder.requestCompleted(new NoStackTraceThrowable("Connection refused"));
+
+    assertTrue(loadShedder.shouldShed(Command.CHECKIN));
+    assertEquals("Offline", loadShedder.getScreenMessage());
+
+    clock.advance(Duration.ofSeconds(5));
+    assertFalse(loadShedder.isShedding());
+  }
+
+  @Test
+  void cannotOpenCircuitForRejectedRequests() {
+    final LoadShedder loadShedder = new LoadShedder(new JsonObject()
+        .put("enabled", true)
+        .put("failureThreshold", 1), new MutableClock());
+
+    loadShedder.requestStarted();
+    loadShedder.requestCompleted(new RequestRejectedThrowable("Too many requests to users"));
+
+    assertFalse(loadShedder.isShedding());
+    assertEquals(0, loadShedder.getInFlight());
+  }
+
+  @Test
+  void canDegradeFolioCommandsOnly() {
+    final LoadShedder loadShedder = LoadShedder.disabled();
+
+    assertTrue(loadShedder.hasDegradedResponse(Command.PATRON_INFORMATION));
+    assertTrue(loadShedder.hasDegradedResponse(Command.CHECKIN));
+    assertFalse(loadShedder.hasDegradedResponse(Command.SC_STATUS));
+    assertFalse(loadShedder.hasDegradedResponse(Command.LOGIN));
+  }
+}
@@ -0,0 +1,92 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.folio.edge.sip2.repositories.FolioRequestThrowable;
+import org.junit.jupiter.api.Test;
+
+class ModuleIsolationTests {
+  @Test
+  void canPassThroughWhenDisabled() {
+    final ModuleIsolation isolation = ModuleIsolation.disabled(new SimpleMeterRegistry());
+
+    for (int i = 0; i < 10; i++) {
+      isolation.execute(FolioModule.SEARCH,
+          () -> Future.failedFuture(new FolioRequestThrowable("Unavailable", 503)));
+    }
+
+    assertTrue(isolation.execute(FolioModule.SEARCH, () -> Future.succeededFuture("ok"))
+        .succeeded());
+  }
+
+  @Test
+  void canOpenCircuitPerModule() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ModuleIsolation isolation = new ModuleIsolation(new JsonObject()
+        .put("enabled", true)
+        .put("modules", new JsonObject()
+            .put("search", new JsonObject().put("failureThreshold", 2))),
+        new MutableClock(), registry);
+
+    isolation.execute(FolioModule.SEARCH,
+        () -> Future.failedFuture(new FolioRequestThrowable("Unavailable", 503)));
+    isolation.execute(FolioModule.SEARCH,
+        () -> Future.failedFuture(new FolioRequestThrowable("Unavailable", 503)));
+
+    final Future<String> rejected =
+        isolation.execute(FolioModule.SEARCH, () -> Future.succeededFuture("ok"));
+    assertTrue(rejected.failed());
+    assertTrue(rejected.cause() instanceof RequestRejectedThrowable);
+    assertEquals("search is temporarily unavailable", rejected.cause().getMessage());
+    assertEquals(1, isolation.circuitRejectedCount(FolioModule.SEARCH));
+    assertEquals(1.0, registry.get("org.folio.edge.sip2.folio.circuit.state")
+        .tag("module", "search").gauge().value());
+
+    assertTrue(isolation.execute(FolioModule.CIRCULATION, () -> Future.succeededFuture("ok"))
+        .succeeded());
+  }
+
+  @Test
+  void cannotOpenCircuitForAbandonedRequests() {
+    final ModuleIsolation isolation = new ModuleIsolation(new JsonObject()
+        .put("enabled", true)
+        .put("defaults", new JsonObject().put("failureThreshold", 1)),
+        new MutableClock(), new SimpleMeterRegistry());
+
+    isolation.execute(FolioModule.USERS,
+        () -> Future.failedFuture(new DeadlineExceededThrowable("Deadline exceeded")));
+
+    assertEquals(CircuitBreaker.State.CLOSED,
+        isolation.getCircuitBreaker(FolioModule.USERS).getState());
+  }
+
+  @Test
+  void canLimitConcurrencyPerModule() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final ModuleIsolation isolation = new ModuleIsolation(new JsonObject()
+        .put("enabled", true)
+        .put("defaults", new JsonObject().put("maxConcurrent", 1).put("maxQueue", 0)),
+        new MutableClock(), registry);
+    final Promise<String> pending = Promise.promise();
+
+    isolation.execute(FolioModule.USERS, pending::future);
+    final Future<String> rejected =
+        isolation.execute(FolioModule.USERS, () -> Future.succeededFuture("ok"));
+
+    assertTrue(rejected.failed());
+    assertEquals(1, isolation.getBulkhead(FolioModule.USERS).getActive());
+    assertEquals(1.0, registry.get("org.folio.edge.sip2.folio.rejected")
+        .tag("module", "users").tag("reason", "bulkhead").functionCounter().count());
+    assertTrue(isolation.execute(FolioModule.INVENTORY, () -> Future.succeededFuture("ok"))
+        .succeeded());
+
+    pending.complete("done");
+    assertEquals(0, isolation.getBulkhead(FolioModule.USERS).getActive());
+  }
+}
@@ -0,0 +1,102 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OfflineJournalTests {
+
+  @Test
+  void canRecoverPendingEntries(@TempDir Path directory) throws IOException {
+    final OfflineJournal journal = new OfflineJournal(directory, 4096);
+
+    assertTrue(journal.append("a", new JsonObject().put("item", "111")));
+    assertTrue(journal.append("b", new JsonObject().put("item", "222")));
+    assertFalse(journal.append("a", new JsonObject().put("item", "111")));
+    journal.acknowledge("a");
+
+    final OfflineJournal reopened = new OfflineJournal(directory, 4096);
+
+    assertEquals(1, reopened.size());
+    assertFalse(reopened.isPending("a"));
+    final List<Map.Entry<String, JsonObject>> pending = reopened.pending();
+    assertEquals("b", pending.get(0).getKey());
+    assertEquals("222", pending.get(0).getValue().getString("item"));
+  }
+
+  @Test
+  void canDeleteAcknowledgedSegments(@TempDir Path directory) throws IOException {
+    final OfflineJournal journal = new OfflineJournal(directory, 128);
+    for (int i = 0; i < 10; i++) {
+      journal.append("key-" + i, new JsonObject().put("item", "item-" + i));
+    }
+    assertTrue(journal.segmentCount() > 2);
+
+    // the oldest segment holds a pending entry, so no segment is deleted
+    for (int i = 1; i < 10; i++) {
+      journal.acknowledge("key-" + i);
+    }
+    final int segmentCount = journal.segmentCount();
+    assertEquals(segmentCount, segmentFiles(directory).size());
+
+    journal.acknowledge("key-0");
+
+    assertEquals(1, journal.segmentCount());
+    assertEquals(1, segmentFiles(directory).size());
+    assertEquals(0, new OfflineJournal(directory, 128).size());
+  }
+
+  @Test
+  void canStopAtCorruptRecord(@TempDir Path directory) throws IOException {
+    final OfflineJournal journal = new OfflineJournal(directory, 4096);
+    journal.append("a", new JsonObject().put("item", "111"));
+    journal.append("b", new JsonObject().put("item", "222"));
+
+    final Path segment = segmentFiles(directory).get(0);
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      final int second = OfflineJournal.HEADER_SIZE + file.readInt();
+      // damage the content of the second record
+      file.seek(second + OfflineJournal.HEADER_SIZE + 2L);
+      file.write('X');
+    }
+
+    final OfflineJournal reopened = new OfflineJournal(directory, 4096);
+    assertEquals(1, reopened.size());
+    assertTrue(reopened.isPending("a"));
+
+    // nothing is written after the damaged record
+    reopened.append("c", new JsonObject().put("item", "333"));
+    assertEquals(2, reopened.segmentCount());
+    assertEquals(List.of("a", "c"), new OfflineJournal(directory, 4096).pending().stream()
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList()));
+  }
+
+  @Test
+  void cannotAppendOversizedEntry(@TempDir Path directory) throws IOException {
+    final OfflineJournal journal = new OfflineJournal(directory, 64);
+
+    assertThrows(IOException.class, () -> journal.append("a",
+        new JsonObject().put("item", "a title much too long for a segment of 64 bytes")));
+    assertEquals(0, journal.size());
+  }
+
+  private static List<Path> segmentFiles(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths.sorted().collect(Collectors.toList());
+    }
+  }
+}
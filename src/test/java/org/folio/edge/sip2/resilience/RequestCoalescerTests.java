@@ -0,0 +1,150 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import org.folio.edge.sip2.api.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTests {
+  @Test
+  void canSendEveryRequestWhenDisabled() {
+    final RequestCoalescer coalescer = RequestCoalescer.disabled(new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+    final Promise<String> promise = Promise.promise();
+
+    coalescer.execute(FolioModule.USERS, "key", Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return promise.future();
+    }, UnaryOperator.identity());
+    coalescer.execute(FolioModule.USERS, "key", Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return promise.future();
+    }, UnaryOperator.identity());
+
+    assertFalse(coalescer.isEnabled());
+    assertEquals(2, sent.get());
+  }
+
+  @Test
+  void canShareInFlightRequest() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final RequestCoalescer coalescer =
+        new RequestCoalescer(new JsonObject().put("enabled", true), registry);
+    final AtomicInteger sent = new AtomicInteger();
+    final Promise<String> promise = Promise.promise();
+
+    final Future<String> first = coalescer.execute(FolioModule.USERS, "key",
+        Deadline.none(), () -> {
+          sent.incrementAndGet();
+          return promise.future();
+        }, value -> value + " copy");
+    final Future<String> second = coalescer.execute(FolioModule.USERS, "key",
+        Deadline.none(), () -> {
+          sent.incrementAndGet();
+          return Future.succeededFuture("unexpected");
+        }, value -> value + " copy");
+
+    assertEquals(1, sent.get());
+    assertEquals(1, coalescer.getInFlight());
+
+    promise.complete("value");
+
+    // every caller gets a copy, the one that sent the request as well
+    assertEquals("value copy", first.result());
+    assertEquals("value copy", second.result());
+    assertEquals(0, coalescer.getInFlight());
+    assertEquals(1, coalescer.coalescedCount(FolioModule.USERS));
+    assertEquals(2.0, registry.get("org.folio.edge.sip2.folio.coalescing.requests")
+        .tag("module", "users").counter().count());
+  }
+
+  @Test
+  void canShareFailures() {
+    final RequestCoalescer coalescer =
+        new RequestCoalescer(new JsonObject().put("enabled", true), new SimpleMeterRegistry());
+    final Promise<String> promise = Promise.promise();
+
+    final Future<String> first = coalescer.execute(FolioModule.INVENTORY, "key",
+        Deadline.none(), promise::future, UnaryOperator.identity());
+    final Future<String> second = coalescer.execute(FolioModule.INVENTORY, "key",
+        Deadline.none(), promise::future, UnaryOperator.identity());
+
+    promise.fail("Unavailable");
+
+    assertTrue(first.failed());
+    assertTrue(second.failed());
+    assertEquals("Unavailable", second.cause().getMessage());
+  }
+
+  @Test
+  void cannotShareDeadlineFailures() {
+    final RequestCoalescer coalescer =
+        new RequestCoalescer(new JsonObject().put("enabled", true), new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+    final Promise<String> promise = Promise.promise();
+
+    final Future<String> first = coalescer.execute(FolioModule.INVENTORY, "key",
+        Deadline.none(), promise::future, UnaryOperator.identity());
+    final Future<String> second = coalescer.execute(FolioModule.INVENTORY, "key",
+        Deadline.none(), () -> {
+          sent.incrementAndGet();
+          return Future.succeededFuture("own");
+        }, UnaryOperator.identity());
+
+    // the first caller's request timed out at its deadline
+    promise.fail(new TimeoutException("The timeout period of 10ms has been exceeded"));
+
+    assertTrue(first.failed());
+    assertEquals(1, sent.get());
+    assertEquals("own", second.result());
+  }
+
+  @Test
+  void cannotWaitPastOwnDeadline() {
+    final RequestCoalescer coalescer =
+        new RequestCoalescer(new JsonObject().put("enabled", true), new SimpleMeterRegistry());
+    final MutableClock clock = new MutableClock();
+    final Deadline deadline = Deadline.after(Duration.ofMillis(100), clock);
+    final Promise<String> promise = Promise.promise();
+
+    coalescer.execute(FolioModule.USERS, "key", Deadline.none(), promise::future,
+        UnaryOperator.identity());
+    clock.advance(Duration.ofMillis(100));
+    final Future<String> second = coalescer.execute(FolioModule.USERS, "key", deadline,
+        promise::future, UnaryOperator.identity());
+
+    assertTrue(second.failed());
+    assertTrue(second.cause() instanceof DeadlineExceededThrowable);
+  }
+
+  @Test
+  void cannotShareCompletedRequest() {
+    final RequestCoalescer coalescer =
+        new RequestCoalescer(new JsonObject().put("enabled", true), new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    coalescer.execute(FolioModule.USERS, "key", Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return Future.succeededFuture("first");
+    }, UnaryOperator.identity());
+    final Future<String> second = coalescer.execute(FolioModule.USERS, "key",
+        Deadline.none(), () -> {
+          sent.incrementAndGet();
+          return Future.succeededFuture("second");
+        }, UnaryOperator.identity());
+
+    assertEquals(2, sent.get());
+    assertEquals("second", second.result());
+    assertEquals(0, coalescer.coalescedCount(FolioModule.USERS));
+  }
+}
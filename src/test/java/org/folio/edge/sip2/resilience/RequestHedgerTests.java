@@ -0,0 +1,213 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.repositories.FolioRequestThrowable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class RequestHedgerTests {
+  private static final JsonObject OPTIONS = new JsonObject()
+      .put("enabled", true)
+      .put("minSamples", 1)
+      .put("minDelayMs", 50)
+      .put("maxDelayMs", 50)
+      .put("budgetPercent", 100);
+
+  @Test
+  void canSendOnceWhenDisabled(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = RequestHedger.disabled(new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () -> {
+      sent.incrementAndGet();
+      return Promise.<String>promise().future();
+    }));
+
+    vertx.setTimer(100, id -> testContext.verify(() -> {
+      assertFalse(hedger.isEnabled());
+      assertEquals(1, sent.get());
+      testContext.completeNow();
+    }));
+  }
+
+  @Test
+  void canHedgeSlowRead(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS, new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () ->
+        sent.incrementAndGet() == 1
+            ? Promise.<String>promise().future()
+            : Future.succeededFuture("hedge"))
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          assertEquals("hedge", result);
+          assertEquals(2, sent.get());
+          assertEquals(1, hedger.hedgeCount(FolioModule.USERS));
+          assertEquals(1, hedger.winCount(FolioModule.USERS));
+          testContext.completeNow();
+        }))));
+  }
+
+  @Test
+  void canNotHedgeFastRead(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS, new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () -> {
+      sent.incrementAndGet();
+      return Future.succeededFuture("value");
+    }));
+
+    vertx.setTimer(100, id -> testContext.verify(() -> {
+      assertEquals(1, sent.get());
+      assertEquals(0, hedger.hedgeCount(FolioModule.USERS));
+      testContext.completeNow();
+    }));
+  }
+
+  @Test
+  void canNotHedgeWithoutLatencySamples(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS.copy().put("minSamples", 5),
+        new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () -> {
+      sent.incrementAndGet();
+      return Promise.<String>promise().future();
+    }));
+
+    vertx.setTimer(100, id -> testContext.verify(() -> {
+      assertEquals(0, hedger.getDelayMillis(FolioModule.USERS));
+      assertEquals(1, sent.get());
+      testContext.completeNow();
+    }));
+  }
+
+  @Test
+  void canLimitHedgesToBudget(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS.copy().put("budgetPercent", 50),
+        new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> {
+      for (int i = 0; i < 4; i++) {
+        hedger.execute(FolioModule.USERS, () -> {
+          sent.incrementAndGet();
+          return Promise.<String>promise().future();
+        });
+      }
+    });
+
+    vertx.setTimer(150, id -> testContext.verify(() -> {
+      // four reads earn two hedges
+      assertEquals(6, sent.get());
+      assertEquals(2, hedger.hedgeCount(FolioModule.USERS));
+      testContext.completeNow();
+    }));
+  }
+
+  @Test
+  void canFailFastReadWithoutHedging(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS, new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () -> {
+      sent.incrementAndGet();
+      return Future.<String>failedFuture(new FolioRequestThrowable("Not found", 404));
+    }).onComplete(testContext.failing(t -> vertx.setTimer(100, id -> testContext.verify(() -> {
+      assertEquals(404, ((FolioRequestThrowable) t).getStatusCode());
+      assertEquals(1, sent.get());
+      testContext.completeNow();
+    })))));
+  }
+
+  @Test
+  void canWaitForHedgeWhenFirstReadFails(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS, new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final Promise<String> first = Promise.promise();
+    final Promise<String> second = Promise.promise();
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () ->
+        sent.incrementAndGet() == 1 ? first.future() : second.future())
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          assertEquals("second", result);
+          testContext.completeNow();
+        }))));
+
+    vertx.setTimer(100, id -> {
+      first.fail(new FolioRequestThrowable("Bad gateway", 502));
+      second.complete("second");
+    });
+  }
+
+  @Test
+  void canFailWhenAllReadsFail(Vertx vertx, VertxTestContext testContext) {
+    final RequestHedger hedger = new RequestHedger(OPTIONS, new SimpleMeterRegistry());
+    hedger.recordLatency(FolioModule.USERS, 10);
+    final Promise<String> first = Promise.promise();
+    final Promise<String> second = Promise.promise();
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> hedger.execute(FolioModule.USERS, () ->
+        sent.incrementAndGet() == 1 ? first.future() : second.future())
+        .onComplete(testContext.failing(t -> testContext.verify(() -> {
+          assertEquals("second", t.getMessage());
+          testContext.completeNow();
+        }))));
+
+    vertx.setTimer(100, id -> {
+      first.fail("first");
+      second.fail("second");
+    });
+  }
+
+  @Test
+  void canDelayByPercentileOfLatencies() {
+    final RequestHedger hedger = new RequestHedger(new JsonObject()
+        .put("enabled", true)
+        .put("percentile", 0.9)
+        .put("minSamples", 10)
+        .put("minDelayMs", 5)
+        .put("maxDelayMs", 500), new SimpleMeterRegistry());
+
+    for (int i = 1; i <= 10; i++) {
+      hedger.recordLatency(FolioModule.INVENTORY, i * 10L);
+    }
+    assertEquals(90, hedger.getDelayMillis(FolioModule.INVENTORY));
+    assertEquals(0, hedger.getDelayMillis(FolioModule.USERS));
+
+    final RequestHedger clamped = new RequestHedger(new JsonObject()
+        .put("enabled", true)
+        .put("minSamples", 1)
+        .put("maxDelayMs", 100), new SimpleMeterRegistry());
+    clamped.recordLatency(FolioModule.INVENTORY, 5000);
+    assertEquals(100, clamped.getDelayMillis(FolioModule.INVENTORY));
+  }
+
+  @Test
+  void cannotCreateWithInvalidPercentile() {
+    final JsonObject options = new JsonObject().put("enabled", true).put("percentile", 95);
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    assertThrows(IllegalArgumentException.class, () -> new RequestHedger(options, registry));
+  }
+}
@@ -0,0 +1,143 @@
+package org.folio.edge.sip2.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.GoAway;
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.net.SocketException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.repositories.FolioRequestThrowable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class RequestRetrierTests {
+  private static final JsonObject OPTIONS = new JsonObject()
+      .put("enabled", true)
+      .put("baseBackoffMs", 10)
+      .put("maxBackoffMs", 20);
+
+  @Test
+  void canRetryTransientFailuresOnly() {
+    assertTrue(RequestRetrier.isRetryable(new FolioRequestThrowable("Bad gateway", 502)));
+    assertTrue(RequestRetrier.isRetryable(new FolioRequestThrowable("Unavailable", 503)));
+    assertTrue(RequestRetrier.isRetryable(new SocketException("Connection reset")));
+    assertTrue(RequestRetrier.isRetryable(new HttpClosedException((GoAway) null)));
+    assertFalse(RequestRetrier.isRetryable(new FolioRequestThrowable("Error", 500)));
+    assertFalse(RequestRetrier.isRetryable(new FolioRequestThrowable("Not found", 404)));
+    assertFalse(RequestRetrier.isRetryable(new TimeoutException("Timed out")));
+    assertFalse(RequestRetrier.isRetryable(new RequestRejectedThrowable("Too many")));
+  }
+
+  @Test
+  void canReadOnceWhenDisabled(Vertx vertx, VertxTestContext testContext) {
+    final RequestRetrier retrier = RequestRetrier.disabled(new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> retrier.execute(FolioModule.USERS, Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return Future.failedFuture(new FolioRequestThrowable("Bad gateway", 502));
+    }).onComplete(testContext.failing(t -> testContext.verify(() -> {
+      assertFalse(retrier.isEnabled());
+      assertEquals(1, sent.get());
+      testContext.completeNow();
+    }))));
+  }
+
+  @Test
+  void canRetryTransientFailure(Vertx vertx, VertxTestContext testContext) {
+    final RequestRetrier retrier = new RequestRetrier(OPTIONS, new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> retrier.execute(FolioModule.USERS, Deadline.none(), () ->
+        sent.incrementAndGet() < 3
+            ? Future.failedFuture(new FolioRequestThrowable("Unavailable", 503))
+            : Future.succeededFuture("value"))
+        .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+          assertEquals("value", result);
+          assertEquals(3, sent.get());
+          assertEquals(2, retrier.retryCount(FolioModule.USERS));
+          testContext.completeNow();
+        }))));
+  }
+
+  @Test
+  void cannotRetryMoreThanMaxRetries(Vertx vertx, VertxTestContext testContext) {
+    final RequestRetrier retrier = new RequestRetrier(OPTIONS.copy().put("maxRetries", 1),
+        new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> retrier.execute(FolioModule.USERS, Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return Future.failedFuture(new FolioRequestThrowable("Bad gateway", 502));
+    }).onComplete(testContext.failing(t -> testContext.verify(() -> {
+      assertEquals(502, ((FolioRequestThrowable) t).getStatusCode());
+      assertEquals(2, sent.get());
+      assertEquals(1, retrier.exhaustedCount(FolioModule.USERS));
+      testContext.completeNow();
+    }))));
+  }
+
+  @Test
+  void cannotRetryPermanentFailure(Vertx vertx, VertxTestContext testContext) {
+    final RequestRetrier retrier = new RequestRetrier(OPTIONS, new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> retrier.execute(FolioModule.USERS, Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return Future.failedFuture(new FolioRequestThrowable("Not found", 404));
+    }).onComplete(testContext.failing(t -> testContext.verify(() -> {
+      assertEquals(1, sent.get());
+      assertEquals(0, retrier.retryCount(FolioModule.USERS));
+      assertEquals(0, retrier.exhaustedCount(FolioModule.USERS));
+      testContext.completeNow();
+    }))));
+  }
+
+  @Test
+  void cannotRetryPastDeadline(Vertx vertx, VertxTestContext testContext) {
+    final RequestRetrier retrier = new RequestRetrier(OPTIONS.copy()
+        .put("baseBackoffMs", 10000)
+        .put("maxBackoffMs", 10000), new SimpleMeterRegistry());
+    final Deadline deadline = Deadline.after(Duration.ofMillis(1), Clock.systemUTC());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> retrier.execute(FolioModule.USERS, deadline, () -> {
+      sent.incrementAndGet();
+      return Future.failedFuture(new FolioRequestThrowable("Bad gateway", 502));
+    }).onComplete(testContext.failing(t -> testContext.verify(() -> {
+      assertEquals(1, sent.get());
+      assertEquals(1, retrier.exhaustedCount(FolioModule.USERS));
+      testContext.completeNow();
+    }))));
+  }
+
+  @Test
+  void cannotRetryBeyondBudget(Vertx vertx, VertxTestContext testContext) {
+    final RequestRetrier retrier = new RequestRetrier(OPTIONS.copy()
+        .put("maxRetries", 100)
+        .put("budgetPercent", 0), new SimpleMeterRegistry());
+    final AtomicInteger sent = new AtomicInteger();
+
+    vertx.runOnContext(v -> retrier.execute(FolioModule.INVENTORY, Deadline.none(), () -> {
+      sent.incrementAndGet();
+      return Future.failedFuture(new SocketException("Connection reset"));
+    }).onComplete(testContext.failing(t -> testContext.verify(() -> {
+      // the budget starts with ten retries
+      assertEquals(11, sent.get());
+      assertEquals(10, retrier.retryCount(FolioModule.INVENTORY));
+      testContext.completeNow();
+    }))));
+  }
+}
@@ -0,0 +1,41 @@
+package org.folio.edge.sip2.session;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+class ResponseProfileTests {
+
+  @Test
+  void canPopulateEveryFieldByDefault() {
+    final ResponseProfile profile = ResponseProfile.of(null);
+
+    assertSame(ResponseProfile.FULL, profile);
+    assertTrue(profile.isBorrowerType());
+    assertTrue(profile.isExtendedFees());
+    assertTrue(profile.isRecallItems());
+    assertTrue(profile.isCheckinTitle());
+    assertTrue(profile.isPersonalAddress());
+    assertTrue(profile.isCheckoutTitleFallback());
+    assertSame(ResponseProfile.FULL,
+        SessionData.createSession("diku", '|', false, "IBM850").getResponseProfile());
+  }
+
+  @Test
+  void canTurnOffFields() {
+    final ResponseProfile profile = ResponseProfile.of(new JsonObject()
+        .put("borrowerType", false)
+        .put("recallItems", false)
+        .put("checkoutTitleFallback", false));
+
+    assertFalse(profile.isBorrowerType());
+    assertTrue(profile.isExtendedFees());
+    assertFalse(profile.isRecallItems());
+    assertTrue(profile.isCheckinTitle());
+    assertTrue(profile.isPersonalAddress());
+    assertFalse(profile.isCheckoutTitleFallback());
+  }
+}
@@ -4,10 +4,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import org.folio.edge.sip2.api.support.MutableClock;
 import org.folio.edge.sip2.domain.PreviousMessage;
+import org.folio.edge.sip2.resilience.Deadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -196,4 +201,26 @@ class SessionDataTests {
     assertNotNull(newSessionData.getTimeZone());
     assertFalse(newSessionData.isPatronPasswordVerificationRequired());
   }
+
+  @Test
+  void testForTransaction() {
+    final MutableClock clock = new MutableClock();
+    final SessionData first =
+        sessionData.forTransaction(Deadline.after(Duration.ofSeconds(1), clock));
+    final SessionData second =
+        sessionData.forTransaction(Deadline.after(Duration.ofSeconds(5), clock));
+    clock.advance(Duration.ofSeconds(2));
+
+    // each transaction keeps its own deadline
+    assertTrue(first.getDeadline().isExpired());
+    assertFalse(second.getDeadline().isExpired());
+    assertFalse(sessionData.getDeadline().isBounded());
+    // and shares the state of the session
+    second.setAuthenticationToken("def456");
+    assertEquals("def456", first.getAuthenticationToken());
+    assertEquals("def456", sessionData.getAuthenticationToken());
+    assertEquals(username, first.getUsername());
+    assertSame(sessionData, first.getSession());
+    assertSame(sessionData, second.forTransaction(Deadline.none()).getSession());
+  }
 }
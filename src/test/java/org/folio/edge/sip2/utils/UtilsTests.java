@@ -1,10 +1,12 @@
 package org.folio.edge.sip2.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -58,4 +60,21 @@ public class UtilsTests {
     String url = "item = ab39%3183-194&bp23909&item2 == 23ab3;";
     assertEquals(URLEncoder.encode(url, StandardCharsets.UTF_8), Utils.encode(url));
   }
+
+  @Test
+  void testCqlQuote() {
+    assertEquals("\"1234\"", Utils.cqlQuote("1234"));
+    assertEquals("\"a\\\"b\\\\c\\*d\\?e\\^\"", Utils.cqlQuote("a\"b\\c*d?e^"));
+  }
+
+  @Test
+  void testGetUserIdFromToken() {
+    final String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+        "{\"sub\":\"kiosk\",\"user_id\":\"1234\"}".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("1234", Utils.getUserIdFromToken("eyJhbGciOiJIUzI1NiJ9." + payload + ".sig"));
+    assertNull(Utils.getUserIdFromToken("not a token"));
+    assertNull(Utils.getUserIdFromToken("a.%%%.c"));
+    assertNull(Utils.getUserIdFromToken(null));
+  }
 }